@@ -0,0 +1,27 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.util.Constants;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registers the raw binary game-state endpoint next to the STOMP endpoints of
+ * {@link WebSocketConfig}.
+ */
+@Configuration
+@EnableWebSocket
+public class BinaryChannelConfig implements WebSocketConfigurer {
+
+    private final BinaryGameChannel binaryGameChannel;
+
+    public BinaryChannelConfig(BinaryGameChannel binaryGameChannel) {
+        this.binaryGameChannel = binaryGameChannel;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(binaryGameChannel, Constants.WS_ENDPOINT_BINARY).setAllowedOriginPatterns("*");
+    }
+}
@@ -0,0 +1,231 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimal non-STOMP channel that pushes the game-state stream of one match as
+ * binary WebSocket frames, for clients that only need the high-rate snapshots
+ * (moves and commands still go over STOMP).
+ * <p>
+ * Clients connect to {@code /ws-game?code={code}&token={token}}; the token must
+ * belong to a player in that match (or its lobby). Each frame is one byte of
+ * flags followed by the snapshot: {@link #FLAG_DEFLATE} marks a zlib stream
+ * (see {@link SnapshotCompressor}), {@link #FLAG_DICTIONARY} that it was
+ * deflated against the preset dictionary; without flags the body is plain
+ * UTF-8 JSON. No STOMP headers, SockJS framing or Base64 are involved. While
+ * the fog of war hides players, each connection gets its player's own view
+ * instead of the shared snapshot.
+ * <p>
+ * Slow clients do not hold back the broadcaster: a session whose send buffer
+ * is full drops the oldest pending snapshots instead, since each snapshot
+ * supersedes the previous one.
+ */
+@Component
+public class BinaryGameChannel extends BinaryWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryGameChannel.class);
+
+    public static final byte FLAG_DEFLATE = 0x01;
+    public static final byte FLAG_DICTIONARY = 0x02;
+
+    static final int SEND_TIME_LIMIT_MS = 5000;
+    static final int BUFFER_SIZE_LIMIT = 256 * 1024;
+    private static final String ATTR_CODE = "shipwreckeds.binary.code";
+    private static final String ATTR_USER = "shipwreckeds.binary.user";
+
+    private final AuthService authService;
+    private final SnapshotCompressor compressor;
+    private final TransportMetrics metrics;
+    // match code -> open sessions, each wrapped for thread-safe sends
+    private final Map<String, Set<WebSocketSession>> byCode = new ConcurrentHashMap<>();
+
+    /**
+     * @param authService  resolves the connection token
+     * @param compressor   codec shared with the compressed STOMP channel
+     * @param metrics      per-transport counters
+     * @param matchService registry whose evictions close the match's sessions
+     */
+    public BinaryGameChannel(AuthService authService, SnapshotCompressor compressor, TransportMetrics metrics,
+            MatchService matchService) {
+        this.authService = authService;
+        this.compressor = compressor;
+        this.metrics = metrics;
+        matchService.addEvictionListener(this::closeMatch);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Map<String, String> params = queryParams(session.getUri());
+        String code = params.get("code");
+        PlayerSession player = authService.authenticate(params.get("token"));
+        if (code == null || player == null || !belongsTo(player, code)) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Sesión inválida o no pertenece a la partida."));
+            return;
+        }
+        session.getAttributes().put(ATTR_CODE, code);
+        session.getAttributes().put(ATTR_USER, player.getName());
+        metrics.opened(session.getId(), TransportMetrics.BINARY);
+        byCode.computeIfAbsent(code, k -> ConcurrentHashMap.newKeySet())
+                .add(new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT,
+                        ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP));
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        // output-only channel; inbound frames are counted and ignored
+        metrics.inbound(session.getId());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        metrics.closed(session.getId());
+        Object code = session.getAttributes().get(ATTR_CODE);
+        if (code == null)
+            return;
+        byCode.computeIfPresent((String) code, (k, sessions) -> {
+            sessions.removeIf(s -> s.getId().equals(session.getId()));
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    /**
+     * @param code match code
+     * @return {@code true} while a binary client follows the match
+     */
+    public boolean hasSubscribers(String code) {
+        return code != null && byCode.containsKey(code);
+    }
+
+    /**
+     * @param code     match code
+     * @param username player name
+     * @return {@code true} while that player follows the match on this channel
+     */
+    public boolean hasSubscriber(String code, String username) {
+        Set<WebSocketSession> sessions = code != null ? byCode.get(code) : null;
+        if (sessions == null || username == null)
+            return false;
+        for (WebSocketSession session : sessions) {
+            if (username.equals(session.getAttributes().get(ATTR_USER)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sends one serialized snapshot to every binary client of the match.
+     *
+     * @param code match code
+     * @param json snapshot as UTF-8 JSON
+     */
+    public void publish(String code, byte[] json) {
+        Set<WebSocketSession> sessions = byCode.get(code);
+        if (sessions == null || sessions.isEmpty())
+            return;
+        byte[] frame = frame(json);
+        for (WebSocketSession session : sessions) {
+            send(session, frame);
+        }
+    }
+
+    /**
+     * Sends a player's own view of the match to that player's binary clients
+     * only.
+     *
+     * @param code     match code
+     * @param username player name
+     * @param json     view as UTF-8 JSON
+     */
+    public void publishTo(String code, String username, byte[] json) {
+        Set<WebSocketSession> sessions = byCode.get(code);
+        if (sessions == null || username == null)
+            return;
+        byte[] frame = null;
+        for (WebSocketSession session : sessions) {
+            if (!username.equals(session.getAttributes().get(ATTR_USER)))
+                continue;
+            if (frame == null)
+                frame = frame(json);
+            send(session, frame);
+        }
+    }
+
+    private void send(WebSocketSession session, byte[] frame) {
+        try {
+            session.sendMessage(new BinaryMessage(frame));
+            metrics.outbound(session.getId(), frame.length);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Binary send to {} failed: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the wire frame: flags byte plus JSON or zlib body.
+     *
+     * @param json snapshot as UTF-8 JSON
+     * @return frame bytes
+     */
+    byte[] frame(byte[] json) {
+        boolean deflate = compressor.isEnabled() && json.length >= compressor.getMinBytes();
+        byte[] body = deflate ? compressor.deflate(json) : json;
+        byte flags = 0;
+        if (deflate) {
+            flags |= FLAG_DEFLATE;
+            if (compressor.getDictionaryId() != null)
+                flags |= FLAG_DICTIONARY;
+        }
+        byte[] frame = new byte[body.length + 1];
+        frame[0] = flags;
+        System.arraycopy(body, 0, frame, 1, body.length);
+        return frame;
+    }
+
+    /**
+     * Closes every binary session of an evicted match.
+     *
+     * @param code match code
+     */
+    public void closeMatch(String code) {
+        Set<WebSocketSession> sessions = code != null ? byCode.remove(code) : null;
+        if (sessions == null)
+            return;
+        for (WebSocketSession session : sessions) {
+            try {
+                session.close(CloseStatus.NORMAL);
+            } catch (IOException e) {
+                logger.debug("Closing binary session {} failed: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private static boolean belongsTo(PlayerSession player, String code) {
+        PlayerSession.Binding binding = player.getBinding();
+        if (binding != null && code.equals(binding.getMatch().getCode()))
+            return true;
+        return code.equals(player.getLobbyCode());
+    }
+
+    private static Map<String, String> queryParams(URI uri) {
+        if (uri == null)
+            return Map.of();
+        return UriComponentsBuilder.fromUri(uri).build().getQueryParams().toSingleValueMap();
+    }
+}
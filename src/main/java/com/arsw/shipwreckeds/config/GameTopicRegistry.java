@@ -0,0 +1,378 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.model.dto.GameEvent;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.util.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription registry for the simple broker that keeps exact
+ * {@code /topic/game/{code}...} subscriptions in hash maps keyed by match code
+ * and destination.
+ * <p>
+ * Spring's default registry caches resolved destinations only up to a fixed
+ * limit and falls back to scanning every subscription once that cache churns,
+ * which is what happens with thousands of live matches. Here a game broadcast
+ * costs two hash lookups and returns a prebuilt subscriber map, independent of
+ * how many matches exist. A match's entry lives as long as its subscriptions:
+ * it goes when the last subscriber of a finished match leaves, and when a
+ * match is evicted from {@link MatchService} its subscriptions and cached
+ * destination names are dropped in one step.
+ * <p>
+ * Everything else (lobby and matchmaking topics, user queues, wildcard
+ * patterns and subscriptions with a selector header) is delegated to a
+ * {@link DefaultSubscriptionRegistry}. The registry only notes which users
+ * follow their compressed game queue, so that copy is encoded for them alone.
+ */
+@Component
+public class GameTopicRegistry extends AbstractSubscriptionRegistry {
+
+    private static final String SELECTOR_HEADER = "selector";
+    private static final MultiValueMap<String, String> EMPTY = CollectionUtils
+            .unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    /**
+     * Destination names of one match, built once instead of on every send.
+     */
+    public static final class GameTopics {
+        private final String state;
+        private final String voteStart;
+        private final String voteResult;
+        private final String elimination;
+        private final String events;
+        private final String compressed;
+        private final String npcs;
+
+        GameTopics(String code) {
+            this.state = Constants.WS_TOPIC_GAME + code;
+            this.voteStart = state + Constants.WS_TOPIC_GAME_VOTE_START;
+            this.voteResult = state + Constants.WS_TOPIC_GAME_VOTE_RESULT;
+            this.elimination = state + Constants.WS_TOPIC_GAME_ELIMINATION;
+            this.events = state + Constants.WS_TOPIC_GAME_EVENTS;
+            this.compressed = state + Constants.WS_TOPIC_GAME_COMPRESSED;
+            this.npcs = state + Constants.WS_TOPIC_GAME_NPCS;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public String getVoteStart() {
+            return voteStart;
+        }
+
+        public String getVoteResult() {
+            return voteResult;
+        }
+
+        public String getElimination() {
+            return elimination;
+        }
+
+        public String getEvents() {
+            return events;
+        }
+
+        public String getCompressed() {
+            return compressed;
+        }
+
+        public String getNpcs() {
+            return npcs;
+        }
+
+        /**
+         * @param type {@link GameEvent} type
+         * @return legacy per-event destination for that type
+         */
+        public String legacyFor(String type) {
+            return switch (type) {
+                case GameEvent.VOTE_START -> voteStart;
+                case GameEvent.VOTE_RESULT -> voteResult;
+                case GameEvent.ELIMINATION -> elimination;
+                default -> state;
+            };
+        }
+    }
+
+    private static final class MatchTopics {
+        final GameTopics names;
+        // destination -> immutable sessionId -> subscriptionIds, replaced on every change
+        final Map<String, MultiValueMap<String, String>> subscribers = new ConcurrentHashMap<>();
+
+        MatchTopics(String code) {
+            this.names = new GameTopics(code);
+        }
+    }
+
+    private final Map<String, MatchTopics> byCode = new ConcurrentHashMap<>();
+    // sessionId -> subscriptionId -> destination, for the indexed subscriptions only
+    private final Map<String, Map<String, String>> bySession = new ConcurrentHashMap<>();
+    private final DefaultSubscriptionRegistry fallback = new DefaultSubscriptionRegistry();
+    // sessionId -> subscriptionIds held by the fallback that may match a game topic
+    // (wildcards, or game topics with a selector); while empty, game sends skip it
+    private final Map<String, Set<String>> fallbackGameSubs = new ConcurrentHashMap<>();
+    // username -> sessionId -> subscriptionIds on the user's compressed game queue
+    private final Map<String, Map<String, Set<String>>> compressedViewers = new ConcurrentHashMap<>();
+    // sessionId -> subscriptionId -> username, for the subscriptions above
+    private final Map<String, Map<String, String>> compressedViewerSubs = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a standalone registry (used by tests and by a
+     * {@link com.arsw.shipwreckeds.controller.WebSocketController} built
+     * without Spring).
+     */
+    public GameTopicRegistry() {
+    }
+
+    /**
+     * @param matchService registry whose evictions drop the match's topics
+     */
+    @Autowired
+    public GameTopicRegistry(MatchService matchService) {
+        matchService.addEvictionListener(this::dropMatch);
+    }
+
+    /**
+     * Destination names for a send. Never creates an entry: a match nobody
+     * subscribes to, or one already dropped, gets uncached names.
+     *
+     * @param code match code
+     * @return destination names for the match, cached while it has subscribers
+     */
+    public GameTopics topics(String code) {
+        MatchTopics topics = byCode.get(code);
+        return topics != null ? topics.names : new GameTopics(code);
+    }
+
+    /**
+     * Whether a game destination currently has any subscriber. Conservatively
+     * {@code true} while wildcard or selector subscriptions could match it.
+     *
+     * @param destination exact game destination
+     * @return {@code false} only when nobody can receive a send to it
+     */
+    public boolean hasSubscribers(String destination) {
+        if (!fallbackGameSubs.isEmpty())
+            return true;
+        String code = codeOf(destination);
+        if (code == null)
+            return true;
+        MatchTopics topics = byCode.get(code);
+        return topics != null && topics.subscribers.containsKey(destination);
+    }
+
+    /**
+     * @param username player name
+     * @return {@code true} while one of the player's sessions subscribes to
+     *         /user/queue/game/compressed
+     */
+    public boolean hasCompressedViewer(String username) {
+        return username != null && compressedViewers.containsKey(username);
+    }
+
+    /**
+     * Forgets every subscription and cached destination of a match.
+     *
+     * @param code evicted match code
+     */
+    public void dropMatch(String code) {
+        if (code == null)
+            return;
+        MatchTopics topics = byCode.remove(code);
+        if (topics == null)
+            return;
+        for (Map.Entry<String, MultiValueMap<String, String>> e : topics.subscribers.entrySet()) {
+            for (Map.Entry<String, List<String>> session : e.getValue().entrySet()) {
+                Map<String, String> subs = bySession.get(session.getKey());
+                if (subs != null) {
+                    session.getValue().forEach(subId -> subs.remove(subId, e.getKey()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return matches with live game subscriptions
+     */
+    public int indexedMatches() {
+        return byCode.size();
+    }
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination,
+            Message<?> message) {
+        String code = codeOf(destination);
+        if (code == null || hasSelector(message)) {
+            if (isCompressedView(destination)) {
+                addCompressedViewer(sessionId, subscriptionId, message);
+            }
+            if (isPattern(destination) || destination.startsWith(Constants.WS_TOPIC_GAME)) {
+                fallbackGameSubs.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(subscriptionId);
+            }
+            fallback.registerSubscription(message);
+            return;
+        }
+        bySession.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        // under the code's bin lock, so a concurrent unindex cannot drop the entry meanwhile
+        byCode.compute(code, (c, topics) -> {
+            MatchTopics entry = topics != null ? topics : new MatchTopics(c);
+            entry.subscribers.compute(destination, (d, current) -> {
+                LinkedMultiValueMap<String, String> next = current != null ? new LinkedMultiValueMap<>(current)
+                        : new LinkedMultiValueMap<>();
+                next.add(sessionId, subscriptionId);
+                return CollectionUtils.unmodifiableMultiValueMap(next);
+            });
+            return entry;
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subs = bySession.get(sessionId);
+        String destination = subs != null ? subs.remove(subscriptionId) : null;
+        if (destination == null) {
+            removeCompressedViewer(sessionId, subscriptionId);
+            fallbackGameSubs.computeIfPresent(sessionId, (k, ids) -> {
+                ids.remove(subscriptionId);
+                return ids.isEmpty() ? null : ids;
+            });
+            fallback.unregisterSubscription(message);
+            return;
+        }
+        unindex(sessionId, subscriptionId, destination);
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subs = bySession.remove(sessionId);
+        if (subs != null) {
+            subs.forEach((subscriptionId, destination) -> unindex(sessionId, subscriptionId, destination));
+        }
+        Map<String, String> viewerSubs = compressedViewerSubs.remove(sessionId);
+        if (viewerSubs != null) {
+            viewerSubs.forEach((subscriptionId, username) -> forgetCompressedViewer(username, sessionId,
+                    subscriptionId));
+        }
+        fallbackGameSubs.remove(sessionId);
+        fallback.unregisterAllSubscriptions(sessionId);
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        String code = codeOf(destination);
+        if (code == null)
+            return fallback.findSubscriptions(message);
+        MatchTopics topics = byCode.get(code);
+        MultiValueMap<String, String> exact = topics != null ? topics.subscribers.get(destination) : null;
+        if (fallbackGameSubs.isEmpty())
+            return exact != null ? exact : EMPTY;
+        MultiValueMap<String, String> others = fallback.findSubscriptions(message);
+        if (others.isEmpty())
+            return exact != null ? exact : others;
+        if (exact == null)
+            return others;
+        LinkedMultiValueMap<String, String> merged = new LinkedMultiValueMap<>(exact);
+        others.forEach((session, ids) -> ids.forEach(id -> merged.add(session, id)));
+        return merged;
+    }
+
+    private void unindex(String sessionId, String subscriptionId, String destination) {
+        byCode.computeIfPresent(codeOf(destination), (c, topics) -> {
+            topics.subscribers.computeIfPresent(destination, (d, current) -> {
+                LinkedMultiValueMap<String, String> next = new LinkedMultiValueMap<>(current);
+                List<String> ids = next.get(sessionId);
+                if (ids != null) {
+                    List<String> remaining = new ArrayList<>(ids);
+                    remaining.remove(subscriptionId);
+                    if (remaining.isEmpty()) {
+                        next.remove(sessionId);
+                    } else {
+                        next.put(sessionId, remaining);
+                    }
+                }
+                return next.isEmpty() ? null : CollectionUtils.unmodifiableMultiValueMap(next);
+            });
+            // the last subscriber left (typically once the match is over)
+            return topics.subscribers.isEmpty() ? null : topics;
+        });
+    }
+
+    private void addCompressedViewer(String sessionId, String subscriptionId, Message<?> message) {
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        if (user == null)
+            return;
+        String username = user.getName();
+        compressedViewerSubs.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>()).put(subscriptionId, username);
+        compressedViewers.compute(username, (u, sessions) -> {
+            Map<String, Set<String>> next = sessions != null ? sessions : new ConcurrentHashMap<>();
+            next.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(subscriptionId);
+            return next;
+        });
+    }
+
+    private void removeCompressedViewer(String sessionId, String subscriptionId) {
+        Map<String, String> subs = compressedViewerSubs.get(sessionId);
+        String username = subs != null ? subs.remove(subscriptionId) : null;
+        if (username != null) {
+            forgetCompressedViewer(username, sessionId, subscriptionId);
+        }
+    }
+
+    private void forgetCompressedViewer(String username, String sessionId, String subscriptionId) {
+        compressedViewers.computeIfPresent(username, (u, sessions) -> {
+            sessions.computeIfPresent(sessionId, (k, ids) -> {
+                ids.remove(subscriptionId);
+                return ids.isEmpty() ? null : ids;
+            });
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    /**
+     * @return {@code true} for the compressed game queue once the user
+     *         destination handler resolved it for one session
+     *         ({@code /queue/game/compressed-user{sessionId}})
+     */
+    private static boolean isCompressedView(String destination) {
+        return destination != null && destination.startsWith(Constants.WS_QUEUE_GAME_COMPRESSED + "-user");
+    }
+
+    /**
+     * @return match code of an exact game destination, or {@code null} for
+     *         anything the fallback registry handles
+     */
+    private static String codeOf(String destination) {
+        if (destination == null || !destination.startsWith(Constants.WS_TOPIC_GAME))
+            return null;
+        int start = Constants.WS_TOPIC_GAME.length();
+        int end = destination.indexOf('/', start);
+        String code = end < 0 ? destination.substring(start) : destination.substring(start, end);
+        if (code.isEmpty() || isPattern(destination))
+            return null;
+        return code;
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    private static boolean hasSelector(Message<?> message) {
+        return SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(SELECTOR_HEADER) != null;
+    }
+}
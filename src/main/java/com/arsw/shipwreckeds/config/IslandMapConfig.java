@@ -0,0 +1,56 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+/**
+ * Loads the {@link IslandMap} every match is played on.
+ */
+@Configuration
+public class IslandMapConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IslandMapConfig.class);
+
+    /**
+     * @param mapper         JSON mapper
+     * @param resourceLoader resolves {@code classpath:} and {@code file:}
+     *                       locations
+     * @param location       map file
+     * @return the island map
+     * @throws IllegalStateException if the file is missing or invalid; the server
+     *                               does not start on a broken map
+     */
+    @Bean
+    public IslandMap islandMap(ObjectMapper mapper, ResourceLoader resourceLoader,
+            @Value("${shipwreckeds.map.location:classpath:maps/island.json}") String location) {
+        Resource resource = resourceLoader.getResource(location);
+        IslandMap map;
+        try (InputStream in = resource.getInputStream()) {
+            map = mapper.readValue(in, IslandMap.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo cargar el mapa de la isla desde " + location, e);
+        }
+        if (map.getRadius() <= 0 || map.getBoat() == null)
+            throw new IllegalStateException("Mapa de la isla inválido (radio o barco ausente): " + location);
+        if (map.getObstacles() == null)
+            map.setObstacles(new ArrayList<>());
+        for (IslandMap.Obstacle o : map.getObstacles()) {
+            if (!IslandMap.CIRCLE.equals(o.getKind()) && !IslandMap.RECT.equals(o.getKind()))
+                throw new IllegalStateException("Obstáculo de tipo desconocido en el mapa: " + o.getKind());
+        }
+        logger.info("Mapa '{}' cargado: radio {}, {} obstáculos", map.getName(), map.getRadius(),
+                map.getObstacles().size());
+        return map;
+    }
+}
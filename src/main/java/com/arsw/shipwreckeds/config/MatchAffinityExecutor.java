@@ -0,0 +1,235 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.util.Constants;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor for the client inbound STOMP channel that runs the messages of one
+ * match strictly in order, one at a time, on a shared worker pool.
+ * <p>
+ * Each match (taken from the {@code {code}} in {@code /app/game/{code}/...},
+ * {@code /topic/game/{code}} or {@code /topic/lobby/{code}}) gets a serial
+ * lane that only exists while it has pending work. A lane occupies at most one
+ * worker, so messages of the same match no longer park pool threads on the
+ * match monitor, while other matches keep running on the remaining workers.
+ * <p>
+ * Each STOMP session stays on one lane while it has frames queued or running:
+ * frames without a match (CONNECT, UNSUBSCRIBE, DISCONNECT, heartbeats) follow
+ * the session's current lane, and a session only moves to another match's lane
+ * once it is idle, so a client's frames never overtake each other. An idle
+ * session's frames without a match get a lane of their own.
+ */
+@Component
+public class MatchAffinityExecutor implements TaskExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchAffinityExecutor.class);
+
+    private static final String APP_GAME_PREFIX = "/app/game/";
+    private static final String[] MATCH_PREFIXES = { APP_GAME_PREFIX, Constants.WS_TOPIC_GAME,
+            Constants.WS_TOPIC_LOBBY };
+    // Tasks a lane runs before yielding its worker to other lanes
+    private static final int MAX_BATCH = 32;
+
+    private static final String SESSION_LANE_PREFIX = "session:";
+    private static final String MATCH_LANE_PREFIX = "match:";
+
+    // Lane a session's frames go to while any of them is queued or running
+    private static final class SessionLane {
+        final String lane;
+        int inFlight;
+
+        SessionLane(String lane) {
+            this.lane = lane;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        final String key;
+        // guarded by the lanes map bin lock (all access goes through compute)
+        final Queue<Runnable> pending = new ArrayDeque<>();
+
+        Lane(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            Runnable[] batch = take(this);
+            if (batch == null)
+                return;
+            for (Runnable task : batch) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // a failing frame must not stall the rest of its lane
+                    logger.error("Error al procesar un mensaje STOMP entrante", e);
+                }
+            }
+            executed.addAndGet(batch.length);
+            // yield the worker; the next run picks up frames queued meanwhile
+            workers.execute(this);
+        }
+    }
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, SessionLane> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong queuedInLane = new AtomicLong();
+
+    /**
+     * @param threads worker pool size ({@code 0} = twice the available cores)
+     */
+    public MatchAffinityExecutor(@Value("${shipwreckeds.ws.inbound-threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "ws-inbound-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Message<?> message = task instanceof MessageHandlingRunnable handling ? handling.getMessage() : null;
+        if (message == null) {
+            workers.execute(task);
+            return;
+        }
+        String matchLane = matchLane(message);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            if (matchLane == null) {
+                workers.execute(task);
+            } else {
+                enqueue(matchLane, task);
+            }
+            return;
+        }
+        String[] key = new String[1];
+        sessions.compute(sessionId, (id, session) -> {
+            if (session == null)
+                session = new SessionLane(matchLane != null ? matchLane : SESSION_LANE_PREFIX + id);
+            session.inFlight++;
+            key[0] = session.lane;
+            return session;
+        });
+        enqueue(key[0], () -> {
+            try {
+                task.run();
+            } finally {
+                // an idle session may move to another lane with its next frame
+                sessions.computeIfPresent(sessionId, (id, session) -> --session.inFlight == 0 ? null : session);
+            }
+        });
+    }
+
+    private void enqueue(String key, Runnable task) {
+        Lane[] start = new Lane[1];
+        lanes.compute(key, (k, lane) -> {
+            if (lane == null) {
+                lane = new Lane(k);
+                start[0] = lane;
+            } else {
+                queuedInLane.incrementAndGet();
+            }
+            lane.pending.add(task);
+            return lane;
+        });
+        if (start[0] != null) {
+            workers.execute(start[0]);
+        }
+    }
+
+    /**
+     * Takes the next batch of a lane, dropping the lane once it is drained so
+     * idle matches leave nothing behind.
+     *
+     * @return up to {@link #MAX_BATCH} frames, or {@code null} when drained
+     */
+    private Runnable[] take(Lane lane) {
+        Runnable[][] batch = new Runnable[1][];
+        lanes.compute(lane.key, (k, current) -> {
+            int n = Math.min(MAX_BATCH, lane.pending.size());
+            if (n == 0)
+                return null;
+            Runnable[] taken = new Runnable[n];
+            for (int i = 0; i < n; i++) {
+                taken[i] = lane.pending.poll();
+            }
+            batch[0] = taken;
+            return lane;
+        });
+        return batch[0];
+    }
+
+    /**
+     * Match lane of an inbound frame, when its destination names a match.
+     *
+     * @param message inbound frame
+     * @return lane key, or {@code null} for frames without a match
+     */
+    static String matchLane(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null)
+            return null;
+        for (String prefix : MATCH_PREFIXES) {
+            if (destination.startsWith(prefix)) {
+                int end = destination.indexOf('/', prefix.length());
+                String code = end < 0 ? destination.substring(prefix.length())
+                        : destination.substring(prefix.length(), end);
+                if (!code.isEmpty())
+                    return MATCH_LANE_PREFIX + code;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return number of matches/sessions with queued or running frames
+     */
+    public int activeLanes() {
+        return lanes.size();
+    }
+
+    /**
+     * @return frames handled through a lane since startup
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * @return frames that waited behind another frame of the same match or
+     *         session instead of blocking a worker on the match lock
+     */
+    public long getQueuedInLane() {
+        return queuedInLane.get();
+    }
+
+    /**
+     * Stops the worker pool before the bean is destroyed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
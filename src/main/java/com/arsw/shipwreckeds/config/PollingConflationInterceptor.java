@@ -0,0 +1,195 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.model.dto.ConflationStats;
+import com.arsw.shipwreckeds.util.Constants;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client outbound interceptor that throttles and conflates game-state
+ * snapshots for SockJS polling sessions.
+ * <p>
+ * A polling client only receives what piled up since its last poll, so every
+ * snapshot beyond the newest is serialized, queued and shipped for nothing.
+ * For sessions that {@link TransportMetrics} classifies as
+ * {@link TransportMetrics#SOCKJS_POLLING}, frames on
+ * {@code /topic/game/{code}}, {@code /topic/game/{code}/compressed} and their
+ * per-player counterparts under the fog of war, {@code /user/queue/game} and
+ * {@code /user/queue/game/compressed}, are delivered at most once per interval; a snapshot arriving inside the window
+ * replaces the pending one and is sent when the window closes.
+ * <p>
+ * Everything else passes untouched: vote, elimination and event-envelope
+ * frames, the other user queues, and snapshots sent with the
+ * {@link Constants#WS_HEADER_PRIORITY} header (end of match). Before such a
+ * frame goes out, the session's pending snapshot is flushed so the client never
+ * sees an event ahead of the state that preceded it.
+ */
+@Component
+public class PollingConflationInterceptor implements ChannelInterceptor {
+
+    // marks a frame re-sent by the flusher, so it is not conflated twice
+    static final String FLUSHED_HEADER = "shipwreckeds.conflation.flushed";
+    private static final String USER_GAME_QUEUE = Constants.WS_USER_PREFIX + Constants.WS_QUEUE_GAME;
+    private static final String USER_GAME_QUEUE_COMPRESSED = Constants.WS_USER_PREFIX
+            + Constants.WS_QUEUE_GAME_COMPRESSED;
+
+    private final TransportMetrics transportMetrics;
+    private final long stateIntervalMs;
+    // sessionId -> destination -> slot
+    private final Map<String, Map<String, Slot>> bySession = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "polling-conflation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong stateFrames = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+
+    private static final class Slot {
+        // guarded by this
+        long lastSentMs;
+        Message<?> pending;
+        MessageChannel channel;
+        boolean scheduled;
+    }
+
+    /**
+     * @param transportMetrics classifies sessions by transport
+     * @param stateIntervalMs  minimum spacing of state frames per polling session
+     *                         and topic ({@code 0} disables conflation)
+     */
+    public PollingConflationInterceptor(TransportMetrics transportMetrics,
+            @Value("${shipwreckeds.ws.polling.state-interval-ms:1000}") long stateIntervalMs) {
+        this.transportMetrics = transportMetrics;
+        this.stateIntervalMs = Math.max(0, stateIntervalMs);
+        transportMetrics.addCloseListener(bySession::remove);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (stateIntervalMs == 0
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || message.getHeaders().containsKey(FLUSHED_HEADER))
+            return message;
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (!TransportMetrics.SOCKJS_POLLING.equals(transportMetrics.transportOf(sessionId)))
+            return message;
+
+        String destination = clientDestination(message);
+        if (!isStateDestination(destination)) {
+            flushSession(sessionId);
+            return message;
+        }
+        stateFrames.incrementAndGet();
+        Slot slot = bySession.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(destination, k -> new Slot());
+        long now = System.currentTimeMillis();
+        if (isPriority(message)) {
+            flushSession(sessionId);
+            synchronized (slot) {
+                slot.lastSentMs = now;
+            }
+            delivered.incrementAndGet();
+            return message;
+        }
+        synchronized (slot) {
+            if (slot.pending == null && now - slot.lastSentMs >= stateIntervalMs) {
+                slot.lastSentMs = now;
+                delivered.incrementAndGet();
+                return message;
+            }
+            if (slot.pending != null)
+                conflated.incrementAndGet();
+            slot.pending = message;
+            slot.channel = channel;
+            if (!slot.scheduled) {
+                slot.scheduled = true;
+                long delay = Math.max(0, slot.lastSentMs + stateIntervalMs - now);
+                scheduler.schedule(() -> flush(slot), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return conflation counters
+     */
+    public ConflationStats getStats() {
+        return new ConflationStats(stateIntervalMs, bySession.size(), stateFrames.get(), delivered.get(),
+                conflated.get());
+    }
+
+    private void flushSession(String sessionId) {
+        Map<String, Slot> slots = bySession.get(sessionId);
+        if (slots != null) {
+            slots.values().forEach(this::flush);
+        }
+    }
+
+    private void flush(Slot slot) {
+        Message<?> message;
+        MessageChannel channel;
+        synchronized (slot) {
+            message = slot.pending;
+            channel = slot.channel;
+            slot.pending = null;
+            slot.channel = null;
+            slot.scheduled = false;
+            if (message == null)
+                return;
+            slot.lastSentMs = System.currentTimeMillis();
+        }
+        delivered.incrementAndGet();
+        channel.send(MessageBuilder.fromMessage(message).setHeader(FLUSHED_HEADER, Boolean.TRUE).build());
+    }
+
+    private static boolean isPriority(Message<?> message) {
+        Object nativeHeaders = message.getHeaders().get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        return nativeHeaders instanceof Map<?, ?> headers && headers.containsKey(Constants.WS_HEADER_PRIORITY);
+    }
+
+    /**
+     * @return the destination the client subscribed to: user queues reach this
+     *         channel resolved per session ({@code /queue/game-user{id}}), with
+     *         the {@code /user/...} form kept as the original destination
+     */
+    private static String clientDestination(Message<?> message) {
+        Object original = message.getHeaders().get(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        return original instanceof String name ? name : SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    }
+
+    /**
+     * @return {@code true} for {@code /topic/game/{code}}, its compressed twin
+     *         and the per-player game queues
+     */
+    static boolean isStateDestination(String destination) {
+        if (USER_GAME_QUEUE.equals(destination) || USER_GAME_QUEUE_COMPRESSED.equals(destination))
+            return true;
+        if (destination == null || !destination.startsWith(Constants.WS_TOPIC_GAME))
+            return false;
+        int slash = destination.indexOf('/', Constants.WS_TOPIC_GAME.length());
+        return slash < 0 || destination.substring(slash).equals(Constants.WS_TOPIC_GAME_COMPRESSED);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.service.RateLimiter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Applies the {@link RateLimiter} to every client SEND frame before it reaches
+ * a message handler. Movement commands use the {@code MOVE} budget, anything
+ * else the generic {@code MESSAGE} one. Frames over budget are dropped.
+ */
+@Component
+public class RateLimitInterceptor implements ChannelInterceptor {
+
+    private static final String MOVE_SUFFIX = "/move";
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE)
+            return message;
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        String key = user != null ? user.getName() : SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        RateLimiter.Action action = destination != null && destination.endsWith(MOVE_SUFFIX)
+                ? RateLimiter.Action.MOVE
+                : RateLimiter.Action.MESSAGE;
+        return rateLimiter.tryAcquire(key, action) ? message : null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.util.Constants;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Resolves the login token sent on REST calls (the
+ * {@link Constants#HTTP_HEADER_SESSION_TOKEN} header) to its
+ * {@link PlayerSession}, the REST counterpart of {@link StompAuthInterceptor}.
+ * <p>
+ * Every authenticated call refreshes the session's presence, so players that
+ * drive the game over HTTP alone are not reaped while they play, and the
+ * session is left on the request for the handlers. Calls without a valid token
+ * go through anonymously, as they did before tokens were sent over REST.
+ */
+@Component
+public class RestSessionInterceptor implements HandlerInterceptor {
+
+    /** Request attribute holding the caller's {@link PlayerSession}. */
+    public static final String SESSION_ATTRIBUTE = RestSessionInterceptor.class.getName() + ".session";
+
+    private final AuthService authService;
+
+    public RestSessionInterceptor(AuthService authService) {
+        this.authService = authService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String token = request.getHeader(Constants.HTTP_HEADER_SESSION_TOKEN);
+        if (token == null)
+            return true;
+        PlayerSession session = authService.authenticate(token);
+        if (session != null) {
+            session.touch(System.currentTimeMillis());
+            request.setAttribute(SESSION_ATTRIBUTE, session);
+        }
+        return true;
+    }
+
+    /**
+     * @param request current REST request
+     * @return the caller's session, or {@code null} when the call is anonymous
+     */
+    public static PlayerSession sessionOf(HttpServletRequest request) {
+        Object session = request.getAttribute(SESSION_ATTRIBUTE);
+        return session instanceof PlayerSession playerSession ? playerSession : null;
+    }
+}
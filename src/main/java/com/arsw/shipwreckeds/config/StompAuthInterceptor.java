@@ -0,0 +1,47 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.util.Constants;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates the login token once, on the STOMP CONNECT frame, and attaches the
+ * resulting {@link PlayerSession} as the connection principal. Spring then
+ * stamps that principal on every later message of the connection.
+ * <p>
+ * Connections without a token are accepted anonymously so lobby listeners keep
+ * working, but their game commands are ignored.
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private final AuthService authService;
+
+    public StompAuthInterceptor(AuthService authService) {
+        this.authService = authService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT)
+            return message;
+
+        String token = accessor.getFirstNativeHeader(Constants.STOMP_HEADER_SESSION_TOKEN);
+        if (token == null)
+            return message;
+        PlayerSession session = authService.authenticate(token);
+        if (session == null)
+            throw new MessagingException(message, "Sesión inválida o expirada. Inicia sesión de nuevo.");
+        accessor.setUser(session);
+        return message;
+    }
+}
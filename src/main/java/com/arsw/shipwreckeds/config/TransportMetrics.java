@@ -0,0 +1,203 @@
+package com.arsw.shipwreckeds.config;
+
+import com.arsw.shipwreckeds.model.dto.TransportStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.StreamingSockJsSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-transport connection and message counters for every WebSocket session
+ * the server holds.
+ * <p>
+ * Sessions are classified when they open: plain WebSocket on {@code /ws-native},
+ * the SockJS transports on {@code /ws} (WebSocket, streaming and polling) and
+ * the binary game channel. Per-second rates are recomputed every
+ * {@link #RATE_WINDOW_MS}.
+ */
+@Component
+public class TransportMetrics {
+
+    public static final String WEBSOCKET = "websocket";
+    public static final String SOCKJS_WEBSOCKET = "sockjs-websocket";
+    public static final String SOCKJS_STREAMING = "sockjs-streaming";
+    public static final String SOCKJS_POLLING = "sockjs-polling";
+    public static final String BINARY = "binary";
+
+    static final long RATE_WINDOW_MS = 5000;
+
+    private static final class Counters {
+        final String name;
+        final AtomicInteger open = new AtomicInteger();
+        final LongAdder opened = new LongAdder();
+        final LongAdder messagesIn = new LongAdder();
+        final LongAdder messagesOut = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        // totals at the start of the last window and the rates measured over it
+        long lastIn;
+        long lastOut;
+        volatile double inPerSec;
+        volatile double outPerSec;
+
+        Counters(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Map<String, Counters> byTransport = new ConcurrentHashMap<>();
+    private final Map<String, Counters> bySession = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> closeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "transport-metrics");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public TransportMetrics() {
+        for (String name : List.of(WEBSOCKET, SOCKJS_WEBSOCKET, SOCKJS_STREAMING, SOCKJS_POLLING, BINARY)) {
+            byTransport.put(name, new Counters(name));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::updateRates, RATE_WINDOW_MS, RATE_WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param session session as handed to a WebSocket handler (decorators are
+     *                unwrapped)
+     * @return transport name of the session
+     */
+    public static String classify(WebSocketSession session) {
+        WebSocketSession raw = WebSocketSessionDecorator.unwrap(session);
+        if (!(raw instanceof SockJsSession))
+            return WEBSOCKET;
+        if (raw instanceof PollingSockJsSession)
+            return SOCKJS_POLLING;
+        if (raw instanceof StreamingSockJsSession)
+            return SOCKJS_STREAMING;
+        return SOCKJS_WEBSOCKET;
+    }
+
+    /**
+     * Records a new session.
+     *
+     * @param sessionId WebSocket session id (also the STOMP session id)
+     * @param transport one of the transport constants
+     */
+    public void opened(String sessionId, String transport) {
+        Counters counters = byTransport.computeIfAbsent(transport, Counters::new);
+        if (bySession.putIfAbsent(sessionId, counters) == null) {
+            counters.open.incrementAndGet();
+            counters.opened.increment();
+        }
+    }
+
+    /**
+     * Records a closed session.
+     *
+     * @param sessionId WebSocket session id
+     */
+    public void closed(String sessionId) {
+        Counters counters = bySession.remove(sessionId);
+        if (counters != null) {
+            counters.open.decrementAndGet();
+            closeListeners.forEach(listener -> listener.accept(sessionId));
+        }
+    }
+
+    /**
+     * Registers a callback run with the id of every session that closes, so
+     * per-session state kept elsewhere can be released.
+     *
+     * @param listener receives the closed session id
+     */
+    public void addCloseListener(Consumer<String> listener) {
+        closeListeners.add(listener);
+    }
+
+    /**
+     * Counts one message received from the client.
+     *
+     * @param sessionId WebSocket session id
+     */
+    public void inbound(String sessionId) {
+        Counters counters = bySession.get(sessionId);
+        if (counters != null) {
+            counters.messagesIn.increment();
+        }
+    }
+
+    /**
+     * Counts one message sent to the client.
+     *
+     * @param sessionId WebSocket session id
+     * @param bytes     payload length
+     */
+    public void outbound(String sessionId, int bytes) {
+        Counters counters = bySession.get(sessionId);
+        if (counters != null) {
+            counters.messagesOut.increment();
+            counters.bytesOut.add(bytes);
+        }
+    }
+
+    /**
+     * @param sessionId WebSocket session id
+     * @return transport of an open session, or {@code null} if unknown
+     */
+    public String transportOf(String sessionId) {
+        Counters counters = sessionId != null ? bySession.get(sessionId) : null;
+        return counters != null ? counters.name : null;
+    }
+
+    /**
+     * @return counters of every transport
+     */
+    public TransportStats getStats() {
+        List<TransportStats.Transport> transports = new ArrayList<>(byTransport.size());
+        for (Counters c : byTransport.values()) {
+            transports.add(new TransportStats.Transport(c.name, c.open.get(), c.opened.sum(), c.messagesIn.sum(),
+                    c.messagesOut.sum(), c.bytesOut.sum(), c.inPerSec, c.outPerSec));
+        }
+        transports.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return new TransportStats(RATE_WINDOW_MS, transports);
+    }
+
+    /**
+     * Closes the rate window: per-second rates become the message counts since
+     * the previous call.
+     */
+    void updateRates() {
+        for (Counters c : byTransport.values()) {
+            long in = c.messagesIn.sum();
+            long out = c.messagesOut.sum();
+            c.inPerSec = (in - c.lastIn) * 1000.0 / RATE_WINDOW_MS;
+            c.outPerSec = (out - c.lastOut) * 1000.0 / RATE_WINDOW_MS;
+            c.lastIn = in;
+            c.lastOut = out;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package com.arsw.shipwreckeds.config;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+
+/**
+ * Wraps the STOMP WebSocket handler of both endpoints to feed
+ * {@link TransportMetrics}. The session handed down is decorated so every
+ * frame the broker writes to the client is counted too.
+ */
+public class TransportMetricsHandler extends WebSocketHandlerDecorator {
+
+    private final TransportMetrics metrics;
+
+    public TransportMetricsHandler(WebSocketHandler delegate, TransportMetrics metrics) {
+        super(delegate);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        metrics.opened(session.getId(), TransportMetrics.classify(session));
+        super.afterConnectionEstablished(new CountingSession(session, metrics));
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        metrics.inbound(session.getId());
+        super.handleMessage(session, message);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        metrics.closed(session.getId());
+        super.afterConnectionClosed(session, closeStatus);
+    }
+
+    /**
+     * Counts outbound frames before they reach the transport.
+     */
+    static final class CountingSession extends WebSocketSessionDecorator {
+        private final TransportMetrics metrics;
+
+        CountingSession(WebSocketSession session, TransportMetrics metrics) {
+            super(session);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            super.sendMessage(message);
+            metrics.outbound(getId(), message.getPayloadLength());
+        }
+    }
+}
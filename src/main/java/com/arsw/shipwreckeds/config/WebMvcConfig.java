@@ -0,0 +1,23 @@
+package com.arsw.shipwreckeds.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final RestSessionInterceptor restSessionInterceptor;
+
+    /**
+     * @param restSessionInterceptor resolves session tokens on REST calls
+     */
+    public WebMvcConfig(RestSessionInterceptor restSessionInterceptor) {
+        this.restSessionInterceptor = restSessionInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(restSessionInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -1,23 +1,121 @@
 package com.arsw.shipwreckeds.config;
 
+import com.arsw.shipwreckeds.util.Constants;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthInterceptor stompAuthInterceptor;
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final MatchAffinityExecutor inboundExecutor;
+    private final TransportMetrics transportMetrics;
+    private final PollingConflationInterceptor pollingConflation;
+    private final long heartbeatMs;
+
+    /**
+     * @param stompAuthInterceptor validates session tokens on CONNECT
+     * @param rateLimitInterceptor drops client frames over their budget
+     * @param inboundExecutor      dispatches client frames in per-match order
+     * @param transportMetrics     per-transport connection and message counters
+     * @param pollingConflation    thins game-state frames for SockJS polling
+     *                             sessions
+     * @param heartbeatMs          STOMP heartbeat period in both directions; lets
+     *                             the broker notice dead clients ({@code 0}
+     *                             disables)
+     */
+    public WebSocketConfig(StompAuthInterceptor stompAuthInterceptor,
+            RateLimitInterceptor rateLimitInterceptor,
+            MatchAffinityExecutor inboundExecutor,
+            TransportMetrics transportMetrics,
+            PollingConflationInterceptor pollingConflation,
+            @Value("${shipwreckeds.ws.heartbeat-ms:10000}") long heartbeatMs) {
+        this.stompAuthInterceptor = stompAuthInterceptor;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.inboundExecutor = inboundExecutor;
+        this.transportMetrics = transportMetrics;
+        this.pollingConflation = pollingConflation;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    /**
+     * Swaps the simple broker's pattern-oriented subscription registry for the
+     * exact-match {@link GameTopicRegistry} before the broker starts.
+     */
+    @Bean
+    static BeanPostProcessor gameTopicRegistryInstaller(ObjectProvider<GameTopicRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler broker) {
+                    broker.setSubscriptionRegistry(registry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Drives the broker's STOMP heartbeats. Declared as a bean so the context
+     * initializes it and shuts its thread down on close.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler wsHeartbeatScheduler() {
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setThreadNamePrefix("ws-heartbeat-");
+        heartbeats.setDaemon(true);
+        return heartbeats;
+    }
+
+    /**
+     * {@code /ws} keeps SockJS for browsers and networks that need its
+     * fallbacks; {@code /ws-native} is the same STOMP service over a plain
+     * WebSocket, without SockJS framing or the JSON array wrapping of each frame.
+     */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
+        registry.addEndpoint(Constants.WS_ENDPOINT_SOCKJS).setAllowedOriginPatterns("*").withSockJS();
+        registry.addEndpoint(Constants.WS_ENDPOINT_NATIVE).setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(handler -> new TransportMetricsHandler(handler, transportMetrics));
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        var broker = registry.enableSimpleBroker("/topic", "/queue");
+        if (heartbeatMs > 0) {
+            broker.setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                    .setTaskScheduler(wsHeartbeatScheduler());
+        }
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix(Constants.WS_USER_PREFIX);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // one serial lane per match instead of a shared pool contending on the match lock
+        registration.executor(inboundExecutor);
+        registration.interceptors(stompAuthInterceptor, rateLimitInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(pollingConflation);
     }
 }
@@ -1,7 +1,9 @@
 package com.arsw.shipwreckeds.controller;
 
 import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
 import com.arsw.shipwreckeds.model.dto.LoginRequest;
+import com.arsw.shipwreckeds.model.dto.LoginResponse;
 import com.arsw.shipwreckeds.service.AuthService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -34,7 +36,7 @@ public class AuthController {
 
     /**
      * Attempts to authenticate the provided credentials and returns the associated
-     * player.
+     * player together with the session token for the STOMP connection.
      *
      * @param request payload with username and password
      * @return {@link ResponseEntity} containing the player or an error status if
@@ -44,7 +46,8 @@ public class AuthController {
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
         try {
             Player player = authService.login(request.getUsername(), request.getPassword());
-            return ResponseEntity.ok(player);
+            PlayerSession session = authService.getSession(player.getUsername());
+            return ResponseEntity.ok(new LoginResponse(player, session != null ? session.getToken() : null));
         } catch (IllegalArgumentException e) {
             if (e.getMessage() != null && e.getMessage().contains("ya conectado")) {
                 return ResponseEntity.status(409).body(e.getMessage());
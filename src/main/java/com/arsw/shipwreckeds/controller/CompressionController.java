@@ -0,0 +1,38 @@
+package com.arsw.shipwreckeds.controller;
+
+import com.arsw.shipwreckeds.model.dto.CompressionDictionary;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the preset dictionary of the compressed game-state channel and its
+ * counters.
+ */
+@RestController
+@RequestMapping("/api/compression")
+@CrossOrigin(origins = "*")
+public class CompressionController {
+
+    private final SnapshotCompressor compressor;
+
+    public CompressionController(SnapshotCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    @GetMapping("/dictionary")
+    public ResponseEntity<?> dictionary() {
+        CompressionDictionary dictionary = compressor.getDictionary();
+        if (dictionary == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(dictionary);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(compressor.getStats());
+    }
+}
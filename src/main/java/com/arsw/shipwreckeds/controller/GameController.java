@@ -2,192 +2,72 @@ package com.arsw.shipwreckeds.controller;
 
 import com.arsw.shipwreckeds.model.Match;
 import com.arsw.shipwreckeds.model.MatchStatus;
-import com.arsw.shipwreckeds.model.Npc;
 import com.arsw.shipwreckeds.model.Player;
-import com.arsw.shipwreckeds.model.Position;
-import com.arsw.shipwreckeds.model.dto.AvatarState;
-import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.model.PlayerSession;
 import com.arsw.shipwreckeds.model.dto.MoveCommand;
-import com.arsw.shipwreckeds.service.AuthService;
 import com.arsw.shipwreckeds.service.GameEngine;
-import com.arsw.shipwreckeds.service.MatchService;
-import com.arsw.shipwreckeds.util.Constants;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.stereotype.Controller;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.security.Principal;
 
 /**
- * STOMP message controller that validates and applies movement commands before
- * broadcasting updated game state snapshots.
+ * STOMP message controller that validates movement input and hands it to the
+ * {@link GameEngine}, whose simulation tick moves the avatars and broadcasts
+ * the resulting snapshots.
  */
 @Controller
 public class GameController {
 
-    private static final double ISLAND_RADIUS = 100.0;
-    private static final double BOAT_X = ISLAND_RADIUS + 12.0;
-    private static final double BOAT_Y = 0.0;
-    private static final double BOAT_INTERACTION_RADIUS = 40.0;
-
-    private final MatchService matchService;
-    private final AuthService authService;
-    private final WebSocketController webSocketController;
-
-    private final Map<Long, Long> lastMoveTsByAvatar = new ConcurrentHashMap<>();
+    private final GameEngine gameEngine;
 
     /**
-     * Creates a controller that handles player movement synchronization.
+     * Creates a controller that handles player movement input.
      *
-     * @param matchService        service used to retrieve active matches
-     * @param authService         service that validates player sessions
-     * @param webSocketController broadcaster for updated game state messages
+     * @param gameEngine engine integrating held movement every simulation tick
      */
-    public GameController(MatchService matchService, AuthService authService, WebSocketController webSocketController) {
-        this.matchService = matchService;
-        this.authService = authService;
-        this.webSocketController = webSocketController;
+    public GameController(GameEngine gameEngine) {
+        this.gameEngine = gameEngine;
     }
 
     /**
-     * Processes movement commands sent by clients while enforcing ownership and
-     * rate limiting rules.
+     * Records movement input sent by clients while enforcing ownership. Rate
+     * limiting happens earlier, in {@code RateLimitInterceptor}.
+     * <p>
+     * The issuing player and their avatar come from the {@link PlayerSession}
+     * bound to the connection at CONNECT time and at match start; the
+     * {@code username}/{@code avatarId} fields of the payload are ignored, so a
+     * client can only ever move its own avatar.
+     * <p>
+     * Clients should send a command only when their direction changes, with
+     * {@code hold=true} (a zero vector stops), or a batch of sequenced
+     * {@code inputs}. Commands without the hold flag move the avatar for a short
+     * impulse, which keeps one-message-per-step clients working.
+     * <p>
+     * Accepted input is acknowledged to the mover alone on
+     * {@code /user/queue/move} by the next simulation tick, once it has been
+     * integrated, with the authoritative position, so the client does not wait
+     * for the next shared snapshot.
      *
-     * @param code match identifier extracted from the STOMP destination
-     * @param cmd  payload with avatar id, direction and issuing player
+     * @param code      match identifier extracted from the STOMP destination (used
+     *                  for routing only)
+     * @param cmd       payload with the movement direction or input batch
+     * @param principal session principal attached by {@code StompAuthInterceptor}
      */
     @MessageMapping("/game/{code}/move")
-    public void handleMove(@DestinationVariable String code, MoveCommand cmd) {
-        if (cmd == null || cmd.getUsername() == null || cmd.getAvatarId() == null || cmd.getDirection() == null)
-            return;
-
-        Match match = matchService.getMatchByCode(code);
-        if (match == null)
-            return;
-        if (match.getStatus() == null || !match.getStatus().name().equals(Constants.MATCH_STATUS_STARTED))
-            return;
-
-        // validate session
-        Player session = authService.getPlayer(cmd.getUsername());
-        if (session == null)
-            return;
-
-        // find the player's avatar
-        Player target = match.getPlayers().stream()
-                .filter(p -> p.getId().equals(cmd.getAvatarId()))
-                .findFirst().orElse(null);
-        if (target == null)
-            return; // not found or maybe NPC
-
-        // ownership check
-        if (!target.getUsername().equals(cmd.getUsername())) {
-            // ignoring unauthorized movement attempt
+    public void handleMove(@DestinationVariable String code, MoveCommand cmd, Principal principal) {
+        if (cmd == null || !(principal instanceof PlayerSession session))
             return;
-        }
 
-        // rate limit: 8 Hz -> 125 ms
-        long now = System.currentTimeMillis();
-        Long last = lastMoveTsByAvatar.getOrDefault(target.getId(), 0L);
-        if (now - last < 100) { // allow slightly faster 10Hz tolerance
+        PlayerSession.Binding binding = session.getBinding();
+        if (binding == null)
             return;
-        }
-        lastMoveTsByAvatar.put(target.getId(), now);
-
-        // normalize direction
-        double dx = cmd.getDirection().getDx();
-        double dy = cmd.getDirection().getDy();
-        double len = Math.hypot(dx, dy);
-        if (Double.isNaN(len) || len < 1e-6)
+        Match match = binding.getMatch();
+        Player target = binding.getAvatar();
+        if (match.getStatus() != MatchStatus.STARTED || target.isAfk())
             return;
-        dx /= len;
-        dy /= len;
-
-        // step size
-        double step = ISLAND_RADIUS * 0.035;
 
-        synchronized (match) {
-            Position pos = target.getPosition();
-            if (pos == null) {
-                pos = new Position(0.0, 0.0);
-                target.setPosition(pos);
-            }
-            double proposedX = pos.getX() + dx * step;
-            double proposedY = pos.getY() + dy * step;
-            double distToCenter = Math.hypot(proposedX - 0.0, proposedY - 0.0);
-            double margin = 0.5;
-            if (distToCenter > ISLAND_RADIUS - margin) {
-                double vecX = proposedX;
-                double vecY = proposedY;
-                double plen = Math.hypot(vecX, vecY);
-                if (plen == 0)
-                    plen = 1;
-                double clampedX = (vecX / plen) * (ISLAND_RADIUS - margin);
-                double clampedY = (vecY / plen) * (ISLAND_RADIUS - margin);
-                // update
-                target.moveTo(new Position(clampedX, clampedY));
-            } else {
-                target.moveTo(new Position(proposedX, proposedY));
-            }
-
-            // build GameState snapshot
-            GameState gs = buildGameState(match);
-            webSocketController.broadcastGameState(code, gs);
-        }
-    }
-
-    /**
-     * Builds a {@link GameState} snapshot representing the current state of the
-     * requested match.
-     *
-     * @param match match whose state needs to be broadcast
-     * @return immutable snapshot ready to send over WebSocket
-     */
-    private GameState buildGameState(Match match) {
-        List<AvatarState> avatars = new ArrayList<>();
-        for (Player p : match.getPlayers()) {
-            Position pos = p.getPosition();
-            double x = pos != null ? pos.getX() : 0.0;
-            double y = pos != null ? pos.getY() : 0.0;
-
-            if (p.isInfiltrator()) {
-                String dname = GameEngine.buildNpcAlias(p.getId());
-                avatars.add(new AvatarState(p.getId(), Constants.AVATAR_TYPE_NPC, null, x, y, true, p.isAlive(), dname));
-            } else {
-                avatars.add(new AvatarState(p.getId(), Constants.AVATAR_TYPE_HUMAN, p.getUsername(), x, y, false, p.isAlive(),
-                        p.getUsername()));
-            }
-        }
-
-        for (Npc n : match.getNpcs()) {
-            Position pos = n.getPosition();
-            double x = pos != null ? pos.getX() : 0.0;
-            double y = pos != null ? pos.getY() : 0.0;
-            AvatarState a = new AvatarState(n.getId(), Constants.AVATAR_TYPE_NPC, null, x, y, false, true, n.getDisplayName());
-            avatars.add(a);
-        }
-
-        GameState.Island isl = new GameState.Island(0.0, 0.0, ISLAND_RADIUS);
-        GameState.Boat boat = new GameState.Boat(BOAT_X, BOAT_Y, BOAT_INTERACTION_RADIUS);
-        String status = match.getStatus() != null ? match.getStatus().name() : MatchStatus.WAITING.name();
-
-        // Winner message propagated to the frontend when available
-        String winnerMessage = match.getWinnerMessage();
-
-        return new GameState(
-                match.getCode(),
-                System.currentTimeMillis(),
-                match.getTimerSeconds(),
-                isl,
-                avatars,
-                match.getFuelPercentage(),
-                status,
-                boat,
-                winnerMessage,
-                match.isFuelWindowOpenNow(),
-                match.getFuelWindowSecondsRemaining());
+        gameEngine.submitInput(target, cmd, System.currentTimeMillis());
     }
-
 }
@@ -0,0 +1,126 @@
+package com.arsw.shipwreckeds.controller;
+
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.model.dto.ActionAck;
+import com.arsw.shipwreckeds.model.dto.FuelActionRequest;
+import com.arsw.shipwreckeds.model.dto.VoteRequest;
+import com.arsw.shipwreckeds.service.ActionRejectedException;
+import com.arsw.shipwreckeds.service.MatchActionService;
+import com.arsw.shipwreckeds.service.RateLimiter;
+import com.arsw.shipwreckeds.util.Constants;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * STOMP entry points for in-match actions (vote start, vote, elimination and
+ * fuel) so clients can use the WebSocket they already hold instead of one HTTP
+ * request per action.
+ * <p>
+ * Each handler runs the same {@link MatchActionService} action as the REST
+ * endpoint in {@link MatchController}, rate limited per player, and replies
+ * only to the issuing connection on {@code /user/queue/actions} with an
+ * {@link ActionAck}. The
+ * acting player is always the {@link PlayerSession} bound at CONNECT time; any
+ * {@code username} in the payload is overwritten.
+ */
+@Controller
+public class MatchActionController {
+
+    private final MatchActionService matchActionService;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * @param matchActionService action logic shared with the REST endpoints
+     * @param rateLimiter        per-player action budgets
+     */
+    public MatchActionController(MatchActionService matchActionService, RateLimiter rateLimiter) {
+        this.matchActionService = matchActionService;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @MessageMapping("/game/{code}/startVote")
+    @SendToUser(destinations = Constants.WS_QUEUE_ACTIONS, broadcast = false)
+    public ActionAck startVote(@DestinationVariable String code, Principal principal) {
+        if (!(principal instanceof PlayerSession session))
+            return unauthenticated("startVote", code);
+        if (!rateLimiter.tryAcquire(session.getName(), RateLimiter.Action.START_VOTE))
+            return tooManyRequests("startVote", code);
+        try {
+            return ok("startVote", code, matchActionService.startVote(code, session.getName()));
+        } catch (ActionRejectedException e) {
+            return rejected("startVote", code, e);
+        }
+    }
+
+    @MessageMapping("/game/{code}/vote")
+    @SendToUser(destinations = Constants.WS_QUEUE_ACTIONS, broadcast = false)
+    public ActionAck submitVote(@DestinationVariable String code, VoteRequest req, Principal principal) {
+        if (!(principal instanceof PlayerSession session))
+            return unauthenticated("vote", code);
+        if (!rateLimiter.tryAcquire(session.getName(), RateLimiter.Action.VOTE))
+            return tooManyRequests("vote", code);
+        VoteRequest own = new VoteRequest(session.getName(), req != null ? req.getTargetId() : null);
+        try {
+            return ok("vote", code, matchActionService.submitVote(code, own));
+        } catch (ActionRejectedException e) {
+            return rejected("vote", code, e);
+        }
+    }
+
+    @MessageMapping("/game/{code}/eliminate")
+    @SendToUser(destinations = Constants.WS_QUEUE_ACTIONS, broadcast = false)
+    public ActionAck eliminate(@DestinationVariable String code, VoteRequest req, Principal principal) {
+        if (!(principal instanceof PlayerSession session))
+            return unauthenticated("eliminate", code);
+        if (!rateLimiter.tryAcquire(session.getName(), RateLimiter.Action.ELIMINATE))
+            return tooManyRequests("eliminate", code);
+        VoteRequest own = new VoteRequest(session.getName(), req != null ? req.getTargetId() : null);
+        try {
+            return ok("eliminate", code, matchActionService.eliminate(code, own));
+        } catch (ActionRejectedException e) {
+            return rejected("eliminate", code, e);
+        }
+    }
+
+    @MessageMapping("/game/{code}/fuel")
+    @SendToUser(destinations = Constants.WS_QUEUE_ACTIONS, broadcast = false)
+    public ActionAck modifyFuel(@DestinationVariable String code, FuelActionRequest req, Principal principal) {
+        if (!(principal instanceof PlayerSession session))
+            return unauthenticated("fuel", code);
+        if (!rateLimiter.tryAcquire(session.getName(), RateLimiter.Action.FUEL))
+            return tooManyRequests("fuel", code);
+        FuelActionRequest own = new FuelActionRequest();
+        own.setUsername(session.getName());
+        if (req != null) {
+            own.setAction(req.getAction());
+            own.setAmount(req.getAmount());
+        }
+        try {
+            return ok("fuel", code, matchActionService.modifyFuel(code, own));
+        } catch (ActionRejectedException e) {
+            return rejected("fuel", code, e);
+        }
+    }
+
+    private static ActionAck ok(String action, String code, Object body) {
+        return new ActionAck(action, code, HttpStatus.OK.value(), true, body);
+    }
+
+    private static ActionAck rejected(String action, String code, ActionRejectedException e) {
+        return new ActionAck(action, code, e.getStatus(), false, e.getMessage());
+    }
+
+    private static ActionAck tooManyRequests(String action, String code) {
+        return new ActionAck(action, code, HttpStatus.TOO_MANY_REQUESTS.value(), false, Constants.RATE_LIMITED);
+    }
+
+    private static ActionAck unauthenticated(String action, String code) {
+        return new ActionAck(action, code, HttpStatus.UNAUTHORIZED.value(), false,
+                "Usuario no conectado. Inicia sesión primero.");
+    }
+}
@@ -0,0 +1,60 @@
+package com.arsw.shipwreckeds.controller;
+
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.dto.QueueRequest;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.MatchmakingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the quick-play queue. Placement results are pushed to
+ * the player's /user/queue/matchmaking once a lobby has been formed and
+ * started.
+ */
+@RestController
+@RequestMapping("/api/matchmaking")
+@CrossOrigin(origins = "*")
+public class MatchmakingController {
+
+    private final MatchmakingService matchmakingService;
+    private final AuthService authService;
+
+    public MatchmakingController(MatchmakingService matchmakingService, AuthService authService) {
+        this.matchmakingService = matchmakingService;
+        this.authService = authService;
+    }
+
+    @PostMapping("/enqueue")
+    public ResponseEntity<?> enqueue(@RequestBody QueueRequest req) {
+        Player player = authService.getPlayer(req.getUsername());
+        if (player == null) {
+            return ResponseEntity.badRequest().body("Usuario no conectado. Inicia sesión primero.");
+        }
+        try {
+            matchmakingService.enqueue(player);
+            return ResponseEntity.accepted().body("En cola de emparejamiento.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{username}")
+    public ResponseEntity<?> cancel(@PathVariable String username) {
+        if (matchmakingService.cancel(username))
+            return ResponseEntity.ok().build();
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(matchmakingService.getStats());
+    }
+}
@@ -0,0 +1,36 @@
+package com.arsw.shipwreckeds.controller;
+
+import com.arsw.shipwreckeds.service.NpcBrain;
+import com.arsw.shipwreckeds.service.NpcNavigator;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the NPC behavior, level-of-detail and pathfinding counters.
+ */
+@RestController
+@RequestMapping("/api/npcs")
+@CrossOrigin(origins = "*")
+public class NpcController {
+
+    private final NpcBrain npcBrain;
+    private final NpcNavigator npcNavigator;
+
+    public NpcController(NpcBrain npcBrain, NpcNavigator npcNavigator) {
+        this.npcBrain = npcBrain;
+        this.npcNavigator = npcNavigator;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(npcBrain.getStats());
+    }
+
+    @GetMapping("/nav")
+    public ResponseEntity<?> nav() {
+        return ResponseEntity.ok(npcNavigator.getStats());
+    }
+}
@@ -0,0 +1,28 @@
+package com.arsw.shipwreckeds.controller;
+
+import com.arsw.shipwreckeds.service.RateLimiter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the rate limiter counters.
+ */
+@RestController
+@RequestMapping("/api/ratelimit")
+@CrossOrigin(origins = "*")
+public class RateLimitController {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitController(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(rateLimiter.getStats());
+    }
+}
@@ -0,0 +1,46 @@
+package com.arsw.shipwreckeds.controller;
+
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.SpectatorService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Read-only Server-Sent Events stream of a match for spectators, plus its
+ * counters.
+ */
+@RestController
+@CrossOrigin(origins = "*")
+public class SpectatorController {
+
+    private final SpectatorService spectatorService;
+    private final MatchService matchService;
+
+    public SpectatorController(SpectatorService spectatorService, MatchService matchService) {
+        this.spectatorService = spectatorService;
+        this.matchService = matchService;
+    }
+
+    /**
+     * Streams decimated snapshots of the match as {@code state} events.
+     *
+     * @param code match code
+     * @return SSE stream, or 404 when the match does not exist
+     */
+    @GetMapping(path = "/api/match/{code}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable String code) {
+        if (matchService.getMatchByCode(code) == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(spectatorService.subscribe(code));
+    }
+
+    @GetMapping("/api/spectators/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(spectatorService.getStats());
+    }
+}
@@ -0,0 +1,37 @@
+package com.arsw.shipwreckeds.controller;
+
+import com.arsw.shipwreckeds.config.PollingConflationInterceptor;
+import com.arsw.shipwreckeds.config.TransportMetrics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the per-transport WebSocket counters and the polling conflation
+ * counters.
+ */
+@RestController
+@RequestMapping("/api/transport")
+@CrossOrigin(origins = "*")
+public class TransportController {
+
+    private final TransportMetrics transportMetrics;
+    private final PollingConflationInterceptor pollingConflation;
+
+    public TransportController(TransportMetrics transportMetrics, PollingConflationInterceptor pollingConflation) {
+        this.transportMetrics = transportMetrics;
+        this.pollingConflation = pollingConflation;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(transportMetrics.getStats());
+    }
+
+    @GetMapping("/conflation")
+    public ResponseEntity<?> conflation() {
+        return ResponseEntity.ok(pollingConflation.getStats());
+    }
+}
@@ -1,37 +1,178 @@
 package com.arsw.shipwreckeds.controller;
 
+import com.arsw.shipwreckeds.config.BinaryGameChannel;
+import com.arsw.shipwreckeds.config.GameTopicRegistry;
 import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.dto.GameEvent;
+import com.arsw.shipwreckeds.model.dto.GameEventBatch;
+import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.model.dto.LobbyView;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
 import com.arsw.shipwreckeds.util.Constants;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
 @Controller
 public class WebSocketController {
 
+    private static final Map<String, Object> PRIORITY_HEADERS = Map.of(Constants.WS_HEADER_PRIORITY, "high");
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final GameTopicRegistry gameTopics;
+    private final SnapshotCompressor compressor;
+    private final BinaryGameChannel binaryChannel;
+    private final long lobbyDebounceMs;
+    private final List<BiConsumer<String, Object>> stateListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Match> pendingLobbyUpdates = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService lobbyScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "lobby-broadcast");
+        t.setDaemon(true);
+        return t;
+    });
 
-    public WebSocketController(SimpMessagingTemplate messagingTemplate) {
+    /**
+     * @param messagingTemplate broker template
+     * @param gameTopics        broker subscription registry, also the cache of
+     *                          per-match destination names
+     * @param compressor        codec of the opt-in compressed state channel
+     * @param binaryChannel     raw binary game-state endpoint
+     * @param lobbyDebounceMs   window in which lobby updates are coalesced
+     */
+    public WebSocketController(SimpMessagingTemplate messagingTemplate,
+            GameTopicRegistry gameTopics,
+            SnapshotCompressor compressor,
+            BinaryGameChannel binaryChannel,
+            @Value("${shipwreckeds.lobby.broadcast-debounce-ms:100}") long lobbyDebounceMs) {
         this.messagingTemplate = messagingTemplate;
+        this.gameTopics = gameTopics;
+        this.compressor = compressor;
+        this.binaryChannel = binaryChannel;
+        this.lobbyDebounceMs = lobbyDebounceMs;
     }
 
     /**
-     * Envía el estado del lobby a todos los suscriptores en /topic/lobby/{code}
+     * Envía el {@link LobbyView} a todos los suscriptores en /topic/lobby/{code}.
+     * Las ráfagas de uniones dentro de la ventana de debounce se agrupan en un
+     * único envío con el estado más reciente; los cambios de estado (inicio o fin)
+     * se envían de inmediato.
      */
     public void broadcastLobbyUpdate(Match match) {
         if (match == null || match.getCode() == null)
             return;
-        String dest = "/topic/lobby/" + match.getCode();
-        messagingTemplate.convertAndSend(dest, match);
+        String code = match.getCode();
+        if (lobbyDebounceMs <= 0 || match.getStatus() != MatchStatus.WAITING) {
+            pendingLobbyUpdates.remove(code);
+            sendLobbyView(match);
+            return;
+        }
+        if (pendingLobbyUpdates.putIfAbsent(code, match) == null) {
+            lobbyScheduler.schedule(() -> flushLobbyUpdate(code), lobbyDebounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushLobbyUpdate(String code) {
+        Match match = pendingLobbyUpdates.remove(code);
+        if (match != null) {
+            sendLobbyView(match);
+        }
+    }
+
+    private void sendLobbyView(Match match) {
+        LobbyView view;
+        synchronized (match) {
+            view = LobbyView.of(match, MatchService.MAX_PLAYERS);
+        }
+        messagingTemplate.convertAndSend(Constants.WS_TOPIC_LOBBY + match.getCode(), view);
     }
 
     /**
-     * Publica el GameState completo a /topic/game/{code}
+     * Publica el GameState completo a /topic/game/{code}. Si alguien se suscribió
+     * a /topic/game/{code}/compressed, también se publica ahí comprimido (ver
+     * {@link SnapshotCompressor}), y si hay clientes en el canal binario
+     * /ws-game se les envía como frame binario. Ambos reutilizan una sola
+     * serialización. El estado final de la partida lleva la cabecera
+     * {@code priority} para que ninguna sesión lo reciba con retraso.
      */
     public void broadcastGameState(String code, Object gameState) {
         if (code == null)
             return;
-        String dest = Constants.WS_TOPIC_GAME + code;
-        messagingTemplate.convertAndSend(dest, gameState);
+        GameTopicRegistry.GameTopics topics = gameTopics.topics(code);
+        boolean priority = isFinal(gameState);
+        if (priority) {
+            messagingTemplate.convertAndSend(topics.getState(), gameState, PRIORITY_HEADERS);
+        } else {
+            messagingTemplate.convertAndSend(topics.getState(), gameState);
+        }
+        fanOutState(code, topics, gameState, priority);
+    }
+
+    /**
+     * Hands a published state to everything besides the JSON state topic: state
+     * listeners, the compressed topic and the binary channel.
+     */
+    private void fanOutState(String code, GameTopicRegistry.GameTopics topics, Object gameState, boolean priority) {
+        for (BiConsumer<String, Object> listener : stateListeners) {
+            listener.accept(code, gameState);
+        }
+        boolean compressed = compressor.isEnabled() && gameTopics.hasSubscribers(topics.getCompressed());
+        boolean binary = binaryChannel.hasSubscribers(code);
+        if (!compressed && !binary)
+            return;
+        byte[] json = compressor.toJson(gameState);
+        if (compressed) {
+            sendCompressed(topics.getCompressed(), json, priority);
+        }
+        if (binary) {
+            binaryChannel.publish(code, json);
+        }
+    }
+
+    /**
+     * Registers a callback that receives every game state published by
+     * {@link #broadcastGameState(String, Object)} or inside
+     * {@link #broadcastEvents(String, List)}, on the publishing thread. It must
+     * return quickly.
+     *
+     * @param listener receives the match code and the snapshot
+     */
+    public void addStateListener(BiConsumer<String, Object> listener) {
+        stateListeners.add(listener);
+    }
+
+    private void sendCompressed(String destination, byte[] json, boolean priority) {
+        SnapshotCompressor.Encoded encoded = compressor.encode(json);
+        messagingTemplate.convertAndSend(destination, encoded.getBody(), compressedHeaders(encoded, priority));
+    }
+
+    private Map<String, Object> compressedHeaders(SnapshotCompressor.Encoded encoded, boolean priority) {
+        Map<String, Object> headers = new HashMap<>(4);
+        headers.put(Constants.WS_HEADER_CONTENT_ENCODING, encoded.getContentEncoding());
+        if (encoded.isCompressed() && compressor.getDictionaryId() != null) {
+            headers.put(Constants.WS_HEADER_DICTIONARY_ID, compressor.getDictionaryId());
+        }
+        if (priority) {
+            headers.putAll(PRIORITY_HEADERS);
+        }
+        return headers;
+    }
+
+    private static boolean isFinal(Object gameState) {
+        return gameState instanceof GameState state && state.getStatus() != null
+                && !Constants.MATCH_STATUS_STARTED.equals(state.getStatus());
     }
 
     /**
@@ -40,8 +181,7 @@ public class WebSocketController {
     public void broadcastVoteStart(String code, Object voteStart) {
         if (code == null)
             return;
-        String dest = Constants.WS_TOPIC_GAME + code + Constants.WS_TOPIC_GAME_VOTE_START;
-        messagingTemplate.convertAndSend(dest, voteStart);
+        messagingTemplate.convertAndSend(gameTopics.topics(code).getVoteStart(), voteStart);
     }
 
     /**
@@ -50,8 +190,7 @@ public class WebSocketController {
     public void broadcastVoteResult(String code, Object result) {
         if (code == null)
             return;
-        String dest = Constants.WS_TOPIC_GAME + code + Constants.WS_TOPIC_GAME_VOTE_RESULT;
-        messagingTemplate.convertAndSend(dest, result);
+        messagingTemplate.convertAndSend(gameTopics.topics(code).getVoteResult(), result);
     }
 
     /**
@@ -60,7 +199,139 @@ public class WebSocketController {
     public void broadcastElimination(String code, Object eliminationEvent) {
         if (code == null)
             return;
-        String dest = Constants.WS_TOPIC_GAME + code + Constants.WS_TOPIC_GAME_ELIMINATION;
-        messagingTemplate.convertAndSend(dest, eliminationEvent);
+        messagingTemplate.convertAndSend(gameTopics.topics(code).getElimination(), eliminationEvent);
+    }
+
+    /**
+     * Broadcast new NPC segments to /topic/game/{code}/npcs
+     */
+    public void broadcastNpcPaths(String code, Object update) {
+        if (code == null || update == null)
+            return;
+        messagingTemplate.convertAndSend(gameTopics.topics(code).getNpcs(), update);
+    }
+
+    /**
+     * Notifies a queued player of the match matchmaking placed them in, on
+     * /user/queue/matchmaking, so nobody else can subscribe to it.
+     */
+    public void broadcastMatchAssignment(String username, Object assignment) {
+        if (username == null)
+            return;
+        messagingTemplate.convertAndSendToUser(username, Constants.WS_QUEUE_MATCHMAKING, assignment);
+    }
+
+    /**
+     * Publishes every event of one match transition as a single
+     * {@link GameEventBatch} frame on /topic/game/{code}/events, in order.
+     * Each event is also sent on its legacy topic (/topic/game/{code},
+     * /vote/start, /vote/result, /elimination), but only while that topic has
+     * subscribers, so clients that moved to the envelope get one frame per
+     * burst. Game states also reach the same listeners, compressed topic and
+     * binary channel as {@link #broadcastGameState(String, Object)}, and a
+     * batch carrying the final state has the {@code priority} header.
+     */
+    public void broadcastEvents(String code, List<GameEvent> events) {
+        if (code == null || events == null || events.isEmpty())
+            return;
+        GameTopicRegistry.GameTopics topics = gameTopics.topics(code);
+        boolean priority = events.stream().anyMatch(e -> isFinal(e.getPayload()));
+        GameEventBatch batch = new GameEventBatch(code, System.currentTimeMillis(), events);
+        if (priority) {
+            messagingTemplate.convertAndSend(topics.getEvents(), batch, PRIORITY_HEADERS);
+        } else {
+            messagingTemplate.convertAndSend(topics.getEvents(), batch);
+        }
+        for (GameEvent event : events) {
+            boolean state = GameEvent.GAME_STATE.equals(event.getType());
+            boolean finalState = state && isFinal(event.getPayload());
+            String legacy = topics.legacyFor(event.getType());
+            if (gameTopics.hasSubscribers(legacy)) {
+                if (finalState) {
+                    messagingTemplate.convertAndSend(legacy, event.getPayload(), PRIORITY_HEADERS);
+                } else {
+                    messagingTemplate.convertAndSend(legacy, event.getPayload());
+                }
+            }
+            if (state) {
+                fanOutState(code, topics, event.getPayload(), finalState);
+            }
+        }
+    }
+
+    /**
+     * Sends a move acknowledgement only to its issuer, on /user/queue/move.
+     * Independent of the shared /topic/game/{code} snapshots, which stay
+     * rate-capped by the engine.
+     */
+    public void sendMoveAck(String username, Object ack) {
+        if (username == null || ack == null)
+            return;
+        messagingTemplate.convertAndSendToUser(username, Constants.WS_QUEUE_MOVE, ack);
+    }
+
+    /**
+     * Sends a player its own fogged view of the game state (see
+     * {@link com.arsw.shipwreckeds.service.FogOfWar}) on the same channels the
+     * shared snapshot would use: /user/queue/game, a compressed copy on
+     * /user/queue/game/compressed if the player subscribed to it, and its
+     * /ws-game connection if it has one. The view is serialized at most once.
+     */
+    public void sendGameState(String code, String username, Object gameState) {
+        if (code == null || username == null || gameState == null)
+            return;
+        boolean priority = isFinal(gameState);
+        if (priority) {
+            messagingTemplate.convertAndSendToUser(username, Constants.WS_QUEUE_GAME, gameState, PRIORITY_HEADERS);
+        } else {
+            messagingTemplate.convertAndSendToUser(username, Constants.WS_QUEUE_GAME, gameState);
+        }
+        boolean compressed = compressor.isEnabled() && gameTopics.hasCompressedViewer(username);
+        boolean binary = binaryChannel.hasSubscriber(code, username);
+        if (!compressed && !binary)
+            return;
+        byte[] json = compressor.toJson(gameState);
+        if (compressed) {
+            SnapshotCompressor.Encoded encoded = compressor.encode(json);
+            messagingTemplate.convertAndSendToUser(username, Constants.WS_QUEUE_GAME_COMPRESSED, encoded.getBody(),
+                    compressedHeaders(encoded, priority));
+        }
+        if (binary) {
+            binaryChannel.publishTo(code, username, json);
+        }
+    }
+
+    /**
+     * Hands the state of a fogged match to the state listeners (spectators)
+     * only. Players already got their own views; the shared topics, compressed
+     * copy and binary channel are left out so that no player receives a
+     * second, player-less frame.
+     *
+     * @param code      match code
+     * @param gameState what anyone may see of the match
+     */
+    public void broadcastSpectatorState(String code, Object gameState) {
+        if (code == null || gameState == null)
+            return;
+        for (BiConsumer<String, Object> listener : stateListeners) {
+            listener.accept(code, gameState);
+        }
+    }
+
+    /**
+     * Publishes coalesced open-lobby directory changes to /topic/lobbies
+     */
+    public void broadcastLobbyDirectory(Object update) {
+        if (update == null)
+            return;
+        messagingTemplate.convertAndSend(Constants.WS_TOPIC_LOBBIES, update);
+    }
+
+    /**
+     * Stops the lobby debounce scheduler before the bean is destroyed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        lobbyScheduler.shutdownNow();
     }
 }
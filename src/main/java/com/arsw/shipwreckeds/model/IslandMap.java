@@ -0,0 +1,239 @@
+package com.arsw.shipwreckeds.model;
+
+import com.arsw.shipwreckeds.model.dto.GameState;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Island layout: a round island centred on the origin, the boat moored off its
+ * shore and the obstacles (rocks, huts, palm groves) nobody can walk through.
+ * <p>
+ * Loaded once from JSON (see {@code shipwreckeds.map.location}) and shared,
+ * read-only, by every match. Movement rules clients mirror for prediction:
+ * after each step an avatar is pushed out of every obstacle grown by
+ * {@code edgeMargin} along the shortest way out (radially for circles, across
+ * the nearest side for rectangles), then clamped to
+ * {@code radius - edgeMargin} from the centre; this is repeated
+ * {@link #RESOLVE_PASSES} times.
+ * <p>
+ * Obstacles marked {@code blocksSight} (rocks, palm groves, huts) also hide
+ * what is behind them from the fog of war; low ones (a campfire, a pier) do
+ * not.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IslandMap {
+
+    public static final String CIRCLE = "circle";
+    public static final String RECT = "rect";
+    /** Rounds of obstacle push-out and rim clamp applied to each move. */
+    public static final int RESOLVE_PASSES = 2;
+
+    private String name;
+    private double radius;
+    private double edgeMargin;
+    private GameState.Boat boat;
+    private List<Obstacle> obstacles = new ArrayList<>();
+
+    /**
+     * Something that blocks movement: a circle of {@code radius} centred on
+     * (x, y), or a {@code width} x {@code height} rectangle centred on (x, y).
+     * Opaque when {@code blocksSight}.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Obstacle {
+        private String kind;
+        private String label;
+        private double x;
+        private double y;
+        private double radius;
+        private double width;
+        private double height;
+        private boolean blocksSight;
+
+        public static Obstacle circle(String label, double x, double y, double radius) {
+            return new Obstacle(CIRCLE, label, x, y, radius, 0.0, 0.0, false);
+        }
+
+        public static Obstacle rect(String label, double x, double y, double width, double height) {
+            return new Obstacle(RECT, label, x, y, 0.0, width, height, false);
+        }
+
+        /**
+         * @return whether the segment from (x0, y0) to (x1, y1) passes through
+         *         the obstacle
+         */
+        boolean crosses(double x0, double y0, double x1, double y1) {
+            double dx = x1 - x0;
+            double dy = y1 - y0;
+            if (RECT.equals(kind)) {
+                // slab clipping against the rectangle
+                double[] t = { 0.0, 1.0 };
+                return clip(-dx, x0 - (x - width / 2), t) && clip(dx, (x + width / 2) - x0, t)
+                        && clip(-dy, y0 - (y - height / 2), t) && clip(dy, (y + height / 2) - y0, t);
+            }
+            double length2 = dx * dx + dy * dy;
+            double t = length2 == 0.0 ? 0.0 : ((x - x0) * dx + (y - y0) * dy) / length2;
+            t = Math.max(0.0, Math.min(1.0, t));
+            double cx = x0 + dx * t - x;
+            double cy = y0 + dy * t - y;
+            return cx * cx + cy * cy < radius * radius;
+        }
+
+        private static boolean clip(double p, double q, double[] t) {
+            if (p == 0.0)
+                return q > 0.0;
+            double r = q / p;
+            if (p < 0.0) {
+                if (r > t[1])
+                    return false;
+                t[0] = Math.max(t[0], r);
+            } else {
+                if (r < t[0])
+                    return false;
+                t[1] = Math.min(t[1], r);
+            }
+            return t[0] < t[1];
+        }
+
+        /**
+         * @return whether (px, py) lies within {@code clearance} of the obstacle
+         */
+        boolean blocks(double px, double py, double clearance) {
+            if (RECT.equals(kind)) {
+                return Math.abs(px - x) < width / 2 + clearance && Math.abs(py - y) < height / 2 + clearance;
+            }
+            double dx = px - x;
+            double dy = py - y;
+            double r = radius + clearance;
+            return dx * dx + dy * dy < r * r;
+        }
+
+        /**
+         * Moves {@code xy} out of the obstacle grown by {@code clearance}.
+         *
+         * @return whether it had to move
+         */
+        boolean pushOut(double[] xy, double clearance) {
+            if (!blocks(xy[0], xy[1], clearance))
+                return false;
+            if (RECT.equals(kind)) {
+                double hw = width / 2 + clearance;
+                double hh = height / 2 + clearance;
+                double dx = xy[0] - x;
+                double dy = xy[1] - y;
+                if (hw - Math.abs(dx) < hh - Math.abs(dy)) {
+                    xy[0] = x + (dx < 0 ? -hw : hw);
+                } else {
+                    xy[1] = y + (dy < 0 ? -hh : hh);
+                }
+                return true;
+            }
+            double dx = xy[0] - x;
+            double dy = xy[1] - y;
+            double d = Math.hypot(dx, dy);
+            double r = radius + clearance;
+            if (d == 0.0) {
+                xy[0] = x + r;
+            } else {
+                xy[0] = x + dx / d * r;
+                xy[1] = y + dy / d * r;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The island before maps existed: radius 100, boat 12 units off the east
+     * shore, no obstacles. Used by components built without Spring.
+     *
+     * @return a new bare island
+     */
+    public static IslandMap defaultIsland() {
+        return new IslandMap("isla", 100.0, 0.5, new GameState.Boat(112.0, 0.0, 40.0), new ArrayList<>());
+    }
+
+    /**
+     * @param x         point x
+     * @param y         point y
+     * @param clearance distance to keep from the shore and from every obstacle
+     * @return whether something of that size can stand at (x, y)
+     */
+    public boolean isWalkable(double x, double y, double clearance) {
+        double r = radius - clearance;
+        if (x * x + y * y > r * r)
+            return false;
+        for (Obstacle o : obstacles) {
+            if (o.blocks(x, y, clearance))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Collision resolution for a moved avatar (see the class comment).
+     *
+     * @param xy position after the step, corrected in place
+     */
+    public void resolveMove(double[] xy) {
+        double limit = radius - edgeMargin;
+        for (int pass = 0; pass < RESOLVE_PASSES; pass++) {
+            boolean moved = false;
+            for (Obstacle o : obstacles) {
+                moved |= o.pushOut(xy, edgeMargin);
+            }
+            double dist = Math.hypot(xy[0], xy[1]);
+            if (dist > limit) {
+                xy[0] = xy[0] / dist * limit;
+                xy[1] = xy[1] / dist * limit;
+                moved = true;
+            }
+            if (!moved || obstacles.isEmpty())
+                return;
+        }
+    }
+
+    /**
+     * @return whether an opaque obstacle stands between (x0, y0) and (x1, y1)
+     */
+    public boolean blocksSight(double x0, double y0, double x1, double y1) {
+        for (Obstacle o : obstacles) {
+            if (o.isBlocksSight() && o.crosses(x0, y0, x1, y1))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Random walkable spawn point.
+     *
+     * @param rnd            random source
+     * @param radiusFraction spawn within this fraction of the island radius
+     * @return a walkable point, or the last sample pushed out of obstacles if
+     *         none was found
+     */
+    public Position randomSpawn(Random rnd, double radiusFraction) {
+        double[] xy = new double[2];
+        for (int attempt = 0; attempt < 32; attempt++) {
+            double ang = rnd.nextDouble() * Math.PI * 2;
+            double r = rnd.nextDouble() * (radius * radiusFraction);
+            xy[0] = Math.cos(ang) * r;
+            xy[1] = Math.sin(ang) * r;
+            if (isWalkable(xy[0], xy[1], 2.0))
+                return new Position(xy[0], xy[1]);
+        }
+        resolveMove(xy);
+        return new Position(xy[0], xy[1]);
+    }
+}
@@ -33,6 +33,8 @@ public class Match {
     private MatchStatus status;
     private int timerSeconds;
     private Player infiltrator;
+    // NPC id the infiltrator goes by in the other players' views, drawn with the NPC ids
+    private Long infiltratorDisguiseId;
     private double fuelPercentage;
     private boolean votingActive;
     private java.util.Map<String, Long> votesByPlayer;
@@ -41,6 +43,9 @@ public class Match {
     // Winner message broadcast to clients when the match concludes
     private String winnerMessage;
 
+    // Bumped on every lobby-visible change (roster, status); used for lobby ETags
+    private volatile long version;
+
     /**
      * Creates a new lobby with the supplied identifier and code.
      *
@@ -56,6 +61,7 @@ public class Match {
         this.status = MatchStatus.WAITING;
         this.timerSeconds = 0;
         this.infiltrator = null;
+        this.infiltratorDisguiseId = null;
         this.fuelPercentage = 0.0;
         this.winnerMessage = null;
         this.voteStartEpochMs = 0L;
@@ -72,6 +78,7 @@ public class Match {
         this.status = MatchStatus.STARTED;
         this.timerSeconds = MATCH_DURATION_SECONDS;
         this.winnerMessage = null;
+        bumpVersion();
         logger.info("La partida ha comenzado. Tiempo restante: {} segundos.", timerSeconds);
     }
 
@@ -139,6 +146,7 @@ public class Match {
      */
     public void endMatch() {
         this.status = MatchStatus.FINISHED;
+        bumpVersion();
         logger.info("La partida ha terminado.");
         if (this.winnerMessage != null) {
             logger.info(this.winnerMessage);
@@ -305,10 +313,35 @@ public class Match {
             player.setInfiltrator(false);
             player.setPosition(null);
             players.add(player);
+            bumpVersion();
             logger.info("Jugador {} se unió a la partida con código {}.", player.getUsername(), code);
         }
     }
 
+    /**
+     * Removes a player from a lobby that has not started yet.
+     *
+     * @param username player leaving the lobby
+     * @return {@code true} when the player was in the roster and was removed
+     */
+    public boolean removePlayer(String username) {
+        if (status != MatchStatus.WAITING || username == null)
+            return false;
+        boolean removed = players.removeIf(p -> username.equals(p.getUsername()));
+        if (removed) {
+            bumpVersion();
+            logger.info("Jugador {} salió de la partida con código {}.", username, code);
+        }
+        return removed;
+    }
+
+    /**
+     * Advances the lobby version after a change visible in the lobby view.
+     */
+    public synchronized void bumpVersion() {
+        this.version++;
+    }
+
     /**
      * Appends an NPC to the match roster.
      *
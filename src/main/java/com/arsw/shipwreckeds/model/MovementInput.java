@@ -0,0 +1,186 @@
+package com.arsw.shipwreckeds.model;
+
+import java.util.ArrayDeque;
+
+/**
+ * Movement intent of one avatar, written by the input handler and sampled by
+ * the simulation tick.
+ * <p>
+ * A held direction stays active until the client sends a new one (a zero
+ * vector stops the avatar). Commands without the hold flag come from clients
+ * that still send one message per step; they are treated as a short impulse so
+ * those clients keep moving at the same speed as before. Sequenced inputs older
+ * than the last applied one are discarded.
+ * <p>
+ * Batched inputs are queued instead: each one drives the avatar for its own
+ * number of simulation ticks, in order, so a batch replays the client's path
+ * rather than collapsing into its last direction. A queued input without a
+ * tick count is held until the next one.
+ *
+ */
+public class MovementInput {
+
+    /** Queued inputs kept per avatar; the oldest are dropped beyond this. */
+    public static final int MAX_QUEUED_INPUTS = 40;
+    /** Most simulation ticks a single queued input may cover. */
+    public static final int MAX_INPUT_TICKS = 40;
+
+    private static final class Queued {
+        final long seq;
+        final double dx;
+        final double dy;
+        final int ticks;
+
+        Queued(long seq, double dx, double dy, int ticks) {
+            this.seq = seq;
+            this.dx = dx;
+            this.dy = dy;
+            this.ticks = ticks;
+        }
+    }
+
+    private double dx;
+    private double dy;
+    private long activeUntilMs;
+    private int ticksLeft;
+    private long lastSeq = -1;
+    private long appliedSeq = -1;
+    private boolean ackPending;
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+
+    /**
+     * Applies a client input right away, replacing any queued ones.
+     *
+     * @param seq     client sequence number, or {@code null} when unsequenced
+     * @param dx      requested x direction
+     * @param dy      requested y direction
+     * @param holdMs  how long the direction stays active ({@link Long#MAX_VALUE}
+     *                for held input)
+     * @param nowMs   current time
+     * @return {@code false} if the input was stale and ignored
+     */
+    public synchronized boolean apply(Long seq, double dx, double dy, long holdMs, long nowMs) {
+        if (seq != null) {
+            if (seq <= lastSeq)
+                return false;
+            lastSeq = seq;
+            appliedSeq = seq;
+        }
+        ackPending = true;
+        queue.clear();
+        ticksLeft = 0;
+        double len = Math.hypot(dx, dy);
+        if (Double.isNaN(len) || len < 1e-6) {
+            this.dx = 0.0;
+            this.dy = 0.0;
+            this.activeUntilMs = 0L;
+            return true;
+        }
+        this.dx = dx / len;
+        this.dy = dy / len;
+        this.activeUntilMs = holdMs == Long.MAX_VALUE ? Long.MAX_VALUE : nowMs + holdMs;
+        return true;
+    }
+
+    /**
+     * Queues a batched input behind the ones not yet integrated.
+     *
+     * @param seq   client sequence number, or {@code null} when unsequenced
+     * @param dx    requested x direction (a zero vector stands still)
+     * @param dy    requested y direction
+     * @param ticks simulation ticks the input lasts, capped at
+     *              {@link #MAX_INPUT_TICKS}; {@code 0} holds it until the next
+     *              input
+     * @return {@code false} if the input was stale and ignored
+     */
+    public synchronized boolean enqueue(Long seq, double dx, double dy, int ticks) {
+        if (seq != null) {
+            if (seq <= lastSeq)
+                return false;
+            lastSeq = seq;
+        }
+        double len = Math.hypot(dx, dy);
+        boolean still = Double.isNaN(len) || len < 1e-6;
+        ackPending = true;
+        if (queue.size() >= MAX_QUEUED_INPUTS) {
+            queue.pollFirst();
+        }
+        queue.addLast(new Queued(seq != null ? seq : -1, still ? 0.0 : dx / len, still ? 0.0 : dy / len,
+                Math.max(0, Math.min(ticks, MAX_INPUT_TICKS))));
+        return true;
+    }
+
+    /**
+     * Copies the active unit direction into {@code out}. Called once per
+     * simulation tick: a queued input's tick is used up even if it stands
+     * still.
+     *
+     * @param nowMs current time
+     * @param out   two-element buffer receiving {dx, dy}
+     * @return {@code true} if the avatar should move this tick
+     */
+    public synchronized boolean sample(long nowMs, double[] out) {
+        if (ticksLeft == 0 && !queue.isEmpty()) {
+            Queued next = queue.pollFirst();
+            dx = next.dx;
+            dy = next.dy;
+            ticksLeft = next.ticks;
+            boolean still = dx == 0.0 && dy == 0.0;
+            // tick-bound inputs run out by count; a held one lasts until the next
+            activeUntilMs = next.ticks > 0 || still ? 0L : Long.MAX_VALUE;
+            if (next.seq >= 0)
+                appliedSeq = next.seq;
+        }
+        if (ticksLeft > 0) {
+            ticksLeft--;
+            if (dx == 0.0 && dy == 0.0)
+                return false;
+        } else if (activeUntilMs <= nowMs) {
+            return false;
+        }
+        out[0] = dx;
+        out[1] = dy;
+        return true;
+    }
+
+    /**
+     * Drops any active direction and queued input (e.g. when the player goes
+     * AFK).
+     */
+    public synchronized void clear() {
+        dx = 0.0;
+        dy = 0.0;
+        activeUntilMs = 0L;
+        ticksLeft = 0;
+        ackPending = false;
+        queue.clear();
+    }
+
+    /**
+     * Reports, once, that input was accepted since the last call. The
+     * simulation tick asks after integrating, so the mover is acknowledged with
+     * a position that already includes the input.
+     *
+     * @return {@code true} if input arrived since the previous call
+     */
+    public synchronized boolean takeAckPending() {
+        boolean pending = ackPending;
+        ackPending = false;
+        return pending;
+    }
+
+    /**
+     * @return highest sequence number accepted so far, {@code -1} if none
+     */
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * @return highest sequence number the simulation has started integrating,
+     *         {@code -1} if none; queued inputs are not counted until then
+     */
+    public synchronized long getAppliedSeq() {
+        return appliedSeq;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Represents a non-player character roaming the island.
  * <p>
@@ -68,8 +70,9 @@ public class Npc {
         if (!active)
             return;
 
-        double deltaX = (Math.random() * 2.0 - 1.0); // movimiento en -1..1
-        double deltaY = (Math.random() * 2.0 - 1.0);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double deltaX = random.nextDouble(-1.0, 1.0); // movimiento en -1..1
+        double deltaY = random.nextDouble(-1.0, 1.0);
 
         double newX = position.getX() + deltaX * movementSpeed;
         double newY = position.getY() + deltaY * movementSpeed;
@@ -1,5 +1,6 @@
 package com.arsw.shipwreckeds.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 import org.slf4j.Logger;
@@ -25,6 +26,11 @@ public class Player {
     private Position position;
     private boolean isInfiltrator;
     private boolean isAlive;
+    // Set while the player's connection is gone in a running match; no input is applied
+    private boolean afk;
+    // Held movement direction, integrated by the simulation tick
+    @JsonIgnore
+    private final MovementInput input = new MovementInput();
 
     /**
      * Creates a player with the provided base attributes.
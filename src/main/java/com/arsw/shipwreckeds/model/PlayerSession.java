@@ -0,0 +1,182 @@
+package com.arsw.shipwreckeds.model;
+
+import java.security.Principal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Authenticated player session attached to a STOMP connection as its
+ * {@link Principal}.
+ * <p>
+ * The token is checked once when the connection is opened. From then on every
+ * message carries this object, and the match/avatar slots are bound when the
+ * player's match starts, so handlers can reach the avatar without lookups or
+ * trusting identity fields sent by the client.
+ *
+ */
+public class PlayerSession implements Principal {
+
+    private final Player player;
+    private volatile String token;
+
+    private volatile Binding binding;
+    private volatile String lobbyCode;
+
+    // Presence: open STOMP connections and when the player was last heard from
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile boolean everConnected;
+    private volatile long lastSeenMs = System.currentTimeMillis();
+
+    /**
+     * Immutable match/avatar pair so both slots are always read consistently.
+     */
+    public static final class Binding {
+        private final Match match;
+        private final Player avatar;
+
+        Binding(Match match, Player avatar) {
+            this.match = match;
+            this.avatar = avatar;
+        }
+
+        public Match getMatch() {
+            return match;
+        }
+
+        /**
+         * @return the player's entry inside {@link #getMatch()}
+         */
+        public Player getAvatar() {
+            return avatar;
+        }
+    }
+
+    /**
+     * @param player logged-in player
+     * @param token  opaque token issued at login
+     */
+    public PlayerSession(Player player, String token) {
+        this.player = player;
+        this.token = token;
+    }
+
+    @Override
+    public String getName() {
+        return player.getUsername();
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * @return current match binding, or {@code null} when not in a running match
+     */
+    public Binding getBinding() {
+        return binding;
+    }
+
+    /**
+     * Replaces the token after a resumed login. The caller keeps the token index
+     * in sync.
+     *
+     * @param token freshly issued token
+     */
+    public void rotateToken(String token) {
+        this.token = token;
+        this.lastSeenMs = System.currentTimeMillis();
+    }
+
+    /**
+     * @return code of the lobby the player created or joined last, if any
+     */
+    public String getLobbyCode() {
+        return lobbyCode;
+    }
+
+    public void setLobbyCode(String lobbyCode) {
+        this.lobbyCode = lobbyCode;
+    }
+
+    /**
+     * Records a new STOMP connection for this session.
+     *
+     * @param nowMs current time
+     */
+    public void connected(long nowMs) {
+        everConnected = true;
+        connections.incrementAndGet();
+        lastSeenMs = nowMs;
+    }
+
+    /**
+     * Records a closed STOMP connection for this session.
+     *
+     * @param nowMs current time
+     * @return connections still open
+     */
+    public int disconnected(long nowMs) {
+        int left = connections.updateAndGet(c -> Math.max(0, c - 1));
+        lastSeenMs = nowMs;
+        return left;
+    }
+
+    /**
+     * Records an authenticated REST call, so players that only poll over HTTP
+     * are not reaped as gone.
+     *
+     * @param nowMs current time
+     */
+    public void touch(long nowMs) {
+        if (nowMs > lastSeenMs) {
+            lastSeenMs = nowMs;
+        }
+    }
+
+    /**
+     * @return {@code true} while at least one STOMP connection is open
+     */
+    public boolean isOnline() {
+        return connections.get() > 0;
+    }
+
+    /**
+     * @return {@code true} when the player had a live connection that dropped, so
+     *         a new login may take the session over
+     */
+    public boolean isResumable() {
+        return everConnected && connections.get() == 0;
+    }
+
+    public boolean hasEverConnected() {
+        return everConnected;
+    }
+
+    /**
+     * @return last time a connection was opened or closed, an authenticated
+     *         REST call arrived, or the login time
+     */
+    public long getLastSeenMs() {
+        return lastSeenMs;
+    }
+
+    /**
+     * Points the session at the avatar it controls in a running match.
+     *
+     * @param match  running match
+     * @param avatar the player's entry in {@code match}
+     */
+    public void bind(Match match, Player avatar) {
+        this.binding = new Binding(match, avatar);
+    }
+
+    /**
+     * Clears the match binding.
+     */
+    public void unbind() {
+        this.binding = null;
+    }
+}
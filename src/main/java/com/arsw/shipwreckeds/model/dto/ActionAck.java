@@ -0,0 +1,23 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Reply sent only to the issuing connection on /user/queue/actions after an
+ * in-match action arrives over STOMP. Mirrors what the equivalent REST
+ * endpoint would have answered: the HTTP-like status code and its body.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActionAck {
+    private String action; // "startVote" | "vote" | "eliminate" | "fuel"
+    private String code;
+    private int status; // same status code the REST endpoint returns
+    private boolean ok;
+    private Object body; // message or response DTO (VoteAck, FuelActionResponse...)
+}
@@ -22,4 +22,10 @@ public class AvatarState {
     private boolean isInfiltrator;
     private boolean isAlive;
     private String displayName; // visible label to show in UI (NPC-xxxx or username)
+    private Long ackSeq; // last movement input seq applied for this avatar; null for NPCs or unsequenced input
+
+    public AvatarState(Long id, String type, String ownerUsername, double x, double y, boolean isInfiltrator,
+            boolean isAlive, String displayName) {
+        this(id, type, ownerUsername, x, y, isInfiltrator, isAlive, displayName, null);
+    }
 }
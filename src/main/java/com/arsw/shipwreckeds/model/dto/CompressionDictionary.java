@@ -0,0 +1,17 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Preset deflate dictionary for /topic/game/{code}/compressed. Clients pass
+ * {@code dictionary} (UTF-8) to their inflater; {@code id} is its Adler-32,
+ * the same value zlib writes in each compressed frame header.
+ */
+@Getter
+@AllArgsConstructor
+public class CompressionDictionary {
+    private String id; // hex Adler-32
+    private String dictionary;
+    private int minBytes;
+}
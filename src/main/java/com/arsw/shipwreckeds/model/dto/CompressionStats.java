@@ -0,0 +1,25 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Counters of the compressed game-state channel, so the CPU spent can be
+ * weighed against the bytes saved.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class CompressionStats {
+    private boolean enabled;
+    private int level;
+    private int minBytes; // snapshots below this size are sent as plain JSON
+    private boolean dictionary;
+    private long frames;
+    private long compressedFrames;
+    private long skippedBelowThreshold;
+    private long rawBytes;
+    private long encodedBytes; // after deflate, before base64
+    private double ratio; // encodedBytes / rawBytes
+    private double avgCompressMicros;
+}
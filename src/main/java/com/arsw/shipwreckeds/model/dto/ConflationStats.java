@@ -0,0 +1,18 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Counters of the game-state conflation applied to SockJS polling sessions.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class ConflationStats {
+    private long stateIntervalMs; // minimum spacing of state frames per polling session and topic
+    private int sessions; // polling sessions with conflation state
+    private long stateFrames; // state frames addressed to polling sessions
+    private long delivered; // state frames actually sent to them
+    private long conflated; // superseded by a newer snapshot before delivery
+}
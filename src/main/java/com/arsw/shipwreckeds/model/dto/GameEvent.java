@@ -0,0 +1,41 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One event inside a {@link GameEventBatch}. {@code payload} is exactly what
+ * the matching legacy topic carries (GameState, VoteStart, VoteResult or
+ * EliminationEvent).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameEvent {
+    public static final String GAME_STATE = "gameState";
+    public static final String VOTE_START = "voteStart";
+    public static final String VOTE_RESULT = "voteResult";
+    public static final String ELIMINATION = "elimination";
+
+    private String type;
+    private Object payload;
+
+    public static GameEvent gameState(Object state) {
+        return new GameEvent(GAME_STATE, state);
+    }
+
+    public static GameEvent voteStart(Object voteStart) {
+        return new GameEvent(VOTE_START, voteStart);
+    }
+
+    public static GameEvent voteResult(Object result) {
+        return new GameEvent(VOTE_RESULT, result);
+    }
+
+    public static GameEvent elimination(Object eliminationEvent) {
+        return new GameEvent(ELIMINATION, eliminationEvent);
+    }
+}
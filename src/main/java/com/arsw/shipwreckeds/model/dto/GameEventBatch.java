@@ -0,0 +1,23 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Envelope published on /topic/game/{code}/events: every event produced by
+ * one match transition, in the order clients must apply them, in a single
+ * STOMP frame.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameEventBatch {
+    private String code;
+    private long serverTimeMs;
+    private List<GameEvent> events;
+}
@@ -23,6 +23,38 @@ public class GameState {
     private String winnerMessage;
     private boolean fuelWindowOpen;
     private int fuelWindowSecondsRemaining;
+    // true when the NPC avatars are included; between keyframes clients move NPCs along npcSegments
+    private boolean npcKeyframe;
+    private List<NpcSegment> npcSegments; // current segment of every moving NPC, on engine keyframes only
+
+    /**
+     * Snapshot that carries every NPC avatar and no segments.
+     */
+    public GameState(String code, long timestamp, int timerSeconds, Island island, List<AvatarState> avatars,
+            double fuelPercentage, String status, Boat boat, String winnerMessage, boolean fuelWindowOpen,
+            int fuelWindowSecondsRemaining) {
+        this(code, timestamp, timerSeconds, island, avatars, fuelPercentage, status, boat, winnerMessage,
+                fuelWindowOpen, fuelWindowSecondsRemaining, true, null);
+    }
+
+    /**
+     * @param visible avatars to carry instead
+     * @return a copy of this snapshot with another avatar list
+     */
+    public GameState withAvatars(List<AvatarState> visible) {
+        return new GameState(code, timestamp, timerSeconds, island, visible, fuelPercentage, status, boat,
+                winnerMessage, fuelWindowOpen, fuelWindowSecondsRemaining, npcKeyframe, npcSegments);
+    }
+
+    /**
+     * @param visible  avatars to carry instead
+     * @param segments NPC segments to carry instead
+     * @return a copy of this snapshot with other avatars and segments
+     */
+    public GameState withAvatars(List<AvatarState> visible, List<NpcSegment> segments) {
+        return new GameState(code, timestamp, timerSeconds, island, visible, fuelPercentage, status, boat,
+                winnerMessage, fuelWindowOpen, fuelWindowSecondsRemaining, npcKeyframe, segments);
+    }
 
     @Getter
     @Setter
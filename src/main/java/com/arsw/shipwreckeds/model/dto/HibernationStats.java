@@ -0,0 +1,19 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Idle-lobby hibernation counters exposed for node sizing.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class HibernationStats {
+    private int registeredMatches;
+    private long hibernatedLobbies;
+    private long hibernations;
+    private long rehydrations;
+    private long offHeapBytes;
+    private long estimatedHeapBytesSaved;
+}
@@ -0,0 +1,19 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Coalesced directory changes pushed on /topic/lobbies. Clients apply
+ * {@code upserts} and drop {@code removed} codes from their local copy.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class LobbyDirectoryUpdate {
+    private long version;
+    private List<LobbySummary> upserts;
+    private List<String> removed;
+}
@@ -0,0 +1,20 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of the open-lobby directory, fullest and oldest lobbies first.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class LobbyPage {
+    private long version;
+    private int page;
+    private int size;
+    private int total;
+    private List<LobbySummary> lobbies;
+}
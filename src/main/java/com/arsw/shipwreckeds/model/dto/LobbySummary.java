@@ -0,0 +1,18 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Lightweight directory entry describing a joinable lobby.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class LobbySummary {
+    private String code;
+    private String hostName;
+    private int players;
+    private int maxPlayers;
+    private long createdAtEpochSec;
+}
@@ -0,0 +1,61 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lean, versioned lobby representation sent on /topic/lobby/{code} and
+ * returned by {@code GET /api/match/{code}}. Unlike {@link Match} it carries no
+ * NPCs, tasks, ballots or role information.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class LobbyView {
+    private String code;
+    private long version;
+    private String status;
+    private String hostName;
+    private int maxPlayers;
+    private List<LobbyPlayer> players;
+
+    @Getter
+    @AllArgsConstructor
+    public static class LobbyPlayer {
+        private Long id;
+        private String username;
+        private String skinId;
+    }
+
+    /**
+     * Builds the view from the current match state.
+     *
+     * @param match      lobby to describe
+     * @param maxPlayers lobby capacity
+     * @return immutable lobby view
+     */
+    public static LobbyView of(Match match, int maxPlayers) {
+        List<Player> roster = match.getPlayers();
+        List<LobbyPlayer> players = new ArrayList<>(roster.size());
+        for (Player p : roster) {
+            players.add(new LobbyPlayer(p.getId(), p.getUsername(), p.getSkinId()));
+        }
+        String host = roster.isEmpty() ? null : roster.get(0).getUsername();
+        String status = match.getStatus() != null ? match.getStatus().name() : MatchStatus.WAITING.name();
+        return new LobbyView(match.getCode(), match.getVersion(), status, host, maxPlayers, players);
+    }
+
+    /**
+     * @param match lobby to describe
+     * @return strong ETag identifying the lobby version
+     */
+    public static String etagOf(Match match) {
+        return "\"" + match.getCode() + "-" + match.getVersion() + "\"";
+    }
+}
@@ -0,0 +1,19 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import com.arsw.shipwreckeds.model.Player;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Login result: the player fields plus the token the client must send in the
+ * STOMP CONNECT frame.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class LoginResponse {
+    @JsonUnwrapped
+    private Player player;
+    private String sessionToken;
+}
@@ -0,0 +1,17 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Notification sent to a queued player once matchmaking placed them in a
+ * started match.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class MatchAssignment {
+    private String code;
+    private int lobbySize;
+    private long waitedMs;
+}
@@ -0,0 +1,24 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the matchmaking counters exposed for monitoring.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class MatchmakingStats {
+    private int queued;
+    private long enqueued;
+    private long cancelled;
+    private long matched;
+    private long lobbiesFormed;
+    private long batches;
+    private double avgWaitMs;
+    private long maxWaitMs;
+    private double avgLobbySize;
+    private double lobbyFillRatio; // matched / (lobbiesFormed * max lobby size)
+    private double batchEfficiency; // matched / players considered by the batches
+}
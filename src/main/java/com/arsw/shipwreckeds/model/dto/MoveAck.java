@@ -0,0 +1,25 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Private acknowledgement sent to the mover on /user/queue/move by the first
+ * simulation tick that integrates their input, carrying the authoritative
+ * position so the client can reconcile without waiting for the next shared
+ * snapshot.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveAck {
+    private String code;
+    private Long avatarId;
+    private double x;
+    private double y;
+    private Long ackSeq; // last input seq applied; null for unsequenced input
+    private long serverTimeMs;
+}
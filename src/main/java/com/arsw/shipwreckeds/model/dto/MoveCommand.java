@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.List;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -13,6 +15,18 @@ public class MoveCommand {
     private String username;
     private Long avatarId;
     private Direction direction;
+    // Optional client sequence number; older inputs are ignored
+    private Long seq;
+    // true: direction is held until the next command (zero vector stops)
+    private Boolean hold;
+    // Optional batch of inputs, each integrated for its own ticks in order
+    private List<Input> inputs;
+
+    public MoveCommand(String username, Long avatarId, Direction direction) {
+        this.username = username;
+        this.avatarId = avatarId;
+        this.direction = direction;
+    }
 
     @Getter
     @Setter
@@ -22,4 +36,23 @@ public class MoveCommand {
         private double dx;
         private double dy;
     }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Input {
+        private Long seq;
+        private double dx;
+        private double dy;
+        // Simulation ticks the input lasts; when absent, one tick, and the
+        // batch's last input is held until the next command
+        private Integer ticks;
+
+        public Input(Long seq, double dx, double dy) {
+            this.seq = seq;
+            this.dx = dx;
+            this.dy = dy;
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Movement constants the server simulation uses, published so clients can
+ * predict their own avatar and reconcile against acknowledged snapshots.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class MovementRules {
+    private double playerSpeed; // units per second while a direction is held
+    private long simTickMs; // fixed integration step
+    private long impulseMs; // duration of a command sent without hold=true
+    private long stateBroadcastIntervalMs; // minimum spacing of movement snapshots
+    private double islandRadius;
+    private double edgeMargin; // avatars are clamped to islandRadius - edgeMargin
+    private double avatarRadius; // overlapping avatars are pushed apart by the server
+}
@@ -0,0 +1,25 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Counters of NPC pathfinding.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class NavStats {
+    private double cellSize; // navigation grid resolution
+    private double cacheCellSize; // paths are shared between starts and goals in the same coarse cells
+    private int cachedPaths;
+    private int cacheCapacity;
+    private long requests;
+    private long direct; // goal in straight line of sight, no search
+    private long cacheHits;
+    private long cacheMisses; // coarse path searched and stored
+    private long exactSearches; // cached path unusable from this start or goal
+    private long unreachable;
+    private long expandedCells; // A* work over every search
+    private double avgRouteMicros;
+}
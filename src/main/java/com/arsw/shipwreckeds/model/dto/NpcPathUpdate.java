@@ -0,0 +1,22 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * New NPC segments of one match, published on /topic/game/{code}/npcs when
+ * NPCs pick a new target. Each segment replaces the previous one of its NPC.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NpcPathUpdate {
+    private String code;
+    private long serverTimeMs;
+    private List<NpcSegment> segments;
+}
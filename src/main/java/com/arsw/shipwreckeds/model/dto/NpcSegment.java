@@ -0,0 +1,61 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Straight-line NPC motion the client extrapolates on its own until the next
+ * segment of the same NPC arrives:
+ *
+ * <pre>
+ * d = min(|to - from|, speed * (t - startMs) / 1000)
+ * position(t) = from + (to - from) / |to - from| * d
+ * </pre>
+ *
+ * The NPC stays at {@code to} once it gets there.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NpcSegment {
+    private Long npcId;
+    private double fromX;
+    private double fromY;
+    private double toX;
+    private double toY;
+    private double speed; // island units per second
+    private long startMs; // server time at which the NPC is at (fromX, fromY)
+
+    /**
+     * @param nowMs server time
+     * @return {x, y} the NPC is at by {@code nowMs}
+     */
+    public double[] positionAt(long nowMs) {
+        double[] xy = new double[2];
+        positionAt(nowMs, xy);
+        return xy;
+    }
+
+    /**
+     * Allocation-free variant of {@link #positionAt(long)}.
+     *
+     * @param nowMs server time
+     * @param xy    receives {x, y}
+     */
+    public void positionAt(long nowMs, double[] xy) {
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        double length = Math.hypot(dx, dy);
+        if (length == 0.0) {
+            xy[0] = toX;
+            xy[1] = toY;
+            return;
+        }
+        double d = Math.min(length, speed * Math.max(0, nowMs - startMs) / 1000.0);
+        xy[0] = fromX + dx / length * d;
+        xy[1] = fromY + dy / length * d;
+    }
+}
@@ -0,0 +1,26 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Counters of the NPC behavior layer, summed over every match.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class NpcStats {
+    private double viewRadius; // NPCs farther than this from every player are updated less often
+    private long farIntervalMs;
+    private int decisionBudget; // new plans per match and tick
+    private long ticks; // match ticks with NPCs
+    private long stepped; // NPC position updates
+    private long lodSkipped; // updates postponed because the NPC was out of sight
+    private long decisions;
+    private long deferred; // plans postponed to a later tick by the budget
+    private double avgTickMicros; // NPC work per match tick
+    private double maxTickMicros;
+    private Map<String, Long> behaviors; // plans per behavior
+}
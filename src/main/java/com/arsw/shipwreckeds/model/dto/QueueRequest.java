@@ -0,0 +1,14 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Payload used by clients to enter the quick-play matchmaking queue.
+ *
+ */
+@Getter
+@Setter
+public class QueueRequest {
+    private String username;
+}
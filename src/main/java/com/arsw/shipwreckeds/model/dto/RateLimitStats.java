@@ -0,0 +1,20 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Rate limiter counters exposed for monitoring.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class RateLimitStats {
+    private int trackedKeys;
+    private long rejected;
+    private Map<String, Long> rejectedByAction;
+    private long overflowRejected; // new keys refused because the table was full
+    private long evictedKeys;
+}
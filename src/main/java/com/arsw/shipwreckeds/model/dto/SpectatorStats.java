@@ -0,0 +1,21 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Counters of the SSE spectator streams.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class SpectatorStats {
+    private long intervalMs; // spacing of the decimated snapshots
+    private int matches; // matches with at least one spectator
+    private int spectators;
+    private long framesSerialized; // one per match and interval with a new snapshot
+    private long eventsSent; // frames written to spectators
+    private long dropped; // spectators removed after a failed write
+    private long superseded; // frames replaced by a newer one before a slow spectator got them
+    private long skippedTicks; // ticks skipped because the match's previous fan-out was still running
+}
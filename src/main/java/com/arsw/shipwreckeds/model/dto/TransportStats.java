@@ -0,0 +1,35 @@
+package com.arsw.shipwreckeds.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Connection and message counters per WebSocket transport (native STOMP,
+ * each SockJS fallback, binary game channel), so the framing overhead of each
+ * can be compared.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class TransportStats {
+    private long rateWindowMs; // period the per-second rates are measured over
+    private List<Transport> transports;
+
+    /**
+     * Counters of one transport.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Transport {
+        private String name;
+        private int open;
+        private long opened;
+        private long messagesIn;
+        private long messagesOut;
+        private long bytesOut; // payload bytes handed to the transport, before its own framing
+        private double messagesInPerSec;
+        private double messagesOutPerSec;
+    }
+}
@@ -0,0 +1,23 @@
+package com.arsw.shipwreckeds.service;
+
+/**
+ * An in-match action that was refused, with the HTTP-like status the REST
+ * endpoint answers and the STOMP acknowledgement mirrors.
+ */
+public class ActionRejectedException extends RuntimeException {
+
+    private final int status;
+
+    /**
+     * @param status  status code of the rejection (400, 403, 409, 423...)
+     * @param message reason shown to the player
+     */
+    public ActionRejectedException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
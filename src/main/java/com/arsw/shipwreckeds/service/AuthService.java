@@ -1,10 +1,15 @@
 package com.arsw.shipwreckeds.service;
 
+import com.arsw.shipwreckeds.model.Match;
 import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -24,8 +29,10 @@ public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
     // ConcurrentHashMap para seguridad en concurrencia (más requests)
-    private final Map<String, Player> loggedPlayers = new ConcurrentHashMap<>();
+    private final Map<String, PlayerSession> loggedPlayers = new ConcurrentHashMap<>();
+    private final Map<String, PlayerSession> sessionsByToken = new ConcurrentHashMap<>();
     private final AtomicLong nextId = new AtomicLong(1);
+    private final SecureRandom tokenRandom = new SecureRandom();
 
     /**
      * Attempts to authenticate the supplied credentials and allocate a new
@@ -62,17 +69,31 @@ public class AuthService {
             throw new IllegalArgumentException("Credenciales inválidas.");
         }
 
-        // Atomic insertion attempt: reject if the username already has an active
-        // session
-        Player candidate = new Player(nextId.getAndIncrement(), username, "default-skin", null);
-        Player previous = loggedPlayers.putIfAbsent(username, candidate);
-        if (previous != null) {
+        // Atomic insertion attempt: reject if the username already has a live
+        // session; a session whose connection dropped is resumed instead
+        String token = newToken();
+        String[] retired = new String[1];
+        PlayerSession session = loggedPlayers.compute(username, (k, previous) -> {
+            if (previous == null)
+                return new PlayerSession(new Player(nextId.getAndIncrement(), username, "default-skin", null), token);
+            if (previous.isResumable()) {
+                retired[0] = previous.getToken();
+                previous.rotateToken(token);
+            }
+            return previous;
+        });
+        if (!token.equals(session.getToken())) {
             // Ya había alguien conectado con ese nombre
             throw new IllegalArgumentException("Usuario ya conectado desde otro cliente.");
         }
-
-        logger.info("Jugador conectado: {}", username);
-        return candidate;
+        if (retired[0] != null) {
+            sessionsByToken.remove(retired[0]);
+            logger.info("Jugador reanudó su sesión: {}", username);
+        } else {
+            logger.info("Jugador conectado: {}", username);
+        }
+        sessionsByToken.put(token, session);
+        return session.getPlayer();
     }
 
     /**
@@ -83,11 +104,98 @@ public class AuthService {
      *         username
      */
     public Player getPlayer(String username) {
+        PlayerSession session = getSession(username);
+        return session != null ? session.getPlayer() : null;
+    }
+
+    /**
+     * Retrieves the session of a logged-in player, including the token issued
+     * at login.
+     *
+     * @param username unique player identifier
+     * @return session, or {@code null} when the player is not connected
+     */
+    public PlayerSession getSession(String username) {
         if (username == null)
             return null;
         return loggedPlayers.get(username);
     }
 
+    /**
+     * Resolves a session token presented when a WebSocket connection is opened.
+     *
+     * @param token token issued by {@link #login(String, String)}
+     * @return matching session, or {@code null} if the token is unknown or the
+     *         player logged out
+     */
+    public PlayerSession authenticate(String token) {
+        if (token == null)
+            return null;
+        return sessionsByToken.get(token);
+    }
+
+    /**
+     * Records the lobby a player created or joined so it can be cleaned up if
+     * the player never comes back.
+     *
+     * @param username player identifier
+     * @param code     lobby code
+     */
+    public void enterLobby(String username, String code) {
+        PlayerSession session = getSession(username);
+        if (session != null) {
+            session.setLobbyCode(code);
+        }
+    }
+
+    /**
+     * @return snapshot view of every active session
+     */
+    public Collection<PlayerSession> sessions() {
+        return loggedPlayers.values();
+    }
+
+    /**
+     * Drops a session whose reconnect window has expired. The check is repeated
+     * under the registry lock so a login that resumes the session concurrently
+     * is never discarded.
+     *
+     * @param session     session to drop
+     * @param seenBeforeMs the session must have been offline since before this
+     *                    instant
+     * @return {@code true} if the session was removed
+     */
+    public boolean expire(PlayerSession session, long seenBeforeMs) {
+        boolean[] removed = new boolean[1];
+        loggedPlayers.computeIfPresent(session.getName(), (k, current) -> {
+            if (current != session || current.isOnline() || current.getLastSeenMs() > seenBeforeMs)
+                return current;
+            removed[0] = true;
+            return null;
+        });
+        if (!removed[0])
+            return false;
+        sessionsByToken.remove(session.getToken());
+        session.unbind();
+        logger.info("Sesión expirada por desconexión: {}", session.getName());
+        return true;
+    }
+
+    /**
+     * Binds the sessions of every human in a match that just started to their
+     * avatar, so movement messages can be applied without lookups.
+     *
+     * @param match started match
+     */
+    public void bindMatch(Match match) {
+        for (Player p : match.getPlayers()) {
+            PlayerSession session = getSession(p.getUsername());
+            if (session != null) {
+                session.bind(match, p);
+            }
+        }
+    }
+
     /**
      * Removes the player from the active session registry.
      *
@@ -97,6 +205,17 @@ public class AuthService {
     public boolean logout(String username) {
         if (username == null)
             return false;
-        return loggedPlayers.remove(username) != null;
+        PlayerSession session = loggedPlayers.remove(username);
+        if (session == null)
+            return false;
+        sessionsByToken.remove(session.getToken());
+        session.unbind();
+        return true;
+    }
+
+    private String newToken() {
+        byte[] raw = new byte[24];
+        tokenRandom.nextBytes(raw);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
     }
 }
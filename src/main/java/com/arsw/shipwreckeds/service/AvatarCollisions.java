@@ -0,0 +1,197 @@
+package com.arsw.shipwreckeds.service;
+
+import java.util.Arrays;
+
+/**
+ * Separates overlapping avatars, all discs of the same radius.
+ * <p>
+ * Broad phase: a spatial hash with cells one avatar diameter wide, rebuilt on
+ * every pass into flat arrays (bucket heads plus a next-index chain), so only
+ * avatars in the same or adjacent cells are ever tested. Narrow phase: an
+ * overlapping pair is pushed apart along the line between centres, split by
+ * inverse mass ({@code 0} = does not move). Work is linear in the number of
+ * avatars for any realistic density, and nothing is allocated once the arrays
+ * have grown to the largest batch seen. Not thread-safe; reuse one per match.
+ */
+public final class AvatarCollisions {
+
+    /** Radius of every avatar disc, in island units. */
+    public static final double AVATAR_RADIUS = 1.5;
+
+    private final double radius;
+    private final double cellSize;
+
+    private double[] x = new double[16];
+    private double[] y = new double[16];
+    private double[] invMass = new double[16];
+    private int[] cellX = new int[16];
+    private int[] cellY = new int[16];
+    private int[] next = new int[16];
+    private boolean[] pushed = new boolean[16];
+    private int[] head = new int[32];
+    private int mask = 31;
+    private int size;
+
+    private long pairsTested;
+
+    public AvatarCollisions() {
+        this(AVATAR_RADIUS);
+    }
+
+    /**
+     * @param radius avatar radius
+     */
+    public AvatarCollisions(double radius) {
+        this.radius = radius;
+        this.cellSize = 2 * radius;
+    }
+
+    /**
+     * Forgets the previous batch.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @param px        x
+     * @param py        y
+     * @param inverseMass share of each push the avatar takes; {@code 0} for one
+     *                    that must not move
+     * @return index of the avatar in this batch
+     */
+    public int add(double px, double py, double inverseMass) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            invMass = Arrays.copyOf(invMass, capacity);
+            cellX = Arrays.copyOf(cellX, capacity);
+            cellY = Arrays.copyOf(cellY, capacity);
+            next = Arrays.copyOf(next, capacity);
+            pushed = Arrays.copyOf(pushed, capacity);
+        }
+        x[size] = px;
+        y[size] = py;
+        invMass[size] = inverseMass;
+        pushed[size] = false;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double x(int i) {
+        return x[i];
+    }
+
+    public double y(int i) {
+        return y[i];
+    }
+
+    /**
+     * @return whether the avatar was moved by {@link #resolve(int)}
+     */
+    public boolean pushed(int i) {
+        return pushed[i];
+    }
+
+    /**
+     * @return candidate pairs tested so far, for benchmarks and tests
+     */
+    public long getPairsTested() {
+        return pairsTested;
+    }
+
+    /**
+     * Pushes overlapping avatars apart. Each pass fully separates the pairs it
+     * finds; later passes catch the overlaps that pushes created.
+     *
+     * @param passes relaxation passes
+     * @return overlapping pairs found over all passes
+     */
+    public int resolve(int passes) {
+        if (radius <= 0 || size < 2)
+            return 0;
+        int overlaps = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int found = resolvePass();
+            overlaps += found;
+            if (found == 0)
+                break;
+        }
+        return overlaps;
+    }
+
+    private int resolvePass() {
+        buildHash();
+        double minDistance = 2 * radius;
+        double minDistanceSq = minDistance * minDistance;
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            for (int oy = -1; oy <= 1; oy++) {
+                for (int ox = -1; ox <= 1; ox++) {
+                    int cx = cellX[i] + ox;
+                    int cy = cellY[i] + oy;
+                    for (int j = head[bucket(cx, cy)]; j >= 0; j = next[j]) {
+                        // each pair once, and only from the cell it really is in
+                        // (several cells can share a bucket)
+                        if (j <= i || cellX[j] != cx || cellY[j] != cy)
+                            continue;
+                        pairsTested++;
+                        double dx = x[j] - x[i];
+                        double dy = y[j] - y[i];
+                        double d2 = dx * dx + dy * dy;
+                        if (d2 >= minDistanceSq)
+                            continue;
+                        double wi = invMass[i];
+                        double wj = invMass[j];
+                        if (wi + wj == 0.0)
+                            continue;
+                        found++;
+                        double d = Math.sqrt(d2);
+                        double nx;
+                        double ny;
+                        if (d == 0.0) {
+                            // same spot: split them along x
+                            nx = 1.0;
+                            ny = 0.0;
+                        } else {
+                            nx = dx / d;
+                            ny = dy / d;
+                        }
+                        double push = (minDistance - d) / (wi + wj);
+                        x[i] -= nx * push * wi;
+                        y[i] -= ny * push * wi;
+                        x[j] += nx * push * wj;
+                        y[j] += ny * push * wj;
+                        pushed[i] |= wi > 0.0;
+                        pushed[j] |= wj > 0.0;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void buildHash() {
+        int buckets = Integer.highestOneBit(Math.max(16, size * 2) - 1) << 1;
+        if (head.length < buckets) {
+            head = new int[buckets];
+        }
+        mask = head.length - 1;
+        Arrays.fill(head, -1);
+        for (int i = 0; i < size; i++) {
+            cellX[i] = (int) Math.floor(x[i] / cellSize);
+            cellY[i] = (int) Math.floor(y[i] / cellSize);
+            int b = bucket(cellX[i], cellY[i]);
+            next[i] = head[b];
+            head[b] = i;
+        }
+    }
+
+    private int bucket(int cx, int cy) {
+        return ((cx * 73856093) ^ (cy * 19349663)) & mask;
+    }
+}
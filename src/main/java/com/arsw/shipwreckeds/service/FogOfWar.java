@@ -0,0 +1,92 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side fog of war: while a match is running, each player is only sent
+ * the castaways it can see (see {@link VisibilitySets}), so positions out of
+ * sight never reach its client. NPCs are not hidden: they move along public
+ * segments anyway. Neither is the infiltrator, which others only know as an
+ * NPC: culling it alone would single it out.
+ */
+@Component
+public class FogOfWar {
+
+    /** Default distance a player sees. */
+    public static final double VIEW_RADIUS = 35.0;
+    /** Default side of the cells visibility is cached by. */
+    public static final double CELL_SIZE = 4.0;
+
+    private final boolean enabled;
+    private final IslandMap map;
+    private final double viewRadius;
+    private final double cellSize;
+    private final Map<String, VisibilitySets> matches = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled    whether snapshots are filtered per player
+     * @param map        island whose opaque obstacles block sight
+     * @param viewRadius how far a player sees
+     * @param cellSize   side of the cells positions are quantized to; a
+     *                   player's view only changes when someone crosses a cell
+     */
+    @Autowired
+    public FogOfWar(@Value("${shipwreckeds.game.fog.enabled:true}") boolean enabled,
+            IslandMap map,
+            @Value("${shipwreckeds.game.fog.view-radius:" + VIEW_RADIUS + "}") double viewRadius,
+            @Value("${shipwreckeds.game.fog.cell-size:" + CELL_SIZE + "}") double cellSize) {
+        if (viewRadius <= 0 || cellSize <= 0)
+            throw new IllegalArgumentException("El radio de visión y el tamaño de celda deben ser positivos.");
+        this.enabled = enabled;
+        this.map = map;
+        this.viewRadius = viewRadius;
+        this.cellSize = cellSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getViewRadius() {
+        return viewRadius;
+    }
+
+    /**
+     * @return whether snapshots of the match must be filtered: the fog is on
+     *         and the match is being played (lobby and final states are public)
+     */
+    public boolean appliesTo(Match match) {
+        return enabled && (match.getStatus() == MatchStatus.STARTED || match.getStatus() == MatchStatus.IN_MEETING);
+    }
+
+    /**
+     * Updates the visibility sets of a match with its players' positions.
+     * Caller holds the match lock.
+     *
+     * @param match running match
+     * @return the match's sets, indexed like {@link Match#getPlayers()}
+     */
+    public VisibilitySets update(Match match) {
+        VisibilitySets sets = matches.computeIfAbsent(match.getCode(),
+                k -> new VisibilitySets(map, viewRadius, cellSize));
+        sets.update(match.getPlayers());
+        return sets;
+    }
+
+    /**
+     * Drops the cached sets of a match that is over.
+     *
+     * @param code match code
+     */
+    public void forget(String code) {
+        matches.remove(code);
+    }
+}
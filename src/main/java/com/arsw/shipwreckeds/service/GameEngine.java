@@ -1,18 +1,29 @@
 package com.arsw.shipwreckeds.service;
 
 import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.IslandMap;
 import com.arsw.shipwreckeds.model.Match;
 import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.MovementInput;
 import com.arsw.shipwreckeds.model.Npc;
 import com.arsw.shipwreckeds.model.Player;
 import com.arsw.shipwreckeds.model.Position;
 import com.arsw.shipwreckeds.model.dto.AvatarState;
+import com.arsw.shipwreckeds.model.dto.GameEvent;
 import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.model.dto.MoveAck;
+import com.arsw.shipwreckeds.model.dto.MoveCommand;
+import com.arsw.shipwreckeds.model.dto.MovementRules;
+import com.arsw.shipwreckeds.model.dto.NpcPathUpdate;
+import com.arsw.shipwreckeds.model.dto.NpcSegment;
 import com.arsw.shipwreckeds.util.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -24,13 +35,26 @@ import java.util.concurrent.*;
 @Service
 public class GameEngine {
 
-    private static final double ISLAND_RADIUS = 100.0;
-    private static final double BOAT_X = ISLAND_RADIUS + 12.0;
-    private static final double BOAT_Y = 0.0;
-    private static final double BOAT_INTERACTION_RADIUS = 40.0;
     private static final long NPC_ALIAS_OFFSET = 100000L;
     private static final double NPC_SPEED_MULTIPLIER = 3.0;
 
+    /** Avatar speed in island units per second while a direction is held. */
+    public static final double PLAYER_SPEED = 30.0;
+    /** Fixed simulation step for avatar movement. */
+    public static final long SIM_TICK_MS = 50;
+    /** Default minimum spacing between movement-driven snapshots of one match. */
+    public static final long STATE_BROADCAST_INTERVAL_MS = 100;
+    /** How long an unheld (one-per-step) command keeps the avatar moving. */
+    public static final long IMPULSE_MS = 125;
+    /** Default spacing of snapshots that carry the NPC avatars. */
+    public static final long NPC_KEYFRAME_MS = 5000;
+    /** Relaxation passes of each avatar separation. */
+    private static final int COLLISION_PASSES = 2;
+    /** How far the infiltrator may stray from its disguise's segment before a new one is published. */
+    private static final double DISGUISE_TOLERANCE = 0.5;
+    /** How far ahead a disguise segment extends the infiltrator's last second of movement. */
+    private static final double DISGUISE_LOOKAHEAD_SECONDS = 3.0;
+
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
         Thread t = new Thread(r, "game-engine");
         t.setDaemon(true);
@@ -38,12 +62,132 @@ public class GameEngine {
     });
 
     private final Map<String, ScheduledFuture<?>> tasks = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> simulations = new ConcurrentHashMap<>();
     private final Map<String, ScheduledFuture<?>> voteTimers = new ConcurrentHashMap<>();
-    private final Map<String, Map<Long, Position>> npcTargetsByMatch = new ConcurrentHashMap<>();
+    private final Map<String, NpcTrack> npcTracks = new ConcurrentHashMap<>();
     private final WebSocketController ws;
+    private final long stateBroadcastIntervalMs;
+    private final long npcKeyframeMs;
+    private final NpcSteering npcSteering;
+    private final NpcBrain npcBrain;
+    private final NpcNavigator npcNavigator;
+    private final IslandMap islandMap;
+    private final FogOfWar fogOfWar;
+
+    /**
+     * NPC motion of one match, indexed like {@link Match#getNpcs()}: the
+     * segment each NPC is following, the rest of its route, its level-of-detail
+     * bookkeeping, the reusable steering and separation batches, and when the
+     * NPC avatars were last included in a snapshot. Guarded by the match lock.
+     */
+    private static final class NpcTrack {
+        NpcSegment[] slots = new NpcSegment[0];
+        boolean[] fresh = new boolean[0];
+        boolean[] near = new boolean[0];
+        boolean[] stepped = new boolean[0];
+        boolean[] pushed = new boolean[0];
+        // time an out-of-sight NPC has not been moved for
+        double[] pendingSeconds = new double[0];
+        long[] holdUntilMs = new long[0];
+        // packed waypoints of each NPC's route and the index of the next one
+        double[][] routes = new double[0][];
+        int[] routeNext = new int[0];
+        final NpcSwarm swarm = new NpcSwarm(16);
+        final NpcBehavior.World world;
+        final NpcBehavior.Plan plan = new NpcBehavior.Plan();
+        // separation batch; members maps its movable bodies back to NPC indexes
+        final AvatarCollisions collisions = new AvatarCollisions();
+        int[] members = new int[16];
+        final double[] xy = new double[2];
+        long lastKeyframeMs = Long.MIN_VALUE;
+        int activeAtKeyframe = -1;
+        // the infiltrator's disguise under the fog of war: the segment clients
+        // follow and where the infiltrator stood on the previous tick
+        NpcSegment disguise;
+        double disguiseLastX = Double.NaN;
+        double disguiseLastY = Double.NaN;
+
+        NpcTrack(IslandMap map) {
+            this.world = new NpcBehavior.World(map.getRadius(), map.getBoat().getX(), map.getBoat().getY());
+        }
+
+        void resize(int n) {
+            if (slots.length == n)
+                return;
+            slots = Arrays.copyOf(slots, n);
+            pendingSeconds = Arrays.copyOf(pendingSeconds, n);
+            holdUntilMs = Arrays.copyOf(holdUntilMs, n);
+            routes = Arrays.copyOf(routes, n);
+            routeNext = Arrays.copyOf(routeNext, n);
+            fresh = new boolean[n];
+            near = new boolean[n];
+            stepped = new boolean[n];
+            pushed = new boolean[n];
+        }
+
+        List<NpcSegment> segments() {
+            List<NpcSegment> out = new ArrayList<>(slots.length);
+            for (NpcSegment segment : slots) {
+                if (segment != null)
+                    out.add(segment);
+            }
+            return out;
+        }
+
+        /**
+         * @return the NPC segments with the disguise's among them, in id order
+         */
+        List<NpcSegment> segmentsWithDisguise(List<NpcSegment> segments) {
+            if (disguise == null || segments == null)
+                return segments;
+            List<NpcSegment> out = new ArrayList<>(segments.size() + 1);
+            boolean placed = false;
+            for (NpcSegment segment : segments) {
+                if (!placed && segment.getNpcId() != null && segment.getNpcId() > disguise.getNpcId()) {
+                    out.add(disguise);
+                    placed = true;
+                }
+                out.add(segment);
+            }
+            if (!placed)
+                out.add(disguise);
+            return out;
+        }
+    }
 
-    public GameEngine(WebSocketController ws) {
+    /**
+     * @param ws                       broadcaster for snapshots and events
+     * @param stateBroadcastIntervalMs minimum spacing of movement-driven
+     *                                 snapshots on the shared game topic; movers
+     *                                 get private acknowledgements regardless
+     * @param npcKeyframeMs            spacing of snapshots that include the NPC
+     *                                 avatars; in between clients follow the
+     *                                 published NPC segments ({@code 0} sends the
+     *                                 NPCs in every snapshot)
+     * @param npcSteering              NPC steering kernel: {@code auto},
+     *                                 {@code vector} or {@code scalar} (see
+     *                                 {@link NpcSteering#create(String)})
+     * @param npcBrain                 NPC behaviors and update budget
+     * @param npcNavigator             NPC routes over the island map, whose
+     *                                 obstacles also block players
+     * @param fogOfWar                 which players each player is sent
+     */
+    @Autowired
+    public GameEngine(WebSocketController ws,
+            @Value("${shipwreckeds.game.state-broadcast-interval-ms:" + STATE_BROADCAST_INTERVAL_MS + "}") long stateBroadcastIntervalMs,
+            @Value("${shipwreckeds.game.npc-keyframe-ms:" + NPC_KEYFRAME_MS + "}") long npcKeyframeMs,
+            @Value("${shipwreckeds.game.npc-steering:auto}") String npcSteering,
+            NpcBrain npcBrain,
+            NpcNavigator npcNavigator,
+            FogOfWar fogOfWar) {
         this.ws = ws;
+        this.stateBroadcastIntervalMs = Math.max(SIM_TICK_MS, stateBroadcastIntervalMs);
+        this.npcKeyframeMs = Math.max(0, npcKeyframeMs);
+        this.npcSteering = NpcSteering.create(npcSteering);
+        this.npcBrain = npcBrain;
+        this.npcNavigator = npcNavigator;
+        this.islandMap = npcNavigator.getMap();
+        this.fogOfWar = fogOfWar;
     }
 
     /**
@@ -57,35 +201,205 @@ public class GameEngine {
             return;
         String code = match.getCode();
         stopMatchTicker(code);
-        npcTargetsByMatch.remove(code);
 
+        // snapshots are built under the match lock and sent after releasing it
         Runnable tick = () -> {
+            GameState state;
+            NpcPathUpdate paths = null;
             synchronized (match) {
-                if (match.getStatus() != null && match.getStatus().name().equals(Constants.MATCH_STATUS_STARTED)) {
-                    int t = match.getTimerSeconds();
-                    if (t <= 0) {
-                        if (match.getWinnerMessage() == null || match.getWinnerMessage().isBlank()) {
-                            match.setWinnerMessage("Se acabó el tiempo, ganó el infiltrado.");
-                        }
-                        match.endMatch();
-                        // broadcast final state including winner message
-                        ws.broadcastGameState(code, buildGameState(match));
-                        stopMatchTicker(code);
-                        return;
-                    }
-                    updateNpcMovement(match, 1.0);
-                    match.setTimerSeconds(t - 1);
-                    // broadcast updated GameState with new timer
-                    ws.broadcastGameState(code, buildGameState(match));
-                } else {
+                if (match.getStatus() == null || !match.getStatus().name().equals(Constants.MATCH_STATUS_STARTED)) {
                     // if match not started, cancel
                     stopMatchTicker(code);
+                    return;
+                }
+                int t = match.getTimerSeconds();
+                if (t <= 0) {
+                    if (match.getWinnerMessage() == null || match.getWinnerMessage().isBlank()) {
+                        match.setWinnerMessage("Se acabó el tiempo, ganó el infiltrado.");
+                    }
+                    match.endMatch();
+                    stopMatchTicker(code);
+                    // final state including winner message
+                    state = buildGameState(match);
+                } else {
+                    long now = System.currentTimeMillis();
+                    List<NpcSegment> changed = updateNpcPaths(match, 1.0, now);
+                    if (!changed.isEmpty()) {
+                        paths = new NpcPathUpdate(code, now, changed);
+                    }
+                    match.setTimerSeconds(t - 1);
+                    // updated GameState with new timer
+                    state = buildGameState(match);
                 }
             }
+            if (paths != null) {
+                ws.broadcastNpcPaths(code, paths);
+            }
+            publishGameState(match, state);
         };
 
         ScheduledFuture<?> f = scheduler.scheduleAtFixedRate(tick, 1, 1, TimeUnit.SECONDS);
         tasks.put(code, f);
+
+        long[] lastBroadcastMs = new long[1];
+        boolean[] dirty = new boolean[1];
+        double[] dir = new double[2];
+        Runnable step = () -> {
+            GameState state = null;
+            synchronized (match) {
+                if (match.getStatus() != MatchStatus.STARTED)
+                    return;
+                long now = System.currentTimeMillis();
+                dirty[0] |= integrateMovement(match, now, SIM_TICK_MS / 1000.0, dir);
+                dirty[0] |= separateAvatars(match, now);
+                sendMoveAcks(match, now);
+                if (dirty[0] && now - lastBroadcastMs[0] >= stateBroadcastIntervalMs) {
+                    state = buildGameState(match);
+                    lastBroadcastMs[0] = now;
+                    dirty[0] = false;
+                }
+            }
+            if (state != null) {
+                publishGameState(match, state);
+            }
+        };
+        simulations.put(code, scheduler.scheduleAtFixedRate(step, SIM_TICK_MS, SIM_TICK_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Records a movement command for an avatar. Nothing moves here: the
+     * simulation tick integrates the held direction at {@link #PLAYER_SPEED}, so
+     * speed no longer depends on how often or how evenly messages arrive.
+     * <p>
+     * Batched inputs are queued and integrated one after another, each for its
+     * own tick count (one tick when absent); the batch's last input without a
+     * count is held until the next command.
+     *
+     * @param avatar player entry controlled by the sender
+     * @param cmd    single direction, or a batch of sequenced inputs
+     * @param nowMs  current time
+     * @return number of inputs accepted (stale or malformed ones are skipped)
+     */
+    public int submitInput(Player avatar, MoveCommand cmd, long nowMs) {
+        MovementInput input = avatar.getInput();
+        int applied = 0;
+        List<MoveCommand.Input> inputs = cmd.getInputs();
+        if (inputs != null && !inputs.isEmpty()) {
+            int last = inputs.size() - 1;
+            for (int i = 0; i <= last; i++) {
+                MoveCommand.Input in = inputs.get(i);
+                if (in == null)
+                    continue;
+                int ticks = in.getTicks() != null ? Math.max(1, in.getTicks()) : (i == last ? 0 : 1);
+                if (input.enqueue(in.getSeq(), in.getDx(), in.getDy(), ticks))
+                    applied++;
+            }
+            return applied;
+        }
+        if (cmd.getDirection() == null)
+            return 0;
+        long holdMs = Boolean.TRUE.equals(cmd.getHold()) ? Long.MAX_VALUE : IMPULSE_MS;
+        return input.apply(cmd.getSeq(), cmd.getDirection().getDx(), cmd.getDirection().getDy(), holdMs, nowMs) ? 1
+                : 0;
+    }
+
+    /**
+     * Advances every avatar with an active direction by one simulation step and
+     * keeps it inside the island and out of its obstacles. Caller holds the
+     * match lock.
+     * <p>
+     * Clients replaying their unacknowledged inputs must use the same rule: each
+     * tick moves {@code PLAYER_SPEED * SIM_TICK_MS / 1000} along the unit
+     * direction, then resolves collisions as described in {@link IslandMap}
+     * (see {@link #movementRules()} and {@link #getIslandMap()}).
+     *
+     * @param match     running match
+     * @param nowMs     current time
+     * @param dtSeconds step length
+     * @param dir       scratch buffer of length 2
+     * @return {@code true} if any avatar moved
+     */
+    public boolean integrateMovement(Match match, long nowMs, double dtSeconds, double[] dir) {
+        boolean moved = false;
+        double step = PLAYER_SPEED * dtSeconds;
+        double[] xy = new double[2];
+        for (Player p : match.getPlayers()) {
+            if (p.isAfk() || !p.getInput().sample(nowMs, dir))
+                continue;
+            Position pos = p.getPosition();
+            if (pos == null) {
+                pos = new Position(0.0, 0.0);
+                p.setPosition(pos);
+            }
+            xy[0] = pos.getX() + dir[0] * step;
+            xy[1] = pos.getY() + dir[1] * step;
+            islandMap.resolveMove(xy);
+            if (xy[0] != pos.getX() || xy[1] != pos.getY()) {
+                pos.setX(xy[0]);
+                pos.setY(xy[1]);
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Pushes apart live players that overlap each other or an NPC after a
+     * simulation step (see {@link AvatarCollisions}). Players share each push;
+     * NPCs do not yield here, since clients follow their published segments,
+     * and only NPCs within the brain's view radius of a player are considered.
+     * Pushed players are then kept out of the obstacles again. Caller holds the
+     * match lock.
+     *
+     * @param match running match
+     * @param nowMs current time
+     * @return {@code true} if any player was pushed
+     */
+    public boolean separateAvatars(Match match, long nowMs) {
+        NpcTrack track = npcTracks.computeIfAbsent(match.getCode(), k -> new NpcTrack(islandMap));
+        AvatarCollisions collisions = track.collisions;
+        collisions.clear();
+        for (Player p : match.getPlayers()) {
+            if (isSolid(p))
+                collisions.add(p.getPosition().getX(), p.getPosition().getY(), 1.0);
+        }
+        if (collisions.size() == 0)
+            return false;
+        List<Npc> npcs = match.getNpcs();
+        NpcSegment[] slots = track.slots;
+        int tracked = Math.min(npcs.size(), slots.length);
+        for (int i = 0; i < tracked; i++) {
+            if (slots[i] == null || !track.near[i] || !npcs.get(i).isActive())
+                continue;
+            slots[i].positionAt(nowMs, track.xy);
+            collisions.add(track.xy[0], track.xy[1], 0.0);
+        }
+        if (collisions.resolve(COLLISION_PASSES) == 0)
+            return false;
+        boolean moved = false;
+        double[] xy = track.xy;
+        int body = 0;
+        for (Player p : match.getPlayers()) {
+            if (!isSolid(p))
+                continue;
+            int b = body++;
+            if (!collisions.pushed(b))
+                continue;
+            xy[0] = collisions.x(b);
+            xy[1] = collisions.y(b);
+            islandMap.resolveMove(xy);
+            Position pos = p.getPosition();
+            if (xy[0] != pos.getX() || xy[1] != pos.getY()) {
+                pos.setX(xy[0]);
+                pos.setY(xy[1]);
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    private static boolean isSolid(Player p) {
+        return p.isAlive() && p.getPosition() != null;
     }
 
     /**
@@ -97,7 +411,11 @@ public class GameEngine {
         ScheduledFuture<?> f = tasks.remove(code);
         if (f != null)
             f.cancel(false);
-        npcTargetsByMatch.remove(code);
+        ScheduledFuture<?> sim = simulations.remove(code);
+        if (sim != null)
+            sim.cancel(false);
+        npcTracks.remove(code);
+        fogOfWar.forget(code);
     }
 
     /**
@@ -138,7 +456,7 @@ public class GameEngine {
      * @param match match whose state is being serialized
      * @return ready-to-send game state payload
      */
-    private GameState buildGameState(Match match) {
+    public GameState buildGameState(Match match) {
         List<AvatarState> avatars = new ArrayList<>();
         for (Player p : match.getPlayers()) {
             Position pos = p.getPosition();
@@ -146,25 +464,41 @@ public class GameEngine {
             double y = pos != null ? pos.getY() : 0.0;
             if (p.isInfiltrator()) {
                 avatars.add(new AvatarState(p.getId(), "npc", null, x, y, true, p.isAlive(),
-                        aliasForInfiltrator(p.getId())));
+                        aliasForInfiltrator(p.getId()), ackSeqOf(p)));
             } else {
                 avatars.add(new AvatarState(p.getId(), Constants.AVATAR_TYPE_HUMAN, p.getUsername(), x, y, false, p.isAlive(),
-                        p.getUsername()));
+                        p.getUsername(), ackSeqOf(p)));
             }
         }
-        for (Npc n : match.getNpcs()) {
-            Position pos = n.getPosition();
-            double x = pos != null ? pos.getX() : 0.0;
-            double y = pos != null ? pos.getY() : 0.0;
-            avatars.add(
-                    new AvatarState(n.getId(), "npc", null, x, y, n.isInfiltrator(), n.isActive(), n.getDisplayName()));
+        long now = System.currentTimeMillis();
+        boolean keyframe = isNpcKeyframe(match, now);
+        NpcTrack track = npcTracks.get(match.getCode());
+        if (keyframe) {
+            List<Npc> npcs = match.getNpcs();
+            double[] xy = new double[2];
+            for (int i = 0; i < npcs.size(); i++) {
+                Npc n = npcs.get(i);
+                Position pos = n.getPosition();
+                double x = pos != null ? pos.getX() : 0.0;
+                double y = pos != null ? pos.getY() : 0.0;
+                if (track != null && i < track.slots.length && track.slots[i] != null && !track.stepped[i]) {
+                    // out-of-sight NPCs skipped by the level of detail keep a
+                    // stale server position; send where their segment has them
+                    track.slots[i].positionAt(now, xy);
+                    x = xy[0];
+                    y = xy[1];
+                }
+                avatars.add(new AvatarState(n.getId(), "npc", null, x, y, n.isInfiltrator(), n.isActive(),
+                        n.getDisplayName()));
+            }
         }
-        GameState.Island isl = new GameState.Island(0.0, 0.0, ISLAND_RADIUS);
-        GameState.Boat boat = new GameState.Boat(BOAT_X, BOAT_Y, BOAT_INTERACTION_RADIUS);
+        List<NpcSegment> segments = keyframe && track != null ? track.segments() : null;
+        GameState.Island isl = new GameState.Island(0.0, 0.0, islandMap.getRadius());
+        GameState.Boat boat = islandMap.getBoat();
         String status = match.getStatus() != null ? match.getStatus().name() : MatchStatus.WAITING.name();
         return new GameState(
                 match.getCode(),
-                System.currentTimeMillis(),
+                now,
                 match.getTimerSeconds(),
                 isl,
                 avatars,
@@ -173,22 +507,278 @@ public class GameEngine {
                 boat,
                 match.getWinnerMessage(),
                 match.isFuelWindowOpenNow(),
-                match.getFuelWindowSecondsRemaining());
+                match.getFuelWindowSecondsRemaining(),
+                keyframe,
+                segments);
+    }
+
+    /**
+     * Whether a snapshot of the match must carry the NPC avatars: always outside
+     * a running match, when keyframes are disabled, before the first keyframe,
+     * once the keyframe interval elapsed, and whenever an NPC was deactivated
+     * since the last one. Records the keyframe when it returns {@code true}.
+     */
+    private boolean isNpcKeyframe(Match match, long now) {
+        if (npcKeyframeMs == 0 || match.getStatus() != MatchStatus.STARTED)
+            return true;
+        NpcTrack track = npcTracks.get(match.getCode());
+        if (track == null)
+            return true;
+        int active = 0;
+        for (Npc n : match.getNpcs()) {
+            if (n.isActive())
+                active++;
+        }
+        if (active == track.activeAtKeyframe && now - track.lastKeyframeMs < npcKeyframeMs)
+            return false;
+        track.lastKeyframeMs = now;
+        track.activeAtKeyframe = active;
+        return true;
+    }
+
+    /**
+     * Publishes a snapshot of the match. Outside the fog of war it goes to the
+     * shared game channels; under it each player gets its own view (see
+     * {@link #sendPlayerViews(Match, GameState)}) and only spectators get the
+     * shared remainder.
+     *
+     * @param match match the snapshot belongs to
+     * @param state full snapshot, players first
+     */
+    public void publishGameState(Match match, GameState state) {
+        if (!fogOfWar.appliesTo(match)) {
+            ws.broadcastGameState(match.getCode(), state);
+            return;
+        }
+        ws.broadcastSpectatorState(match.getCode(), sendPlayerViews(match, state));
+    }
+
+    /**
+     * Publishes the events of one match transition as a single batch. Under the
+     * fog of war the game states among them are taken out and published with
+     * {@link #publishGameState(Match, GameState)} first, so every player gets
+     * its own view and the batch carries the remaining events.
+     *
+     * @param match  match the events belong to
+     * @param events events in order
+     */
+    public void publishEvents(Match match, List<GameEvent> events) {
+        if (!fogOfWar.appliesTo(match)) {
+            ws.broadcastEvents(match.getCode(), events);
+            return;
+        }
+        List<GameEvent> shared = new ArrayList<>(events.size());
+        for (GameEvent event : events) {
+            if (GameEvent.GAME_STATE.equals(event.getType()) && event.getPayload() instanceof GameState state) {
+                publishGameState(match, state);
+            } else {
+                shared.add(event);
+            }
+        }
+        if (!shared.isEmpty()) {
+            ws.broadcastEvents(match.getCode(), shared);
+        }
+    }
+
+    /**
+     * Fog of war for a snapshot built by {@link #buildGameState(Match)} (or any
+     * builder that lists the players first, in match order): while the match is
+     * being played, sends each player, on its private channels, the snapshot
+     * reduced to the players it can see plus the NPCs. The infiltrator counts
+     * as an NPC for everyone but itself: it is never listed as a player, and
+     * its disguise (see {@link #disguiseOf(Match)}) rides with the NPCs, in id
+     * order, only in the snapshots that carry them, with its segment among
+     * theirs, so neither its id, its fields nor its cadence give it away.
+     * <p>
+     * The views are built under the match lock and sent once it is released.
+     *
+     * @param match match the snapshot belongs to
+     * @param state full snapshot
+     * @return what anyone may see: {@code state} itself when the fog does not
+     *         apply, otherwise what a player who sees nobody gets, the NPCs and
+     *         the infiltrator's disguise, which is all spectators are sent
+     */
+    public GameState sendPlayerViews(Match match, GameState state) {
+        if (state == null || state.getAvatars() == null || !fogOfWar.appliesTo(match))
+            return state;
+        List<String> recipients = new ArrayList<>();
+        List<GameState> views = new ArrayList<>();
+        GameState shared;
+        synchronized (match) {
+            List<Player> players = match.getPlayers();
+            List<AvatarState> avatars = state.getAvatars();
+            int n = Math.min(players.size(), avatars.size());
+            List<AvatarState> npcs = avatars.subList(n, avatars.size());
+            AvatarState disguise = state.isNpcKeyframe() ? disguiseOf(match) : null;
+            List<AvatarState> disguised = npcs;
+            if (disguise != null) {
+                disguised = new ArrayList<>(npcs.size() + 1);
+                for (AvatarState npc : npcs) {
+                    if (disguise != null && npc.getId() != null && npc.getId() > disguise.getId()) {
+                        disguised.add(disguise);
+                        disguise = null;
+                    }
+                    disguised.add(npc);
+                }
+                if (disguise != null)
+                    disguised.add(disguise);
+            }
+            NpcTrack track = npcTracks.get(match.getCode());
+            List<NpcSegment> segments = track != null && match.getInfiltratorDisguiseId() != null
+                    ? track.segmentsWithDisguise(state.getNpcSegments())
+                    : state.getNpcSegments();
+            VisibilitySets sets = fogOfWar.update(match);
+            for (int viewer = 0; viewer < n; viewer++) {
+                String username = players.get(viewer).getUsername();
+                if (username == null)
+                    continue;
+                boolean infiltrator = players.get(viewer).isInfiltrator();
+                List<AvatarState> visible = new ArrayList<>(disguised.size() + 8);
+                for (int candidate = 0; candidate < n; candidate++) {
+                    if (candidate == viewer
+                            || (!players.get(candidate).isInfiltrator() && sets.isVisible(viewer, candidate)))
+                        visible.add(avatars.get(candidate));
+                }
+                // the infiltrator sees itself as a player, not its disguise
+                visible.addAll(infiltrator ? npcs : disguised);
+                recipients.add(username);
+                views.add(state.withAvatars(visible, segments));
+            }
+            shared = state.withAvatars(disguised, segments);
+        }
+        for (int i = 0; i < recipients.size(); i++) {
+            ws.sendGameState(match.getCode(), recipients.get(i), views.get(i));
+        }
+        return shared;
+    }
+
+    /**
+     * The infiltrator as the other players see it under the fog of war: an NPC
+     * avatar with the disguise id drawn among the NPC ids, the matching NPC
+     * name, and no infiltrator flag or input sequence. Vote options list the
+     * infiltrator the same way.
+     *
+     * @param match match being played
+     * @return the disguise, or {@code null} when the fog does not apply or the
+     *         match has no disguised infiltrator
+     */
+    public AvatarState disguiseOf(Match match) {
+        Long id = match.getInfiltratorDisguiseId();
+        Player infiltrator = match.getInfiltrator();
+        if (id == null || infiltrator == null || !fogOfWar.appliesTo(match))
+            return null;
+        Position pos = infiltrator.getPosition();
+        double x = pos != null ? pos.getX() : 0.0;
+        double y = pos != null ? pos.getY() : 0.0;
+        return new AvatarState(id, Constants.AVATAR_TYPE_NPC, null, x, y, false, infiltrator.isAlive(),
+                "NPC-" + id);
     }
 
     /**
-     * Updates NPC positions towards their assigned targets, creating new targets
-     * when needed.
+     * Advances the NPCs and the infiltrator's disguise for one ticker update.
+     *
+     * @param match        running match
+     * @param deltaSeconds elapsed seconds since the last update
+     * @param nowMs        time of this update
+     * @return segments to publish on the NPC path channel, the disguise's at a
+     *         random position among the NPCs'
+     */
+    private List<NpcSegment> updateNpcPaths(Match match, double deltaSeconds, long nowMs) {
+        List<NpcSegment> changed = updateNpcMovement(match, deltaSeconds, nowMs);
+        NpcSegment disguise = updateDisguise(match, deltaSeconds, nowMs);
+        if (disguise != null)
+            changed.add(ThreadLocalRandom.current().nextInt(changed.size() + 1), disguise);
+        return changed;
+    }
+
+    /**
+     * Keeps the segment of the infiltrator's disguise in step with the
+     * infiltrator, on the same ticks NPC plans are made: while the infiltrator
+     * stays within {@link #DISGUISE_TOLERANCE} of where the segment has it, the
+     * segment stands; otherwise a new one starts at its position and extends
+     * its last tick of movement {@link #DISGUISE_LOOKAHEAD_SECONDS} ahead, or
+     * stands still if it did not move. Caller holds the match lock.
+     *
+     * @param match        running match
+     * @param deltaSeconds elapsed seconds since the last update
+     * @param nowMs        time of this update
+     * @return the new segment, to be published with the NPCs', or {@code null}
+     */
+    private NpcSegment updateDisguise(Match match, double deltaSeconds, long nowMs) {
+        NpcTrack track = npcTracks.computeIfAbsent(match.getCode(), k -> new NpcTrack(islandMap));
+        Long id = match.getInfiltratorDisguiseId();
+        Player infiltrator = match.getInfiltrator();
+        if (id == null || infiltrator == null || !infiltrator.isAlive() || infiltrator.getPosition() == null
+                || !fogOfWar.appliesTo(match)) {
+            track.disguise = null;
+            return null;
+        }
+        double x = infiltrator.getPosition().getX();
+        double y = infiltrator.getPosition().getY();
+        double dx = Double.isNaN(track.disguiseLastX) ? 0.0 : x - track.disguiseLastX;
+        double dy = Double.isNaN(track.disguiseLastY) ? 0.0 : y - track.disguiseLastY;
+        track.disguiseLastX = x;
+        track.disguiseLastY = y;
+        if (track.disguise != null) {
+            double[] xy = track.xy;
+            track.disguise.positionAt(nowMs, xy);
+            if (Math.hypot(xy[0] - x, xy[1] - y) <= DISGUISE_TOLERANCE)
+                return null;
+        }
+        double moved = Math.hypot(dx, dy);
+        double[] to = track.xy;
+        to[0] = x;
+        to[1] = y;
+        double speed = 0.0;
+        if (moved > DISGUISE_TOLERANCE) {
+            double scale = DISGUISE_LOOKAHEAD_SECONDS / deltaSeconds;
+            to[0] = x + dx * scale;
+            to[1] = y + dy * scale;
+            islandMap.resolveMove(to);
+            speed = moved / deltaSeconds;
+        }
+        track.disguise = new NpcSegment(id, x, y, to[0], to[1], speed, nowMs);
+        return track.disguise;
+    }
+
+    /**
+     * Moves the NPCs along their segments and gives a new plan to those that got
+     * where they were going.
+     *
+     * Each plan starts a new {@link NpcSegment} whose origin is the NPC's
+     * position at {@code nowMs}; since NPCs move in straight lines at constant
+     * speed, the segment reproduces the positions of the following updates
+     * exactly, so only the changed segments need to be published. The
+     * positions themselves are advanced in one batch by the {@link NpcSteering}
+     * kernel over the match's {@link NpcSwarm}; which NPCs take part, and how
+     * many new plans the tick may hand out, is decided by the {@link NpcBrain}.
      *
      * @param match        match containing the NPCs
      * @param deltaSeconds elapsed seconds since the last update
+     * @param nowMs        time of this update
+     * @return segments started by this update
      */
-    private void updateNpcMovement(Match match, double deltaSeconds) {
-        Map<Long, Position> targets = npcTargetsByMatch.computeIfAbsent(match.getCode(),
-                k -> new ConcurrentHashMap<>());
-        for (Npc npc : match.getNpcs()) {
+    private List<NpcSegment> updateNpcMovement(Match match, double deltaSeconds, long nowMs) {
+        long started = System.nanoTime();
+        NpcTrack track = npcTracks.computeIfAbsent(match.getCode(), k -> new NpcTrack(islandMap));
+        List<Npc> npcs = match.getNpcs();
+        int n = npcs.size();
+        track.resize(n);
+        track.world.update(match, nowMs);
+        NpcSegment[] slots = track.slots;
+        NpcSwarm swarm = track.swarm;
+        swarm.resize(n);
+        List<NpcSegment> changed = new ArrayList<>();
+        int decided = 0;
+        int stepped = 0;
+        int skipped = 0;
+        for (int i = 0; i < n; i++) {
+            Npc npc = npcs.get(i);
+            track.stepped[i] = false;
+            track.pushed[i] = false;
+            swarm.set(i, 0.0, 0.0, 0.0, 0.0, 0.0, false);
             if (!npc.isActive()) {
-                targets.remove(npc.getId());
+                slots[i] = null;
                 continue;
             }
             Position position = npc.getPosition();
@@ -196,44 +786,237 @@ public class GameEngine {
                 position = new Position(0.0, 0.0);
                 npc.setPosition(position);
             }
+            track.near[i] = npcBrain.isNear(track.world, position.getX(), position.getY());
+            track.fresh[i] = slots[i] == null;
+            if (track.fresh[i]) {
+                slots[i] = plan(track, i, npc, position, nowMs);
+                track.pendingSeconds[i] = 0.0;
+                decided++;
+            }
+            if (nowMs < track.holdUntilMs[i]) {
+                // standing still: nothing to move until the hold ends
+                track.pendingSeconds[i] = 0.0;
+            } else if (!npcBrain.isDue(track.near[i], track.pendingSeconds[i], deltaSeconds)) {
+                // a plan made on this tick starts from where the NPC is now
+                if (!track.fresh[i])
+                    track.pendingSeconds[i] += deltaSeconds;
+                skipped++;
+            } else {
+                // out-of-sight NPCs catch up on the ticks they skipped in one step
+                double scale = (track.pendingSeconds[i] + deltaSeconds) / deltaSeconds;
+                swarm.set(i, position.getX(), position.getY(), slots[i].getToX(), slots[i].getToY(),
+                        slots[i].getSpeed() * scale, true);
+                track.pendingSeconds[i] = 0.0;
+                track.stepped[i] = true;
+                stepped++;
+                continue;
+            }
+            if (track.fresh[i]) {
+                changed.add(slots[i]);
+            }
+        }
 
-            Position target = targets.computeIfAbsent(npc.getId(), id -> randomIslandPoint());
-            double dx = target.getX() - position.getX();
-            double dy = target.getY() - position.getY();
-            double distance = Math.hypot(dx, dy);
+        npcSteering.step(swarm, deltaSeconds, islandMap.getRadius() - 2.0);
+        separateNpcs(match, track, n, nowMs);
 
-            if (distance < 1.0) {
-                targets.put(npc.getId(), randomIslandPoint());
+        for (int i = 0; i < n; i++) {
+            if (!track.stepped[i] || swarm.needsTarget(i))
                 continue;
+            Npc npc = npcs.get(i);
+            Position position = npc.getPosition();
+            position.setX(swarm.x(i));
+            position.setY(swarm.y(i));
+            if (track.fresh[i] || track.pushed[i]) {
+                // first plan, or shoved aside: the segment starts where this
+                // update left the NPC
+                NpcSegment segment = slots[i];
+                slots[i] = new NpcSegment(npc.getId(), swarm.x(i), swarm.y(i), segment.getToX(), segment.getToY(),
+                        segment.getSpeed(), nowMs);
+                changed.add(slots[i]);
             }
+        }
 
-            double baseSpeed = Math.min(Math.max(0.15, npc.getMovementSpeed()), 0.55);
-            double step = Math.min(distance, baseSpeed * NPC_SPEED_MULTIPLIER * deltaSeconds);
-            double nx = position.getX() + (dx / distance) * step;
-            double ny = position.getY() + (dy / distance) * step;
+        // NPCs with route left walk its next leg; the others get new plans,
+        // nearby NPCs first, within the tick's budget
+        int budget = npcBrain.getDecisionBudget();
+        int postponed = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean nearPass = pass == 0;
+            for (int i = 0; i < n; i++) {
+                if (!track.stepped[i] || !swarm.needsTarget(i) || track.near[i] != nearPass)
+                    continue;
+                double[] route = track.routes[i];
+                if (route != null && track.routeNext[i] < route.length) {
+                    Npc npc = npcs.get(i);
+                    Position position = npc.getPosition();
+                    int next = track.routeNext[i];
+                    slots[i] = new NpcSegment(npc.getId(), position.getX(), position.getY(), route[next],
+                            route[next + 1], slots[i].getSpeed(), nowMs);
+                    track.routeNext[i] = next + 2;
+                    changed.add(slots[i]);
+                    continue;
+                }
+                if (decided >= budget) {
+                    // stays at its target and asks again next tick
+                    postponed++;
+                    if (track.fresh[i])
+                        changed.add(slots[i]);
+                    continue;
+                }
+                Npc npc = npcs.get(i);
+                slots[i] = plan(track, i, npc, npc.getPosition(), nowMs);
+                changed.add(slots[i]);
+                decided++;
+            }
+        }
+        npcBrain.recordTick(stepped, skipped, decided, postponed, System.nanoTime() - started);
+        return changed;
+    }
 
-            double distFromCenter = Math.hypot(nx, ny);
-            if (distFromCenter >= ISLAND_RADIUS - 2.0) {
-                targets.put(npc.getId(), randomIslandPoint());
+    /**
+     * Pushes apart the NPCs this update moved and that still walk a leg, so
+     * crowds spread out instead of stacking. NPCs standing still and live
+     * players are obstacles that do not yield; out-of-sight NPCs that were not
+     * stepped are left out, their positions being stale. Pushed NPCs are marked
+     * so their segment is restarted from the new position.
+     */
+    private void separateNpcs(Match match, NpcTrack track, int n, long nowMs) {
+        AvatarCollisions collisions = track.collisions;
+        NpcSwarm swarm = track.swarm;
+        collisions.clear();
+        int members = 0;
+        for (int i = 0; i < n; i++) {
+            if (!track.stepped[i] || swarm.needsTarget(i))
                 continue;
-            }
+            if (members == track.members.length)
+                track.members = Arrays.copyOf(track.members, members * 2);
+            track.members[members++] = i;
+            collisions.add(swarm.x(i), swarm.y(i), 1.0);
+        }
+        if (members == 0)
+            return;
+        List<Npc> npcs = match.getNpcs();
+        for (int i = 0; i < n; i++) {
+            if (track.slots[i] == null || track.stepped[i] || nowMs >= track.holdUntilMs[i])
+                continue;
+            Position position = npcs.get(i).getPosition();
+            collisions.add(position.getX(), position.getY(), 0.0);
+        }
+        for (Player p : match.getPlayers()) {
+            if (isSolid(p))
+                collisions.add(p.getPosition().getX(), p.getPosition().getY(), 0.0);
+        }
+        if (collisions.resolve(COLLISION_PASSES) == 0)
+            return;
+        double[] xy = track.xy;
+        for (int b = 0; b < members; b++) {
+            if (!collisions.pushed(b))
+                continue;
+            int i = track.members[b];
+            xy[0] = collisions.x(b);
+            xy[1] = collisions.y(b);
+            islandMap.resolveMove(xy);
+            swarm.x[i] = xy[0];
+            swarm.y[i] = xy[1];
+            track.pushed[i] = true;
+        }
+    }
+
+    /**
+     * Asks the brain for the next move of an NPC, routes it around the
+     * obstacles and turns the first leg into a segment starting at its current
+     * position.
+     */
+    private NpcSegment plan(NpcTrack track, int i, Npc npc, Position position, long nowMs) {
+        NpcBehavior.Plan plan = track.plan;
+        npcBrain.plan(npc, position.getX(), position.getY(), npcSpeed(npc), track.world, plan);
+        track.holdUntilMs[i] = plan.holdMs() > 0 ? nowMs + plan.holdMs() : 0L;
+        double toX = plan.targetX();
+        double toY = plan.targetY();
+        track.routes[i] = null;
+        if (plan.speed() > 0.0) {
+            double[] route = npcNavigator.route(position.getX(), position.getY(), toX, toY);
+            toX = route[0];
+            toY = route[1];
+            track.routes[i] = route;
+            track.routeNext[i] = 2;
+        }
+        return new NpcSegment(npc.getId(), position.getX(), position.getY(), toX, toY, plan.speed(), nowMs);
+    }
+
+    /**
+     * @return NPC speed in island units per second
+     */
+    private static double npcSpeed(Npc npc) {
+        double baseSpeed = Math.min(Math.max(NpcBehaviors.MIN_MOVEMENT_SPEED, npc.getMovementSpeed()),
+                NpcBehaviors.MAX_MOVEMENT_SPEED);
+        return baseSpeed * NPC_SPEED_MULTIPLIER;
+    }
+
+    /**
+     * Last movement sequence number applied for a player, echoed in snapshots so
+     * clients can drop acknowledged inputs from their prediction buffer.
+     *
+     * @param p player
+     * @return sequence number, or {@code null} if the client never sent one
+     */
+    public static Long ackSeqOf(Player p) {
+        MovementInput input = p.getInput();
+        long seq = input != null ? input.getAppliedSeq() : -1;
+        return seq >= 0 ? seq : null;
+    }
 
-            position.setX(nx);
-            position.setY(ny);
+    /**
+     * Acknowledges, to each mover alone on {@code /user/queue/move}, the input
+     * accepted since the previous simulation tick. Runs after integration, so
+     * the ack carries the position that includes the input. Caller holds the
+     * match lock.
+     *
+     * @param match running match
+     * @param nowMs current time
+     */
+    public void sendMoveAcks(Match match, long nowMs) {
+        for (Player p : match.getPlayers()) {
+            if (p.getInput().takeAckPending() && !p.isAfk()) {
+                ws.sendMoveAck(p.getUsername(), acknowledge(match, p, nowMs));
+            }
         }
     }
 
     /**
-     * Generates a random position within the island radius.
+     * Builds the private acknowledgement for integrated input: the avatar's
+     * authoritative position and last applied sequence number.
      *
-     * @return pseudo-random position constrained to the island
+     * @param match  running match the avatar belongs to
+     * @param avatar player entry controlled by the sender
+     * @param nowMs  current time
+     * @return acknowledgement for the mover
+     */
+    public MoveAck acknowledge(Match match, Player avatar, long nowMs) {
+        double x;
+        double y;
+        synchronized (match) {
+            Position pos = avatar.getPosition();
+            x = pos != null ? pos.getX() : 0.0;
+            y = pos != null ? pos.getY() : 0.0;
+        }
+        return new MoveAck(match.getCode(), avatar.getId(), x, y, ackSeqOf(avatar), nowMs);
+    }
+
+    /**
+     * @return the movement constants clients mirror for prediction
      */
-    private Position randomIslandPoint() {
-        double angle = ThreadLocalRandom.current().nextDouble(0, Math.PI * 2);
-        double radius = ThreadLocalRandom.current().nextDouble(0, ISLAND_RADIUS * 0.9);
-        double x = Math.cos(angle) * radius;
-        double y = Math.sin(angle) * radius;
-        return new Position(x, y);
+    public MovementRules movementRules() {
+        return new MovementRules(PLAYER_SPEED, SIM_TICK_MS, IMPULSE_MS, stateBroadcastIntervalMs,
+                islandMap.getRadius(), islandMap.getEdgeMargin(), AvatarCollisions.AVATAR_RADIUS);
+    }
+
+    /**
+     * @return the island every match is played on, with the obstacles clients
+     *         need to mirror collisions
+     */
+    public IslandMap getIslandMap() {
+        return islandMap;
     }
 
     /**
@@ -264,6 +1047,8 @@ public class GameEngine {
     public void shutdown() {
         for (ScheduledFuture<?> f : tasks.values())
             f.cancel(false);
+        for (ScheduledFuture<?> f : simulations.values())
+            f.cancel(false);
         for (ScheduledFuture<?> f : voteTimers.values())
             f.cancel(false);
         scheduler.shutdownNow();
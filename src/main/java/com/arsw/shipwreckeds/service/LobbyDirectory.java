@@ -0,0 +1,165 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.dto.LobbyDirectoryUpdate;
+import com.arsw.shipwreckeds.model.dto.LobbyPage;
+import com.arsw.shipwreckeds.model.dto.LobbySummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incrementally maintained index of joinable lobbies.
+ * <p>
+ * Every lobby change re-positions a single entry in a sorted set (fullest
+ * lobbies first, then oldest), so listing never has to scan or serialize the
+ * match registry. Pages are served from an array snapshot that is rebuilt at
+ * most once per directory version, and changed codes are accumulated so they
+ * can be pushed to clients as one coalesced delta.
+ */
+public class LobbyDirectory {
+
+    private static final Comparator<LobbySummary> ORDER = Comparator
+            .comparingInt(LobbySummary::getPlayers).reversed()
+            .thenComparingLong(LobbySummary::getCreatedAtEpochSec)
+            .thenComparing(LobbySummary::getCode);
+
+    private static final class View {
+        final long version;
+        final LobbySummary[] entries;
+
+        View(long version, LobbySummary[] entries) {
+            this.version = version;
+            this.entries = entries;
+        }
+    }
+
+    private final Map<String, LobbySummary> byCode = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<LobbySummary> ordered = new ConcurrentSkipListSet<>(ORDER);
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong version = new AtomicLong();
+    private volatile View view = new View(0L, new LobbySummary[0]);
+
+    /**
+     * Inserts or re-positions a lobby entry.
+     *
+     * @param summary current state of the lobby
+     */
+    public void upsert(LobbySummary summary) {
+        byCode.compute(summary.getCode(), (code, previous) -> {
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            ordered.add(summary);
+            return summary;
+        });
+        changed.add(summary.getCode());
+        version.incrementAndGet();
+    }
+
+    /**
+     * Drops a lobby from the directory (started, full, expired or finished).
+     *
+     * @param code lobby code
+     */
+    public void remove(String code) {
+        if (code == null)
+            return;
+        boolean[] removed = new boolean[1];
+        byCode.computeIfPresent(code, (k, previous) -> {
+            ordered.remove(previous);
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            changed.add(code);
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of lobbies currently listed
+     */
+    public int size() {
+        return byCode.size();
+    }
+
+    /**
+     * @return monotonically increasing directory version
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns one page of the sorted directory.
+     *
+     * @param page zero-based page index
+     * @param size page size
+     * @return requested page (empty when out of range)
+     */
+    public LobbyPage page(int page, int size) {
+        View v = currentView();
+        int safePage = Math.max(0, page);
+        int safeSize = Math.max(1, size);
+        long from = (long) safePage * safeSize;
+        List<LobbySummary> items;
+        if (from >= v.entries.length) {
+            items = Collections.emptyList();
+        } else {
+            int to = (int) Math.min(v.entries.length, from + safeSize);
+            items = Arrays.asList(Arrays.copyOfRange(v.entries, (int) from, to));
+        }
+        return new LobbyPage(v.version, safePage, safeSize, v.entries.length, items);
+    }
+
+    /**
+     * Collects the lobbies changed since the previous call.
+     *
+     * @return coalesced delta, or {@code null} when nothing changed
+     */
+    public LobbyDirectoryUpdate drainChanges() {
+        if (changed.isEmpty())
+            return null;
+        List<LobbySummary> upserts = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        Iterator<String> it = changed.iterator();
+        while (it.hasNext()) {
+            String code = it.next();
+            it.remove();
+            LobbySummary current = byCode.get(code);
+            if (current != null) {
+                upserts.add(current);
+            } else {
+                removed.add(code);
+            }
+        }
+        if (upserts.isEmpty() && removed.isEmpty())
+            return null;
+        return new LobbyDirectoryUpdate(version.get(), upserts, removed);
+    }
+
+    private View currentView() {
+        View v = view;
+        long current = version.get();
+        if (v.version == current)
+            return v;
+        synchronized (this) {
+            v = view;
+            current = version.get();
+            if (v.version != current) {
+                v = new View(current, ordered.toArray(new LobbySummary[0]));
+                view = v;
+            }
+            return v;
+        }
+    }
+}
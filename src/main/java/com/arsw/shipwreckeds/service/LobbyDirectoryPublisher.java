@@ -0,0 +1,71 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.dto.LobbyDirectoryUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes coalesced open-lobby directory deltas on /topic/lobbies at a fixed,
+ * throttled rate so clients never need to poll the listing endpoint.
+ */
+@Component
+public class LobbyDirectoryPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LobbyDirectoryPublisher.class);
+
+    private final MatchService matchService;
+    private final WebSocketController webSocketController;
+    private final long pushIntervalMs;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "lobby-directory");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LobbyDirectoryPublisher(MatchService matchService,
+            WebSocketController webSocketController,
+            @Value("${shipwreckeds.lobbies.push-interval-ms:500}") long pushIntervalMs) {
+        this.matchService = matchService;
+        this.webSocketController = webSocketController;
+        this.pushIntervalMs = pushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                publishChanges();
+            } catch (RuntimeException e) {
+                logger.error("Error al publicar el directorio de partidas", e);
+            }
+        }, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the directory changes accumulated since the previous push, if any.
+     *
+     * @return {@code true} when an update was broadcast
+     */
+    public boolean publishChanges() {
+        LobbyDirectoryUpdate update = matchService.drainLobbyChanges();
+        if (update == null)
+            return false;
+        webSocketController.broadcastLobbyDirectory(update);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
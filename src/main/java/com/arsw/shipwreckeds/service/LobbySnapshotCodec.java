@@ -0,0 +1,139 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.Player;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+/**
+ * Compact binary form of a WAITING lobby used while it is hibernated.
+ * <p>
+ * A waiting lobby only carries its identity, version and roster (players are
+ * reset to alive, non-infiltrator and without position when they join), so
+ * that is all that is stored. The bytes live in a direct buffer outside the
+ * Java heap until the lobby is rehydrated. The {@link Player} objects are
+ * owned by the players' sessions and are not copied: a rehydrated lobby gets
+ * the same instances back.
+ */
+final class LobbySnapshotCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    // Rough per-object heap footprint of a materialized lobby, used for reporting
+    private static final int MATCH_BASE_BYTES = 360;
+    private static final int ROSTER_SLOT_BYTES = 8;
+    private static final int STRING_BASE_BYTES = 40;
+
+    private LobbySnapshotCodec() {
+    }
+
+    /**
+     * Serializes the lobby into an off-heap buffer. The caller must hold the
+     * match lock.
+     *
+     * @param match waiting lobby
+     * @return read-ready direct buffer
+     */
+    static ByteBuffer freeze(Match match) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + match.getPlayers().size() * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(match.getId() != null ? match.getId() : 0L);
+            out.writeUTF(match.getCode());
+            out.writeLong(match.getVersion());
+            out.writeByte(match.getPlayers().size());
+            for (Player p : match.getPlayers()) {
+                out.writeLong(p.getId() != null ? p.getId() : 0L);
+                out.writeUTF(p.getUsername() != null ? p.getUsername() : "");
+                out.writeBoolean(p.getSkinId() != null);
+                if (p.getSkinId() != null) {
+                    out.writeUTF(p.getSkinId());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] raw = bytes.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(raw.length);
+        buffer.put(raw).flip();
+        return buffer;
+    }
+
+    /**
+     * Rebuilds the lobby from its frozen form.
+     *
+     * @param frozen  buffer produced by {@link #freeze(Match)}
+     * @param players live player by username; a player it does not know (or
+     *                knows under another id, after a new login) is rebuilt
+     *                from the snapshot
+     * @return equivalent WAITING match
+     */
+    static Match thaw(ByteBuffer frozen, Function<String, Player> players) {
+        ByteBuffer view = frozen.duplicate();
+        try (DataInputStream in = new DataInputStream(new BufferInput(view))) {
+            byte format = in.readByte();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalStateException("Formato de lobby hibernado desconocido: " + format);
+            }
+            long id = in.readLong();
+            String code = in.readUTF();
+            long version = in.readLong();
+            int count = in.readUnsignedByte();
+            Match match = new Match(id, code);
+            for (int i = 0; i < count; i++) {
+                long playerId = in.readLong();
+                String username = in.readUTF();
+                String skinId = in.readBoolean() ? in.readUTF() : null;
+                Player live = players.apply(username);
+                match.addPlayer(live != null && live.getId() != null && live.getId() == playerId
+                        ? live
+                        : new Player(playerId, username, skinId, null));
+            }
+            match.setVersion(version);
+            return match;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Estimates the heap hibernation frees: the match and its roster, but not
+     * the players, which their sessions keep alive.
+     *
+     * @param match waiting lobby
+     * @return approximate bytes
+     */
+    static long estimateHeapBytes(Match match) {
+        return MATCH_BASE_BYTES + STRING_BASE_BYTES + 2L * match.getCode().length()
+                + (long) ROSTER_SLOT_BYTES * match.getPlayers().size();
+    }
+
+    private static final class BufferInput extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining())
+                return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Npc;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.Position;
+import com.arsw.shipwreckeds.model.dto.AvatarState;
+import com.arsw.shipwreckeds.model.dto.EliminationEvent;
+import com.arsw.shipwreckeds.model.dto.FuelActionRequest;
+import com.arsw.shipwreckeds.model.dto.FuelActionResponse;
+import com.arsw.shipwreckeds.model.dto.GameEvent;
+import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.model.dto.VoteAck;
+import com.arsw.shipwreckeds.model.dto.VoteRequest;
+import com.arsw.shipwreckeds.model.dto.VoteResult;
+import com.arsw.shipwreckeds.model.dto.VoteStart;
+import com.arsw.shipwreckeds.util.Constants;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * In-match actions (vote start, vote, elimination and fuel) shared by the REST
+ * endpoints of {@link com.arsw.shipwreckeds.controller.MatchController} and the
+ * STOMP handlers of {@link com.arsw.shipwreckeds.controller.MatchActionController}.
+ * <p>
+ * Each action validates the request, updates the match and broadcasts the
+ * outcome; a refused action throws {@link ActionRejectedException} with the
+ * status both entry points report. Rate limiting and the identity of the
+ * acting player stay with the callers.
+ */
+@Service
+public class MatchActionService {
+    private static final double FUEL_STEP = 5.0;
+    private static final double ELIMINATION_RANGE = 20.0;
+
+    private final MatchService matchService;
+    private final GameEngine gameEngine;
+
+    /**
+     * @param matchService match lookup
+     * @param gameEngine   vote timeouts, tickers, snapshots and their broadcast
+     */
+    public MatchActionService(MatchService matchService, GameEngine gameEngine) {
+        this.matchService = matchService;
+        this.gameEngine = gameEngine;
+    }
+
+    /**
+     * Opens a vote to expel an NPC; only living castaways may call one.
+     *
+     * @param code     match code
+     * @param username player calling the vote
+     * @return confirmation message
+     * @throws ActionRejectedException when the match or the player cannot vote
+     */
+    public String startVote(String code, String username) {
+        Match match = matchService.getMatchByCode(code);
+        if (match == null)
+            throw new ActionRejectedException(400, Constants.MATCH_NOT_FOUND);
+        if (match.getStatus() != null && !match.getStatus().name().equals(Constants.MATCH_STATUS_STARTED))
+            throw new ActionRejectedException(400, Constants.MATCH_NOT_IN_PROGRESS);
+
+        // ensure player exists and is alive and is NOT the infiltrator
+        Player p = match.getPlayers().stream().filter(pl -> pl.getUsername().equals(username)).findFirst().orElse(null);
+        if (p == null || !p.isAlive())
+            throw new ActionRejectedException(403, "Jugador no válido para iniciar votación.");
+        if (p.isInfiltrator())
+            throw new ActionRejectedException(403, "El infiltrado no puede iniciar votaciones.");
+
+        if (match.isVotingActive())
+            throw new ActionRejectedException(400, "Ya hay una votación en curso.");
+
+        // Build options: include NPCs and any human players that are disguised as
+        // infiltrators
+        List<AvatarState> options = new ArrayList<>();
+        // NPCs
+        for (Npc n : match.getNpcs()) {
+            Position pos = n.getPosition();
+            double x = pos != null ? pos.getX() : 0.0;
+            double y = pos != null ? pos.getY() : 0.0;
+            options.add(
+                    new AvatarState(n.getId(), "npc", null, x, y, n.isInfiltrator(), n.isActive(), n.getDisplayName()));
+        }
+        // Players who are infiltrators should also be votable (they appear as NPC on
+        // the island); under the fog of war by their disguise, in id order among the NPCs
+        AvatarState disguise = gameEngine.disguiseOf(match);
+        if (disguise != null && disguise.isAlive()) {
+            int at = 0;
+            while (at < options.size() && options.get(at).getId() < disguise.getId())
+                at++;
+            options.add(at, disguise);
+        }
+        for (Player pl : match.getPlayers()) {
+            if (disguise == null && pl.isInfiltrator() && pl.isAlive()) {
+                Position pos = pl.getPosition();
+                double x = pos != null ? pos.getX() : 0.0;
+                double y = pos != null ? pos.getY() : 0.0;
+                // represent as npc in options (no ownerUsername)
+                options.add(new AvatarState(pl.getId(), "npc", null, x, y, true, pl.isAlive(),
+                        GameEngine.buildNpcAlias(pl.getId())));
+            }
+        }
+
+        match.startVoting();
+        gameEngine.scheduleVoteTimeout(match, () -> concludeVote(match, code, true));
+        // broadcast game state (infiltrators must be represented as NPCs with no
+        // ownerUsername)
+        VoteStart vs = new VoteStart(options,
+                "Iniciar votación: elige un NPC para expulsar",
+                Match.VOTE_DURATION_SECONDS);
+        gameEngine.publishEvents(match,
+                List.of(GameEvent.gameState(buildGameStateForMatch(match)), GameEvent.voteStart(vs)));
+        return "Votación iniciada";
+    }
+
+    /**
+     * Records a castaway's vote and closes the vote once everyone has voted.
+     *
+     * @param code match code
+     * @param req  voter and target (a negative id abstains)
+     * @return acknowledgement for the voter
+     * @throws ActionRejectedException when there is no vote or the voter is invalid
+     */
+    public VoteAck submitVote(String code, VoteRequest req) {
+        Match match = matchService.getMatchByCode(code);
+        if (match == null)
+            throw new ActionRejectedException(400, Constants.MATCH_NOT_FOUND);
+        if (!match.isVotingActive())
+            throw new ActionRejectedException(400, "No hay votación activa.");
+
+        // validate voter
+        Player voter = match.getPlayers().stream().filter(pl -> pl.getUsername().equals(req.getUsername())).findFirst()
+                .orElse(null);
+        if (voter == null || !voter.isAlive())
+            throw new ActionRejectedException(403, "Jugador no válido para votar.");
+        if (voter.isInfiltrator())
+            throw new ActionRejectedException(403, "El infiltrado no puede votar.");
+
+        // record vote
+        match.recordVote(req.getUsername(), req.getTargetId());
+
+        // ack to voter
+        VoteAck ack = new VoteAck(req.getUsername(), "Voto registrado correctamente, esperando resultados finales.");
+
+        // if all humans have voted, compute results
+        if (match.allHumansVoted()) {
+            concludeVote(match, code, false);
+        }
+
+        return ack;
+    }
+
+    // Helper to build GameState DTO from Match
+    private GameState buildGameStateForMatch(Match match) {
+        List<AvatarState> avatars = new ArrayList<>();
+        for (Player p : match.getPlayers()) {
+            Position pos = p.getPosition();
+            double x = pos != null ? pos.getX() : 0.0;
+            double y = pos != null ? pos.getY() : 0.0;
+            String type = p.isInfiltrator() ? Constants.AVATAR_TYPE_NPC : Constants.AVATAR_TYPE_HUMAN;
+            String owner = p.isInfiltrator() ? null : p.getUsername();
+            String dname = p.isInfiltrator() ? GameEngine.buildNpcAlias(p.getId()) : p.getUsername();
+            avatars.add(new AvatarState(p.getId(), type, owner, x, y, p.isInfiltrator(), p.isAlive(), dname,
+                    GameEngine.ackSeqOf(p)));
+        }
+        for (Npc n : match.getNpcs()) {
+            Position pos = n.getPosition();
+            double x = pos != null ? pos.getX() : 0.0;
+            double y = pos != null ? pos.getY() : 0.0;
+            avatars.add(
+                    new AvatarState(n.getId(), Constants.AVATAR_TYPE_NPC, null, x, y, n.isInfiltrator(), n.isActive(), n.getDisplayName()));
+        }
+        IslandMap islandMap = gameEngine.getIslandMap();
+        GameState.Island isl = new GameState.Island(0.0, 0.0, islandMap.getRadius());
+        GameState.Boat boat = islandMap.getBoat();
+        String status = match.getStatus() != null ? match.getStatus().name() : MatchStatus.WAITING.name();
+        return new GameState(
+                match.getCode(),
+                System.currentTimeMillis(),
+                match.getTimerSeconds(),
+                isl,
+                avatars,
+                match.getFuelPercentage(),
+                status,
+                boat,
+                match.getWinnerMessage(),
+                match.isFuelWindowOpenNow(),
+                match.getFuelWindowSecondsRemaining());
+
+    }
+
+    private void concludeVote(Match match, String code, boolean dueToTimeout) {
+        synchronized (match) {
+            if (!match.isVotingActive()) {
+                return;
+            }
+
+            gameEngine.cancelVoteTimeout(code);
+
+            java.util.Map<Long, Integer> counts = new java.util.LinkedHashMap<>();
+            int abstentions = 0;
+            if (match.getVotesByPlayer() != null) {
+                for (Long tid : match.getVotesByPlayer().values()) {
+                    if (tid == null) {
+                        continue;
+                    }
+                    if (tid < 0) {
+                        abstentions++;
+                        continue;
+                    }
+                    counts.put(tid, counts.getOrDefault(tid, 0) + 1);
+                }
+            }
+
+            int totalVotes = 0;
+            for (java.util.Map.Entry<Long, Integer> entry : counts.entrySet()) {
+                Long targetId = entry.getKey();
+                Integer value = entry.getValue();
+                if (targetId != null && targetId >= 0 && value != null) {
+                    totalVotes += value;
+                }
+            }
+            int majorityThreshold = totalVotes > 0
+                    ? (int) Math.ceil(totalVotes / 2.0)
+                    : 1;
+
+            Long leadingId = null;
+            int leadingVotes = 0;
+            boolean tie = false;
+
+            for (java.util.Map.Entry<Long, Integer> entry : counts.entrySet()) {
+                Long targetId = entry.getKey();
+                if (targetId == null || targetId < 0) {
+                    continue;
+                }
+                int votes = entry.getValue();
+                if (votes > leadingVotes) {
+                    leadingVotes = votes;
+                    leadingId = targetId;
+                    tie = false;
+                } else if (votes == leadingVotes && votes > 0 && !java.util.Objects.equals(leadingId, targetId)) {
+                    tie = true;
+                }
+            }
+
+            if (!tie && leadingId != null && leadingVotes >= majorityThreshold) {
+                Player expelledPlayer = null;
+                for (Player candidate : match.getPlayers()) {
+                    if (candidate.getId().equals(leadingId) || (candidate.isInfiltrator()
+                            && leadingId.equals(match.getInfiltratorDisguiseId()))) {
+                        expelledPlayer = candidate;
+                        break;
+                    }
+                }
+                if (expelledPlayer != null) {
+                    expelledPlayer.setAlive(false);
+                    match.stopVoting();
+                    match.getVotesByPlayer().clear();
+
+                    VoteResult result;
+                    if (expelledPlayer.isInfiltrator()) {
+                        match.setWinnerMessage("¡El infiltrado ha sido identificado y eliminado! Los náufragos ganan");
+                        match.endMatch();
+                        gameEngine.stopMatchTicker(code);
+                        result = new VoteResult(counts, leadingId, "human",
+                                "El infiltrado fue expulsado por mayoría. Los náufragos ganan.", abstentions);
+                    } else {
+                        result = new VoteResult(counts, leadingId, "human",
+                                "Un jugador humano fue expulsado por mayoría.", abstentions);
+                    }
+
+                    gameEngine.publishEvents(match,
+                            List.of(GameEvent.voteResult(result), GameEvent.gameState(buildGameStateForMatch(match))));
+                    return;
+                }
+
+                Npc expelledNpc = null;
+                for (Npc npc : new ArrayList<>(match.getNpcs())) {
+                    if (npc.getId().equals(leadingId)) {
+                        expelledNpc = npc;
+                        break;
+                    }
+                }
+                if (expelledNpc != null) {
+                    expelledNpc.deactivate();
+                    match.getNpcs().remove(expelledNpc);
+                    match.stopVoting();
+                    match.getVotesByPlayer().clear();
+
+                    boolean infiltratorNpcVictory = checkNpcOnlyInfiltratorLeft(match, code);
+
+                    String resultMessage = infiltratorNpcVictory
+                            ? "Se expulsó un NPC por mayoría. El infiltrado ha ganado, todos los demás NPC han sido eliminados."
+                            : "Se expulsó un NPC por mayoría.";
+
+                    VoteResult result = new VoteResult(counts, leadingId, "npc",
+                            resultMessage, abstentions);
+                    gameEngine.publishEvents(match,
+                            List.of(GameEvent.voteResult(result), GameEvent.gameState(buildGameStateForMatch(match))));
+                    return;
+                }
+            }
+
+            match.stopVoting();
+            if (match.getVotesByPlayer() != null) {
+                match.getVotesByPlayer().clear();
+            }
+
+            String message;
+            if (counts.isEmpty()) {
+                if (abstentions > 0) {
+                    message = dueToTimeout ? "La votación terminó sin mayoría (solo abstenciones). Nadie fue expulsado."
+                            : "Todos se abstuvieron. Nadie fue expulsado.";
+                } else {
+                    message = dueToTimeout ? "La votación terminó sin votos. Nadie fue expulsado."
+                            : "Nadie votó. Nadie fue expulsado.";
+                }
+            } else {
+                message = dueToTimeout ? "La votación terminó sin mayoría. Nadie fue expulsado."
+                        : "No hubo mayoría. Nadie fue expulsado.";
+            }
+
+            VoteResult result = new VoteResult(counts, null, "none", message, abstentions);
+            gameEngine.publishEvents(match,
+                    List.of(GameEvent.voteResult(result), GameEvent.gameState(buildGameStateForMatch(match))));
+        }
+    }
+
+    /**
+     * Lets the infiltrator eliminate a castaway within range; ends the match
+     * when no castaway is left.
+     *
+     * @param code match code
+     * @param req  infiltrator and target
+     * @return confirmation message
+     * @throws ActionRejectedException when the elimination is not allowed
+     */
+    public String eliminate(String code, VoteRequest req) {
+        Match match = matchService.getMatchByCode(code);
+        if (match == null)
+            throw new ActionRejectedException(400, Constants.MATCH_NOT_FOUND);
+        if (match.getStatus() == null || !match.getStatus().name().equals(Constants.MATCH_STATUS_STARTED))
+            throw new ActionRejectedException(400, Constants.MATCH_NOT_IN_PROGRESS);
+        if (req.getUsername() == null || req.getTargetId() == null)
+            throw new ActionRejectedException(400, "Solicitud inválida.");
+
+        Player killer = match.getPlayers().stream()
+                .filter(pl -> pl.getUsername().equals(req.getUsername()))
+                .findFirst().orElse(null);
+        if (killer == null || !killer.isAlive())
+            throw new ActionRejectedException(403, "Asesino no válido.");
+        if (!killer.isInfiltrator())
+            throw new ActionRejectedException(403, "Solo el infiltrado puede eliminar.");
+
+        Player target = match.getPlayers().stream()
+                .filter(pl -> pl.getId().equals(req.getTargetId()))
+                .findFirst().orElse(null);
+        if (target == null || !target.isAlive() || target.isInfiltrator())
+            throw new ActionRejectedException(403, "Objetivo inválido.");
+
+        Position killerPos = killer.getPosition();
+        Position targetPos = target.getPosition();
+        double dist = distance(killerPos, targetPos);
+        if (dist > ELIMINATION_RANGE)
+            throw new ActionRejectedException(403, "Fuera de rango para eliminar.");
+
+        synchronized (match) {
+            if (!target.isAlive())
+                throw new ActionRejectedException(409, "El objetivo ya está eliminado.");
+            target.setAlive(false);
+
+            // <-- comprobar si quedan náufragos vivos
+            boolean anyHumanAlive = match.getPlayers().stream()
+                    .anyMatch(p -> !p.isInfiltrator() && p.isAlive());
+            if (!anyHumanAlive) {
+                // el infiltrado eliminó a todos los náufragos -> gana el infiltrado
+                match.setWinnerMessage("¡El infiltrado ha ganado eliminando a todos los náufragos!");
+                match.endMatch();
+                gameEngine.stopMatchTicker(code);
+            }
+        }
+
+        EliminationEvent evt = new EliminationEvent(target.getId(), target.getUsername(), "Has sido eliminado.");
+        // un solo frame: eliminación y game state (incluye el winnerMessage si se finalizó la partida)
+        gameEngine.publishEvents(match,
+                List.of(GameEvent.elimination(evt), GameEvent.gameState(buildGameStateForMatch(match))));
+
+        return "Eliminación aplicada";
+    }
+
+    /**
+     * Fills (castaways, at the boat) or sabotages (infiltrator) the fuel tank;
+     * a full tank ends the match.
+     *
+     * @param code match code
+     * @param req  actor, action and optional amount
+     * @return fuel level and match status after the action
+     * @throws ActionRejectedException when the action is not allowed
+     */
+    public FuelActionResponse modifyFuel(String code, FuelActionRequest req) {
+        Match match = matchService.getMatchByCode(code);
+        if (match == null)
+            throw new ActionRejectedException(400, "Partida no encontrada.");
+        if (match.getStatus() == null || !match.getStatus().name().equals("STARTED"))
+            throw new ActionRejectedException(400, "La partida no está en curso.");
+        if (req.getUsername() == null || req.getAction() == null)
+            throw new ActionRejectedException(400, "Solicitud inválida.");
+
+        Player actor = match.getPlayers().stream()
+                .filter(pl -> pl.getUsername().equals(req.getUsername()))
+                .findFirst().orElse(null);
+        if (actor == null || !actor.isAlive())
+            throw new ActionRejectedException(403, "Jugador no válido.");
+
+        double boatDist = computeDistanceToBoat(actor.getPosition());
+        boolean requiresProximity = !actor.isInfiltrator();
+        if (requiresProximity && boatDist > gameEngine.getIslandMap().getBoat().getInteractionRadius())
+            throw new ActionRejectedException(403, "Debes acercarte al barco.");
+
+        if (!match.isFuelWindowOpenNow()) {
+            int seconds = match.getFuelWindowSecondsRemaining();
+            String msg = "Tanque de gasolina bloqueado temporalmente.";
+            if (seconds > 0) {
+                msg += " Disponible en " + seconds + "s.";
+            }
+            throw new ActionRejectedException(423, msg);
+        }
+
+        double step = req.getAmount() != null ? req.getAmount() : FUEL_STEP;
+        double delta;
+        switch (req.getAction()) {
+            case FILL:
+                if (actor.isInfiltrator())
+                    throw new ActionRejectedException(403, "El infiltrado no puede llenar el tanque.");
+                delta = Math.abs(step);
+                break;
+            case SABOTAGE:
+                if (!actor.isInfiltrator())
+                    throw new ActionRejectedException(403, "Solo el infiltrado puede sabotear.");
+                delta = -Math.abs(step);
+                break;
+            default:
+                throw new ActionRejectedException(400, "Acción desconocida.");
+        }
+
+        double updated;
+        boolean completed;
+        synchronized (match) {
+            if (match.getStatus() == MatchStatus.FINISHED)
+                throw new ActionRejectedException(409, "La partida ya terminó.");
+            double before = match.getFuelPercentage();
+            updated = match.adjustFuel(delta);
+            completed = updated >= 100.0 && before < 100.0;
+            if (completed) {
+                // <-- fijar el winnerMessage antes de finalizar
+                match.setWinnerMessage("¡El barco ha sido reparado a tiempo! Los náufragos escapan con éxito");
+                match.endMatch();
+                gameEngine.stopMatchTicker(code);
+            }
+        }
+
+        // broadcast final state (incluye winnerMessage)
+        gameEngine.publishGameState(match, buildGameStateForMatch(match));
+
+        return new FuelActionResponse(updated, match.getStatus() != null
+                ? match.getStatus().name().toLowerCase(Locale.ROOT)
+                : "unknown");
+    }
+
+    private double computeDistanceToBoat(Position position) {
+        if (position == null)
+            return Double.MAX_VALUE;
+        GameState.Boat boat = gameEngine.getIslandMap().getBoat();
+        return Math.hypot(position.getX() - boat.getX(), position.getY() - boat.getY());
+    }
+
+    private boolean checkNpcOnlyInfiltratorLeft(Match match, String code) {
+        Player infiltrator = match.getInfiltrator();
+        boolean infiltratorAlive = infiltrator != null && infiltrator.isAlive();
+        if (!infiltratorAlive) {
+            return false;
+        }
+
+        boolean anyActiveNpc = false;
+        for (Npc npc : match.getNpcs()) {
+            if (npc.isActive()) {
+                anyActiveNpc = true;
+                break;
+            }
+        }
+
+        if (!anyActiveNpc) {
+            match.setWinnerMessage("El infiltrado ha ganado, todos los demás NPC han sido eliminados");
+            match.endMatch();
+            gameEngine.stopMatchTicker(code);
+            return true;
+        }
+
+        return false;
+    }
+
+    private double distance(Position a, Position b) {
+        double ax = a != null ? a.getX() : 0.0;
+        double ay = a != null ? a.getY() : 0.0;
+        double bx = b != null ? b.getX() : 0.0;
+        double by = b != null ? b.getY() : 0.0;
+        return Math.hypot(ax - bx, ay - by);
+    }
+}
@@ -0,0 +1,120 @@
+package com.arsw.shipwreckeds.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique 6-character alphanumeric match codes without collision
+ * retries.
+ * <p>
+ * Every node owns a disjoint slice of the code space. Codes are produced by
+ * taking the next value of an atomic counter inside that slice and passing it
+ * through a keyed Feistel permutation (with cycle-walking to stay inside the
+ * {@code 36^6} domain), so consecutive matches still receive codes that look
+ * random while being guaranteed unique until the slice is exhausted.
+ */
+public class MatchCodeAllocator {
+
+    static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    static final int CODE_LENGTH = 6;
+    static final long CODE_SPACE = 2_176_782_336L; // 36^6
+
+    private static final int ROUNDS = 4;
+    private static final int HALF_BITS = 16;
+    private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+
+    private final long rangeStart;
+    private final long rangeSize;
+    private final int[] roundKeys = new int[ROUNDS];
+    private final AtomicLong cursor = new AtomicLong();
+
+    /**
+     * Creates an allocator for one node of a cluster.
+     *
+     * @param nodeIndex zero-based index of this node
+     * @param nodeCount number of nodes sharing the code space
+     * @param key       secret used to scramble the counter; all nodes must use
+     *                  the same key to keep their slices disjoint
+     */
+    public MatchCodeAllocator(int nodeIndex, int nodeCount, long key) {
+        if (nodeCount <= 0 || nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new IllegalArgumentException("Configuración de nodo inválida: " + nodeIndex + "/" + nodeCount);
+        }
+        this.rangeSize = CODE_SPACE / nodeCount;
+        this.rangeStart = rangeSize * nodeIndex;
+        long k = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            k = mix64(k + 0x9E3779B97F4A7C15L);
+            roundKeys[i] = (int) k;
+        }
+    }
+
+    /**
+     * Allocates the next code of this node's slice.
+     *
+     * @return unique alphanumeric code
+     * @throws IllegalArgumentException when the slice has been exhausted
+     */
+    public String next() {
+        long seq = cursor.getAndIncrement();
+        if (seq >= rangeSize) {
+            throw new IllegalArgumentException("No se pudo generar un código único. Intenta de nuevo.");
+        }
+        return encode(permute(rangeStart + seq));
+    }
+
+    /**
+     * @return number of codes still available on this node
+     */
+    public long remaining() {
+        return Math.max(0L, rangeSize - cursor.get());
+    }
+
+    /**
+     * Bijective mapping of {@code [0, CODE_SPACE)} onto itself.
+     *
+     * @param value counter value inside the code space
+     * @return scrambled value inside the code space
+     */
+    long permute(long value) {
+        long v = value;
+        do {
+            v = feistel(v);
+        } while (v >= CODE_SPACE);
+        return v;
+    }
+
+    private long feistel(long value) {
+        int left = (int) (value >>> HALF_BITS) & HALF_MASK;
+        int right = (int) value & HALF_MASK;
+        for (int i = 0; i < ROUNDS; i++) {
+            int next = left ^ round(right, roundKeys[i]);
+            left = right;
+            right = next;
+        }
+        return ((long) left << HALF_BITS) | right;
+    }
+
+    private static int round(int half, int key) {
+        int h = (half ^ key) * 0x9E3779B1;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & HALF_MASK;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[CODE_LENGTH];
+        long v = value;
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (v % ALPHABET.length()));
+            v /= ALPHABET.length();
+        }
+        return new String(chars);
+    }
+}
@@ -1,21 +1,43 @@
 package com.arsw.shipwreckeds.service;
 
 import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
 import com.arsw.shipwreckeds.model.Player;
 import com.arsw.shipwreckeds.model.dto.CreateMatchResponse;
+import com.arsw.shipwreckeds.model.dto.HibernationStats;
+import com.arsw.shipwreckeds.model.dto.LobbyDirectoryUpdate;
+import com.arsw.shipwreckeds.model.dto.LobbyPage;
+import com.arsw.shipwreckeds.model.dto.LobbySummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * In-memory match registry used by the MVP backend.
  * <ul>
- * <li>Generates unique alphanumeric codes.</li>
+ * <li>Generates unique alphanumeric codes through a {@link MatchCodeAllocator}.</li>
  * <li>Stores active matches in a {@link ConcurrentHashMap}.</li>
- * <li>Validates lobby expiration on join requests.</li>
+ * <li>Validates lobby expiration on join requests and sweeps expired entries.</li>
+ * <li>Keeps a {@link LobbyDirectory} of joinable lobbies in sync.</li>
+ * <li>Hibernates idle WAITING lobbies into a compact off-heap form and
+ * transparently rehydrates them on the next lookup or join.</li>
  * </ul>
  *
  * @author Daniel Ruge
@@ -24,26 +46,102 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class MatchService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MatchService.class);
+
     private final Map<String, StoredMatch> matchesByCode = new ConcurrentHashMap<>();
-    private final SecureRandom random = new SecureRandom();
-    private static final String ALPHANUM = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private static final int CODE_LENGTH = 6;
+    private final MatchCodeAllocator codeAllocator;
+    private final AtomicLong nextId = new AtomicLong(1L);
+    private final LobbyDirectory lobbyDirectory = new LobbyDirectory();
+    private final AuthService authService;
     private static final long MATCH_TTL_SECONDS = 2 * 60 * 60;
+    private static final long SWEEP_INTERVAL_SECONDS = 30;
+    private static final long DEFAULT_HIBERNATE_AFTER_SECONDS = 10 * 60;
+    public static final int MAX_PLAYERS = 8;
+
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "match-registry");
+        t.setDaemon(true);
+        return t;
+    });
 
-    private static long nextId = 1L;
+    private final long hibernateAfterSeconds;
+    private final AtomicLong hibernations = new AtomicLong();
+    private final AtomicLong rehydrations = new AtomicLong();
+    private final AtomicLong hibernatedLobbies = new AtomicLong();
+    private final AtomicLong offHeapBytes = new AtomicLong();
+    private final AtomicLong heapBytesSaved = new AtomicLong();
+    private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * Registry entry. While hibernated {@code match} is {@code null} and the lobby
+     * lives in {@code frozen}. Lock order is entry first, then match.
+     */
     private static class StoredMatch {
-        Match match;
+        volatile Match match;
+        ByteBuffer frozen;
+        long frozenHeapEstimate;
         long createdAtEpochSec;
         long ttlSeconds;
+        volatile long lastActivityEpochSec;
 
         StoredMatch(Match match, long createdAtEpochSec, long ttlSeconds) {
             this.match = match;
             this.createdAtEpochSec = createdAtEpochSec;
             this.ttlSeconds = ttlSeconds;
+            this.lastActivityEpochSec = createdAtEpochSec;
         }
     }
 
+    /**
+     * Creates a standalone registry with a random code key, as used by tests and
+     * single-node deployments.
+     */
+    public MatchService() {
+        this(new MatchCodeAllocator(0, 1, new SecureRandom().nextLong()), DEFAULT_HIBERNATE_AFTER_SECONDS,
+                new AuthService());
+    }
+
+    /**
+     * Creates the registry with the code slice reserved for this node.
+     *
+     * @param authService session registry rehydrated lobbies take their players
+     *                  from
+     * @param nodeIndex zero-based index of this node in the cluster
+     * @param nodeCount number of nodes sharing the code space
+     * @param codeKey   shared permutation key; {@code 0} picks a random one
+     * @param hibernateAfterSeconds idle time before a waiting lobby is
+     *                  hibernated; {@code 0} disables hibernation
+     */
+    @Autowired
+    public MatchService(AuthService authService,
+            @Value("${shipwreckeds.match.node-index:0}") int nodeIndex,
+            @Value("${shipwreckeds.match.node-count:1}") int nodeCount,
+            @Value("${shipwreckeds.match.code-key:0}") long codeKey,
+            @Value("${shipwreckeds.lobby.hibernate-after-seconds:600}") long hibernateAfterSeconds) {
+        this(new MatchCodeAllocator(nodeIndex, nodeCount, codeKey != 0 ? codeKey : new SecureRandom().nextLong()),
+                hibernateAfterSeconds, authService);
+    }
+
+    MatchService(MatchCodeAllocator codeAllocator, long hibernateAfterSeconds, AuthService authService) {
+        this.codeAllocator = codeAllocator;
+        this.hibernateAfterSeconds = hibernateAfterSeconds;
+        this.authService = authService;
+    }
+
+    /**
+     * Starts the periodic sweep that evicts expired matches and hibernates idle
+     * lobbies.
+     */
+    @PostConstruct
+    public void startMaintenance() {
+        maintenance.scheduleWithFixedDelay(() -> {
+            purgeExpired();
+            if (hibernateAfterSeconds > 0) {
+                hibernateIdle(hibernateAfterSeconds);
+            }
+        }, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
     /**
      * Creates a new match for the host player and registers it under a unique code.
      *
@@ -51,26 +149,21 @@ public class MatchService {
      * @return response DTO containing the generated match code
      */
     public CreateMatchResponse createMatch(Player host) {
-        // Generate a unique code
-        String code;
-        int tries = 0;
-        do {
-            code = generateCode(CODE_LENGTH);
-            tries++;
-            if (tries > 50) {
-                throw new IllegalArgumentException("No se pudo generar un código único. Intenta de nuevo.");
-            }
-        } while (matchesByCode.containsKey(code));
+        // The allocator never repeats a code, so no collision retries are needed
+        String code = codeAllocator.next();
 
         // Create the match and add the host
-        Match match = new Match(nextId++, code);
+        Match match = new Match(nextId.getAndIncrement(), code);
         match.addPlayer(host);
 
         // Optional future step: pre-generate NPCs — deferred until the match actually
         // starts
 
         StoredMatch sm = new StoredMatch(match, Instant.now().getEpochSecond(), MATCH_TTL_SECONDS);
-        matchesByCode.put(code, sm);
+        if (matchesByCode.putIfAbsent(code, sm) != null) {
+            throw new IllegalArgumentException("No se pudo generar un código único. Intenta de nuevo.");
+        }
+        refreshLobby(match);
 
         return new CreateMatchResponse(code);
     }
@@ -94,17 +187,28 @@ public class MatchService {
         long now = Instant.now().getEpochSecond();
         if (now > sm.createdAtEpochSec + sm.ttlSeconds) {
             // Remove the lobby and reject the join attempt
-            matchesByCode.remove(code);
+            evict(code, sm);
             throw new IllegalArgumentException("El código ha caducado.");
         }
 
-        Match match = sm.match;
+        Match match;
+        do {
+            match = materialize(sm, now);
+        } while (!tryJoin(sm, match, player));
+
+        return match;
+    }
 
+    private boolean tryJoin(StoredMatch sm, Match match, Player player) {
         synchronized (match) {
+            if (sm.match != match) {
+                // hibernated between the lookup and the lock; retry on the rehydrated copy
+                return false;
+            }
             if (match.getStatus() != null && match.getStatus().name().equals("STARTED")) {
                 throw new IllegalArgumentException("La partida ya ha comenzado.");
             }
-            if (match.getPlayers().size() >= 8) {
+            if (match.getPlayers().size() >= MAX_PLAYERS) {
                 throw new IllegalArgumentException("La partida está llena.");
             }
             // Prevent duplicate usernames inside the same match
@@ -115,9 +219,47 @@ public class MatchService {
             }
 
             match.addPlayer(player);
+            refreshLobby(match);
         }
+        return true;
+    }
 
-        return match;
+    /**
+     * Removes a player from a lobby that has not started yet. An emptied lobby is
+     * dropped from the registry.
+     *
+     * @param code     lobby code
+     * @param username player leaving
+     * @return the lobby after the removal, or {@code null} when the player was not
+     *         in a waiting lobby or the lobby was emptied
+     */
+    public Match leaveMatch(String code, String username) {
+        if (code == null || username == null)
+            return null;
+        StoredMatch sm = matchesByCode.get(code);
+        if (sm == null)
+            return null;
+        long now = Instant.now().getEpochSecond();
+        while (true) {
+            Match match = materialize(sm, now);
+            synchronized (match) {
+                if (sm.match != match)
+                    continue;
+                if (!match.removePlayer(username))
+                    return null;
+                if (match.getPlayers().isEmpty()) {
+                    // live entry, nothing frozen to release; avoids taking the entry lock
+                    // while holding the match lock
+                    if (matchesByCode.remove(code, sm)) {
+                        lobbyDirectory.remove(code);
+                        notifyEvicted(code);
+                    }
+                    return null;
+                }
+                refreshLobby(match);
+                return match;
+            }
+        }
     }
 
     /**
@@ -133,25 +275,208 @@ public class MatchService {
             return null;
         long now = Instant.now().getEpochSecond();
         if (now > sm.createdAtEpochSec + sm.ttlSeconds) {
-            matchesByCode.remove(code);
+            evict(code, sm);
             return null;
         }
-        return sm.match;
+        return materialize(sm, now);
     }
 
     /**
-     * Generates an alphanumeric code of the requested length using
-     * {@link SecureRandom}.
+     * Returns the live match of an entry, rehydrating it when hibernated.
+     */
+    private Match materialize(StoredMatch sm, long now) {
+        if (sm.lastActivityEpochSec != now) {
+            sm.lastActivityEpochSec = now;
+        }
+        Match m = sm.match;
+        if (m != null)
+            return m;
+        synchronized (sm) {
+            if (sm.match == null) {
+                sm.match = LobbySnapshotCodec.thaw(sm.frozen, authService::getPlayer);
+                releaseFrozen(sm);
+                rehydrations.incrementAndGet();
+            }
+            return sm.match;
+        }
+    }
+
+    /**
+     * Hibernates every WAITING lobby without activity for at least the given
+     * time: the live {@link Match} is dropped and only a compact off-heap copy of
+     * its roster is kept until the next lookup or join.
      *
-     * @param length number of characters to generate
-     * @return new alphanumeric code
-     */
-    private String generateCode(int length) {
-        StringBuilder sb = new StringBuilder(length);
-        for (int i = 0; i < length; i++) {
-            int idx = random.nextInt(ALPHANUM.length());
-            sb.append(ALPHANUM.charAt(idx));
+     * @param idleSeconds minimum inactivity
+     * @return number of lobbies hibernated by this pass
+     */
+    public int hibernateIdle(long idleSeconds) {
+        long now = Instant.now().getEpochSecond();
+        int count = 0;
+        for (StoredMatch sm : matchesByCode.values()) {
+            if (now - sm.lastActivityEpochSec >= idleSeconds && hibernate(sm, idleSeconds, now)) {
+                count++;
+            }
         }
-        return sb.toString();
+        return count;
+    }
+
+    private boolean hibernate(StoredMatch sm, long idleSeconds, long now) {
+        synchronized (sm) {
+            Match m = sm.match;
+            long seen = sm.lastActivityEpochSec;
+            if (m == null || now - seen < idleSeconds)
+                return false;
+            synchronized (m) {
+                if (m.getStatus() != MatchStatus.WAITING || matchesByCode.get(m.getCode()) != sm)
+                    return false;
+                sm.frozen = LobbySnapshotCodec.freeze(m);
+                sm.frozenHeapEstimate = LobbySnapshotCodec.estimateHeapBytes(m);
+                sm.match = null;
+                if (sm.lastActivityEpochSec != seen) {
+                    // a reader touched the entry and may already hold m; keep it live
+                    sm.match = m;
+                    sm.frozen = null;
+                    sm.frozenHeapEstimate = 0;
+                    return false;
+                }
+            }
+            int size = sm.frozen.capacity();
+            hibernations.incrementAndGet();
+            hibernatedLobbies.incrementAndGet();
+            offHeapBytes.addAndGet(size);
+            heapBytesSaved.addAndGet(sm.frozenHeapEstimate - size);
+            return true;
+        }
+    }
+
+    /**
+     * Clears the frozen copy of an entry and its accounting. Caller holds the
+     * entry lock.
+     */
+    private void releaseFrozen(StoredMatch sm) {
+        if (sm.frozen == null)
+            return;
+        int size = sm.frozen.capacity();
+        hibernatedLobbies.decrementAndGet();
+        offHeapBytes.addAndGet(-size);
+        heapBytesSaved.addAndGet(-(sm.frozenHeapEstimate - size));
+        sm.frozen = null;
+        sm.frozenHeapEstimate = 0;
+    }
+
+    /**
+     * @return hibernation counters for capacity planning
+     */
+    public HibernationStats getHibernationStats() {
+        return new HibernationStats(
+                matchesByCode.size(),
+                hibernatedLobbies.get(),
+                hibernations.get(),
+                rehydrations.get(),
+                offHeapBytes.get(),
+                heapBytesSaved.get());
+    }
+
+    /**
+     * Re-indexes a lobby in the open-lobby directory after its roster or status
+     * changed. Lobbies that are full or no longer waiting are removed.
+     * <p>
+     * Reads the lobby and writes its entry under the match lock, like joins and
+     * leaves do, so an entry built from an older roster can never overwrite a
+     * newer one.
+     *
+     * @param match lobby whose state changed
+     */
+    public void refreshLobby(Match match) {
+        if (match == null || match.getCode() == null)
+            return;
+        synchronized (match) {
+            StoredMatch sm = matchesByCode.get(match.getCode());
+            int players = match.getPlayers().size();
+            if (sm == null || match.getStatus() != MatchStatus.WAITING || players == 0 || players >= MAX_PLAYERS) {
+                lobbyDirectory.remove(match.getCode());
+                return;
+            }
+            String host = match.getPlayers().get(0).getUsername();
+            lobbyDirectory.upsert(new LobbySummary(match.getCode(), host, players, MAX_PLAYERS, sm.createdAtEpochSec));
+        }
+    }
+
+    /**
+     * Lists joinable lobbies, fullest and oldest first.
+     *
+     * @param page zero-based page index
+     * @param size page size
+     * @return requested page of the directory
+     */
+    public LobbyPage listOpenLobbies(int page, int size) {
+        return lobbyDirectory.page(page, size);
+    }
+
+    /**
+     * Collects the directory changes accumulated since the previous call.
+     *
+     * @return coalesced delta or {@code null} when nothing changed
+     */
+    public LobbyDirectoryUpdate drainLobbyChanges() {
+        return lobbyDirectory.drainChanges();
+    }
+
+    /**
+     * Evicts every match whose time-to-live has elapsed.
+     *
+     * @return number of evicted matches
+     */
+    public int purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        int evicted = 0;
+        for (Map.Entry<String, StoredMatch> e : matchesByCode.entrySet()) {
+            StoredMatch sm = e.getValue();
+            if (now > sm.createdAtEpochSec + sm.ttlSeconds && evict(e.getKey(), sm)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private boolean evict(String code, StoredMatch sm) {
+        boolean removed = matchesByCode.remove(code, sm);
+        if (removed) {
+            lobbyDirectory.remove(code);
+            synchronized (sm) {
+                releaseFrozen(sm);
+            }
+            notifyEvicted(code);
+        }
+        return removed;
+    }
+
+    /**
+     * Registers a callback run with the code of every match dropped from the
+     * registry (expired, or a lobby emptied by its last player leaving), so
+     * per-match state kept elsewhere can be released.
+     *
+     * @param listener callback receiving the evicted match code
+     */
+    public void addEvictionListener(Consumer<String> listener) {
+        evictionListeners.add(listener);
+    }
+
+    private void notifyEvicted(String code) {
+        for (Consumer<String> listener : evictionListeners) {
+            try {
+                listener.accept(code);
+            } catch (RuntimeException e) {
+                logger.warn("Error al notificar la expulsión de la partida {}", code, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the maintenance sweep before the bean is destroyed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        maintenance.shutdownNow();
     }
 }
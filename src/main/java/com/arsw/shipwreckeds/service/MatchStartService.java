@@ -0,0 +1,104 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Npc;
+import com.arsw.shipwreckeds.model.Player;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Turns a full lobby into a running match: roles, NPCs, spawn points, the
+ * lobby directory entry, avatar bindings, the first snapshot and the engine
+ * ticker. Shared by the host's manual start and quick-play matchmaking, so
+ * both start matches the same way.
+ */
+@Service
+public class MatchStartService {
+
+    private static final String MATCH_ALREADY_STARTED = "La partida ya ha comenzado.";
+
+    /** Avatars spawn within this fraction of the island radius. */
+    private static final double SPAWN_RADIUS_FRACTION = 0.7;
+
+    private final MatchService matchService;
+    private final AuthService authService;
+    private final RoleService roleService;
+    private final NpcService npcService;
+    private final GameEngine gameEngine;
+    private final WebSocketController webSocketController;
+    private final IslandMap islandMap;
+
+    /**
+     * @param matchService        lobby directory owner
+     * @param authService         binds each player's connection to the match
+     * @param roleService         picks the infiltrator
+     * @param npcService          spawns the NPC roster
+     * @param gameEngine          builds the first snapshot and ticks the match
+     * @param webSocketController broadcaster
+     * @param islandMap           island avatars spawn on
+     */
+    @Autowired
+    public MatchStartService(MatchService matchService,
+            AuthService authService,
+            RoleService roleService,
+            NpcService npcService,
+            GameEngine gameEngine,
+            WebSocketController webSocketController,
+            IslandMap islandMap) {
+        this.matchService = matchService;
+        this.authService = authService;
+        this.roleService = roleService;
+        this.npcService = npcService;
+        this.gameEngine = gameEngine;
+        this.webSocketController = webSocketController;
+        this.islandMap = islandMap;
+    }
+
+    /**
+     * Starts a lobby whose players have already been checked by the caller.
+     * The status check and the setup run under the match lock, so a lobby
+     * started twice (host and matchmaking, or a double click) is set up once.
+     *
+     * @param match lobby to start
+     * @throws ActionRejectedException with 409 when the lobby is no longer
+     *                                 waiting
+     */
+    public void start(Match match) {
+        synchronized (match) {
+            if (match.getStatus() != MatchStatus.WAITING)
+                throw new ActionRejectedException(409, MATCH_ALREADY_STARTED);
+            roleService.assignHumanRoles(match);
+            npcService.generateNpcs(match);
+            match.startMatch();
+            spawnAvatars(match);
+        }
+        // the lobby is no longer joinable
+        matchService.refreshLobby(match);
+        // attach each player's avatar to their connection for the movement path
+        authService.bindMatch(match);
+
+        webSocketController.broadcastLobbyUpdate(match);
+        gameEngine.publishGameState(match, gameEngine.buildGameState(match));
+        gameEngine.startMatchTicker(match);
+    }
+
+    private void spawnAvatars(Match match) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (Player p : match.getPlayers()) {
+            if (p.getPosition() == null) {
+                p.setPosition(islandMap.randomSpawn(rnd, SPAWN_RADIUS_FRACTION));
+            }
+        }
+        for (Npc n : match.getNpcs()) {
+            if (n.getPosition() == null) {
+                n.setPosition(islandMap.randomSpawn(rnd, SPAWN_RADIUS_FRACTION));
+            }
+        }
+        match.resetFuel();
+    }
+}
@@ -0,0 +1,334 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.model.dto.MatchAssignment;
+import com.arsw.shipwreckeds.model.dto.MatchmakingStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quick-play matchmaking: players enqueue and a batching loop groups them into
+ * evenly filled lobbies that are started right away.
+ * <p>
+ * Enqueueing is a lock-free append so bursts of thousands of players per second
+ * only contend on the queue tail. A single batching thread drains the queue,
+ * creates the lobbies through {@link MatchService} and starts them through
+ * {@link MatchStartService}, like the manual start flow.
+ */
+@Service
+public class MatchmakingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchmakingService.class);
+
+    public static final int MIN_LOBBY_SIZE = 5;
+    public static final int MAX_LOBBY_SIZE = 8;
+
+    private static final class Ticket {
+        final Player player;
+        final long enqueuedAtNanos;
+        volatile boolean cancelled;
+
+        Ticket(Player player, long enqueuedAtNanos) {
+            this.player = player;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    private final MatchService matchService;
+    private final AuthService authService;
+    private final MatchStartService matchStartService;
+    private final WebSocketController webSocketController;
+    private final long batchIntervalMs;
+
+    private final Queue<Ticket> inbox = new ConcurrentLinkedQueue<>();
+    private final Map<String, Ticket> ticketsByUsername = new ConcurrentHashMap<>();
+    // Only touched by the batching thread: players carried over to the next batch
+    private final Deque<Ticket> waiting = new ArrayDeque<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong considered = new AtomicLong();
+    private final AtomicLong lobbiesFormed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "matchmaking");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    public MatchmakingService(MatchService matchService,
+            AuthService authService,
+            MatchStartService matchStartService,
+            WebSocketController webSocketController,
+            @Value("${shipwreckeds.matchmaking.batch-interval-ms:250}") long batchIntervalMs) {
+        this.matchService = matchService;
+        this.authService = authService;
+        this.matchStartService = matchStartService;
+        this.webSocketController = webSocketController;
+        this.batchIntervalMs = batchIntervalMs;
+    }
+
+    /**
+     * Starts the periodic batching loop.
+     */
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                processQueue();
+            } catch (RuntimeException e) {
+                logger.error("Error al procesar la cola de emparejamiento", e);
+            }
+        }, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a logged-in player to the quick-play queue.
+     *
+     * @param player player requesting a match
+     * @throws IllegalArgumentException when the player is already queued, in a
+     *                                  waiting lobby or in a running match
+     */
+    public void enqueue(Player player) {
+        if (player == null || player.getUsername() == null)
+            throw new IllegalArgumentException("Usuario no conectado. Inicia sesión primero.");
+        if (isInMatch(player.getUsername()))
+            throw new IllegalArgumentException("Ya estás en una partida.");
+        Ticket ticket = new Ticket(player, System.nanoTime());
+        if (ticketsByUsername.putIfAbsent(player.getUsername(), ticket) != null)
+            throw new IllegalArgumentException("Ya estás en la cola de emparejamiento.");
+        inbox.offer(ticket);
+        queued.incrementAndGet();
+        enqueued.incrementAndGet();
+    }
+
+    /**
+     * Removes a player from the queue if they have not been placed yet.
+     *
+     * @param username player leaving the queue
+     * @return {@code true} when a pending ticket was cancelled
+     */
+    public boolean cancel(String username) {
+        if (username == null)
+            return false;
+        Ticket ticket = ticketsByUsername.remove(username);
+        if (ticket == null)
+            return false;
+        ticket.cancelled = true;
+        queued.decrementAndGet();
+        cancelled.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @param username player to look up
+     * @return {@code true} when the player is waiting in the queue
+     */
+    public boolean isQueued(String username) {
+        return username != null && ticketsByUsername.containsKey(username);
+    }
+
+    /**
+     * A player still in a waiting lobby or a match that has not finished shares
+     * its {@link Player} with that match, so placing it again would reset the
+     * avatar under the other match.
+     */
+    private boolean isInMatch(String username) {
+        PlayerSession session = authService.getSession(username);
+        if (session == null)
+            return false;
+        PlayerSession.Binding binding = session.getBinding();
+        if (binding != null && binding.getMatch().getStatus() != MatchStatus.FINISHED)
+            return true;
+        String lobby = session.getLobbyCode();
+        if (lobby == null)
+            return false;
+        Match match = matchService.getMatchByCode(lobby);
+        if (match == null)
+            return false;
+        synchronized (match) {
+            return match.getStatus() == MatchStatus.WAITING
+                    && match.getPlayers().stream().anyMatch(p -> username.equals(p.getUsername()));
+        }
+    }
+
+    /**
+     * Runs one batching pass: drains new tickets, forms as many lobbies as the
+     * queue allows and starts them. Players that do not fit keep their place
+     * (oldest first) for the next pass.
+     *
+     * @return number of lobbies started
+     */
+    public synchronized int processQueue() {
+        Ticket t;
+        while ((t = inbox.poll()) != null) {
+            waiting.addLast(t);
+        }
+        waiting.removeIf(ticket -> ticket.cancelled);
+        int available = waiting.size();
+        if (available < MIN_LOBBY_SIZE)
+            return 0;
+
+        batches.incrementAndGet();
+        considered.addAndGet(available);
+        int[] sizes = planLobbySizes(available);
+        long now = System.nanoTime();
+        int started = 0;
+        for (int size : sizes) {
+            List<Ticket> group = new ArrayList<>(size);
+            while (group.size() < size && !waiting.isEmpty()) {
+                Ticket ticket = waiting.pollFirst();
+                // cancel() may race with the batch; only claimed tickets are placed
+                if (ticketsByUsername.remove(ticket.player.getUsername(), ticket)) {
+                    group.add(ticket);
+                }
+            }
+            if (group.size() < MIN_LOBBY_SIZE) {
+                requeue(group);
+                continue;
+            }
+            queued.addAndGet(-group.size());
+            if (launch(group, now)) {
+                started++;
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Splits the available players into the largest number of evenly filled
+     * lobbies that respect the {@link #MIN_LOBBY_SIZE}..{@link #MAX_LOBBY_SIZE}
+     * bounds.
+     *
+     * @param available players waiting
+     * @return lobby sizes, fullest first; empty when no lobby can be formed
+     */
+    public static int[] planLobbySizes(int available) {
+        int lobbies = (available + MAX_LOBBY_SIZE - 1) / MAX_LOBBY_SIZE;
+        while (lobbies > 0 && available / lobbies < MIN_LOBBY_SIZE) {
+            lobbies--;
+        }
+        if (lobbies == 0)
+            return new int[0];
+        int placed = Math.min(available, lobbies * MAX_LOBBY_SIZE);
+        int[] sizes = new int[lobbies];
+        int base = placed / lobbies;
+        int extra = placed % lobbies;
+        for (int i = 0; i < lobbies; i++) {
+            sizes[i] = base + (i < extra ? 1 : 0);
+        }
+        return sizes;
+    }
+
+    /**
+     * @return current matchmaking counters
+     */
+    public MatchmakingStats getStats() {
+        long lobbies = lobbiesFormed.get();
+        long placed = matched.get();
+        long seen = considered.get();
+        return new MatchmakingStats(
+                Math.max(0, queued.get()),
+                enqueued.get(),
+                cancelled.get(),
+                placed,
+                lobbies,
+                batches.get(),
+                placed > 0 ? totalWaitNanos.get() / 1_000_000.0 / placed : 0.0,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                lobbies > 0 ? (double) placed / lobbies : 0.0,
+                lobbies > 0 ? (double) placed / (lobbies * MAX_LOBBY_SIZE) : 0.0,
+                seen > 0 ? (double) placed / seen : 0.0);
+    }
+
+    private void requeue(List<Ticket> group) {
+        for (int i = group.size() - 1; i >= 0; i--) {
+            Ticket ticket = group.get(i);
+            ticketsByUsername.put(ticket.player.getUsername(), ticket);
+            waiting.addFirst(ticket);
+        }
+    }
+
+    private boolean launch(List<Ticket> group, long now) {
+        Match match;
+        String code = null;
+        List<String> joined = new ArrayList<>(group.size());
+        try {
+            code = matchService.createMatch(group.get(0).player).getCode();
+            joined.add(group.get(0).player.getUsername());
+            for (int i = 1; i < group.size(); i++) {
+                matchService.joinMatch(code, group.get(i).player);
+                joined.add(group.get(i).player.getUsername());
+            }
+            match = matchService.getMatchByCode(code);
+        } catch (IllegalArgumentException e) {
+            logger.warn("No se pudo formar la partida de emparejamiento: {}", e.getMessage());
+            // the last player out drops the half-filled lobby from the registry
+            for (String username : joined) {
+                matchService.leaveMatch(code, username);
+            }
+            requeue(group);
+            queued.addAndGet(group.size());
+            return false;
+        }
+
+        for (Ticket ticket : group) {
+            authService.enterLobby(ticket.player.getUsername(), code);
+        }
+        try {
+            matchStartService.start(match);
+        } catch (ActionRejectedException e) {
+            // the host started the lobby first; the players are in it all the same
+            logger.debug("Partida {} ya iniciada por el host", code);
+        }
+
+        lobbiesFormed.incrementAndGet();
+        matched.addAndGet(group.size());
+        for (Ticket ticket : group) {
+            long waited = now - ticket.enqueuedAtNanos;
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            webSocketController.broadcastMatchAssignment(ticket.player.getUsername(),
+                    new MatchAssignment(match.getCode(), group.size(), TimeUnit.NANOSECONDS.toMillis(waited)));
+        }
+        logger.info("Emparejamiento: partida {} iniciada con {} jugadores.", match.getCode(), group.size());
+        return true;
+    }
+
+    /**
+     * Stops the batching loop before the bean is destroyed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
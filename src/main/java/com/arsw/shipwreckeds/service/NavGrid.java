@@ -0,0 +1,285 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+
+import java.util.Arrays;
+
+/**
+ * Walkability grid over an {@link IslandMap} with A* search.
+ * <p>
+ * A cell is walkable when its centre keeps {@code clearance} from the shore
+ * and from every obstacle. Search runs on 8-connected cells (no cutting past a
+ * blocked corner) with the octile heuristic; the scratch arrays are reused
+ * across searches and reset by a generation stamp, so a search allocates only
+ * its result. Not thread-safe.
+ */
+public final class NavGrid {
+
+    private static final double DIAGONAL = Math.sqrt(2.0);
+    private static final int[] DX = { 1, -1, 0, 0, 1, 1, -1, -1 };
+    private static final int[] DY = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+    private final double origin;
+    private final double cellSize;
+    private final int cols;
+    private final boolean[] walkable;
+
+    private final double[] g;
+    private final int[] parent;
+    private final int[] seen;
+    private final int[] closed;
+    private int generation;
+    private int[] heap = new int[256];
+    private double[] heapKey = new double[256];
+    private int heapSize;
+    private long expanded;
+
+    /**
+     * @param map       island to cover
+     * @param cellSize  side of a cell in island units
+     * @param clearance distance cell centres keep from shore and obstacles
+     */
+    public NavGrid(IslandMap map, double cellSize, double clearance) {
+        this.cellSize = cellSize;
+        this.origin = -map.getRadius();
+        this.cols = (int) Math.ceil(2 * map.getRadius() / cellSize);
+        int cells = cols * cols;
+        this.walkable = new boolean[cells];
+        for (int c = 0; c < cells; c++) {
+            walkable[c] = map.isWalkable(centerX(c), centerY(c), clearance);
+        }
+        this.g = new double[cells];
+        this.parent = new int[cells];
+        this.seen = new int[cells];
+        this.closed = new int[cells];
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return cell containing (x, y), or {@code -1} outside the grid
+     */
+    public int cellOf(double x, double y) {
+        int cx = (int) Math.floor((x - origin) / cellSize);
+        int cy = (int) Math.floor((y - origin) / cellSize);
+        if (cx < 0 || cy < 0 || cx >= cols || cy >= cols)
+            return -1;
+        return cy * cols + cx;
+    }
+
+    public double centerX(int cell) {
+        return origin + (cell % cols + 0.5) * cellSize;
+    }
+
+    public double centerY(int cell) {
+        return origin + (cell / cols + 0.5) * cellSize;
+    }
+
+    public boolean isWalkable(int cell) {
+        return cell >= 0 && walkable[cell];
+    }
+
+    /**
+     * @return walkable cell closest to (x, y) by rings of cells, or {@code -1}
+     *         if the grid has none
+     */
+    public int nearestWalkable(double x, double y) {
+        int cx = Math.min(cols - 1, Math.max(0, (int) Math.floor((x - origin) / cellSize)));
+        int cy = Math.min(cols - 1, Math.max(0, (int) Math.floor((y - origin) / cellSize)));
+        if (walkable[cy * cols + cx])
+            return cy * cols + cx;
+        for (int ring = 1; ring < cols; ring++) {
+            int best = -1;
+            double bestD = Double.POSITIVE_INFINITY;
+            for (int dy = -ring; dy <= ring; dy++) {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dy)) != ring)
+                        continue;
+                    int nx = cx + dx;
+                    int ny = cy + dy;
+                    if (nx < 0 || ny < 0 || nx >= cols || ny >= cols || !walkable[ny * cols + nx])
+                        continue;
+                    double d = (double) dx * dx + (double) dy * dy;
+                    if (d < bestD) {
+                        bestD = d;
+                        best = ny * cols + nx;
+                    }
+                }
+            }
+            if (best >= 0)
+                return best;
+        }
+        return -1;
+    }
+
+    /**
+     * Samples the segment every half cell.
+     *
+     * @return whether every sampled point lies in a walkable cell
+     */
+    public boolean lineOfSight(double x0, double y0, double x1, double y1) {
+        double length = Math.hypot(x1 - x0, y1 - y0);
+        int steps = Math.max(1, (int) Math.ceil(length / (cellSize * 0.5)));
+        for (int i = 0; i <= steps; i++) {
+            double t = (double) i / steps;
+            if (!isWalkable(cellOf(x0 + (x1 - x0) * t, y0 + (y1 - y0) * t)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * A* between two walkable cells.
+     *
+     * @return centres of the cells after {@code start} up to {@code goal}, packed
+     *         as {@code x0, y0, x1, y1, ...} (empty when start is the goal), or
+     *         {@code null} if the goal is unreachable
+     */
+    public double[] findPath(int start, int goal) {
+        if (!isWalkable(start) || !isWalkable(goal))
+            return null;
+        if (++generation == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        int gx = goal % cols;
+        int gy = goal / cols;
+        heapSize = 0;
+        seen[start] = generation;
+        g[start] = 0.0;
+        parent[start] = -1;
+        push(start, heuristic(start % cols, start / cols, gx, gy));
+        while (heapSize > 0) {
+            int cell = pop();
+            if (closed[cell] == generation)
+                continue;
+            closed[cell] = generation;
+            expanded++;
+            if (cell == goal)
+                return unwind(start, goal);
+            int x = cell % cols;
+            int y = cell / cols;
+            for (int k = 0; k < 8; k++) {
+                int nx = x + DX[k];
+                int ny = y + DY[k];
+                if (nx < 0 || ny < 0 || nx >= cols || ny >= cols)
+                    continue;
+                int next = ny * cols + nx;
+                if (!walkable[next] || closed[next] == generation)
+                    continue;
+                // diagonal moves may not squeeze past a blocked corner
+                if (k >= 4 && (!walkable[y * cols + nx] || !walkable[ny * cols + x]))
+                    continue;
+                double cost = g[cell] + (k >= 4 ? DIAGONAL : 1.0);
+                if (seen[next] == generation && cost >= g[next])
+                    continue;
+                seen[next] = generation;
+                g[next] = cost;
+                parent[next] = cell;
+                push(next, cost + heuristic(nx, ny, gx, gy));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Greedy string pulling: from {@code (fromX, fromY)}, skips every waypoint
+     * the next one can be reached past in a straight line.
+     *
+     * @param points packed waypoints, the last one being the destination
+     * @return the waypoints still needed, packed the same way
+     */
+    public double[] smooth(double fromX, double fromY, double[] points) {
+        int n = points.length / 2;
+        if (n <= 1)
+            return points;
+        double[] out = new double[points.length];
+        int size = 0;
+        double cx = fromX;
+        double cy = fromY;
+        int i = 0;
+        while (i < n) {
+            int j = i;
+            while (j + 1 < n && lineOfSight(cx, cy, points[2 * (j + 1)], points[2 * (j + 1) + 1])) {
+                j++;
+            }
+            cx = points[2 * j];
+            cy = points[2 * j + 1];
+            out[size++] = cx;
+            out[size++] = cy;
+            i = j + 1;
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    /**
+     * @return cells expanded by every search so far
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    private double[] unwind(int start, int goal) {
+        int length = 0;
+        for (int c = goal; c != start; c = parent[c]) {
+            length++;
+        }
+        double[] path = new double[length * 2];
+        int i = length;
+        for (int c = goal; c != start; c = parent[c]) {
+            i--;
+            path[2 * i] = centerX(c);
+            path[2 * i + 1] = centerY(c);
+        }
+        return path;
+    }
+
+    private static double heuristic(int x, int y, int gx, int gy) {
+        int dx = Math.abs(x - gx);
+        int dy = Math.abs(y - gy);
+        return Math.max(dx, dy) + (DIAGONAL - 1.0) * Math.min(dx, dy);
+    }
+
+    private void push(int cell, double key) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+            heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKey[up] <= key)
+                break;
+            heap[i] = heap[up];
+            heapKey[i] = heapKey[up];
+            i = up;
+        }
+        heap[i] = cell;
+        heapKey[i] = key;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        double key = heapKey[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child])
+                child++;
+            if (heapKey[child] >= key)
+                break;
+            heap[i] = heap[child];
+            heapKey[i] = heapKey[child];
+            i = child;
+        }
+        heap[i] = last;
+        heapKey[i] = key;
+        return top;
+    }
+}
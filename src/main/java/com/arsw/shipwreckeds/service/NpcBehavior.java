@@ -0,0 +1,207 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.Npc;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * One way an NPC can pick its next move once it reached its target (see
+ * {@link NpcBehaviors} for the built-in ones). {@link NpcBrain} draws a
+ * behavior at random, proportionally to {@link #weight}, and asks it for a
+ * {@link Plan}.
+ * <p>
+ * Implementations are stateless and shared by every match; they are called
+ * under the match lock and must not allocate per call beyond what they return.
+ */
+public interface NpcBehavior {
+
+    /**
+     * @return name used in configuration and stats
+     */
+    String name();
+
+    /**
+     * @param npc   NPC that needs a new plan
+     * @param x     its current x
+     * @param y     its current y
+     * @param world match surroundings for this tick
+     * @return relative chance of picking this behavior, {@code 0} to never pick it
+     */
+    double weight(Npc npc, double x, double y, World world);
+
+    /**
+     * Fills {@code plan} with the NPC's next move. {@link Plan#baseSpeed()} is
+     * the NPC's own speed, derived from {@link Npc#getMovementSpeed()}.
+     *
+     * @param npc   NPC that needs a new plan
+     * @param x     its current x
+     * @param y     its current y
+     * @param world match surroundings for this tick
+     * @param plan  output
+     */
+    void plan(Npc npc, double x, double y, World world, Plan plan);
+
+    /**
+     * What an NPC can see of its match in one tick: the island, the boat and the
+     * positions of the players that can see NPCs (alive and connected). Rebuilt
+     * once per match tick into reused arrays.
+     */
+    final class World {
+        private final double islandRadius;
+        private final double boatX;
+        private final double boatY;
+        private double[] viewerX = new double[8];
+        private double[] viewerY = new double[8];
+        private int viewers;
+        private boolean fuelWindowOpen;
+        private long nowMs;
+
+        public World(double islandRadius, double boatX, double boatY) {
+            this.islandRadius = islandRadius;
+            this.boatX = boatX;
+            this.boatY = boatY;
+        }
+
+        /**
+         * Refreshes the viewers from the match. Caller holds the match lock.
+         *
+         * @param match running match
+         * @param nowMs time of the tick
+         */
+        void update(Match match, long nowMs) {
+            this.nowMs = nowMs;
+            this.fuelWindowOpen = match.isFuelWindowOpenNow();
+            viewers = 0;
+            for (Player p : match.getPlayers()) {
+                Position pos = p.getPosition();
+                if (!p.isAlive() || p.isAfk() || pos == null)
+                    continue;
+                addViewer(pos.getX(), pos.getY());
+            }
+        }
+
+        void addViewer(double x, double y) {
+            if (viewers == viewerX.length) {
+                viewerX = Arrays.copyOf(viewerX, viewers * 2);
+                viewerY = Arrays.copyOf(viewerY, viewers * 2);
+            }
+            viewerX[viewers] = x;
+            viewerY[viewers] = y;
+            viewers++;
+        }
+
+        /**
+         * @return squared distance from (x, y) to the closest viewer, or
+         *         {@link Double#POSITIVE_INFINITY} without viewers
+         */
+        public double nearestViewerSq(double x, double y) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < viewers; i++) {
+                double dx = viewerX[i] - x;
+                double dy = viewerY[i] - y;
+                best = Math.min(best, dx * dx + dy * dy);
+            }
+            return best;
+        }
+
+        public int viewers() {
+            return viewers;
+        }
+
+        public double viewerX(int i) {
+            return viewerX[i];
+        }
+
+        public double viewerY(int i) {
+            return viewerY[i];
+        }
+
+        public double islandRadius() {
+            return islandRadius;
+        }
+
+        public double boatX() {
+            return boatX;
+        }
+
+        public double boatY() {
+            return boatY;
+        }
+
+        public boolean fuelWindowOpen() {
+            return fuelWindowOpen;
+        }
+
+        public long nowMs() {
+            return nowMs;
+        }
+    }
+
+    /**
+     * Next move of an NPC: walk to a point at some speed, or stand still for a
+     * while. Reused across NPCs.
+     */
+    final class Plan {
+        private double baseSpeed;
+        private double targetX;
+        private double targetY;
+        private double speed;
+        private long holdMs;
+
+        void reset(double baseSpeed) {
+            this.baseSpeed = baseSpeed;
+            this.holdMs = 0;
+        }
+
+        /**
+         * Walks to (x, y); the target is kept inside the island afterwards.
+         */
+        public void moveTo(double x, double y, double speed) {
+            this.targetX = x;
+            this.targetY = y;
+            this.speed = speed;
+            this.holdMs = 0;
+        }
+
+        /**
+         * Stands at (x, y) for {@code holdMs} before asking for a new plan.
+         */
+        public void hold(double x, double y, long holdMs) {
+            this.targetX = x;
+            this.targetY = y;
+            this.speed = 0.0;
+            this.holdMs = Math.max(0, holdMs);
+        }
+
+        void clampTo(double radius) {
+            double d = Math.hypot(targetX, targetY);
+            if (d > radius) {
+                targetX = targetX / d * radius;
+                targetY = targetY / d * radius;
+            }
+        }
+
+        public double baseSpeed() {
+            return baseSpeed;
+        }
+
+        public double targetX() {
+            return targetX;
+        }
+
+        public double targetY() {
+            return targetY;
+        }
+
+        public double speed() {
+            return speed;
+        }
+
+        public long holdMs() {
+            return holdMs;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.Npc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Built-in {@link NpcBehavior}s. Their weights depend on how quick the NPC is
+ * ({@link Npc#getMovementSpeed()}, normalized to 0..1 over the speed range the
+ * engine allows), so slow NPCs idle more and quick ones roam more:
+ * <ul>
+ * <li>{@code wander}: walks to a random point of the island</li>
+ * <li>{@code idle}: stands still for 2 to 6 seconds</li>
+ * <li>{@code follow-crowd}: walks next to a random player, so the infiltrator
+ * is not the only red avatar near people</li>
+ * <li>{@code visit-boat}: walks to the shore by the boat, more often while the
+ * fuel window is open</li>
+ * </ul>
+ */
+public final class NpcBehaviors {
+
+    public static final String WANDER = "wander";
+    public static final String IDLE = "idle";
+    public static final String FOLLOW_CROWD = "follow-crowd";
+    public static final String VISIT_BOAT = "visit-boat";
+
+    /** Range of {@link Npc#getMovementSpeed()} the engine honours. */
+    public static final double MIN_MOVEMENT_SPEED = 0.15;
+    public static final double MAX_MOVEMENT_SPEED = 0.55;
+
+    private NpcBehaviors() {
+    }
+
+    /**
+     * @param names comma-separated behavior names, blank for all of them
+     * @return the named behaviors, in order
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static List<NpcBehavior> parse(String names) {
+        List<NpcBehavior> out = new ArrayList<>();
+        if (names == null || names.isBlank())
+            names = String.join(",", WANDER, IDLE, FOLLOW_CROWD, VISIT_BOAT);
+        for (String raw : names.split(",")) {
+            String name = raw.trim();
+            if (name.isEmpty())
+                continue;
+            out.add(switch (name) {
+                case WANDER -> new Wander();
+                case IDLE -> new Idle();
+                case FOLLOW_CROWD -> new FollowCrowd();
+                case VISIT_BOAT -> new VisitBoat();
+                default -> throw new IllegalArgumentException("Comportamiento de NPC desconocido: " + name);
+            });
+        }
+        if (out.isEmpty())
+            throw new IllegalArgumentException("Se requiere al menos un comportamiento de NPC.");
+        return out;
+    }
+
+    /**
+     * @return {@link Npc#getMovementSpeed()} mapped to 0 (slowest) .. 1 (quickest)
+     */
+    static double quickness(Npc npc) {
+        double clamped = Math.min(Math.max(MIN_MOVEMENT_SPEED, npc.getMovementSpeed()), MAX_MOVEMENT_SPEED);
+        return (clamped - MIN_MOVEMENT_SPEED) / (MAX_MOVEMENT_SPEED - MIN_MOVEMENT_SPEED);
+    }
+
+    static final class Wander implements NpcBehavior {
+        @Override
+        public String name() {
+            return WANDER;
+        }
+
+        @Override
+        public double weight(Npc npc, double x, double y, World world) {
+            return 1.0;
+        }
+
+        @Override
+        public void plan(Npc npc, double x, double y, World world, Plan plan) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double angle = random.nextDouble(0, Math.PI * 2);
+            double radius = random.nextDouble(0, world.islandRadius() * 0.9);
+            plan.moveTo(Math.cos(angle) * radius, Math.sin(angle) * radius, plan.baseSpeed());
+        }
+    }
+
+    static final class Idle implements NpcBehavior {
+        @Override
+        public String name() {
+            return IDLE;
+        }
+
+        @Override
+        public double weight(Npc npc, double x, double y, World world) {
+            return 0.3 + 0.7 * (1.0 - quickness(npc));
+        }
+
+        @Override
+        public void plan(Npc npc, double x, double y, World world, Plan plan) {
+            plan.hold(x, y, ThreadLocalRandom.current().nextLong(2000, 6001));
+        }
+    }
+
+    static final class FollowCrowd implements NpcBehavior {
+        @Override
+        public String name() {
+            return FOLLOW_CROWD;
+        }
+
+        @Override
+        public double weight(Npc npc, double x, double y, World world) {
+            return world.viewers() > 0 ? 0.8 : 0.0;
+        }
+
+        @Override
+        public void plan(Npc npc, double x, double y, World world, Plan plan) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int i = random.nextInt(world.viewers());
+            double angle = random.nextDouble(0, Math.PI * 2);
+            double offset = random.nextDouble(6.0, 15.0);
+            // a little quicker than usual so it can keep up with walking players
+            plan.moveTo(world.viewerX(i) + Math.cos(angle) * offset, world.viewerY(i) + Math.sin(angle) * offset,
+                    plan.baseSpeed() * 1.15);
+        }
+    }
+
+    static final class VisitBoat implements NpcBehavior {
+        @Override
+        public String name() {
+            return VISIT_BOAT;
+        }
+
+        @Override
+        public double weight(Npc npc, double x, double y, World world) {
+            return world.fuelWindowOpen() ? 0.8 : 0.2;
+        }
+
+        @Override
+        public void plan(Npc npc, double x, double y, World world, Plan plan) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double towardBoat = Math.atan2(world.boatY(), world.boatX()) + random.nextDouble(-0.2, 0.2);
+            double radius = world.islandRadius() * random.nextDouble(0.8, 0.9);
+            plan.moveTo(Math.cos(towardBoat) * radius, Math.sin(towardBoat) * radius, plan.baseSpeed());
+        }
+    }
+}
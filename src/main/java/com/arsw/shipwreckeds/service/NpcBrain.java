@@ -0,0 +1,174 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.Npc;
+import com.arsw.shipwreckeds.model.dto.NpcStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides what NPCs do next and how much NPC work a match tick may spend.
+ * <p>
+ * Level of detail: an NPC within {@code viewRadius} of a player that can see
+ * it is updated every tick; any other NPC only every {@code farIntervalMs},
+ * catching up on the elapsed time in one step. Its published segment stays
+ * exact, only the server-side position lags in between, where nobody looks.
+ * <p>
+ * Budget: a match tick hands out at most {@code decisionBudget} new plans,
+ * nearby NPCs first. An NPC over the budget stays at its target and asks
+ * again on the next tick, so the cost of a tick stays bounded however many
+ * NPCs arrive at once. NPCs without any plan yet always get one.
+ */
+@Component
+public class NpcBrain {
+
+    /** Default distance within which players keep NPCs at full update rate. */
+    public static final double VIEW_RADIUS = 45.0;
+    /** Default update interval of NPCs no player can see. */
+    public static final long FAR_INTERVAL_MS = 4000;
+    /** Default number of new plans per match and tick. */
+    public static final int DECISION_BUDGET = 64;
+    private static final long IDLE_FALLBACK_MS = 1000;
+
+    private final List<NpcBehavior> behaviors;
+    private final double viewRadius;
+    private final double viewRadiusSq;
+    private final long farIntervalMs;
+    private final int decisionBudget;
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong stepped = new AtomicLong();
+    private final AtomicLong lodSkipped = new AtomicLong();
+    private final AtomicLong decisions = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong tickNanos = new AtomicLong();
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    private final AtomicLongArray chosen;
+
+    /**
+     * Creates a brain with every built-in behavior and the default limits, for
+     * engines built without Spring.
+     */
+    public NpcBrain() {
+        this(NpcBehaviors.parse(null), VIEW_RADIUS, FAR_INTERVAL_MS, DECISION_BUDGET);
+    }
+
+    /**
+     * @param behaviors      behaviors to draw from
+     * @param viewRadius     NPCs within this distance of a player update every
+     *                       tick
+     * @param farIntervalMs  update interval of the other NPCs ({@code 0} updates
+     *                       every NPC every tick)
+     * @param decisionBudget new plans per match and tick
+     */
+    public NpcBrain(List<NpcBehavior> behaviors, double viewRadius, long farIntervalMs, int decisionBudget) {
+        if (behaviors.isEmpty())
+            throw new IllegalArgumentException("Se requiere al menos un comportamiento de NPC.");
+        this.behaviors = List.copyOf(behaviors);
+        this.viewRadius = Math.max(0.0, viewRadius);
+        this.viewRadiusSq = this.viewRadius * this.viewRadius;
+        this.farIntervalMs = Math.max(0, farIntervalMs);
+        this.decisionBudget = Math.max(1, decisionBudget);
+        this.chosen = new AtomicLongArray(this.behaviors.size());
+    }
+
+    @Autowired
+    public NpcBrain(@Value("${shipwreckeds.game.npc-behaviors:wander,idle,follow-crowd,visit-boat}") String behaviors,
+            @Value("${shipwreckeds.game.npc-lod.view-radius:" + VIEW_RADIUS + "}") double viewRadius,
+            @Value("${shipwreckeds.game.npc-lod.far-interval-ms:" + FAR_INTERVAL_MS + "}") long farIntervalMs,
+            @Value("${shipwreckeds.game.npc-lod.decision-budget:" + DECISION_BUDGET + "}") int decisionBudget) {
+        this(NpcBehaviors.parse(behaviors), viewRadius, farIntervalMs, decisionBudget);
+    }
+
+    /**
+     * @return whether some viewer is within the view radius of (x, y)
+     */
+    public boolean isNear(NpcBehavior.World world, double x, double y) {
+        return world.nearestViewerSq(x, y) <= viewRadiusSq;
+    }
+
+    /**
+     * @param near           whether a player can see the NPC
+     * @param pendingSeconds time the NPC has not been moved for
+     * @param deltaSeconds   length of this tick
+     * @return whether the NPC is moved on this tick
+     */
+    public boolean isDue(boolean near, double pendingSeconds, double deltaSeconds) {
+        return near || farIntervalMs == 0 || (pendingSeconds + deltaSeconds) * 1000.0 >= farIntervalMs - 1e-6;
+    }
+
+    public int getDecisionBudget() {
+        return decisionBudget;
+    }
+
+    /**
+     * Draws a behavior by weight and lets it fill the plan, whose target is then
+     * kept within 90% of the island radius. When every weight is zero the NPC
+     * stands still for a second.
+     *
+     * @param npc       NPC that needs a new plan
+     * @param x         its current x
+     * @param y         its current y
+     * @param baseSpeed its speed in island units per second
+     * @param world     match surroundings
+     * @param plan      output
+     */
+    public void plan(Npc npc, double x, double y, double baseSpeed, NpcBehavior.World world, NpcBehavior.Plan plan) {
+        plan.reset(baseSpeed);
+        double total = 0.0;
+        for (NpcBehavior behavior : behaviors) {
+            total += Math.max(0.0, behavior.weight(npc, x, y, world));
+        }
+        if (total <= 0.0) {
+            // nothing applies right now: stand still and ask again later
+            plan.hold(x, y, IDLE_FALLBACK_MS);
+            return;
+        }
+        int pick = behaviors.size() - 1;
+        double roll = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < behaviors.size(); i++) {
+            roll -= Math.max(0.0, behaviors.get(i).weight(npc, x, y, world));
+            if (roll < 0.0) {
+                pick = i;
+                break;
+            }
+        }
+        behaviors.get(pick).plan(npc, x, y, world, plan);
+        plan.clampTo(world.islandRadius() * 0.9);
+        chosen.incrementAndGet(pick);
+    }
+
+    /**
+     * Adds one match tick to the counters.
+     */
+    void recordTick(int steppedNpcs, int skippedNpcs, int decided, int postponed, long nanos) {
+        ticks.incrementAndGet();
+        stepped.addAndGet(steppedNpcs);
+        lodSkipped.addAndGet(skippedNpcs);
+        decisions.addAndGet(decided);
+        deferred.addAndGet(postponed);
+        tickNanos.addAndGet(nanos);
+        maxTickNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return counters since startup
+     */
+    public NpcStats getStats() {
+        long t = ticks.get();
+        Map<String, Long> perBehavior = new LinkedHashMap<>();
+        for (int i = 0; i < behaviors.size(); i++) {
+            perBehavior.merge(behaviors.get(i).name(), chosen.get(i), Long::sum);
+        }
+        return new NpcStats(viewRadius, farIntervalMs, decisionBudget, t, stepped.get(), lodSkipped.get(),
+                decisions.get(), deferred.get(), t > 0 ? tickNanos.get() / 1000.0 / t : 0.0,
+                maxTickNanos.get() / 1000.0, perBehavior);
+    }
+}
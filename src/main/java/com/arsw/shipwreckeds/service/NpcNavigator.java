@@ -0,0 +1,171 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.dto.NavStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes NPCs around the obstacles of the {@link IslandMap}.
+ * <p>
+ * Most routes on an open island are a straight line, checked on the
+ * {@link NavGrid} without searching. The others reuse a path shared by every
+ * NPC and match that goes from the same coarse start cell to the same coarse
+ * goal cell ({@code cacheCellSize} wide): the cached path is the first exact
+ * route found between those two cells and is only used when the actual start
+ * and goal see its ends, after which the route is shortened by string
+ * pulling. Only when that fails is an exact A* run, a single search per miss,
+ * so per-tick search work stays flat once the cache is warm. NPCs walk a route one waypoint (one published segment) at
+ * a time and only look up a new route when they pick a new goal.
+ */
+@Component
+public class NpcNavigator {
+
+    /** Default navigation grid resolution. */
+    public static final double CELL_SIZE = 2.0;
+    /** Default width of the coarse cells paths are shared by. */
+    public static final double CACHE_CELL_SIZE = 8.0;
+    /** Default number of cached coarse paths. */
+    public static final int CACHE_CAPACITY = 4096;
+    /** Distance NPC paths keep from the shore and from obstacles. */
+    public static final double CLEARANCE = 2.5;
+
+    private final IslandMap map;
+    private final NavGrid grid;
+    private final double cacheCellSize;
+    private final int cacheCapacity;
+    private final Map<Long, double[]> cache;
+
+    private long requests;
+    private long direct;
+    private long cacheHits;
+    private long cacheMisses;
+    private long exactSearches;
+    private long unreachable;
+    private long routeNanos;
+
+    /**
+     * Creates a navigator over the bare default island, for engines built
+     * without Spring.
+     */
+    public NpcNavigator() {
+        this(IslandMap.defaultIsland(), CELL_SIZE, CACHE_CELL_SIZE, CACHE_CAPACITY);
+    }
+
+    /**
+     * @param map           island to route on
+     * @param cellSize      navigation grid resolution
+     * @param cacheCellSize width of the coarse cells paths are shared by
+     * @param cacheCapacity cached paths kept, least recently used evicted first
+     */
+    @Autowired
+    public NpcNavigator(IslandMap map,
+            @Value("${shipwreckeds.map.nav.cell-size:" + CELL_SIZE + "}") double cellSize,
+            @Value("${shipwreckeds.map.nav.cache-cell-size:" + CACHE_CELL_SIZE + "}") double cacheCellSize,
+            @Value("${shipwreckeds.map.nav.cache-capacity:" + CACHE_CAPACITY + "}") int cacheCapacity) {
+        this.map = map;
+        this.grid = new NavGrid(map, cellSize, CLEARANCE);
+        this.cacheCellSize = Math.max(cellSize, cacheCellSize);
+        this.cacheCapacity = Math.max(1, cacheCapacity);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+                return size() > NpcNavigator.this.cacheCapacity;
+            }
+        };
+    }
+
+    public IslandMap getMap() {
+        return map;
+    }
+
+    /**
+     * Waypoints from (fromX, fromY) to the walkable point closest to
+     * (toX, toY).
+     *
+     * @return packed waypoints {@code x0, y0, x1, y1, ...} ending at the goal;
+     *         just the start when the goal cannot be reached
+     */
+    public synchronized double[] route(double fromX, double fromY, double toX, double toY) {
+        long started = System.nanoTime();
+        requests++;
+        try {
+            int goalCell = grid.nearestWalkable(toX, toY);
+            if (goalCell < 0) {
+                unreachable++;
+                return new double[] { fromX, fromY };
+            }
+            double gx = toX;
+            double gy = toY;
+            if (grid.cellOf(toX, toY) != goalCell) {
+                gx = grid.centerX(goalCell);
+                gy = grid.centerY(goalCell);
+            }
+            if (grid.lineOfSight(fromX, fromY, gx, gy)) {
+                direct++;
+                return new double[] { gx, gy };
+            }
+            long key = cacheKey(fromX, fromY, gx, gy);
+            double[] shared = cache.get(key);
+            if (shared != null) {
+                cacheHits++;
+                if (grid.lineOfSight(fromX, fromY, shared[0], shared[1])
+                        && grid.lineOfSight(shared[shared.length - 2], shared[shared.length - 1], gx, gy)) {
+                    return grid.smooth(fromX, fromY, withGoal(shared, gx, gy));
+                }
+            } else {
+                cacheMisses++;
+            }
+            // one search per miss: the exact route also becomes the shared
+            // path of its coarse cells
+            exactSearches++;
+            int startCell = grid.nearestWalkable(fromX, fromY);
+            double[] path = startCell >= 0 ? grid.findPath(startCell, goalCell) : null;
+            if (path == null) {
+                unreachable++;
+                return new double[] { fromX, fromY };
+            }
+            if (shared == null) {
+                double[] cached = new double[path.length + 2];
+                cached[0] = grid.centerX(startCell);
+                cached[1] = grid.centerY(startCell);
+                System.arraycopy(path, 0, cached, 2, path.length);
+                cache.put(key, cached);
+            }
+            return grid.smooth(fromX, fromY, withGoal(path, gx, gy));
+        } finally {
+            routeNanos += System.nanoTime() - started;
+        }
+    }
+
+    private long cacheKey(double fromX, double fromY, double toX, double toY) {
+        return (long) coarse(fromX, fromY) << 32 | (coarse(toX, toY) & 0xffffffffL);
+    }
+
+    private static double[] withGoal(double[] path, double gx, double gy) {
+        double[] points = Arrays.copyOf(path, path.length + 2);
+        points[path.length] = gx;
+        points[path.length + 1] = gy;
+        return points;
+    }
+
+    private int coarse(double x, double y) {
+        int cx = (int) Math.floor((x + map.getRadius()) / cacheCellSize);
+        int cy = (int) Math.floor((y + map.getRadius()) / cacheCellSize);
+        return cy << 16 | (cx & 0xffff);
+    }
+
+    /**
+     * @return pathfinding counters since startup
+     */
+    public synchronized NavStats getStats() {
+        return new NavStats(grid.getCellSize(), cacheCellSize, cache.size(), cacheCapacity, requests, direct,
+                cacheHits, cacheMisses, exactSearches, unreachable, grid.getExpanded(),
+                requests > 0 ? routeNanos / 1000.0 / requests : 0.0);
+    }
+}
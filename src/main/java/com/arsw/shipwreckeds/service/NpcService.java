@@ -1,8 +1,10 @@
 package com.arsw.shipwreckeds.service;
 
+import com.arsw.shipwreckeds.model.IslandMap;
 import com.arsw.shipwreckeds.model.Match;
 import com.arsw.shipwreckeds.model.Npc;
 import com.arsw.shipwreckeds.model.Position;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.atomic.AtomicLong;
@@ -16,10 +18,28 @@ public class NpcService {
 
     // start NPC ids at a high offset to avoid colliding with player ids
     private final AtomicLong nextNpcId = new AtomicLong(100000);
+    private final IslandMap islandMap;
+
+    /**
+     * Creates a service that spawns NPCs on the bare default island, for
+     * components built without Spring.
+     */
+    public NpcService() {
+        this(IslandMap.defaultIsland());
+    }
+
+    /**
+     * @param islandMap island whose walkable area NPCs spawn on
+     */
+    @Autowired
+    public NpcService(IslandMap islandMap) {
+        this.islandMap = islandMap;
+    }
 
     /**
      * Recreates the NPC roster so the number of red avatars matches the number of
-     * human castaways.
+     * human castaways, and draws the infiltrator's disguise id from the same id
+     * range, at a random position among the NPCs', so it cannot be told apart.
      *
      * @param match match on which the NPCs will be spawned
      */
@@ -34,16 +54,19 @@ public class NpcService {
         int desiredNpcCount = Math.max(0, humanCount - 2);
 
         match.getNpcs().clear();
+        match.setInfiltratorDisguiseId(null);
 
-        double islandRadius = 100.0; // default radius if not provided by the GameEngine
         java.util.Random rnd = new java.util.Random();
+        int disguiseSlot = match.getInfiltrator() != null ? rnd.nextInt(desiredNpcCount + 1) : -1;
         for (int i = 0; i < desiredNpcCount; i++) {
-            double ang = rnd.nextDouble() * Math.PI * 2;
-            double r = rnd.nextDouble() * (islandRadius * 0.7); // keep them closer to center
-            double x = Math.cos(ang) * r;
-            double y = Math.sin(ang) * r;
-            Npc npc = new Npc(nextNpcId.getAndIncrement(), "npc-skin-" + (i + 2), new Position(x, y), 0.8, false);
+            if (i == disguiseSlot)
+                match.setInfiltratorDisguiseId(nextNpcId.getAndIncrement());
+            // keep them closer to center, off the obstacles
+            Position spawn = islandMap.randomSpawn(rnd, 0.7);
+            Npc npc = new Npc(nextNpcId.getAndIncrement(), "npc-skin-" + (i + 2), spawn, 0.8, false);
             match.addNpc(npc);
         }
+        if (disguiseSlot == desiredNpcCount)
+            match.setInfiltratorDisguiseId(nextNpcId.getAndIncrement());
     }
 }
@@ -0,0 +1,72 @@
+package com.arsw.shipwreckeds.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batch NPC steering kernel: moves every active NPC of a {@link NpcSwarm}
+ * straight toward its target, at its speed, for one time step.
+ * <p>
+ * Per slot, with {@code d} the distance to the target:
+ * <ul>
+ * <li>{@code d < 1}: the NPC arrived; it is not moved and is flagged for a new
+ * target</li>
+ * <li>otherwise it advances {@code min(d, speed * dt)}; if that would put it
+ * within 2 units of the island edge it stays put and is flagged instead</li>
+ * </ul>
+ * Implementations must produce identical results; the vector one is only
+ * faster.
+ */
+public interface NpcSteering {
+
+    /** Squared distance below which an NPC counts as arrived. */
+    double ARRIVAL_DISTANCE_SQ = 1.0;
+
+    /**
+     * In {@code auto} mode, swarms below this size are stepped by the scalar loop,
+     * which is faster for them.
+     */
+    int AUTO_MIN_VECTOR_BATCH = 4096;
+
+    /**
+     * @param swarm        NPCs to move, updated in place
+     * @param deltaSeconds time step
+     * @param maxRadius    NPCs may not step this close to the island edge or
+     *                     beyond (distance from the centre)
+     */
+    void step(NpcSwarm swarm, double deltaSeconds, double maxRadius);
+
+    /**
+     * @return implementation name, for logs and stats
+     */
+    String name();
+
+    /**
+     * Picks a kernel.
+     *
+     * @param mode {@code scalar}, {@code vector} or {@code auto}; {@code vector}
+     *             and {@code auto} fall back to scalar when the JVM was started
+     *             without {@code --add-modules jdk.incubator.vector} or the build
+     *             did not use the {@code vector} profile;
+     *             {@code auto} also keeps small swarms on the scalar loop
+     * @return steering kernel
+     */
+    static NpcSteering create(String mode) {
+        Logger logger = LoggerFactory.getLogger(NpcSteering.class);
+        if ("scalar".equalsIgnoreCase(mode))
+            return new ScalarNpcSteering();
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded reflectively so the class is never resolved without the module
+                return (NpcSteering) Class.forName("com.arsw.shipwreckeds.service.VectorNpcSteering")
+                        .getDeclaredConstructor(int.class)
+                        .newInstance("vector".equalsIgnoreCase(mode) ? 0 : AUTO_MIN_VECTOR_BATCH);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("No se pudo cargar el kernel vectorial de NPCs; se usa el escalar", e);
+            }
+        } else if ("vector".equalsIgnoreCase(mode)) {
+            logger.warn("jdk.incubator.vector no está disponible (falta --add-modules); se usa el kernel escalar");
+        }
+        return new ScalarNpcSteering();
+    }
+}
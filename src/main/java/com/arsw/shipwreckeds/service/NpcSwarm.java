@@ -0,0 +1,101 @@
+package com.arsw.shipwreckeds.service;
+
+import java.util.Arrays;
+
+/**
+ * NPC movement state in structure-of-arrays form, the input and output of an
+ * {@link NpcSteering} kernel. Slot {@code i} of every array describes the same
+ * NPC; only the first {@link #size()} slots are meaningful.
+ * <p>
+ * A swarm can hold the NPCs of one match or of many matches at once (the
+ * kernel does not care which match a slot belongs to), and is meant to be
+ * reused across ticks: {@link #resize(int)} only reallocates when it grows.
+ */
+public final class NpcSwarm {
+
+    private int size;
+    double[] x;
+    double[] y;
+    double[] targetX;
+    double[] targetY;
+    double[] speed;
+    // flags are stored as 1.0 / 0.0 so the vector kernel loads and stores them
+    // as plain double lanes
+    double[] active;
+    // output: the NPC reached its target or would leave the island, and was not moved
+    double[] retarget;
+
+    public NpcSwarm(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    private void allocate(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        targetX = new double[capacity];
+        targetY = new double[capacity];
+        speed = new double[capacity];
+        active = new double[capacity];
+        retarget = new double[capacity];
+    }
+
+    /**
+     * Sets the number of slots in use, growing the arrays if needed. Slot
+     * contents are kept up to the old size.
+     *
+     * @param size NPCs in the batch
+     */
+    public void resize(int size) {
+        if (size > x.length) {
+            int capacity = Math.max(size, x.length * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            targetX = Arrays.copyOf(targetX, capacity);
+            targetY = Arrays.copyOf(targetY, capacity);
+            speed = Arrays.copyOf(speed, capacity);
+            active = Arrays.copyOf(active, capacity);
+            retarget = Arrays.copyOf(retarget, capacity);
+        }
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Loads one NPC into a slot.
+     *
+     * @param i       slot
+     * @param x       current x
+     * @param y       current y
+     * @param targetX target x
+     * @param targetY target y
+     * @param speed   island units per second
+     * @param active  inactive NPCs are neither moved nor retargeted
+     */
+    public void set(int i, double x, double y, double targetX, double targetY, double speed, boolean active) {
+        this.x[i] = x;
+        this.y[i] = y;
+        this.targetX[i] = targetX;
+        this.targetY[i] = targetY;
+        this.speed[i] = speed;
+        this.active[i] = active ? 1.0 : 0.0;
+    }
+
+    public double x(int i) {
+        return x[i];
+    }
+
+    public double y(int i) {
+        return y[i];
+    }
+
+    /**
+     * @return whether the last step left the NPC in place because it needs a new
+     *         target
+     */
+    public boolean needsTarget(int i) {
+        return retarget[i] != 0.0;
+    }
+}
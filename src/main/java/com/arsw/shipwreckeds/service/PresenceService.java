@@ -0,0 +1,229 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks which logged-in players still have a live STOMP connection and
+ * cleans up after the ones that vanished.
+ * <p>
+ * Connection state comes from the broker's connect/disconnect events; broker
+ * heartbeats make sure a crashed client produces a disconnect too. A player
+ * whose last connection drops keeps the session for a grace window (a new
+ * login resumes it). In a running match the avatar is flagged AFK meanwhile.
+ * When the window expires the session is reaped: it is removed from its
+ * waiting lobby and the matchmaking queue, and its token stops working.
+ */
+@Service
+public class PresenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+    private static final long SWEEP_INTERVAL_SECONDS = 5;
+
+    private final AuthService authService;
+    private final MatchService matchService;
+    private final MatchmakingService matchmakingService;
+    private final WebSocketController webSocketController;
+    private final RateLimiter rateLimiter;
+    private final long graceMs;
+    private final long loginGraceMs;
+
+    // STOMP session id -> player session; disconnect events may repeat, so removal drives the count
+    private final Map<String, PlayerSession> connections = new ConcurrentHashMap<>();
+    private final AtomicLong reaped = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "presence");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PresenceService(AuthService authService,
+            MatchService matchService,
+            MatchmakingService matchmakingService,
+            WebSocketController webSocketController,
+            RateLimiter rateLimiter,
+            @Value("${shipwreckeds.presence.grace-seconds:30}") long graceSeconds,
+            @Value("${shipwreckeds.presence.login-grace-seconds:900}") long loginGraceSeconds) {
+        this.authService = authService;
+        this.matchService = matchService;
+        this.matchmakingService = matchmakingService;
+        this.webSocketController = webSocketController;
+        this.rateLimiter = rateLimiter;
+        this.graceMs = TimeUnit.SECONDS.toMillis(graceSeconds);
+        this.loginGraceMs = TimeUnit.SECONDS.toMillis(loginGraceSeconds);
+    }
+
+    /**
+     * Starts the periodic reaper.
+     */
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reapExpired(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                logger.error("Error al depurar sesiones desconectadas", e);
+            }
+        }, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        connected(event.getMessage().getHeaders().get("simpSessionId", String.class), event.getUser());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnected(event.getSessionId());
+    }
+
+    /**
+     * Registers an open STOMP connection for an authenticated player.
+     *
+     * @param stompSessionId broker session id
+     * @param user           connection principal
+     */
+    public void connected(String stompSessionId, Principal user) {
+        if (stompSessionId == null || !(user instanceof PlayerSession session))
+            return;
+        if (connections.putIfAbsent(stompSessionId, session) != null)
+            return;
+        session.connected(System.currentTimeMillis());
+        if (markAfk(session.getBinding(), false)) {
+            logger.info("Jugador {} volvió a la partida.", session.getName());
+        }
+    }
+
+    /**
+     * Registers a closed STOMP connection. Repeated events for the same id are
+     * ignored.
+     *
+     * @param stompSessionId broker session id
+     */
+    public void disconnected(String stompSessionId) {
+        if (stompSessionId == null)
+            return;
+        PlayerSession session = connections.remove(stompSessionId);
+        if (session == null)
+            return;
+        if (session.disconnected(System.currentTimeMillis()) > 0)
+            return;
+        if (markAfk(session.getBinding(), true)) {
+            logger.info("Jugador {} desconectado de la partida; marcado como AFK.", session.getName());
+        }
+    }
+
+    /**
+     * Reaps every session that has been offline longer than its grace window:
+     * {@code grace-seconds} once it had a live connection, or
+     * {@code login-grace-seconds} if it never opened one.
+     *
+     * @param nowMs current time
+     * @return number of sessions reaped
+     */
+    public int reapExpired(long nowMs) {
+        int count = 0;
+        for (PlayerSession session : authService.sessions()) {
+            if (session.isOnline())
+                continue;
+            long window = session.hasEverConnected() ? graceMs : loginGraceMs;
+            long cutoff = nowMs - window;
+            if (session.getLastSeenMs() > cutoff)
+                continue;
+            // expiring clears the binding
+            PlayerSession.Binding binding = session.getBinding();
+            if (authService.expire(session, cutoff)) {
+                cleanUp(session, binding);
+                count++;
+            }
+        }
+        if (count > 0) {
+            reaped.addAndGet(count);
+        }
+        return count;
+    }
+
+    /**
+     * @return open STOMP connections belonging to authenticated players
+     */
+    public int getOpenConnections() {
+        return connections.size();
+    }
+
+    /**
+     * @return sessions reaped since startup
+     */
+    public long getReaped() {
+        return reaped.get();
+    }
+
+    private void cleanUp(PlayerSession session, PlayerSession.Binding binding) {
+        String username = session.getName();
+        matchmakingService.cancel(username);
+        rateLimiter.forget(username);
+        String lobby = session.getLobbyCode();
+        if (lobby != null) {
+            Match match = matchService.leaveMatch(lobby, username);
+            if (match != null) {
+                webSocketController.broadcastLobbyUpdate(match);
+            }
+        }
+        // stays in the running match as an idle avatar until it ends
+        markAfk(binding, true);
+    }
+
+    /**
+     * Flags or clears the AFK state of a bound avatar while its match is in
+     * play (moving or in a meeting). Runs under the match lock, like every
+     * other avatar mutation; going AFK also zeroes the held input.
+     *
+     * @return {@code true} when the flag changed
+     */
+    private static boolean markAfk(PlayerSession.Binding binding, boolean afk) {
+        if (binding == null)
+            return false;
+        Match match = binding.getMatch();
+        Player avatar = binding.getAvatar();
+        synchronized (match) {
+            MatchStatus status = match.getStatus();
+            if (status != MatchStatus.STARTED && status != MatchStatus.IN_MEETING)
+                return false;
+            if (afk) {
+                avatar.getInput().clear();
+            } else if (!avatar.isAfk()) {
+                return false;
+            }
+            avatar.setAfk(afk);
+            return true;
+        }
+    }
+
+    /**
+     * Stops the reaper before the bean is destroyed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
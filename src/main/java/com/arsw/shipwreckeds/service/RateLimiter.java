@@ -0,0 +1,225 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.dto.RateLimitStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token-bucket limiter shared by the STOMP inbound channel and the REST
+ * handlers, keyed by player (or connection) and {@link Action}.
+ * <p>
+ * Each key owns one preallocated {@code long[]} holding the token level and
+ * last refill time of every action, so a check after the first one allocates
+ * nothing: a map read, a lock on the array and some arithmetic. Keys idle for
+ * longer than {@code idle-seconds} are swept, and the map never grows beyond
+ * {@code max-keys}; new keys beyond that are rejected until space frees up.
+ */
+@Component
+public class RateLimiter {
+
+    /**
+     * Limited actions with their burst size and sustained rate (tokens/s).
+     */
+    public enum Action {
+        MOVE(4, 12),
+        MESSAGE(20, 30),
+        JOIN(3, 0.5),
+        START_VOTE(2, 0.2),
+        VOTE(3, 1),
+        ELIMINATE(2, 0.5),
+        FUEL(10, 8);
+
+        final long capacityMilli;
+        final long refillMilliPerSec;
+
+        Action(double capacity, double perSecond) {
+            this.capacityMilli = (long) (capacity * MILLI);
+            this.refillMilliPerSec = (long) (perSecond * MILLI);
+        }
+    }
+
+    private static final long MILLI = 1000;
+    private static final Action[] ACTIONS = Action.values();
+    // Layout per key: [level(a0), refill(a0), level(a1), refill(a1), ..., lastAccess]
+    private static final int LAST_ACCESS = ACTIONS.length * 2;
+    private static final String ANONYMOUS_KEY = "";
+    private static final long SWEEP_INTERVAL_SECONDS = 30;
+
+    private final Map<String, long[]> buckets = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final long idleNanos;
+
+    private final AtomicLongArray rejected = new AtomicLongArray(ACTIONS.length);
+    private final AtomicLong overflowRejected = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-limiter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RateLimiter(@Value("${shipwreckeds.ratelimit.max-keys:100000}") int maxKeys,
+            @Value("${shipwreckeds.ratelimit.idle-seconds:120}") long idleSeconds) {
+        this.maxKeys = maxKeys;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+    }
+
+    /**
+     * Starts the periodic sweep of idle keys.
+     */
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> evictIdle(System.nanoTime()), SWEEP_INTERVAL_SECONDS,
+                SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Takes one token for the given key and action.
+     *
+     * @param key    player or connection identifier ({@code null} shares one
+     *               anonymous bucket)
+     * @param action limited action
+     * @return {@code true} if the action may proceed
+     */
+    public boolean tryAcquire(String key, Action action) {
+        return tryAcquire(key, action, System.nanoTime());
+    }
+
+    /**
+     * Same as {@link #tryAcquire(String, Action)} with an explicit clock.
+     *
+     * @param key      player or connection identifier
+     * @param action   limited action
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return {@code true} if the action may proceed
+     */
+    public boolean tryAcquire(String key, Action action, long nowNanos) {
+        String k = key != null ? key : ANONYMOUS_KEY;
+        long[] bucket = buckets.get(k);
+        if (bucket == null) {
+            bucket = register(k, nowNanos);
+            if (bucket == null) {
+                overflowRejected.incrementAndGet();
+                return false;
+            }
+        }
+        int level = action.ordinal() * 2;
+        synchronized (bucket) {
+            long elapsed = nowNanos - bucket[level + 1];
+            if (elapsed > 0) {
+                long add = refill(elapsed, action);
+                if (add > 0) {
+                    bucket[level] = Math.min(action.capacityMilli, bucket[level] + add);
+                    bucket[level + 1] = nowNanos;
+                }
+            }
+            bucket[LAST_ACCESS] = nowNanos;
+            if (bucket[level] >= MILLI) {
+                bucket[level] -= MILLI;
+                return true;
+            }
+        }
+        rejected.incrementAndGet(action.ordinal());
+        return false;
+    }
+
+    /**
+     * Drops the buckets of a key, e.g. when its session is reaped.
+     *
+     * @param key player or connection identifier
+     */
+    public void forget(String key) {
+        if (key != null) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Removes keys without activity for longer than the idle window.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return number of keys removed
+     */
+    public int evictIdle(long nowNanos) {
+        int removed = 0;
+        Iterator<long[]> it = buckets.values().iterator();
+        while (it.hasNext()) {
+            long[] bucket = it.next();
+            long last;
+            synchronized (bucket) {
+                last = bucket[LAST_ACCESS];
+            }
+            if (nowNanos - last > idleNanos) {
+                it.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            evicted.addAndGet(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * @return number of keys currently tracked
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * @return reject counters for monitoring
+     */
+    public RateLimitStats getStats() {
+        Map<String, Long> byAction = new LinkedHashMap<>();
+        long total = 0;
+        for (Action a : ACTIONS) {
+            long n = rejected.get(a.ordinal());
+            byAction.put(a.name(), n);
+            total += n;
+        }
+        return new RateLimitStats(buckets.size(), total, byAction, overflowRejected.get(), evicted.get());
+    }
+
+    private long[] register(String key, long nowNanos) {
+        if (buckets.size() >= maxKeys && evictIdle(nowNanos) == 0 && buckets.size() >= maxKeys)
+            return null;
+        return buckets.computeIfAbsent(key, k -> {
+            long[] fresh = new long[LAST_ACCESS + 1];
+            for (Action a : ACTIONS) {
+                fresh[a.ordinal() * 2] = a.capacityMilli;
+                fresh[a.ordinal() * 2 + 1] = nowNanos;
+            }
+            fresh[LAST_ACCESS] = nowNanos;
+            return fresh;
+        });
+    }
+
+    private static long refill(long elapsedNanos, Action action) {
+        // cap the interval so the multiplication cannot overflow; a full bucket needs no more
+        long fullAfter = action.capacityMilli * 1_000_000_000L / action.refillMilliPerSec;
+        long capped = Math.min(elapsedNanos, fullAfter);
+        return capped * action.refillMilliPerSec / 1_000_000_000L;
+    }
+
+    /**
+     * Stops the sweep before the bean is destroyed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
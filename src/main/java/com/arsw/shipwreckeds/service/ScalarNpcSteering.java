@@ -0,0 +1,45 @@
+package com.arsw.shipwreckeds.service;
+
+/**
+ * Plain loop over the {@link NpcSwarm} arrays. Used when the Vector API is not
+ * available, and for the tail of each batch in {@link VectorNpcSteering}.
+ */
+public final class ScalarNpcSteering implements NpcSteering {
+
+    @Override
+    public void step(NpcSwarm swarm, double deltaSeconds, double maxRadius) {
+        stepRange(swarm, 0, swarm.size(), deltaSeconds, maxRadius * maxRadius);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    static void stepRange(NpcSwarm s, int from, int to, double deltaSeconds, double maxRadiusSq) {
+        for (int i = from; i < to; i++) {
+            if (s.active[i] == 0.0) {
+                s.retarget[i] = 0.0;
+                continue;
+            }
+            double dx = s.targetX[i] - s.x[i];
+            double dy = s.targetY[i] - s.y[i];
+            double d2 = dx * dx + dy * dy;
+            if (d2 < ARRIVAL_DISTANCE_SQ) {
+                s.retarget[i] = 1.0;
+                continue;
+            }
+            double distance = Math.sqrt(d2);
+            double k = Math.min(distance, s.speed[i] * deltaSeconds) / distance;
+            double nx = s.x[i] + dx * k;
+            double ny = s.y[i] + dy * k;
+            if (nx * nx + ny * ny >= maxRadiusSq) {
+                s.retarget[i] = 1.0;
+                continue;
+            }
+            s.x[i] = nx;
+            s.y[i] = ny;
+            s.retarget[i] = 0.0;
+        }
+    }
+}
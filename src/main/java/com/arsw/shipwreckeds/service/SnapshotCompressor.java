@@ -0,0 +1,323 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.dto.AvatarState;
+import com.arsw.shipwreckeds.model.dto.CompressionDictionary;
+import com.arsw.shipwreckeds.model.dto.CompressionStats;
+import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.util.Constants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-level codec for the opt-in compressed game-state channel
+ * ({@code /topic/game/{code}/compressed}).
+ * <p>
+ * Snapshots are zlib-deflated, optionally against a preset dictionary made of
+ * a representative {@link GameState} (same keys, island and boat blocks, NPC
+ * aliases), then Base64-encoded because SockJS only carries text frames.
+ * Snapshots smaller than the threshold are sent as plain JSON, where deflate
+ * would cost CPU for little or no gain.
+ */
+@Component
+public class SnapshotCompressor {
+
+    /**
+     * A snapshot ready to publish.
+     */
+    public static final class Encoded {
+        private final String body;
+        private final boolean compressed;
+
+        Encoded(String body, boolean compressed) {
+            this.body = body;
+            this.compressed = compressed;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * @return {@code true} for Base64 zlib data, {@code false} for plain JSON
+         */
+        public boolean isCompressed() {
+            return compressed;
+        }
+
+        public String getContentEncoding() {
+            return compressed ? "deflate" : "identity";
+        }
+    }
+
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+    private final int minBytes;
+    private final int level;
+    private final byte[] dictionary;
+    private final String dictionaryId;
+    private final BlockingQueue<Deflater> deflaters;
+    private volatile boolean closed;
+
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong compressedFrames = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong encodedBytes = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+
+    /**
+     * Creates a disabled codec, for components built without Spring.
+     */
+    public SnapshotCompressor() {
+        this(new ObjectMapper(), false, 512, Deflater.BEST_SPEED, true);
+    }
+
+    /**
+     * @param mapper        JSON mapper shared with the STOMP converters
+     * @param enabled       whether the compressed channel is published at all
+     * @param minBytes      snapshots below this size are sent uncompressed
+     * @param level         deflate level (1 = fastest, 9 = smallest)
+     * @param useDictionary whether to deflate against the preset dictionary
+     */
+    @Autowired
+    public SnapshotCompressor(ObjectMapper mapper,
+            @Value("${shipwreckeds.ws.compression.enabled:true}") boolean enabled,
+            @Value("${shipwreckeds.ws.compression.min-bytes:512}") int minBytes,
+            @Value("${shipwreckeds.ws.compression.level:1}") int level,
+            @Value("${shipwreckeds.ws.compression.dictionary:true}") boolean useDictionary) {
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.minBytes = Math.max(0, minBytes);
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+        this.dictionary = useDictionary ? buildDictionary(mapper) : null;
+        this.dictionaryId = dictionary != null ? adler32Hex(dictionary) : null;
+        this.deflaters = new ArrayBlockingQueue<>(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @return whether the compressed channel should be published
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return snapshots below this size are sent uncompressed
+     */
+    public int getMinBytes() {
+        return minBytes;
+    }
+
+    /**
+     * Serializes a snapshot once for the compressed channel.
+     *
+     * @param snapshot game state or any JSON-serializable payload
+     * @return UTF-8 JSON
+     */
+    public byte[] toJson(Object snapshot) {
+        try {
+            return mapper.writeValueAsBytes(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el estado de la partida.", e);
+        }
+    }
+
+    /**
+     * Compresses a serialized snapshot unless it is below the threshold.
+     *
+     * @param json UTF-8 JSON
+     * @return body and encoding to publish
+     */
+    public Encoded encode(byte[] json) {
+        frames.incrementAndGet();
+        rawBytes.addAndGet(json.length);
+        if (json.length < minBytes) {
+            skipped.incrementAndGet();
+            encodedBytes.addAndGet(json.length);
+            return new Encoded(new String(json, StandardCharsets.UTF_8), false);
+        }
+        long start = System.nanoTime();
+        byte[] deflated = deflate(json);
+        compressNanos.addAndGet(System.nanoTime() - start);
+        compressedFrames.incrementAndGet();
+        encodedBytes.addAndGet(deflated.length);
+        return new Encoded(Base64.getEncoder().encodeToString(deflated), true);
+    }
+
+    /**
+     * zlib-deflates with the configured level and dictionary.
+     *
+     * @param data bytes to compress
+     * @return zlib stream
+     */
+    public byte[] deflate(byte[] data) {
+        Deflater deflater = borrowDeflater();
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] out = new byte[Math.max(64, data.length / 2)];
+            int n = 0;
+            while (!deflater.finished()) {
+                if (n == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                n += deflater.deflate(out, n, out.length - n);
+            }
+            return Arrays.copyOf(out, n);
+        } finally {
+            releaseDeflater(deflater);
+        }
+    }
+
+    /**
+     * Frees the native zlib memory of the pooled deflaters. Deflaters still in
+     * use are freed when they are handed back.
+     */
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        Deflater idle;
+        while ((idle = deflaters.poll()) != null) {
+            idle.end();
+        }
+    }
+
+    /**
+     * @return deflaters currently idle in the pool
+     */
+    public int getPooledDeflaters() {
+        return deflaters.size();
+    }
+
+    private Deflater borrowDeflater() {
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(level);
+    }
+
+    /**
+     * Keeps the deflater for the next frame when the pool has room; otherwise
+     * (pool full or codec shut down) ends it right away instead of leaving its
+     * native memory until the object is collected. The second check covers a
+     * shutdown racing with the offer.
+     */
+    private void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (closed || !deflaters.offer(deflater)) {
+            deflater.end();
+        } else if (closed && deflaters.remove(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reverse of {@link #deflate(byte[])}, as a client would run it.
+     *
+     * @param zlib compressed stream
+     * @return original bytes
+     */
+    public byte[] inflate(byte[] zlib) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlib);
+            byte[] out = new byte[zlib.length * 4 + 64];
+            int n = 0;
+            while (!inflater.finished()) {
+                if (n == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int read = inflater.inflate(out, n, out.length - n);
+                if (read == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(dictionary);
+                } else if (read == 0 && inflater.needsInput()) {
+                    throw new IllegalArgumentException("Flujo comprimido incompleto.");
+                }
+                n += read;
+            }
+            return Arrays.copyOf(out, n);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Flujo comprimido inválido.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return the preset dictionary clients need, or {@code null} when the codec
+     *         runs without one
+     */
+    public CompressionDictionary getDictionary() {
+        if (dictionary == null)
+            return null;
+        return new CompressionDictionary(dictionaryId, new String(dictionary, StandardCharsets.UTF_8), minBytes);
+    }
+
+    /**
+     * @return hex Adler-32 of the dictionary, or {@code null} without one
+     */
+    public String getDictionaryId() {
+        return dictionaryId;
+    }
+
+    /**
+     * @return codec counters
+     */
+    public CompressionStats getStats() {
+        long raw = rawBytes.get();
+        long compressed = compressedFrames.get();
+        return new CompressionStats(enabled, level, minBytes, dictionary != null,
+                frames.get(), compressed, skipped.get(), raw, encodedBytes.get(),
+                raw > 0 ? (double) encodedBytes.get() / raw : 0.0,
+                compressed > 0 ? compressNanos.get() / 1000.0 / compressed : 0.0);
+    }
+
+    /**
+     * Builds the dictionary from a representative snapshot. zlib favours the end
+     * of the dictionary, so the avatar records (the bulk of every snapshot) go
+     * last.
+     */
+    static byte[] buildDictionary(ObjectMapper mapper) {
+        List<AvatarState> avatars = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            avatars.add(new AvatarState(id, Constants.AVATAR_TYPE_HUMAN, "player" + id, -12.5, 37.25, false, true,
+                    "player" + id, id));
+        }
+        for (long id = 1; id <= 12; id++) {
+            avatars.add(new AvatarState(id, Constants.AVATAR_TYPE_NPC, null, 48.75, -3.5, false, true,
+                    GameEngine.buildNpcAlias(id)));
+        }
+        GameState sample = new GameState("ABC123", 1_700_000_000_000L, 300,
+                new GameState.Island(0.0, 0.0, 100.0), avatars, 42.5, Constants.MATCH_STATUS_STARTED,
+                new GameState.Boat(112.0, 0.0, 40.0), null, true, 0);
+        try {
+            return mapper.writeValueAsBytes(sample);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String adler32Hex(byte[] data) {
+        Adler32 adler = new Adler32();
+        adler.update(data);
+        return Long.toHexString(adler.getValue());
+    }
+}
@@ -0,0 +1,324 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.dto.SpectatorStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Read-only Server-Sent Events feed of a match for spectators.
+ * <p>
+ * The service keeps a reference to the latest game state each match
+ * broadcasts (see {@link WebSocketController#addStateListener}), which costs
+ * nothing on the game path and never takes the match lock. Every interval,
+ * matches with spectators and a newer snapshot have it serialized once; that
+ * single JSON string is then written to all of the match's spectators,
+ * spread over a small sender pool so one slow connection only delays its own
+ * chunk. Spectators therefore see at most one snapshot per interval, however
+ * fast the match moves.
+ * <p>
+ * Writes block, so nothing is allowed to pile up behind a slow connection: a
+ * match whose previous fan-out is still running skips the tick (its newest
+ * snapshot goes out on the next one), and each spectator holds at most one
+ * pending frame, replaced when a newer one arrives before it was written.
+ */
+@Service
+public class SpectatorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorService.class);
+
+    static final String EVENT_STATE = "state";
+    // spectators written by one sender task
+    private static final int CHUNK = 256;
+
+    private final ObjectMapper mapper;
+    private final long intervalMs;
+    private final long timeoutMs;
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "spectator-tick");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService senders;
+
+    private final AtomicLong framesSerialized = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong skippedTicks = new AtomicLong();
+
+    /**
+     * Spectators of one match and its latest snapshot.
+     */
+    private static final class Feed {
+        final Map<SseEmitter, Spectator> spectators = new ConcurrentHashMap<>();
+        // latest state published for the match and whether it was serialized yet
+        volatile Object latest;
+        volatile boolean dirty;
+        // last serialized frame, replayed to new spectators
+        volatile Frame frame;
+        volatile long seq;
+        // sender tasks of the last fan-out that have not finished
+        final AtomicInteger inFlight = new AtomicInteger();
+    }
+
+    /**
+     * A serialized snapshot and its SSE event id.
+     */
+    private static final class Frame {
+        final String json;
+        final long seq;
+
+        Frame(String json, long seq) {
+            this.json = json;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * One connection with its single pending frame. Whoever wins
+     * {@code writing} writes until nothing is pending; everyone else only
+     * swaps the pending frame.
+     */
+    private static final class Spectator {
+        final SseEmitter emitter;
+        final AtomicReference<Frame> pending = new AtomicReference<>();
+        final AtomicBoolean writing = new AtomicBoolean();
+
+        Spectator(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    /**
+     * @param mapper       JSON mapper shared with the web layer
+     * @param broadcaster  source of the match snapshots
+     * @param matchService registry whose evictions end the match's streams
+     * @param intervalMs   spacing of the decimated snapshots
+     * @param timeoutMs    lifetime of a spectator connection before the client
+     *                     has to reconnect
+     * @param threads      sender pool size
+     */
+    public SpectatorService(ObjectMapper mapper, WebSocketController broadcaster, MatchService matchService,
+            @Value("${shipwreckeds.spectator.interval-ms:500}") long intervalMs,
+            @Value("${shipwreckeds.spectator.timeout-ms:1800000}") long timeoutMs,
+            @Value("${shipwreckeds.spectator.threads:2}") int threads) {
+        this.mapper = mapper;
+        this.intervalMs = Math.max(50, intervalMs);
+        this.timeoutMs = timeoutMs;
+        AtomicInteger n = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "spectator-send-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        broadcaster.addStateListener(this::offer);
+        matchService.addEvictionListener(this::closeMatch);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a spectator stream. The latest frame, if any, is sent right away.
+     *
+     * @param code match code
+     * @return emitter to return from the controller
+     */
+    public SseEmitter subscribe(String code) {
+        return subscribe(code, new SseEmitter(timeoutMs));
+    }
+
+    /**
+     * Opens a spectator stream on a caller-supplied emitter.
+     *
+     * @param code    match code
+     * @param emitter emitter the frames are written to
+     * @return the same emitter
+     */
+    public SseEmitter subscribe(String code, SseEmitter emitter) {
+        Spectator spectator = new Spectator(emitter);
+        Feed feed = feeds.compute(code, (k, current) -> {
+            Feed f = current != null ? current : new Feed();
+            f.spectators.put(emitter, spectator);
+            return f;
+        });
+        Runnable remove = () -> remove(code, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        Frame frame = feed.frame;
+        if (frame != null) {
+            deliver(code, spectator, frame);
+        }
+        return emitter;
+    }
+
+    /**
+     * Records the newest snapshot of a match. Only kept while the match has
+     * spectators.
+     *
+     * @param code      match code
+     * @param gameState snapshot as broadcast to players
+     */
+    public void offer(String code, Object gameState) {
+        Feed feed = feeds.get(code);
+        if (feed == null)
+            return;
+        feed.latest = gameState;
+        feed.dirty = true;
+    }
+
+    /**
+     * Serializes and fans out the newest snapshot of every watched match. Run
+     * by the scheduler once per interval.
+     */
+    public void tick() {
+        for (Map.Entry<String, Feed> e : feeds.entrySet()) {
+            Feed feed = e.getValue();
+            if (!feed.dirty || feed.spectators.isEmpty())
+                continue;
+            if (feed.inFlight.get() > 0) {
+                // still writing the previous frame; stays dirty for the next tick
+                skippedTicks.incrementAndGet();
+                continue;
+            }
+            feed.dirty = false;
+            String json;
+            try {
+                json = mapper.writeValueAsString(feed.latest);
+            } catch (JsonProcessingException ex) {
+                logger.warn("No se pudo serializar el estado de {} para espectadores", e.getKey(), ex);
+                continue;
+            }
+            framesSerialized.incrementAndGet();
+            Frame frame = new Frame(json, ++feed.seq);
+            feed.frame = frame;
+            List<Spectator> spectators = new ArrayList<>(feed.spectators.values());
+            for (int from = 0; from < spectators.size(); from += CHUNK) {
+                List<Spectator> chunk = spectators.subList(from, Math.min(spectators.size(), from + CHUNK));
+                feed.inFlight.incrementAndGet();
+                try {
+                    senders.execute(() -> {
+                        try {
+                            chunk.forEach(spectator -> deliver(e.getKey(), spectator, frame));
+                        } finally {
+                            feed.inFlight.decrementAndGet();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    feed.inFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes {@code frame} the spectator's pending frame and writes it unless
+     * another thread is already writing to this spectator, in which case that
+     * thread picks it up when done.
+     */
+    private void deliver(String code, Spectator spectator, Frame frame) {
+        if (spectator.pending.getAndSet(frame) != null) {
+            superseded.incrementAndGet();
+        }
+        while (spectator.pending.get() != null && spectator.writing.compareAndSet(false, true)) {
+            try {
+                Frame next;
+                while ((next = spectator.pending.getAndSet(null)) != null) {
+                    if (!send(code, spectator.emitter, next)) {
+                        spectator.pending.set(null);
+                        return;
+                    }
+                }
+            } finally {
+                spectator.writing.set(false);
+            }
+        }
+    }
+
+    private boolean send(String code, SseEmitter emitter, Frame frame) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_STATE).id(Long.toString(frame.seq))
+                    .data(frame.json, MediaType.APPLICATION_JSON));
+            eventsSent.incrementAndGet();
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            dropped.incrementAndGet();
+            remove(code, emitter);
+            emitter.completeWithError(ex);
+            return false;
+        }
+    }
+
+    private void remove(String code, SseEmitter emitter) {
+        feeds.computeIfPresent(code, (k, feed) -> {
+            feed.spectators.remove(emitter);
+            return feed.spectators.isEmpty() ? null : feed;
+        });
+    }
+
+    /**
+     * Ends every spectator stream of an evicted match.
+     *
+     * @param code match code
+     */
+    public void closeMatch(String code) {
+        Feed feed = code != null ? feeds.remove(code) : null;
+        if (feed != null) {
+            feed.spectators.keySet().forEach(SseEmitter::complete);
+        }
+    }
+
+    /**
+     * @return spectators currently watching the match
+     */
+    public int spectators(String code) {
+        Feed feed = feeds.get(code);
+        return feed != null ? feed.spectators.size() : 0;
+    }
+
+    /**
+     * @return spectator stream counters
+     */
+    public SpectatorStats getStats() {
+        int spectators = 0;
+        for (Feed feed : feeds.values()) {
+            spectators += feed.spectators.size();
+        }
+        return new SpectatorStats(intervalMs, feeds.size(), spectators, framesSerialized.get(), eventsSent.get(),
+                dropped.get(), superseded.get(), skippedTicks.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+    }
+}
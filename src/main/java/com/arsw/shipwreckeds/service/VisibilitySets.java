@@ -0,0 +1,126 @@
+package com.arsw.shipwreckeds.service;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.Position;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Which players of one match can see which, cached between snapshots.
+ * <p>
+ * Positions are quantized to square cells; two players see each other when
+ * the centres of their cells are within the view radius and no opaque
+ * obstacle of the {@link IslandMap} stands between them. As the answer only
+ * depends on the cells, a pair is re-evaluated only when one of the two has
+ * crossed into another cell since the previous update, and every other pair
+ * keeps its cached value. Players without a position see only themselves and
+ * are seen by no one. Indexed like {@link com.arsw.shipwreckeds.model.Match#getPlayers()};
+ * not thread-safe, guarded by the match lock.
+ */
+public final class VisibilitySets {
+
+    private static final int NO_CELL = Integer.MIN_VALUE;
+
+    private final IslandMap map;
+    private final double viewRadiusSq;
+    private final double cellSize;
+
+    private Long[] ids = new Long[0];
+    private int[] cellX = new int[0];
+    private int[] cellY = new int[0];
+    private boolean[] moved = new boolean[0];
+    private boolean[] visible = new boolean[0];
+    private int size;
+    private long pairChecks;
+
+    /**
+     * @param map        island whose opaque obstacles block sight
+     * @param viewRadius how far a player sees
+     * @param cellSize   side of the cells positions are quantized to
+     */
+    public VisibilitySets(IslandMap map, double viewRadius, double cellSize) {
+        this.map = map;
+        this.viewRadiusSq = viewRadius * viewRadius;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Brings the sets up to date with the players' current positions.
+     *
+     * @param players players of the match, in match order
+     * @return players whose cell changed (all of them when the roster changed)
+     */
+    public int update(List<Player> players) {
+        int n = players.size();
+        boolean reset = n != size;
+        if (reset) {
+            ids = new Long[n];
+            cellX = new int[n];
+            cellY = new int[n];
+            moved = new boolean[n];
+            visible = new boolean[n * n];
+            size = n;
+        }
+        int changed = 0;
+        for (int i = 0; i < n; i++) {
+            Player p = players.get(i);
+            Position pos = p.getPosition();
+            int cx = pos != null ? (int) Math.floor(pos.getX() / cellSize) : NO_CELL;
+            int cy = pos != null ? (int) Math.floor(pos.getY() / cellSize) : NO_CELL;
+            moved[i] = reset || !Objects.equals(ids[i], p.getId()) || cx != cellX[i] || cy != cellY[i];
+            ids[i] = p.getId();
+            cellX[i] = cx;
+            cellY[i] = cy;
+            if (moved[i])
+                changed++;
+        }
+        if (changed == 0)
+            return 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                if (!moved[i] && !moved[j])
+                    continue;
+                boolean sees = sees(i, j);
+                visible[i * n + j] = sees;
+                visible[j * n + i] = sees;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return whether {@code viewer} sees {@code candidate}, as of the last
+     *         {@link #update(List)}
+     */
+    public boolean isVisible(int viewer, int candidate) {
+        return visible[viewer * size + candidate];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return pairs evaluated (distance and line of sight) so far
+     */
+    public long getPairChecks() {
+        return pairChecks;
+    }
+
+    private boolean sees(int i, int j) {
+        if (i == j)
+            return true;
+        if (cellX[i] == NO_CELL || cellX[j] == NO_CELL)
+            return false;
+        pairChecks++;
+        double x0 = (cellX[i] + 0.5) * cellSize;
+        double y0 = (cellY[i] + 0.5) * cellSize;
+        double x1 = (cellX[j] + 0.5) * cellSize;
+        double y1 = (cellY[j] + 0.5) * cellSize;
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        return dx * dx + dy * dy <= viewRadiusSq && !map.blocksSight(x0, y0, x1, y1);
+    }
+}
@@ -9,6 +9,7 @@ public class Constants {
     // Error messages
     public static final String MATCH_NOT_FOUND = "Partida no encontrada.";
     public static final String MATCH_NOT_IN_PROGRESS = "La partida no está en curso.";
+    public static final String RATE_LIMITED = "Demasiadas solicitudes. Espera un momento e intenta de nuevo.";
     public static final String INSUFFICIENT_PLAYERS = "No hay suficientes jugadores para iniciar la partida. Se requieren 5 jugadores humanos.";
 
     // Match status
@@ -18,11 +19,37 @@ public class Constants {
     public static final String AVATAR_TYPE_HUMAN = "human";
     public static final String AVATAR_TYPE_NPC = "npc";
 
+    // WebSocket endpoints: SockJS with fallbacks, plain WebSocket STOMP, binary game-state stream
+    public static final String WS_ENDPOINT_SOCKJS = "/ws";
+    public static final String WS_ENDPOINT_NATIVE = "/ws-native";
+    public static final String WS_ENDPOINT_BINARY = "/ws-game";
+
     // WebSocket topics
+    public static final String WS_TOPIC_LOBBY = "/topic/lobby/";
     public static final String WS_TOPIC_GAME = "/topic/game/";
     public static final String WS_TOPIC_GAME_VOTE_START = "/vote/start";
     public static final String WS_TOPIC_GAME_VOTE_RESULT = "/vote/result";
     public static final String WS_TOPIC_GAME_ELIMINATION = "/elimination";
+    public static final String WS_TOPIC_GAME_EVENTS = "/events";
+    public static final String WS_TOPIC_GAME_COMPRESSED = "/compressed";
+    public static final String WS_TOPIC_GAME_NPCS = "/npcs";
+    public static final String WS_HEADER_CONTENT_ENCODING = "content-encoding";
+    public static final String WS_HEADER_DICTIONARY_ID = "dict-id";
+    // set on state frames that must reach every client unthrottled (end of match)
+    public static final String WS_HEADER_PRIORITY = "priority";
+    public static final String WS_TOPIC_LOBBIES = "/topic/lobbies";
+    public static final String WS_USER_PREFIX = "/user";
+    public static final String WS_QUEUE_MOVE = "/queue/move";
+    public static final String WS_QUEUE_GAME = "/queue/game";
+    public static final String WS_QUEUE_GAME_COMPRESSED = "/queue/game/compressed";
+    public static final String WS_QUEUE_ACTIONS = "/queue/actions";
+    public static final String WS_QUEUE_MATCHMAKING = "/queue/matchmaking";
+
+    // STOMP headers
+    public static final String STOMP_HEADER_SESSION_TOKEN = "session-token";
+
+    // HTTP headers
+    public static final String HTTP_HEADER_SESSION_TOKEN = "X-Session-Token";
 
     private Constants() {
         // Utility class, no instantiation
@@ -2,6 +2,7 @@ package com.arsw.shipwreckeds;
 
 import com.arsw.shipwreckeds.controller.AuthController;
 import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
 import com.arsw.shipwreckeds.model.dto.LoginRequest;
 import com.arsw.shipwreckeds.service.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -118,6 +119,25 @@ class AuthControllerTest {
         verify(authService, times(1)).login(username, password);
     }
 
+    @Test
+    void login_whenCredentialsAreValid_returnsPlayerFieldsAndSessionToken() throws Exception {
+        Player player = new Player(7L, "ana", "default-skin", null);
+        when(authService.login("ana", "1234")).thenReturn(player);
+        when(authService.getSession("ana")).thenReturn(new PlayerSession(player, "tok-123"));
+
+        LoginRequest req = new LoginRequest();
+        req.setUsername("ana");
+        req.setPassword("1234");
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("ana"))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.sessionToken").value("tok-123"));
+    }
+
     @Test
     void logout_whenUserFound_returnsOk() throws Exception {
         // arrange
@@ -1,6 +1,8 @@
 package com.arsw.shipwreckeds;
 
+import com.arsw.shipwreckeds.model.Match;
 import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
 import com.arsw.shipwreckeds.service.AuthService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -104,4 +106,49 @@ class AuthServiceTest {
         // null username -> false
         assertFalse(authService.logout(null));
     }
+
+    @Test
+    void login_issuesTokenThatAuthenticatesTheSession() {
+        Player p = authService.login("fran", "1234");
+        PlayerSession session = authService.getSession("fran");
+        assertNotNull(session);
+        assertSame(p, session.getPlayer());
+        assertEquals("fran", session.getName());
+        assertNotNull(session.getToken());
+
+        assertSame(session, authService.authenticate(session.getToken()));
+        assertNull(authService.authenticate("token-inventado"));
+        assertNull(authService.authenticate(null));
+    }
+
+    @Test
+    void logout_invalidatesTokenAndClearsBinding() {
+        Player p = authService.login("galo", "1234");
+        PlayerSession session = authService.getSession("galo");
+        Match match = new Match(1L, "GALO01");
+        match.addPlayer(p);
+        authService.bindMatch(match);
+        assertNotNull(session.getBinding());
+
+        assertTrue(authService.logout("galo"));
+        assertNull(authService.authenticate(session.getToken()));
+        assertNull(session.getBinding());
+    }
+
+    @Test
+    void bindMatch_pointsEachSessionAtItsAvatar() {
+        Player helen = authService.login("helen", "1234");
+        Player ana = authService.login("ana", "1234");
+        Match match = new Match(2L, "BIND01");
+        match.addPlayer(helen);
+        match.addPlayer(ana);
+        match.addPlayer(new Player(99L, "sinSesion", null, null));
+
+        authService.bindMatch(match);
+
+        PlayerSession.Binding binding = authService.getSession("ana").getBinding();
+        assertSame(match, binding.getMatch());
+        assertSame(ana, binding.getAvatar());
+        assertSame(helen, authService.getSession("helen").getBinding().getAvatar());
+    }
 }
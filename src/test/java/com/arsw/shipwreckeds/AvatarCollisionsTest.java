@@ -0,0 +1,92 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.service.AvatarCollisions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para AvatarCollisions.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class AvatarCollisionsTest {
+
+    private static final double DIAMETER = 2 * AvatarCollisions.AVATAR_RADIUS;
+
+    @Test
+    void resolve_splitsAnOverlapEvenlyBetweenMovableAvatars() {
+        AvatarCollisions c = new AvatarCollisions();
+        c.add(0.0, 0.0, 1.0);
+        c.add(1.0, 0.0, 1.0);
+
+        assertEquals(1, c.resolve(2));
+
+        assertEquals(-1.0, c.x(0), 1e-12);
+        assertEquals(2.0, c.x(1), 1e-12);
+        assertEquals(0.0, c.y(0), 0.0);
+        assertTrue(c.pushed(0) && c.pushed(1));
+    }
+
+    @Test
+    void resolve_immovableAvatarsStayPutAndStackedOnesStillSeparate() {
+        AvatarCollisions c = new AvatarCollisions();
+        c.add(5.0, 5.0, 0.0);
+        c.add(5.0, 5.0, 1.0);
+        c.add(40.0, 40.0, 0.0);
+        c.add(40.5, 40.0, 0.0);
+
+        c.resolve(2);
+
+        assertEquals(5.0, c.x(0), 0.0);
+        assertFalse(c.pushed(0));
+        assertEquals(5.0 + DIAMETER, c.x(1), 1e-12);
+        assertEquals(5.0, c.y(1), 1e-12);
+        // two immovable avatars are left overlapping
+        assertEquals(40.5, c.x(3), 0.0);
+        assertFalse(c.pushed(3));
+    }
+
+    @Test
+    void resolve_farApartAvatarsAreNeverTested() {
+        AvatarCollisions c = new AvatarCollisions();
+        for (int i = 0; i < 100; i++) {
+            c.add(i * 10.0, -i * 10.0, 1.0);
+        }
+
+        assertEquals(0, c.resolve(2));
+        assertEquals(0, c.getPairsTested());
+    }
+
+    @Test
+    void resolve_crowdTestsFewPairsPerAvatarAndClearsMostOverlaps() {
+        int n = 2000;
+        Random random = new Random(3);
+        AvatarCollisions c = new AvatarCollisions();
+        for (int i = 0; i < n; i++) {
+            c.add(random.nextDouble(-100, 100), random.nextDouble(-100, 100), 1.0);
+        }
+        int before = overlapping(c);
+
+        assertTrue(c.resolve(8) > 0);
+
+        // a naive pass would test n * (n - 1) / 2 pairs each time
+        assertTrue(c.getPairsTested() < 8L * 10 * n, "pares probados: " + c.getPairsTested());
+        int after = overlapping(c);
+        assertTrue(after * 10 < before, "pares solapados: " + before + " -> " + after);
+    }
+
+    private static int overlapping(AvatarCollisions c) {
+        int count = 0;
+        for (int i = 0; i < c.size(); i++) {
+            for (int j = i + 1; j < c.size(); j++) {
+                if (Math.hypot(c.x(i) - c.x(j), c.y(i) - c.y(j)) < DIAMETER - 0.05)
+                    count++;
+            }
+        }
+        return count;
+    }
+}
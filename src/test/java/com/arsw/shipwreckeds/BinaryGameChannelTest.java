@@ -0,0 +1,149 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.BinaryGameChannel;
+import com.arsw.shipwreckeds.config.TransportMetrics;
+import com.arsw.shipwreckeds.model.dto.TransportStats;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para BinaryGameChannel.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class BinaryGameChannelTest {
+
+    private AuthService authService;
+    private SnapshotCompressor compressor;
+    private TransportMetrics metrics;
+    private BinaryGameChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService();
+        compressor = new SnapshotCompressor(new ObjectMapper(), true, 64, 1, true);
+        metrics = new TransportMetrics();
+        channel = new BinaryGameChannel(authService, compressor, metrics, new MatchService());
+    }
+
+    private static WebSocketSession session(String id, String query) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        when(session.getId()).thenReturn(id);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/ws-game?" + query));
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private String tokenInLobby(String username, String code) {
+        authService.login(username, "1234");
+        authService.enterLobby(username, code);
+        return authService.getSession(username).getToken();
+    }
+
+    private static TransportStats.Transport binary(TransportStats stats) {
+        return stats.getTransports().stream().filter(t -> t.getName().equals(TransportMetrics.BINARY)).findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void unknownToken_isClosedWithoutSubscribing() throws Exception {
+        WebSocketSession session = session("b1", "code=ABC123&token=nope");
+
+        channel.afterConnectionEstablished(session);
+
+        verify(session).close(any(CloseStatus.class));
+        assertFalse(channel.hasSubscribers("ABC123"));
+    }
+
+    @Test
+    void playerOfAnotherMatch_isRejected() throws Exception {
+        String token = tokenInLobby("ana", "OTHER1");
+        WebSocketSession session = session("b2", "code=ABC123&token=" + token);
+
+        channel.afterConnectionEstablished(session);
+
+        verify(session).close(any(CloseStatus.class));
+        assertFalse(channel.hasSubscribers("ABC123"));
+    }
+
+    @Test
+    void publish_sendsFlaggedBinaryFrames() throws Exception {
+        String token = tokenInLobby("ana", "ABC123");
+        WebSocketSession session = session("b3", "code=ABC123&token=" + token);
+        channel.afterConnectionEstablished(session);
+        assertTrue(channel.hasSubscribers("ABC123"));
+
+        byte[] small = "{\"t\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] large = ("{\"avatars\":\"" + "x".repeat(200) + "\"}").getBytes(StandardCharsets.UTF_8);
+        channel.publish("ABC123", small);
+        channel.publish("ABC123", large);
+
+        ArgumentCaptor<BinaryMessage> frames = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(session, times(2)).sendMessage(frames.capture());
+        byte[] first = bytes(frames.getAllValues().get(0));
+        assertEquals(0, first[0]);
+        assertArrayEquals(small, Arrays.copyOfRange(first, 1, first.length));
+        byte[] second = bytes(frames.getAllValues().get(1));
+        assertEquals(BinaryGameChannel.FLAG_DEFLATE | BinaryGameChannel.FLAG_DICTIONARY, second[0]);
+        assertArrayEquals(large, compressor.inflate(Arrays.copyOfRange(second, 1, second.length)));
+        assertEquals(2, binary(metrics.getStats()).getMessagesOut());
+    }
+
+    @Test
+    void closedSession_stopsReceiving() throws Exception {
+        String token = tokenInLobby("ana", "ABC123");
+        WebSocketSession session = session("b4", "code=ABC123&token=" + token);
+        channel.afterConnectionEstablished(session);
+
+        channel.afterConnectionClosed(session, CloseStatus.NORMAL);
+        channel.publish("ABC123", new byte[] { '{', '}' });
+
+        assertFalse(channel.hasSubscribers("ABC123"));
+        verify(session, never()).sendMessage(any());
+        assertEquals(0, binary(metrics.getStats()).getOpen());
+        assertEquals(1, binary(metrics.getStats()).getOpened());
+    }
+
+    @Test
+    void closeMatch_closesEverySession() throws Exception {
+        WebSocketSession a = session("b5", "code=ABC123&token=" + tokenInLobby("ana", "ABC123"));
+        WebSocketSession b = session("b6", "code=ABC123&token=" + tokenInLobby("bruno", "ABC123"));
+        channel.afterConnectionEstablished(a);
+        channel.afterConnectionEstablished(b);
+
+        channel.closeMatch("ABC123");
+
+        verify(a).close(CloseStatus.NORMAL);
+        verify(b).close(CloseStatus.NORMAL);
+        assertFalse(channel.hasSubscribers("ABC123"));
+    }
+
+    private static byte[] bytes(BinaryMessage message) {
+        ByteBuffer payload = message.getPayload().duplicate();
+        byte[] out = new byte[payload.remaining()];
+        payload.get(out);
+        return out;
+    }
+}
@@ -2,7 +2,19 @@ package com.arsw.shipwreckeds;
 
 import com.arsw.shipwreckeds.controller.WebSocketController;
 import com.arsw.shipwreckeds.model.*;
+import com.arsw.shipwreckeds.model.dto.AvatarState;
+import com.arsw.shipwreckeds.model.dto.GameEvent;
+import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.model.dto.MoveCommand;
+import com.arsw.shipwreckeds.model.dto.MoveAck;
+import com.arsw.shipwreckeds.model.dto.MovementRules;
+import com.arsw.shipwreckeds.model.dto.NpcSegment;
+import com.arsw.shipwreckeds.service.AvatarCollisions;
+import com.arsw.shipwreckeds.service.FogOfWar;
 import com.arsw.shipwreckeds.service.GameEngine;
+import com.arsw.shipwreckeds.service.NpcBehaviors;
+import com.arsw.shipwreckeds.service.NpcBrain;
+import com.arsw.shipwreckeds.service.NpcNavigator;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,7 +22,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -31,7 +45,8 @@ class GameEngineTest {
 
     @BeforeEach
     void setUp() {
-        gameEngine = new GameEngine(ws);
+        gameEngine = newEngine(GameEngine.STATE_BROADCAST_INTERVAL_MS, GameEngine.NPC_KEYFRAME_MS, new NpcBrain(),
+                new NpcNavigator(), false);
     }
 
     @Test
@@ -58,12 +73,14 @@ class GameEngineTest {
 
         when(match.getNpcs()).thenReturn(List.of(npc));
 
-        // invoke private method updateNpcMovement(match, deltaSeconds)
-        Method m = GameEngine.class.getDeclaredMethod("updateNpcMovement", Match.class, double.class);
+        // invoke private method updateNpcMovement(match, deltaSeconds, nowMs)
+        Method m = GameEngine.class.getDeclaredMethod("updateNpcMovement", Match.class, double.class, long.class);
         m.setAccessible(true);
 
-        // act: call with deltaSeconds = 1.0
-        m.invoke(gameEngine, match, 1.0);
+        // act: call with deltaSeconds = 1.0, on an engine that moves every wandering NPC on every tick
+        GameEngine everyTick = engineWith(new NpcBrain(NpcBehaviors.parse(NpcBehaviors.WANDER), NpcBrain.VIEW_RADIUS,
+                0, NpcBrain.DECISION_BUDGET));
+        m.invoke(everyTick, match, 1.0, 0L);
 
         // assert: position should have changed from (0,0)
         // it might still be very small but must not be exactly 0,0
@@ -74,4 +91,650 @@ class GameEngineTest {
         verify(npc, never()).deactivate();
     }
 
+
+    private static Match runningMatchWith(Player p) {
+        Match match = new Match(1L, "SIM");
+        match.addPlayer(p);
+        match.setStatus(MatchStatus.STARTED);
+        p.setPosition(new Position(0.0, 0.0));
+        return match;
+    }
+
+    @Test
+    void integrateMovement_heldDirection_movesAtFixedSpeedRegardlessOfMessages() {
+        Player p = new Player(1L, "ana", null, null);
+        Match match = runningMatchWith(p);
+        gameEngine.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(3.0, 0.0), 1L, true, null), 0);
+
+        double[] dir = new double[2];
+        for (int i = 0; i < 20; i++) {
+            assertTrue(gameEngine.integrateMovement(match, i * 50L, 0.05, dir));
+        }
+
+        // one second of held input at PLAYER_SPEED
+        assertEquals(GameEngine.PLAYER_SPEED, p.getPosition().getX(), 1e-9);
+        assertEquals(0.0, p.getPosition().getY(), 1e-9);
+    }
+
+    @Test
+    void submitInput_zeroVectorStopsAndStaleSequenceIsIgnored() {
+        Player p = new Player(1L, "bruno", null, null);
+        Match match = runningMatchWith(p);
+        double[] dir = new double[2];
+
+        gameEngine.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(0.0, 1.0), 5L, true, null), 0);
+        assertEquals(0, gameEngine.submitInput(p,
+                new MoveCommand(null, null, new MoveCommand.Direction(1.0, 0.0), 4L, true, null), 0));
+        gameEngine.integrateMovement(match, 0, 0.1, dir);
+        assertEquals(0.0, p.getPosition().getX(), 1e-9);
+        assertEquals(GameEngine.PLAYER_SPEED * 0.1, p.getPosition().getY(), 1e-9);
+
+        gameEngine.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(0.0, 0.0), 6L, true, null), 0);
+        assertFalse(gameEngine.integrateMovement(match, 100, 0.1, dir));
+    }
+
+    @Test
+    void submitInput_batchIntegratesEachInputForItsOwnTick() {
+        Player p = new Player(1L, "carla", null, null);
+        Match match = runningMatchWith(p);
+        MoveCommand batch = new MoveCommand(null, null, null, null, null, List.of(
+                new MoveCommand.Input(1L, 1.0, 0.0),
+                new MoveCommand.Input(2L, 0.0, -1.0),
+                new MoveCommand.Input(3L, 1.0, 0.0)));
+        double step = GameEngine.PLAYER_SPEED * 0.1;
+        double[] dir = new double[2];
+
+        assertEquals(3, gameEngine.submitInput(p, batch, 0));
+        assertEquals(3L, p.getInput().getLastSeq());
+        // nothing integrated yet: snapshots still acknowledge nothing
+        assertNull(GameEngine.ackSeqOf(p));
+
+        gameEngine.integrateMovement(match, 0, 0.1, dir);
+        assertEquals(1L, GameEngine.ackSeqOf(p));
+        gameEngine.integrateMovement(match, 50, 0.1, dir);
+        assertEquals(2L, GameEngine.ackSeqOf(p));
+        assertEquals(step, p.getPosition().getX(), 1e-9);
+        assertEquals(-step, p.getPosition().getY(), 1e-9);
+
+        // the last input is held until the next command
+        gameEngine.integrateMovement(match, 100, 0.1, dir);
+        gameEngine.integrateMovement(match, 150, 0.1, dir);
+        assertEquals(3 * step, p.getPosition().getX(), 1e-9);
+        assertEquals(3L, GameEngine.ackSeqOf(p));
+    }
+
+    @Test
+    void submitInput_batchWithTickCountsStopsWhenTheyRunOut() {
+        Player p = new Player(1L, "carla", null, null);
+        Match match = runningMatchWith(p);
+        MoveCommand.Input right = new MoveCommand.Input(1L, 1.0, 0.0, 3);
+        MoveCommand.Input wait = new MoveCommand.Input(2L, 0.0, 0.0, 1);
+        MoveCommand.Input up = new MoveCommand.Input(3L, 0.0, 1.0, 1);
+        MoveCommand.Input stale = new MoveCommand.Input(3L, -1.0, 0.0, 5);
+        gameEngine.submitInput(p, new MoveCommand(null, null, null, null, null, List.of(right, wait, up, stale)), 0);
+        double step = GameEngine.PLAYER_SPEED * 0.1;
+        double[] dir = new double[2];
+
+        for (int tick = 0; tick < 8; tick++) {
+            gameEngine.integrateMovement(match, tick * 50L, 0.1, dir);
+        }
+
+        assertEquals(3 * step, p.getPosition().getX(), 1e-9);
+        assertEquals(step, p.getPosition().getY(), 1e-9);
+    }
+
+    @Test
+    void sendMoveAcks_acknowledgesOnceWithTheIntegratedPosition() {
+        Player p = new Player(1L, "diego", null, null);
+        Match match = runningMatchWith(p);
+        gameEngine.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(1.0, 0.0), 4L, true, null), 0);
+        double[] dir = new double[2];
+
+        gameEngine.integrateMovement(match, 0, 0.1, dir);
+        gameEngine.sendMoveAcks(match, 0);
+        gameEngine.integrateMovement(match, 50, 0.1, dir);
+        gameEngine.sendMoveAcks(match, 50);
+
+        ArgumentCaptor<Object> ack = ArgumentCaptor.forClass(Object.class);
+        verify(ws, times(1)).sendMoveAck(eq("diego"), ack.capture());
+        MoveAck sent = (MoveAck) ack.getValue();
+        assertEquals(GameEngine.PLAYER_SPEED * 0.1, sent.getX(), 1e-9);
+        assertEquals(4L, sent.getAckSeq());
+    }
+
+    @Test
+    void submitInput_unheldCommandIsShortImpulse() {
+        Player p = new Player(1L, "diego", null, null);
+        Match match = runningMatchWith(p);
+        double[] dir = new double[2];
+        gameEngine.submitInput(p, new MoveCommand("diego", 1L, new MoveCommand.Direction(1.0, 0.0)), 0);
+
+        assertTrue(gameEngine.integrateMovement(match, GameEngine.IMPULSE_MS - 1, 0.05, dir));
+        assertFalse(gameEngine.integrateMovement(match, GameEngine.IMPULSE_MS, 0.05, dir));
+    }
+
+    @Test
+    void integrateMovement_clampsToIslandAndSkipsAfk() {
+        Player p = new Player(1L, "eva", null, null);
+        Match match = runningMatchWith(p);
+        p.setPosition(new Position(99.0, 0.0));
+        gameEngine.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(1.0, 0.0), null, true, null), 0);
+
+        gameEngine.integrateMovement(match, 0, 1.0, new double[2]);
+        assertEquals(99.5, p.getPosition().getX(), 1e-9);
+
+        p.setPosition(new Position(0.0, 0.0));
+        p.setAfk(true);
+        assertFalse(gameEngine.integrateMovement(match, 0, 1.0, new double[2]));
+    }
+
+    @Test
+    void integrateMovement_playersCannotWalkThroughObstacles() {
+        IslandMap map = IslandMap.defaultIsland();
+        map.getObstacles().add(IslandMap.Obstacle.rect("muro", 0.0, 0.0, 4.0, 40.0));
+        GameEngine walled = newEngine(GameEngine.STATE_BROADCAST_INTERVAL_MS, GameEngine.NPC_KEYFRAME_MS,
+                new NpcBrain(), new NpcNavigator(map, 2.0, 8.0, 64), false);
+        try {
+            Player p = new Player(1L, "gus", null, null);
+            Match match = runningMatchWith(p);
+            p.setPosition(new Position(-10.0, 0.0));
+            walled.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(1.0, 0.0), null, true, null), 0);
+
+            for (int tick = 0; tick < 40; tick++) {
+                walled.integrateMovement(match, 0, GameEngine.SIM_TICK_MS / 1000.0, new double[2]);
+            }
+
+            // stopped at the wall, grown by the edge margin
+            assertEquals(-2.5, p.getPosition().getX(), 1e-9);
+            assertEquals(0.0, p.getPosition().getY(), 1e-9);
+            assertSame(map, walled.getIslandMap());
+        } finally {
+            walled.shutdown();
+        }
+    }
+
+    @Test
+    void buildGameState_echoesLastAppliedSequencePerAvatar() {
+        Player sequenced = new Player(1L, "fran", null, null);
+        Player legacy = new Player(2L, "galo", null, null);
+        Match match = runningMatchWith(sequenced);
+        match.getPlayers().add(legacy);
+        gameEngine.submitInput(sequenced,
+                new MoveCommand(null, null, new MoveCommand.Direction(1.0, 0.0), 42L, true, null), 0);
+        gameEngine.submitInput(legacy, new MoveCommand("galo", 2L, new MoveCommand.Direction(1.0, 0.0)), 0);
+
+        GameState gs = gameEngine.buildGameState(match);
+
+        assertEquals(42L, gs.getAvatars().get(0).getAckSeq());
+        assertNull(gs.getAvatars().get(1).getAckSeq());
+    }
+
+    @Test
+    void acknowledge_returnsAuthoritativePositionAndSeq() {
+        Player p = new Player(1L, "ivan", null, null);
+        Match match = runningMatchWith(p);
+        p.setPosition(new Position(3.0, -4.0));
+        gameEngine.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(1.0, 0.0), 7L, true, null), 0);
+
+        MoveAck ack = gameEngine.acknowledge(match, p, 123L);
+
+        assertEquals(match.getCode(), ack.getCode());
+        assertEquals(1L, ack.getAvatarId());
+        assertEquals(3.0, ack.getX());
+        assertEquals(-4.0, ack.getY());
+        assertEquals(7L, ack.getAckSeq());
+        assertEquals(123L, ack.getServerTimeMs());
+    }
+
+    @Test
+    void movementRules_reportConfiguredBroadcastInterval() {
+        GameEngine capped = newEngine(250, GameEngine.NPC_KEYFRAME_MS, new NpcBrain(), new NpcNavigator(), false);
+        try {
+            assertEquals(250L, capped.movementRules().getStateBroadcastIntervalMs());
+            assertEquals(GameEngine.STATE_BROADCAST_INTERVAL_MS, gameEngine.movementRules().getStateBroadcastIntervalMs());
+        } finally {
+            capped.shutdown();
+        }
+    }
+
+    @Test
+    void movementRules_matchSimulationConstants() {
+        MovementRules rules = gameEngine.movementRules();
+        assertEquals(GameEngine.PLAYER_SPEED, rules.getPlayerSpeed());
+        assertEquals(GameEngine.SIM_TICK_MS, rules.getSimTickMs());
+        assertEquals(100.0, rules.getIslandRadius());
+        assertEquals(AvatarCollisions.AVATAR_RADIUS, rules.getAvatarRadius());
+
+        // one tick of held input moves exactly playerSpeed * simTick
+        Player p = new Player(1L, "helen", null, null);
+        Match match = runningMatchWith(p);
+        gameEngine.submitInput(p, new MoveCommand(null, null, new MoveCommand.Direction(0.0, 1.0), 1L, true, null), 0);
+        gameEngine.integrateMovement(match, 0, rules.getSimTickMs() / 1000.0, new double[2]);
+        assertEquals(rules.getPlayerSpeed() * rules.getSimTickMs() / 1000.0, p.getPosition().getY(), 1e-12);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<NpcSegment> stepNpcs(GameEngine engine, Match match, long nowMs) throws Exception {
+        Method m = GameEngine.class.getDeclaredMethod("updateNpcMovement", Match.class, double.class, long.class);
+        m.setAccessible(true);
+        return (List<NpcSegment>) m.invoke(engine, match, 1.0, nowMs);
+    }
+
+    private static Match runningMatchWithNpcs(int count) {
+        Match match = new Match(2L, "NPC");
+        for (long i = 1; i <= count; i++) {
+            match.addNpc(new Npc(i, "skin", new Position(i, -i), 0.4, false));
+        }
+        match.setStatus(MatchStatus.STARTED);
+        return match;
+    }
+
+    private GameEngine engineWith(NpcBrain brain) {
+        return newEngine(GameEngine.STATE_BROADCAST_INTERVAL_MS, GameEngine.NPC_KEYFRAME_MS, brain, new NpcNavigator(),
+                false);
+    }
+
+    /**
+     * Engine wired like the Spring bean on the navigator's island, with or
+     * without fog of war.
+     */
+    private GameEngine newEngine(long broadcastMs, long keyframeMs, NpcBrain brain, NpcNavigator navigator,
+            boolean fog) {
+        return new GameEngine(ws, broadcastMs, keyframeMs, "auto", brain, navigator,
+                new FogOfWar(fog, navigator.getMap(), fog ? 30.0 : FogOfWar.VIEW_RADIUS, FogOfWar.CELL_SIZE));
+    }
+
+    @Test
+    void npcSegments_reproduceServerPositionsUntilNextTarget() throws Exception {
+        // every NPC updated on every tick
+        GameEngine everyTick = engineWith(new NpcBrain(NpcBehaviors.parse(null), NpcBrain.VIEW_RADIUS, 0,
+                NpcBrain.DECISION_BUDGET));
+        Match match = runningMatchWithNpcs(4);
+        Map<Long, NpcSegment> current = new HashMap<>();
+        int published = 0;
+        for (int tick = 0; tick < 120; tick++) {
+            long now = tick * 1000L;
+            List<NpcSegment> changed = stepNpcs(everyTick, match, now);
+            published += changed.size();
+            for (NpcSegment segment : changed) {
+                current.put(segment.getNpcId(), segment);
+            }
+            for (Npc npc : match.getNpcs()) {
+                double[] predicted = current.get(npc.getId()).positionAt(now);
+                assertEquals(npc.getPosition().getX(), predicted[0], 1e-9);
+                assertEquals(npc.getPosition().getY(), predicted[1], 1e-9);
+            }
+        }
+        assertEquals(4, current.size());
+        // targets change only now and then, far from one update per NPC and tick
+        assertTrue(published < 4 * 120 / 4, "segmentos publicados: " + published);
+    }
+
+    @Test
+    void buildGameState_sendsNpcAvatarsOnlyOnKeyframes() throws Exception {
+        Match match = runningMatchWithNpcs(3);
+        stepNpcs(gameEngine, match, 0);
+
+        GameState first = gameEngine.buildGameState(match);
+        GameState between = gameEngine.buildGameState(match);
+
+        assertTrue(first.isNpcKeyframe());
+        assertEquals(3, first.getAvatars().size());
+        assertEquals(3, first.getNpcSegments().size());
+        assertFalse(between.isNpcKeyframe());
+        assertTrue(between.getAvatars().isEmpty());
+        assertNull(between.getNpcSegments());
+
+        // an expelled NPC forces a keyframe right away
+        match.getNpcs().get(0).deactivate();
+        GameState afterVote = gameEngine.buildGameState(match);
+        assertTrue(afterVote.isNpcKeyframe());
+        assertFalse(afterVote.getAvatars().stream().filter(a -> a.getId() == 1L).findFirst().orElseThrow().isAlive());
+    }
+
+    @Test
+    void buildGameState_keyframesDisabled_alwaysCarriesNpcs() throws Exception {
+        GameEngine legacy = newEngine(GameEngine.STATE_BROADCAST_INTERVAL_MS, 0, new NpcBrain(), new NpcNavigator(),
+                false);
+        try {
+            Match match = runningMatchWithNpcs(2);
+            stepNpcs(legacy, match, 0);
+            legacy.buildGameState(match);
+
+            GameState again = legacy.buildGameState(match);
+
+            assertTrue(again.isNpcKeyframe());
+            assertEquals(2, again.getAvatars().size());
+        } finally {
+            legacy.shutdown();
+        }
+    }
+
+    @Test
+    void npcLod_outOfSightNpcsMoveOnlyEveryFarIntervalAlongTheirSegments() throws Exception {
+        NpcBrain brain = new NpcBrain(NpcBehaviors.parse(NpcBehaviors.WANDER), 45.0, 4000, 64);
+        GameEngine engine = engineWith(brain);
+        Match match = runningMatchWithNpcs(6);
+        Map<Long, NpcSegment> current = new HashMap<>();
+        Map<Long, Position> before = new HashMap<>();
+        for (int tick = 0; tick < 40; tick++) {
+            long now = tick * 1000L;
+            for (Npc npc : match.getNpcs()) {
+                before.put(npc.getId(), new Position(npc.getPosition().getX(), npc.getPosition().getY()));
+            }
+            for (NpcSegment segment : stepNpcs(engine, match, now)) {
+                current.put(segment.getNpcId(), segment);
+            }
+            // planned on tick 0, then moved four seconds at a time
+            boolean due = tick > 0 && tick % 4 == 0;
+            for (Npc npc : match.getNpcs()) {
+                Position pos = npc.getPosition();
+                if (due) {
+                    double[] predicted = current.get(npc.getId()).positionAt(now);
+                    assertEquals(predicted[0], pos.getX(), 1e-9);
+                    assertEquals(predicted[1], pos.getY(), 1e-9);
+                } else {
+                    assertEquals(before.get(npc.getId()), pos, "el NPC no visible se movió en el tick " + tick);
+                }
+            }
+        }
+        assertEquals(6 * 9, brain.getStats().getStepped());
+        assertEquals(6 * 31, brain.getStats().getLodSkipped());
+    }
+
+    @Test
+    void buildGameState_keyframeExtrapolatesNpcsTheLodDidNotStep() throws Exception {
+        NpcBrain brain = new NpcBrain(NpcBehaviors.parse(NpcBehaviors.WANDER), 45.0, 4000, 64);
+        GameEngine engine = engineWith(brain);
+        try {
+            Match match = runningMatchWithNpcs(3);
+            long start = System.currentTimeMillis() - 2000;
+            Map<Long, NpcSegment> current = new HashMap<>();
+            for (NpcSegment segment : stepNpcs(engine, match, start)) {
+                current.put(segment.getNpcId(), segment);
+            }
+            // out of sight: skipped, so the server positions stay where they were planned
+            stepNpcs(engine, match, start + 1000);
+
+            GameState state = engine.buildGameState(match);
+
+            assertTrue(state.isNpcKeyframe());
+            int ahead = 0;
+            for (AvatarState avatar : state.getAvatars()) {
+                Position server = match.getNpcs().get((int) (avatar.getId() - 1)).getPosition();
+                double[] predicted = current.get(avatar.getId()).positionAt(state.getTimestamp());
+                assertEquals(predicted[0], avatar.getX(), 1e-9);
+                assertEquals(predicted[1], avatar.getY(), 1e-9);
+                if (server.getX() != avatar.getX() || server.getY() != avatar.getY())
+                    ahead++;
+            }
+            assertTrue(ahead > 0, "ningún NPC se extrapoló");
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void npcLod_npcsNearAPlayerMoveEveryTick() throws Exception {
+        NpcBrain brain = new NpcBrain(NpcBehaviors.parse(NpcBehaviors.WANDER), 1000.0, 4000, 64);
+        GameEngine engine = engineWith(brain);
+        Match match = new Match(3L, "LOD");
+        Player watcher = new Player(1L, "vigia", "skin", null);
+        match.addPlayer(watcher);
+        watcher.setPosition(new Position(0.0, 0.0));
+        for (long i = 1; i <= 3; i++) {
+            match.addNpc(new Npc(i, "skin", new Position(i, -i), 0.4, false));
+        }
+        match.setStatus(MatchStatus.STARTED);
+
+        for (int tick = 0; tick < 10; tick++) {
+            stepNpcs(engine, match, tick * 1000L);
+        }
+
+        assertEquals(3 * 10, brain.getStats().getStepped());
+        assertEquals(0, brain.getStats().getLodSkipped());
+    }
+
+    @Test
+    void npcBudget_capsNewPlansPerTick() throws Exception {
+        NpcBrain brain = new NpcBrain(NpcBehaviors.parse(NpcBehaviors.IDLE), NpcBrain.VIEW_RADIUS, 0, 1);
+        GameEngine engine = engineWith(brain);
+        Match match = runningMatchWithNpcs(10);
+
+        // the first tick plans every NPC; afterwards at most one NPC per tick gets a new plan
+        assertEquals(10, stepNpcs(engine, match, 0).size());
+        for (int tick = 1; tick < 30; tick++) {
+            assertTrue(stepNpcs(engine, match, tick * 1000L).size() <= 1);
+        }
+
+        // ten holds of 2 to 6 s cannot all be replanned one per tick as they end
+        assertTrue(brain.getStats().getDeferred() > 0);
+        assertEquals(Long.valueOf(brain.getStats().getDecisions()),
+                brain.getStats().getBehaviors().get(NpcBehaviors.IDLE));
+    }
+
+    @Test
+    void separateAvatars_pushesOverlappingPlayersApart() {
+        Player a = new Player(1L, "ana", null, null);
+        Player b = new Player(2L, "beto", null, null);
+        Match match = runningMatchWith(a);
+        match.getPlayers().add(b);
+        b.setPosition(new Position(1.0, 0.0));
+
+        assertTrue(gameEngine.separateAvatars(match, 0));
+
+        assertEquals(-1.0, a.getPosition().getX(), 1e-12);
+        assertEquals(2.0, b.getPosition().getX(), 1e-12);
+        assertEquals(AvatarCollisions.AVATAR_RADIUS * 2,
+                b.getPosition().getX() - a.getPosition().getX(), 1e-12);
+        assertFalse(gameEngine.separateAvatars(match, 0));
+    }
+
+    @Test
+    void separateAvatars_npcsDoNotYieldToPlayers() throws Exception {
+        GameEngine engine = engineWith(new NpcBrain(NpcBehaviors.parse(NpcBehaviors.IDLE), NpcBrain.VIEW_RADIUS, 0,
+                NpcBrain.DECISION_BUDGET));
+        Player p = new Player(1L, "ana", null, null);
+        Match match = runningMatchWith(p);
+        Npc npc = new Npc(1L, "skin", new Position(1.0, 0.0), 0.4, false);
+        match.getNpcs().add(npc);
+        stepNpcs(engine, match, 0);
+
+        assertTrue(engine.separateAvatars(match, 500));
+
+        assertEquals(1.0 - AvatarCollisions.AVATAR_RADIUS * 2, p.getPosition().getX(), 1e-12);
+        assertEquals(1.0, npc.getPosition().getX(), 0.0);
+    }
+
+    @Test
+    void npcSeparation_restartsSegmentsOfPushedNpcs() throws Exception {
+        // both head for the boat from the same spot, so they overlap after a step
+        GameEngine engine = engineWith(new NpcBrain(NpcBehaviors.parse(NpcBehaviors.VISIT_BOAT),
+                NpcBrain.VIEW_RADIUS, 0, NpcBrain.DECISION_BUDGET));
+        Match match = new Match(4L, "COL");
+        Npc first = new Npc(1L, "skin", new Position(0.0, 0.0), 0.4, false);
+        Npc second = new Npc(2L, "skin", new Position(0.0, 0.0), 0.4, false);
+        match.addNpc(first);
+        match.addNpc(second);
+        match.setStatus(MatchStatus.STARTED);
+
+        List<NpcSegment> changed = stepNpcs(engine, match, 0);
+
+        Position a = first.getPosition();
+        Position b = second.getPosition();
+        assertEquals(AvatarCollisions.AVATAR_RADIUS * 2, Math.hypot(a.getX() - b.getX(), a.getY() - b.getY()), 1e-9);
+        assertEquals(2, changed.size());
+        for (NpcSegment segment : changed) {
+            Position at = segment.getNpcId() == 1L ? a : b;
+            assertEquals(at.getX(), segment.getFromX(), 0.0);
+            assertEquals(at.getY(), segment.getFromY(), 0.0);
+        }
+    }
+
+    @Test
+    void sendPlayerViews_eachPlayerGetsOnlyThePlayersItSees() {
+        IslandMap map = IslandMap.defaultIsland();
+        GameEngine fogged = newEngine(GameEngine.STATE_BROADCAST_INTERVAL_MS, GameEngine.NPC_KEYFRAME_MS,
+                new NpcBrain(), new NpcNavigator(map, 2.0, 8.0, 64), true);
+        try {
+            Player ana = new Player(1L, "ana", null, null);
+            Player beto = new Player(2L, "beto", null, null);
+            Player infiltrado = new Player(3L, "infiltrado", null, null);
+            Match match = new Match(5L, "FOG");
+            match.addPlayer(ana);
+            match.addPlayer(beto);
+            match.addPlayer(infiltrado);
+            match.addNpc(new Npc(10L, "skin", new Position(80.0, 0.0), 0.4, false));
+            match.setStatus(MatchStatus.STARTED);
+            ana.setPosition(new Position(0.0, 0.0));
+            beto.setPosition(new Position(10.0, 0.0));
+            infiltrado.setPosition(new Position(-70.0, 0.0));
+
+            GameState shared = fogged.sendPlayerViews(match, fogged.buildGameState(match));
+
+            // spectators only see the NPCs
+            assertEquals(List.of(10L), shared.getAvatars().stream().map(AvatarState::getId).toList());
+            ArgumentCaptor<Object> view = ArgumentCaptor.forClass(Object.class);
+            verify(ws).sendGameState(any(), eq("ana"), view.capture());
+            assertEquals(List.of(1L, 2L, 10L),
+                    ((GameState) view.getValue()).getAvatars().stream().map(AvatarState::getId).toList());
+            verify(ws).sendGameState(any(), eq("infiltrado"), view.capture());
+            assertEquals(List.of(3L, 10L),
+                    ((GameState) view.getValue()).getAvatars().stream().map(AvatarState::getId).toList());
+
+            // once the match is over everything is public again
+            match.setStatus(MatchStatus.FINISHED);
+            GameState last = fogged.buildGameState(match);
+            assertSame(last, fogged.sendPlayerViews(match, last));
+        } finally {
+            fogged.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<NpcSegment> tickNpcPaths(GameEngine engine, Match match, long nowMs) throws Exception {
+        Method m = GameEngine.class.getDeclaredMethod("updateNpcPaths", Match.class, double.class, long.class);
+        m.setAccessible(true);
+        return (List<NpcSegment>) m.invoke(engine, match, 1.0, nowMs);
+    }
+
+    @Test
+    void sendPlayerViews_disguiseCannotBeToldFromAnNpc() throws Exception {
+        IslandMap map = IslandMap.defaultIsland();
+        GameEngine fogged = newEngine(GameEngine.STATE_BROADCAST_INTERVAL_MS, GameEngine.NPC_KEYFRAME_MS,
+                new NpcBrain(), new NpcNavigator(map, 2.0, 8.0, 64), true);
+        try {
+            Player ana = new Player(1L, "ana", null, null);
+            Player infiltrado = new Player(2L, "infiltrado", null, null);
+            Match match = new Match(6L, "FOI");
+            match.addPlayer(ana);
+            match.addPlayer(infiltrado);
+            match.addNpc(new Npc(100000L, "skin", new Position(80.0, 0.0), 0.4, false));
+            match.addNpc(new Npc(100002L, "skin", new Position(0.0, 80.0), 0.4, false));
+            match.setInfiltrator(infiltrado);
+            match.setInfiltratorDisguiseId(100001L);
+            infiltrado.setInfiltrator(true);
+            match.setStatus(MatchStatus.STARTED);
+            ana.setPosition(new Position(0.0, 0.0));
+            // far out of ana's sight
+            infiltrado.setPosition(new Position(-70.0, 0.0));
+            fogged.submitInput(infiltrado,
+                    new MoveCommand(null, null, new MoveCommand.Direction(1.0, 0.0), 7L, true, null), 0);
+
+            // the disguise's segment goes out on the NPC path channel with the NPCs'
+            List<NpcSegment> paths = tickNpcPaths(fogged, match, 0);
+            assertEquals(List.of(100000L, 100001L, 100002L),
+                    paths.stream().map(NpcSegment::getNpcId).sorted().toList());
+
+            GameState shared = fogged.sendPlayerViews(match, fogged.buildGameState(match));
+            fogged.sendPlayerViews(match, fogged.buildGameState(match));
+
+            ArgumentCaptor<GameState> view = ArgumentCaptor.forClass(GameState.class);
+            verify(ws, times(2)).sendGameState(any(), eq("ana"), view.capture());
+            GameState keyframe = view.getAllValues().get(0);
+            GameState between = view.getAllValues().get(1);
+            // in id order among the NPCs, with their shape, and its segment among theirs
+            assertTrue(keyframe.isNpcKeyframe());
+            assertEquals(List.of(1L, 100000L, 100001L, 100002L),
+                    keyframe.getAvatars().stream().map(AvatarState::getId).toList());
+            for (AvatarState npc : keyframe.getAvatars().subList(1, 4)) {
+                assertEquals("npc", npc.getType());
+                assertNull(npc.getOwnerUsername());
+                assertFalse(npc.isInfiltrator());
+                assertNull(npc.getAckSeq());
+                assertEquals("NPC-" + npc.getId(), npc.getDisplayName());
+            }
+            assertEquals(List.of(100000L, 100001L, 100002L),
+                    keyframe.getNpcSegments().stream().map(NpcSegment::getNpcId).toList());
+            assertEquals(List.of(100000L, 100001L, 100002L),
+                    shared.getAvatars().stream().map(AvatarState::getId).toList());
+            // and gone between keyframes, like the NPCs
+            assertFalse(between.isNpcKeyframe());
+            assertEquals(List.of(1L), between.getAvatars().stream().map(AvatarState::getId).toList());
+            assertNull(between.getNpcSegments());
+
+            // a moving infiltrator gets a new segment on the next tick, as NPCs do
+            infiltrado.setPosition(new Position(-60.0, 0.0));
+            NpcSegment moved = tickNpcPaths(fogged, match, 1000).stream()
+                    .filter(segment -> segment.getNpcId() == 100001L).findFirst().orElseThrow();
+            assertEquals(-60.0, moved.getFromX(), 1e-9);
+            assertTrue(moved.getToX() > moved.getFromX());
+            assertEquals(10.0, moved.getSpeed(), 1e-9);
+
+            // the infiltrator sees itself, not its disguise
+            verify(ws, times(2)).sendGameState(any(), eq("infiltrado"), view.capture());
+            List<AvatarState> own = view.getAllValues().get(2).getAvatars();
+            assertEquals(List.of(2L, 100000L, 100002L), own.stream().map(AvatarState::getId).toList());
+            assertTrue(own.get(0).isInfiltrator());
+        } finally {
+            fogged.shutdown();
+        }
+    }
+
+    @Test
+    void publish_underFog_sendsViewsAndKeepsStatesOffTheSharedChannels() {
+        IslandMap map = IslandMap.defaultIsland();
+        GameEngine fogged = newEngine(GameEngine.STATE_BROADCAST_INTERVAL_MS, GameEngine.NPC_KEYFRAME_MS,
+                new NpcBrain(), new NpcNavigator(map, 2.0, 8.0, 64), true);
+        try {
+            Player ana = new Player(1L, "ana", null, null);
+            Player beto = new Player(2L, "beto", null, null);
+            Match match = new Match(7L, "FOP");
+            match.addPlayer(ana);
+            match.addPlayer(beto);
+            match.setStatus(MatchStatus.STARTED);
+            ana.setPosition(new Position(0.0, 0.0));
+            beto.setPosition(new Position(10.0, 0.0));
+            Object result = new Object();
+
+            fogged.publishGameState(match, fogged.buildGameState(match));
+            fogged.publishEvents(match,
+                    List.of(GameEvent.voteResult(result), GameEvent.gameState(fogged.buildGameState(match))));
+
+            verify(ws, times(2)).sendGameState(eq("FOP"), eq("ana"), any());
+            verify(ws, times(2)).sendGameState(eq("FOP"), eq("beto"), any());
+            verify(ws, times(2)).broadcastSpectatorState(eq("FOP"), any());
+            verify(ws, never()).broadcastGameState(any(), any());
+            verify(ws).broadcastEvents(eq("FOP"), argThat(events -> events.size() == 1
+                    && GameEvent.VOTE_RESULT.equals(events.get(0).getType()) && events.get(0).getPayload() == result));
+
+            // once the match is over the state goes to every shared channel again
+            match.setStatus(MatchStatus.FINISHED);
+            GameState last = fogged.buildGameState(match);
+            fogged.publishGameState(match, last);
+            verify(ws).broadcastGameState("FOP", last);
+        } finally {
+            fogged.shutdown();
+        }
+    }
+
+    @Test
+    void sendPlayerViews_withoutFogReturnsTheFullState() {
+        Player p = new Player(1L, "ana", null, null);
+        Match match = runningMatchWith(p);
+        GameState state = gameEngine.buildGameState(match);
+
+        assertSame(state, gameEngine.sendPlayerViews(match, state));
+        verify(ws, never()).sendGameState(any(), any(), any());
+    }
 }
@@ -0,0 +1,180 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.GameTopicRegistry;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.service.MatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para GameTopicRegistry.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class GameTopicRegistryTest {
+
+    private GameTopicRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new GameTopicRegistry();
+    }
+
+    private static Message<byte[]> subscribe(String session, String subId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(session);
+        accessor.setSubscriptionId(subId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String session, String subId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(session);
+        accessor.setSubscriptionId(subId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private MultiValueMap<String, String> find(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return registry.findSubscriptions(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    @Test
+    void gameTopics_areResolvedByExactDestination() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/game/ABC"));
+        registry.registerSubscription(subscribe("s2", "b", "/topic/game/ABC"));
+        registry.registerSubscription(subscribe("s1", "c", "/topic/game/ABC/vote/start"));
+        registry.registerSubscription(subscribe("s3", "d", "/topic/game/XYZ"));
+
+        MultiValueMap<String, String> state = find("/topic/game/ABC");
+        assertEquals(List.of("a"), state.get("s1"));
+        assertEquals(List.of("b"), state.get("s2"));
+        assertEquals(2, state.size());
+        assertEquals(List.of("c"), find("/topic/game/ABC/vote/start").get("s1"));
+        assertTrue(find("/topic/game/ABC/elimination").isEmpty());
+        assertTrue(find("/topic/game/NOPE").isEmpty());
+    }
+
+    @Test
+    void unsubscribeAndDisconnect_removeEntries() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/game/ABC"));
+        registry.registerSubscription(subscribe("s2", "b", "/topic/game/ABC"));
+        registry.registerSubscription(subscribe("s2", "c", "/topic/game/ABC/elimination"));
+
+        registry.unregisterSubscription(unsubscribe("s1", "a"));
+        assertNull(find("/topic/game/ABC").get("s1"));
+
+        registry.unregisterAllSubscriptions("s2");
+        assertTrue(find("/topic/game/ABC").isEmpty());
+        assertTrue(find("/topic/game/ABC/elimination").isEmpty());
+    }
+
+    @Test
+    void otherDestinations_andWildcards_useFallback() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/lobby/ABC"));
+        registry.registerSubscription(subscribe("s2", "b", "/topic/game/ABC"));
+        registry.registerSubscription(subscribe("s3", "w", "/topic/game/**"));
+
+        assertEquals(List.of("a"), find("/topic/lobby/ABC").get("s1"));
+        MultiValueMap<String, String> game = find("/topic/game/ABC");
+        assertEquals(List.of("b"), game.get("s2"));
+        assertEquals(List.of("w"), game.get("s3"));
+
+        registry.unregisterSubscription(unsubscribe("s3", "w"));
+        assertNull(find("/topic/game/ABC").get("s3"));
+    }
+
+    @Test
+    void topics_areCachedPerMatchWhileSubscribed() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/game/ABC"));
+        GameTopicRegistry.GameTopics topics = registry.topics("ABC");
+
+        assertSame(topics, registry.topics("ABC"));
+        assertEquals("/topic/game/ABC", topics.getState());
+        assertEquals("/topic/game/ABC/vote/start", topics.getVoteStart());
+        assertEquals("/topic/game/ABC/vote/result", topics.getVoteResult());
+        assertEquals("/topic/game/ABC/elimination", topics.getElimination());
+    }
+
+    @Test
+    void sends_neverCreateEntries() {
+        GameTopicRegistry.GameTopics topics = registry.topics("ABC");
+
+        assertEquals("/topic/game/ABC", topics.getState());
+        assertEquals(0, registry.indexedMatches());
+    }
+
+    @Test
+    void lastSubscriberLeaving_dropsTheMatchEntry() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/game/ABC"));
+        registry.registerSubscription(subscribe("s2", "b", "/topic/game/ABC/events"));
+
+        registry.unregisterSubscription(unsubscribe("s1", "a"));
+        assertEquals(1, registry.indexedMatches());
+        registry.unregisterAllSubscriptions("s2");
+
+        assertEquals(0, registry.indexedMatches());
+    }
+
+    @Test
+    void evictedMatch_dropsSubscriptionsAndTopics() {
+        MatchService matchService = new MatchService();
+        GameTopicRegistry wired = new GameTopicRegistry(matchService);
+        String code = matchService.createMatch(new Player(1L, "host", null, null)).getCode();
+        wired.registerSubscription(subscribe("s1", "a", "/topic/game/" + code));
+        assertEquals(1, wired.indexedMatches());
+
+        matchService.leaveMatch(code, "host");
+
+        assertEquals(0, wired.indexedMatches());
+        // a send after the drop does not bring the entry back
+        wired.topics(code);
+        assertEquals(0, wired.indexedMatches());
+        // the session no longer references the dropped subscription
+        wired.unregisterAllSubscriptions("s1");
+        matchService.shutdown();
+    }
+
+    @Test
+    void manyMatches_eachFanOutSeesOnlyItsSubscribers() {
+        for (int i = 0; i < 20_000; i++) {
+            registry.registerSubscription(subscribe("s" + i, "sub", "/topic/game/M" + i));
+        }
+
+        assertEquals(List.of("sub"), find("/topic/game/M12345").get("s12345"));
+        assertEquals(1, find("/topic/game/M19999").size());
+        assertEquals(20_000, registry.indexedMatches());
+    }
+
+    @Test
+    void compressedGameQueue_tracksItsUsersUntilTheyLeave() {
+        Message<byte[]> sub = subscribe("s1", "q", "/queue/game/compressed-users1");
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(sub);
+        accessor.setUser(() -> "ana");
+        registry.registerSubscription(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+        assertTrue(registry.hasCompressedViewer("ana"));
+        assertFalse(registry.hasCompressedViewer("bruno"));
+        // still delivered by the fallback registry
+        assertEquals(List.of("q"), find("/queue/game/compressed-users1").get("s1"));
+
+        registry.unregisterSubscription(unsubscribe("s1", "q"));
+        assertFalse(registry.hasCompressedViewer("ana"));
+
+        registry.registerSubscription(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        registry.unregisterAllSubscriptions("s1");
+        assertFalse(registry.hasCompressedViewer("ana"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.IslandMapConfig;
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Position;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para IslandMap.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class IslandMapTest {
+
+    private static IslandMap withObstacles() {
+        IslandMap map = IslandMap.defaultIsland();
+        map.getObstacles().add(IslandMap.Obstacle.circle("roca", 20.0, 0.0, 5.0));
+        map.getObstacles().add(IslandMap.Obstacle.rect("cabana", -20.0, 0.0, 10.0, 4.0));
+        return map;
+    }
+
+    @Test
+    void resolveMove_withoutObstaclesClampsToTheRimLikeBefore() {
+        IslandMap map = IslandMap.defaultIsland();
+        double[] xy = { 120.0, 0.0 };
+        map.resolveMove(xy);
+        assertArrayEquals(new double[] { 99.5, 0.0 }, xy, 1e-12);
+
+        double[] inside = { 10.0, -3.0 };
+        map.resolveMove(inside);
+        assertArrayEquals(new double[] { 10.0, -3.0 }, inside, 0.0);
+    }
+
+    @Test
+    void resolveMove_pushesOutOfCirclesRadiallyAndRectanglesAcrossTheNearestSide() {
+        IslandMap map = withObstacles();
+
+        double[] rock = { 17.0, 0.0 };
+        map.resolveMove(rock);
+        assertEquals(20.0 - 5.5, rock[0], 1e-12);
+        assertEquals(0.0, rock[1], 1e-12);
+
+        // 1.5 into the hut from above: out through the top side
+        double[] hut = { -18.0, 0.5 };
+        map.resolveMove(hut);
+        assertEquals(-18.0, hut[0], 1e-12);
+        assertEquals(2.5, hut[1], 1e-12);
+        assertTrue(map.isWalkable(hut[0], hut[1] + 1e-9, 0.5));
+    }
+
+    @Test
+    void randomSpawn_landsOnWalkableGround() {
+        IslandMap map = withObstacles();
+        Random rnd = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            Position p = map.randomSpawn(rnd, 0.7);
+            assertTrue(map.isWalkable(p.getX(), p.getY(), 2.0), p.toString());
+        }
+    }
+
+    @Test
+    void islandMapConfig_loadsTheBundledMap() {
+        IslandMap map = new IslandMapConfig().islandMap(new ObjectMapper(), new DefaultResourceLoader(),
+                "classpath:maps/island.json");
+
+        assertEquals(100.0, map.getRadius());
+        assertEquals(112.0, map.getBoat().getX());
+        assertFalse(map.getObstacles().isEmpty());
+        assertThrows(IllegalStateException.class, () -> new IslandMapConfig().islandMap(new ObjectMapper(),
+                new DefaultResourceLoader(), "classpath:maps/no-existe.json"));
+    }
+
+    @Test
+    void blocksSight_onlyOpaqueObstaclesCrossedBySegment() {
+        IslandMap map = withObstacles();
+        assertFalse(map.blocksSight(0.0, 0.0, 40.0, 0.0), "sin obstáculos opacos nada tapa");
+
+        map.getObstacles().forEach(o -> o.setBlocksSight(true));
+        assertTrue(map.blocksSight(0.0, 0.0, 40.0, 0.0));
+        assertTrue(map.blocksSight(-40.0, 1.0, 0.0, 1.0));
+        assertFalse(map.blocksSight(0.0, 10.0, 40.0, 10.0));
+        assertFalse(map.blocksSight(-40.0, 3.0, 0.0, 3.0));
+        assertFalse(map.blocksSight(0.0, 0.0, 10.0, 0.0), "el segmento termina antes de la roca");
+    }
+}
@@ -0,0 +1,106 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.model.dto.LobbyDirectoryUpdate;
+import com.arsw.shipwreckeds.model.dto.LobbyPage;
+import com.arsw.shipwreckeds.model.dto.LobbySummary;
+import com.arsw.shipwreckeds.service.LobbyDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para LobbyDirectory.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class LobbyDirectoryTest {
+
+    private LobbyDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        directory = new LobbyDirectory();
+    }
+
+    private static LobbySummary lobby(String code, int players, long createdAt) {
+        return new LobbySummary(code, "host-" + code, players, 8, createdAt);
+    }
+
+    @Test
+    void page_sortsByFillThenAge() {
+        directory.upsert(lobby("AAAAAA", 2, 100));
+        directory.upsert(lobby("BBBBBB", 5, 300));
+        directory.upsert(lobby("CCCCCC", 5, 200));
+        directory.upsert(lobby("DDDDDD", 1, 50));
+
+        LobbyPage page = directory.page(0, 10);
+
+        assertEquals(4, page.getTotal());
+        assertEquals("CCCCCC", page.getLobbies().get(0).getCode());
+        assertEquals("BBBBBB", page.getLobbies().get(1).getCode());
+        assertEquals("AAAAAA", page.getLobbies().get(2).getCode());
+        assertEquals("DDDDDD", page.getLobbies().get(3).getCode());
+    }
+
+    @Test
+    void page_splitsResultsAndHandlesOutOfRange() {
+        for (int i = 0; i < 5; i++) {
+            directory.upsert(lobby("L" + i, 1, i));
+        }
+
+        assertEquals(2, directory.page(0, 2).getLobbies().size());
+        assertEquals(1, directory.page(2, 2).getLobbies().size());
+        assertTrue(directory.page(3, 2).getLobbies().isEmpty());
+        assertEquals(5, directory.page(3, 2).getTotal());
+    }
+
+    @Test
+    void upsert_repositionsExistingEntry() {
+        directory.upsert(lobby("AAAAAA", 1, 100));
+        directory.upsert(lobby("BBBBBB", 3, 100));
+        directory.upsert(lobby("AAAAAA", 4, 100));
+
+        LobbyPage page = directory.page(0, 10);
+        assertEquals(2, page.getTotal());
+        assertEquals("AAAAAA", page.getLobbies().get(0).getCode());
+        assertEquals(4, page.getLobbies().get(0).getPlayers());
+    }
+
+    @Test
+    void page_reflectsNewVersionAfterChanges() {
+        directory.upsert(lobby("AAAAAA", 1, 100));
+        LobbyPage first = directory.page(0, 10);
+        directory.remove("AAAAAA");
+        LobbyPage second = directory.page(0, 10);
+
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(0, second.getTotal());
+    }
+
+    @Test
+    void drainChanges_coalescesUpsertsAndRemovals() {
+        directory.upsert(lobby("AAAAAA", 1, 100));
+        directory.upsert(lobby("AAAAAA", 2, 100));
+        directory.upsert(lobby("BBBBBB", 1, 100));
+        directory.remove("BBBBBB");
+
+        LobbyDirectoryUpdate update = directory.drainChanges();
+
+        assertNotNull(update);
+        assertEquals(1, update.getUpserts().size());
+        assertEquals(2, update.getUpserts().get(0).getPlayers());
+        assertEquals(1, update.getRemoved().size());
+        assertEquals("BBBBBB", update.getRemoved().get(0));
+        assertNull(directory.drainChanges(), "Sin cambios no debe generarse actualización");
+    }
+
+    @Test
+    void remove_unknownCode_isNoOp() {
+        directory.remove("NOPE");
+        directory.remove(null);
+        assertNull(directory.drainChanges());
+        assertEquals(0, directory.size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.controller.MatchActionController;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.model.dto.ActionAck;
+import com.arsw.shipwreckeds.model.dto.FuelActionRequest;
+import com.arsw.shipwreckeds.model.dto.FuelActionResponse;
+import com.arsw.shipwreckeds.model.dto.VoteAck;
+import com.arsw.shipwreckeds.model.dto.VoteRequest;
+import com.arsw.shipwreckeds.service.ActionRejectedException;
+import com.arsw.shipwreckeds.service.MatchActionService;
+import com.arsw.shipwreckeds.service.RateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para MatchActionController.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+@ExtendWith(MockitoExtension.class)
+class MatchActionControllerTest {
+
+    @Mock
+    private MatchActionService matchActionService;
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    @InjectMocks
+    private MatchActionController actionController;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(rateLimiter.tryAcquire(any(), any())).thenReturn(true);
+    }
+
+    private static PlayerSession session(String username) {
+        return new PlayerSession(new Player(1L, username, null, null), "tok");
+    }
+
+    @Test
+    void submitVote_usesPrincipalInsteadOfPayloadUsername() {
+        VoteAck body = new VoteAck("ana", "ok");
+        when(matchActionService.submitVote(eq("ABC"), any())).thenReturn(body);
+
+        ActionAck ack = actionController.submitVote("ABC", new VoteRequest("mallory", 7L), session("ana"));
+
+        ArgumentCaptor<VoteRequest> sent = ArgumentCaptor.forClass(VoteRequest.class);
+        verify(matchActionService).submitVote(eq("ABC"), sent.capture());
+        assertEquals("ana", sent.getValue().getUsername());
+        assertEquals(7L, sent.getValue().getTargetId());
+        assertTrue(ack.isOk());
+        assertEquals(200, ack.getStatus());
+        assertEquals("vote", ack.getAction());
+        assertSame(body, ack.getBody());
+    }
+
+    @Test
+    void eliminate_rejection_isMirroredInAck() {
+        when(matchActionService.eliminate(eq("ABC"), any()))
+                .thenThrow(new ActionRejectedException(403, "Fuera de rango para eliminar."));
+
+        ActionAck ack = actionController.eliminate("ABC", new VoteRequest(null, 3L), session("inf"));
+
+        assertFalse(ack.isOk());
+        assertEquals(403, ack.getStatus());
+        assertEquals("Fuera de rango para eliminar.", ack.getBody());
+    }
+
+    @Test
+    void modifyFuel_copiesActionAndAmount() {
+        when(matchActionService.modifyFuel(eq("ABC"), any())).thenReturn(new FuelActionResponse(55.0, "started"));
+        FuelActionRequest req = new FuelActionRequest();
+        req.setUsername("someoneElse");
+        req.setAction(FuelActionRequest.Action.FILL);
+        req.setAmount(2.0);
+
+        ActionAck ack = actionController.modifyFuel("ABC", req, session("bea"));
+
+        ArgumentCaptor<FuelActionRequest> sent = ArgumentCaptor.forClass(FuelActionRequest.class);
+        verify(matchActionService).modifyFuel(eq("ABC"), sent.capture());
+        assertEquals("bea", sent.getValue().getUsername());
+        assertEquals(FuelActionRequest.Action.FILL, sent.getValue().getAction());
+        assertEquals(2.0, sent.getValue().getAmount());
+        assertTrue(ack.isOk());
+    }
+
+    @Test
+    void startVote_delegatesWithSessionUsername() {
+        when(matchActionService.startVote("ABC", "carl")).thenReturn("Votación iniciada");
+
+        ActionAck ack = actionController.startVote("ABC", session("carl"));
+
+        assertTrue(ack.isOk());
+        assertEquals("Votación iniciada", ack.getBody());
+    }
+
+    @Test
+    void actions_withoutSessionPrincipal_areRejected() {
+        Principal anonymous = () -> "ghost";
+
+        assertEquals(401, actionController.startVote("ABC", anonymous).getStatus());
+        assertEquals(401, actionController.submitVote("ABC", new VoteRequest("ghost", 1L), null).getStatus());
+        assertEquals(401, actionController.eliminate("ABC", null, anonymous).getStatus());
+        assertEquals(401, actionController.modifyFuel("ABC", null, anonymous).getStatus());
+        verifyNoInteractions(matchActionService);
+    }
+
+    @Test
+    void overBudgetAction_isRejectedWithoutRunning() {
+        when(rateLimiter.tryAcquire("dana", RateLimiter.Action.VOTE)).thenReturn(false);
+
+        ActionAck ack = actionController.submitVote("ABC", new VoteRequest(null, 1L), session("dana"));
+
+        assertEquals(429, ack.getStatus());
+        assertFalse(ack.isOk());
+        verifyNoInteractions(matchActionService);
+    }
+}
@@ -0,0 +1,131 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Npc;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.Position;
+import com.arsw.shipwreckeds.model.dto.AvatarState;
+import com.arsw.shipwreckeds.model.dto.FuelActionRequest;
+import com.arsw.shipwreckeds.model.dto.FuelActionResponse;
+import com.arsw.shipwreckeds.model.dto.GameEvent;
+import com.arsw.shipwreckeds.model.dto.VoteRequest;
+import com.arsw.shipwreckeds.model.dto.VoteStart;
+import com.arsw.shipwreckeds.service.ActionRejectedException;
+import com.arsw.shipwreckeds.service.GameEngine;
+import com.arsw.shipwreckeds.service.MatchActionService;
+import com.arsw.shipwreckeds.service.MatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para MatchActionService.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class MatchActionServiceTest {
+
+    private MatchService matchService;
+    private GameEngine gameEngine;
+    private MatchActionService actions;
+    private Match match;
+
+    @BeforeEach
+    void setUp() {
+        matchService = new MatchService();
+        gameEngine = mock(GameEngine.class);
+        when(gameEngine.getIslandMap()).thenReturn(IslandMap.defaultIsland());
+        actions = new MatchActionService(matchService, gameEngine);
+
+        Player ana = new Player(1L, "ana", null, null);
+        Player bruno = new Player(2L, "bruno", null, null);
+        match = matchService.getMatchByCode(matchService.createMatch(ana).getCode());
+        matchService.joinMatch(match.getCode(), bruno);
+        match.setStatus(MatchStatus.STARTED);
+        match.setTimerSeconds(Match.MATCH_DURATION_SECONDS);
+        // ana stands at the boat
+        ana.setPosition(new Position(112.0, 1.0));
+        bruno.setPosition(new Position(-50.0, 0.0));
+    }
+
+    @Test
+    void unknownMatch_isRejectedAsBadRequest() {
+        ActionRejectedException e = assertThrows(ActionRejectedException.class,
+                () -> actions.startVote("NOPE", "ana"));
+
+        assertEquals(400, e.getStatus());
+    }
+
+    @Test
+    void eliminateByCastaway_isForbidden() {
+        ActionRejectedException e = assertThrows(ActionRejectedException.class,
+                () -> actions.eliminate(match.getCode(), new VoteRequest("ana", 2L)));
+
+        assertEquals(403, e.getStatus());
+        assertTrue(match.getPlayers().get(1).isAlive());
+        verify(gameEngine, never()).publishEvents(any(), any());
+    }
+
+    @Test
+    void fillAtTheBoat_raisesFuelAndBroadcasts() {
+        // second minute of the match: the tank is open
+        match.setTimerSeconds(Match.MATCH_DURATION_SECONDS - Match.FUEL_WINDOW_CYCLE_SECONDS);
+        FuelActionRequest req = new FuelActionRequest();
+        req.setUsername("ana");
+        req.setAction(FuelActionRequest.Action.FILL);
+        req.setAmount(10.0);
+
+        FuelActionResponse res = actions.modifyFuel(match.getCode(), req);
+
+        assertEquals("started", res.getStatus());
+        assertTrue(res.getFuelPercentage() > 0);
+        verify(gameEngine).publishGameState(eq(match), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void startVote_underTheFog_listsTheInfiltratorByItsDisguise() {
+        disguiseBruno();
+
+        actions.startVote(match.getCode(), "ana");
+
+        ArgumentCaptor<List<GameEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(gameEngine).publishEvents(eq(match), events.capture());
+        VoteStart vs = (VoteStart) events.getValue().get(1).getPayload();
+        assertEquals(List.of(100000L, 100001L, 100002L), vs.getOptions().stream().map(AvatarState::getId).toList());
+        assertTrue(vs.getOptions().stream().noneMatch(AvatarState::isInfiltrator));
+    }
+
+    @Test
+    void voteForTheDisguise_expelsTheInfiltrator() {
+        disguiseBruno();
+        actions.startVote(match.getCode(), "ana");
+
+        actions.submitVote(match.getCode(), new VoteRequest("ana", 100001L));
+
+        assertFalse(match.getPlayers().get(1).isAlive());
+        assertEquals(MatchStatus.FINISHED, match.getStatus());
+    }
+
+    /** bruno becomes the infiltrator, disguised as NPC 100001 between two NPCs. */
+    private void disguiseBruno() {
+        Player bruno = match.getPlayers().get(1);
+        bruno.setInfiltrator(true);
+        match.setInfiltrator(bruno);
+        match.setInfiltratorDisguiseId(100001L);
+        match.addNpc(new Npc(100000L, "npc-skin-2", new Position(0.0, 0.0), 0.8, false));
+        match.addNpc(new Npc(100002L, "npc-skin-3", new Position(5.0, 0.0), 0.8, false));
+        when(gameEngine.disguiseOf(match)).thenReturn(
+                new AvatarState(100001L, "npc", null, -50.0, 0.0, false, true, "NPC-100001"));
+    }
+}
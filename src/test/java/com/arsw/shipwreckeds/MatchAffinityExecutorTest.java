@@ -0,0 +1,188 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.MatchAffinityExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.messaging.MessageHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para MatchAffinityExecutor.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class MatchAffinityExecutorTest {
+
+    private MatchAffinityExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new MatchAffinityExecutor(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private static Message<byte[]> frame(String destination, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static MessageHandlingRunnable task(Message<?> message, Runnable body) {
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return m -> body.run();
+            }
+
+            @Override
+            public void run() {
+                body.run();
+            }
+        };
+    }
+
+    @Test
+    void sameMatch_runsInSubmissionOrderWithoutOverlap() throws Exception {
+        int matches = 3;
+        int perMatch = 500;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> inside = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(matches * perMatch);
+        for (int i = 0; i < perMatch; i++) {
+            for (int m = 0; m < matches; m++) {
+                String code = "M" + m;
+                int n = i;
+                seen.computeIfAbsent(code, k -> Collections.synchronizedList(new ArrayList<>()));
+                inside.computeIfAbsent(code, k -> new AtomicInteger());
+                executor.execute(task(frame("/app/game/" + code + "/move", code + "-s" + n), () -> {
+                    if (inside.get(code).incrementAndGet() > 1)
+                        overlaps.incrementAndGet();
+                    seen.get(code).add(n);
+                    inside.get(code).decrementAndGet();
+                    done.countDown();
+                }));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (List<Integer> order : seen.values()) {
+            for (int i = 0; i < perMatch; i++) {
+                assertEquals(i, order.get(i));
+            }
+        }
+        assertEquals(matches * perMatch, executor.getExecuted());
+    }
+
+    @Test
+    void blockedMatch_doesNotHoldBackOtherMatches() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch other = new CountDownLatch(1);
+        executor.execute(task(frame("/app/game/SLOW/vote", "a"), () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        executor.execute(task(frame("/app/game/FAST/vote", "b"), other::countDown));
+
+        assertTrue(other.await(2, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void sessionFramesWithoutMatch_waitBehindTheSessionsMatchFrames() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(3);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        executor.execute(task(frame("/app/game/ORD/vote", "a"), () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            order.add("send");
+            finished.countDown();
+        }));
+        // UNSUBSCRIBE and DISCONNECT carry no destination
+        executor.execute(task(frame(null, "a"), () -> {
+            order.add("unsubscribe");
+            finished.countDown();
+        }));
+        executor.execute(task(frame(null, "a"), () -> {
+            order.add("disconnect");
+            finished.countDown();
+        }));
+
+        Thread.sleep(100);
+        assertTrue(order.isEmpty());
+        release.countDown();
+
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("send", "unsubscribe", "disconnect"), order);
+    }
+
+    @Test
+    void failingFrame_doesNotStallItsLane() throws Exception {
+        CountDownLatch after = new CountDownLatch(1);
+        executor.execute(task(frame("/app/game/ERR/fuel", "a"), () -> {
+            throw new IllegalStateException("boom");
+        }));
+        executor.execute(task(frame("/app/game/ERR/fuel", "a"), after::countDown));
+
+        assertTrue(after.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void drainedLanes_areReleased() throws Exception {
+        CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(task(frame("/topic/game/L" + i, "s"), done::countDown));
+        }
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (executor.activeLanes() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, executor.activeLanes());
+    }
+
+    @Test
+    void plainRunnable_runsWithoutLane() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        executor.execute(ran::countDown);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertEquals(0, executor.getExecuted());
+    }
+}
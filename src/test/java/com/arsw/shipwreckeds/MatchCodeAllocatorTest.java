@@ -0,0 +1,96 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.service.MatchCodeAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para MatchCodeAllocator.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class MatchCodeAllocatorTest {
+
+    @Test
+    void next_producesSixCharAlphanumericCodes() {
+        MatchCodeAllocator allocator = new MatchCodeAllocator(0, 1, 7L);
+        for (int i = 0; i < 1000; i++) {
+            String code = allocator.next();
+            assertEquals(6, code.length());
+            assertTrue(code.matches("[A-Z0-9]{6}"), "Código con caracteres inválidos: " + code);
+        }
+    }
+
+    @Test
+    void next_neverRepeatsCodes() {
+        MatchCodeAllocator allocator = new MatchCodeAllocator(0, 1, 11L);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(seen.add(allocator.next()), "El asignador repitió un código");
+        }
+    }
+
+    @Test
+    void next_concurrentCallers_neverCollide() throws Exception {
+        MatchCodeAllocator allocator = new MatchCodeAllocator(0, 1, 13L);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread w = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    seen.add(allocator.next());
+                }
+            });
+            workers.add(w);
+            w.start();
+        }
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void next_differentNodesSameKey_useDisjointCodes() {
+        MatchCodeAllocator node0 = new MatchCodeAllocator(0, 2, 99L);
+        MatchCodeAllocator node1 = new MatchCodeAllocator(1, 2, 99L);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(seen.add(node0.next()));
+            assertTrue(seen.add(node1.next()));
+        }
+    }
+
+    @Test
+    void constructor_invalidNode_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new MatchCodeAllocator(2, 2, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new MatchCodeAllocator(0, 0, 1L));
+    }
+
+    @Test
+    void remaining_decreasesWithEachCode() {
+        MatchCodeAllocator allocator = new MatchCodeAllocator(0, 1, 5L);
+        long before = allocator.remaining();
+        allocator.next();
+        assertEquals(before - 1, allocator.remaining());
+    }
+}
@@ -1,5 +1,6 @@
 package com.arsw.shipwreckeds;
 
+import com.arsw.shipwreckeds.config.RestSessionInterceptor;
 import com.arsw.shipwreckeds.controller.MatchController;
 import com.arsw.shipwreckeds.controller.WebSocketController;
 import com.arsw.shipwreckeds.model.*;
@@ -8,10 +9,11 @@ import com.arsw.shipwreckeds.service.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import java.util.ArrayList;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,20 +39,73 @@ class MatchControllerTest {
     private WebSocketController webSocketController;
 
     @Mock
-    private RoleService roleService;
+    private MatchStartService matchStartService;
 
     @Mock
-    private NpcService npcService;
+    private GameEngine gameEngine;
 
     @Mock
-    private GameEngine gameEngine;
+    private RateLimiter rateLimiter;
 
-    @InjectMocks
     private MatchController matchController;
 
+    // anonymous REST call from 127.0.0.1
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
     @BeforeEach
     void setUp() {
-        // inyectado por @InjectMocks
+        // the in-match actions run for real on top of the same mocks
+        MatchActionService matchActionService = new MatchActionService(matchService, gameEngine);
+        matchController = new MatchController(matchService, authService, webSocketController, matchStartService,
+                matchActionService, gameEngine, rateLimiter);
+        // el limitador deja pasar salvo que la prueba diga lo contrario
+        lenient().when(rateLimiter.tryAcquire(any(), any())).thenReturn(true);
+        // the engine owns the island map the controller spawns avatars on and measures the boat from
+        lenient().when(gameEngine.getIslandMap()).thenReturn(IslandMap.defaultIsland());
+        // no fog of war: the engine hands everything to the shared channels
+        lenient().doAnswer(inv -> {
+            webSocketController.broadcastEvents(inv.<Match>getArgument(0).getCode(), inv.getArgument(1));
+            return null;
+        }).when(gameEngine).publishEvents(any(), any());
+        lenient().doAnswer(inv -> {
+            webSocketController.broadcastGameState(inv.<Match>getArgument(0).getCode(), inv.getArgument(1));
+            return null;
+        }).when(gameEngine).publishGameState(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GameEvent> capturedEvents(String code) {
+        ArgumentCaptor<List<GameEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(webSocketController, times(1)).broadcastEvents(eq(code), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void modifyFuel_overBudget_returnsTooManyRequestsWithoutTouchingMatch() {
+        FuelActionRequest req = new FuelActionRequest();
+        req.setUsername("spammer");
+        request.setAttribute(RestSessionInterceptor.SESSION_ATTRIBUTE,
+                new PlayerSession(new Player(9L, "spammer", null, null), "tok"));
+        when(rateLimiter.tryAcquire("spammer", RateLimiter.Action.FUEL)).thenReturn(false);
+
+        ResponseEntity<?> resp = matchController.modifyFuel("CODE", req, request);
+
+        assertEquals(429, resp.getStatusCode().value());
+        verifyNoInteractions(matchService);
+    }
+
+    @Test
+    void rateLimit_ignoresTheUsernameInThePayload() {
+        request.setAttribute(RestSessionInterceptor.SESSION_ATTRIBUTE,
+                new PlayerSession(new Player(9L, "ana", null, null), "tok"));
+        VoteRequest req = new VoteRequest("victim", 1L);
+
+        matchController.submitVote("NOPE", req, request);
+        matchController.startVote("NOPE", "victim", new MockHttpServletRequest());
+
+        verify(rateLimiter).tryAcquire("ana", RateLimiter.Action.VOTE);
+        verify(rateLimiter).tryAcquire("addr:127.0.0.1", RateLimiter.Action.START_VOTE);
+        verify(rateLimiter, never()).tryAcquire(eq("victim"), any());
     }
 
     @Test
@@ -59,7 +114,7 @@ class MatchControllerTest {
         req.setHostName("noHost");
         when(authService.getPlayer("noHost")).thenReturn(null);
 
-        ResponseEntity<?> resp = matchController.createMatch(req);
+        ResponseEntity<?> resp = matchController.createMatch(req, request);
 
         assertEquals(400, resp.getStatusCode().value());
         assertTrue(((String) resp.getBody()).toLowerCase().contains("inicia sesión") || ((String) resp.getBody()).toLowerCase().contains("inicia sesion"));
@@ -67,21 +122,26 @@ class MatchControllerTest {
     }
 
     @Test
-    void joinMatch_success_broadcastsAndReturnsMatch() {
+    void joinMatch_success_broadcastsAndReturnsLobbyView() {
         JoinMatchRequest req = new JoinMatchRequest();
         req.setCode("C1");
         req.setUsername("playerA");
 
-        Player player = mock(Player.class);
-        Match returnedMatch = mock(Match.class);
+        Player player = new Player(2L, "playerA", "skin", null);
+        Match returnedMatch = new Match(1L, "C1");
+        returnedMatch.addPlayer(new Player(1L, "host", "skin", null));
+        returnedMatch.addPlayer(player);
 
         when(authService.getPlayer("playerA")).thenReturn(player);
         when(matchService.joinMatch("C1", player)).thenReturn(returnedMatch);
 
-        ResponseEntity<?> resp = matchController.joinMatch(req);
+        ResponseEntity<?> resp = matchController.joinMatch(req, request);
 
         assertEquals(200, resp.getStatusCode().value());
-        assertSame(returnedMatch, resp.getBody());
+        LobbyView view = assertInstanceOf(LobbyView.class, resp.getBody());
+        assertEquals("C1", view.getCode());
+        assertEquals("host", view.getHostName());
+        assertEquals(2, view.getPlayers().size());
         verify(matchService, times(1)).joinMatch("C1", player);
         verify(webSocketController, times(1)).broadcastLobbyUpdate(returnedMatch);
     }
@@ -94,7 +154,7 @@ class MatchControllerTest {
 
         when(authService.getPlayer("ghost")).thenReturn(null);
 
-        ResponseEntity<?> resp = matchController.joinMatch(req);
+        ResponseEntity<?> resp = matchController.joinMatch(req, request);
 
         assertEquals(400, resp.getStatusCode().value());
         verify(matchService, never()).joinMatch(anyString(), any());
@@ -124,7 +184,7 @@ class MatchControllerTest {
 
 
     @Test
-    void startMatch_success_assignsRolesGeneratesNpcsBroadcastsAndStartsTicker() {
+    void startMatch_success_delegatesToTheStartRoutine() {
         Match match = mock(Match.class);
         // 5 players required
         Player p1 = mock(Player.class);
@@ -137,20 +197,29 @@ class MatchControllerTest {
         when(matchService.getMatchByCode("MOK")).thenReturn(match);
         when(match.getPlayers()).thenReturn(players);
         when(p1.getUsername()).thenReturn("host123"); // host must be first
-        // return empty npc list initially
-        when(match.getNpcs()).thenReturn(new ArrayList<>());
 
         // act
         ResponseEntity<?> resp = matchController.startMatch("MOK", "host123");
 
         // assert
         assertEquals(200, resp.getStatusCode().value());
-        verify(roleService, times(1)).assignHumanRoles(match);
-        verify(npcService, times(1)).generateNpcs(match);
-        verify(match, times(1)).startMatch();
-        verify(webSocketController, times(1)).broadcastLobbyUpdate(match);
-        verify(webSocketController, times(1)).broadcastGameState(eq(match.getCode()), any());
-        verify(gameEngine, times(1)).startMatchTicker(match);
+        verify(matchStartService, times(1)).start(match);
+    }
+
+    @Test
+    void startMatch_alreadyStarted_returnsConflict() {
+        Match match = mock(Match.class);
+        Player host = mock(Player.class);
+        List<Player> players = List.of(host, mock(Player.class), mock(Player.class), mock(Player.class),
+                mock(Player.class));
+        when(matchService.getMatchByCode("TWICE")).thenReturn(match);
+        when(match.getPlayers()).thenReturn(players);
+        when(host.getUsername()).thenReturn("host");
+        doThrow(new ActionRejectedException(409, "La partida ya ha comenzado.")).when(matchStartService).start(match);
+
+        ResponseEntity<?> resp = matchController.startMatch("TWICE", "host");
+
+        assertEquals(409, resp.getStatusCode().value());
     }
 
     @Test
@@ -180,7 +249,7 @@ class MatchControllerTest {
         req.setUsername("killer");
         req.setTargetId(2L);
 
-        ResponseEntity<?> resp = matchController.eliminate("EL", req);
+        ResponseEntity<?> resp = matchController.eliminate("EL", req, request);
 
         assertEquals(403, resp.getStatusCode().value());
         verify(target, never()).setAlive(false);
@@ -193,6 +262,7 @@ class MatchControllerTest {
         Player target = mock(Player.class);
 
         when(matchService.getMatchByCode("EL2")).thenReturn(match);
+        when(match.getCode()).thenReturn("EL2");
         when(match.getStatus()).thenReturn(MatchStatus.STARTED);
 
         when(match.getPlayers()).thenReturn(List.of(killer, target));
@@ -211,14 +281,17 @@ class MatchControllerTest {
         req.setUsername("killer");
         req.setTargetId(20L);
 
-        ResponseEntity<?> resp = matchController.eliminate("EL2", req);
+        ResponseEntity<?> resp = matchController.eliminate("EL2", req, request);
 
         assertEquals(200, resp.getStatusCode().value());
         // verify that target was marked dead
         verify(target, times(1)).setAlive(false);
-        // verify that elimination and gamestate broadcasts happened
-        verify(webSocketController, times(1)).broadcastElimination(eq("EL2"), any(EliminationEvent.class));
-        verify(webSocketController, times(1)).broadcastGameState(eq("EL2"), any(GameState.class));
+        // verify that elimination and gamestate went out together, in that order
+        List<GameEvent> events = capturedEvents("EL2");
+        assertEquals(List.of(GameEvent.ELIMINATION, GameEvent.GAME_STATE),
+                events.stream().map(GameEvent::getType).toList());
+        assertInstanceOf(EliminationEvent.class, events.get(0).getPayload());
+        assertInstanceOf(GameState.class, events.get(1).getPayload());
     }
 
     @Test
@@ -238,7 +311,7 @@ class MatchControllerTest {
         req.setUsername("actor");
         req.setAction(FuelActionRequest.Action.FILL);
 
-        ResponseEntity<?> resp = matchController.modifyFuel("F1", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("F1", req, request);
 
         assertEquals(403, resp.getStatusCode().value());
         verify(webSocketController, never()).broadcastGameState(anyString(), any());
@@ -248,6 +321,7 @@ class MatchControllerTest {
     void modifyFuel_success_whenWindowOpen_updatesAndBroadcasts() {
         Match match = mock(Match.class);
         when(matchService.getMatchByCode("F2")).thenReturn(match);
+        when(match.getCode()).thenReturn("F2");
         when(match.getStatus()).thenReturn(MatchStatus.STARTED);
 
         Player actor = mock(Player.class);
@@ -271,7 +345,7 @@ class MatchControllerTest {
         req.setAction(FuelActionRequest.Action.FILL);
         req.setAmount(5.0);
 
-        ResponseEntity<?> resp = matchController.modifyFuel("F2", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("F2", req, request);
 
         assertEquals(200, resp.getStatusCode().value());
         assertTrue(resp.getBody() instanceof FuelActionResponse);
@@ -282,21 +356,51 @@ class MatchControllerTest {
     }
 
     @Test
-    void getMatch_success_returnsMatch() {
-        Match match = mock(Match.class);
+    void getMatch_success_returnsLobbyViewWithEtag() {
+        Match match = new Match(1L, "G1");
+        match.addPlayer(new Player(1L, "host", "default-skin", null));
         when(matchService.getMatchByCode("G1")).thenReturn(match);
 
-        ResponseEntity<?> resp = matchController.getMatch("G1");
+        ResponseEntity<?> resp = matchController.getMatch("G1", null);
+
+        assertEquals(200, resp.getStatusCode().value());
+        assertTrue(resp.getBody() instanceof LobbyView);
+        assertEquals("G1", ((LobbyView) resp.getBody()).getCode());
+        assertEquals(LobbyView.etagOf(match), resp.getHeaders().getETag());
+    }
+
+    @Test
+    void getMatch_matchingEtag_returns304() {
+        Match match = new Match(1L, "G2");
+        match.addPlayer(new Player(1L, "host", "default-skin", null));
+        when(matchService.getMatchByCode("G2")).thenReturn(match);
+        String etag = LobbyView.etagOf(match);
+
+        ResponseEntity<?> resp = matchController.getMatch("G2", etag);
+
+        assertEquals(304, resp.getStatusCode().value());
+        assertNull(resp.getBody());
+    }
+
+    @Test
+    void getMatch_staleEtag_returnsNewView() {
+        Match match = new Match(1L, "G3");
+        match.addPlayer(new Player(1L, "host", "default-skin", null));
+        when(matchService.getMatchByCode("G3")).thenReturn(match);
+        String stale = LobbyView.etagOf(match);
+        match.addPlayer(new Player(2L, "guest", "default-skin", null));
+
+        ResponseEntity<?> resp = matchController.getMatch("G3", stale);
 
         assertEquals(200, resp.getStatusCode().value());
-        assertSame(match, resp.getBody());
+        assertEquals(2, ((LobbyView) resp.getBody()).getPlayers().size());
     }
 
     @Test
     void getMatch_notFound_returns404() {
         when(matchService.getMatchByCode("NOTFOUND")).thenReturn(null);
 
-        ResponseEntity<?> resp = matchController.getMatch("NOTFOUND");
+        ResponseEntity<?> resp = matchController.getMatch("NOTFOUND", null);
 
         assertEquals(404, resp.getStatusCode().value());
     }
@@ -305,7 +409,7 @@ class MatchControllerTest {
     void startVote_matchNotFound_returnsBadRequest() {
         when(matchService.getMatchByCode("V1")).thenReturn(null);
 
-        ResponseEntity<?> resp = matchController.startVote("V1", "player");
+        ResponseEntity<?> resp = matchController.startVote("V1", "player", request);
 
         assertEquals(400, resp.getStatusCode().value());
     }
@@ -316,7 +420,7 @@ class MatchControllerTest {
         when(matchService.getMatchByCode("V2")).thenReturn(match);
         when(match.getStatus()).thenReturn(MatchStatus.WAITING); // not STARTED
 
-        ResponseEntity<?> resp = matchController.startVote("V2", "player");
+        ResponseEntity<?> resp = matchController.startVote("V2", "player", request);
 
         assertEquals(400, resp.getStatusCode().value());
     }
@@ -333,7 +437,7 @@ class MatchControllerTest {
         when(infiltrator.isAlive()).thenReturn(true);
         when(infiltrator.isInfiltrator()).thenReturn(true);
 
-        ResponseEntity<?> resp = matchController.startVote("V3", "infiltrator");
+        ResponseEntity<?> resp = matchController.startVote("V3", "infiltrator", request);
 
         assertEquals(403, resp.getStatusCode().value());
         assertTrue(((String) resp.getBody()).toLowerCase().contains("infiltrado"));
@@ -352,7 +456,7 @@ class MatchControllerTest {
         when(player.isInfiltrator()).thenReturn(false);
         when(match.isVotingActive()).thenReturn(true); // already voting
 
-        ResponseEntity<?> resp = matchController.startVote("V4", "player");
+        ResponseEntity<?> resp = matchController.startVote("V4", "player", request);
 
         assertEquals(400, resp.getStatusCode().value());
     }
@@ -378,13 +482,15 @@ class MatchControllerTest {
         when(npc.getDisplayName()).thenReturn("NPC100");
         when(match.getCode()).thenReturn("V5");
 
-        ResponseEntity<?> resp = matchController.startVote("V5", "voter");
+        ResponseEntity<?> resp = matchController.startVote("V5", "voter", request);
 
         assertEquals(200, resp.getStatusCode().value());
         verify(match, times(1)).startVoting();
         verify(gameEngine, times(1)).scheduleVoteTimeout(eq(match), any());
-        verify(webSocketController, times(1)).broadcastGameState(eq("V5"), any(GameState.class));
-        verify(webSocketController, times(1)).broadcastVoteStart(eq("V5"), any(VoteStart.class));
+        List<GameEvent> events = capturedEvents("V5");
+        assertEquals(List.of(GameEvent.GAME_STATE, GameEvent.VOTE_START),
+                events.stream().map(GameEvent::getType).toList());
+        assertInstanceOf(VoteStart.class, events.get(1).getPayload());
     }
 
     @Test
@@ -395,7 +501,7 @@ class MatchControllerTest {
         req.setUsername("voter");
         req.setTargetId(1L);
 
-        ResponseEntity<?> resp = matchController.submitVote("SV1", req);
+        ResponseEntity<?> resp = matchController.submitVote("SV1", req, request);
 
         assertEquals(400, resp.getStatusCode().value());
     }
@@ -410,7 +516,7 @@ class MatchControllerTest {
         req.setUsername("voter");
         req.setTargetId(1L);
 
-        ResponseEntity<?> resp = matchController.submitVote("SV2", req);
+        ResponseEntity<?> resp = matchController.submitVote("SV2", req, request);
 
         assertEquals(400, resp.getStatusCode().value());
     }
@@ -426,7 +532,7 @@ class MatchControllerTest {
         req.setUsername("ghost");
         req.setTargetId(1L);
 
-        ResponseEntity<?> resp = matchController.submitVote("SV3", req);
+        ResponseEntity<?> resp = matchController.submitVote("SV3", req, request);
 
         assertEquals(403, resp.getStatusCode().value());
     }
@@ -447,7 +553,7 @@ class MatchControllerTest {
         req.setUsername("infiltrator");
         req.setTargetId(1L);
 
-        ResponseEntity<?> resp = matchController.submitVote("SV4", req);
+        ResponseEntity<?> resp = matchController.submitVote("SV4", req, request);
 
         assertEquals(403, resp.getStatusCode().value());
     }
@@ -469,7 +575,7 @@ class MatchControllerTest {
         req.setUsername("voter");
         req.setTargetId(100L);
 
-        ResponseEntity<?> resp = matchController.submitVote("SV5", req);
+        ResponseEntity<?> resp = matchController.submitVote("SV5", req, request);
 
         assertEquals(200, resp.getStatusCode().value());
         verify(match, times(1)).recordVote("voter", 100L);
@@ -498,7 +604,7 @@ class MatchControllerTest {
         req.setUsername("killer");
         req.setTargetId(1L);
 
-        ResponseEntity<?> resp = matchController.eliminate("ELD", req);
+        ResponseEntity<?> resp = matchController.eliminate("ELD", req, request);
 
         // First validation checks: target.isAlive() is false, so returns 403
         assertEquals(403, resp.getStatusCode().value());
@@ -526,7 +632,7 @@ class MatchControllerTest {
         req.setUsername("killer");
         req.setTargetId(2L);
 
-        ResponseEntity<?> resp = matchController.eliminate("ELINF", req);
+        ResponseEntity<?> resp = matchController.eliminate("ELINF", req, request);
 
         assertEquals(403, resp.getStatusCode().value()); // cannot eliminate another infiltrator
     }
@@ -549,7 +655,7 @@ class MatchControllerTest {
         req.setUsername("human");
         req.setTargetId(1L);
 
-        ResponseEntity<?> resp = matchController.eliminate("ELOPERM", req);
+        ResponseEntity<?> resp = matchController.eliminate("ELOPERM", req, request);
 
         assertEquals(403, resp.getStatusCode().value());
     }
@@ -562,7 +668,7 @@ class MatchControllerTest {
         req.setUsername("actor");
         req.setAction(FuelActionRequest.Action.FILL);
 
-        ResponseEntity<?> resp = matchController.modifyFuel("FUELNOTFOUND", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("FUELNOTFOUND", req, request);
 
         assertEquals(400, resp.getStatusCode().value());
     }
@@ -578,7 +684,7 @@ class MatchControllerTest {
         req.setUsername("ghost");
         req.setAction(FuelActionRequest.Action.FILL);
 
-        ResponseEntity<?> resp = matchController.modifyFuel("FUELINV", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("FUELINV", req, request);
 
         assertEquals(403, resp.getStatusCode().value());
     }
@@ -602,7 +708,7 @@ class MatchControllerTest {
         req.setUsername("inf");
         req.setAction(FuelActionRequest.Action.SABOTAGE);
 
-        ResponseEntity<?> resp = matchController.modifyFuel("FUELSABOTAGE", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("FUELSABOTAGE", req, request);
 
         assertEquals(200, resp.getStatusCode().value());
         verify(match, times(1)).adjustFuel(-5.0); // default step
@@ -626,7 +732,7 @@ class MatchControllerTest {
         req.setUsername("human");
         req.setAction(FuelActionRequest.Action.SABOTAGE);
 
-        ResponseEntity<?> resp = matchController.modifyFuel("FUELNOSABOT", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("FUELNOSABOT", req, request);
 
         assertEquals(403, resp.getStatusCode().value());
     }
@@ -649,7 +755,7 @@ class MatchControllerTest {
         req.setUsername("actor");
         req.setAction(FuelActionRequest.Action.FILL);
 
-        ResponseEntity<?> resp = matchController.modifyFuel("FUELCLOSED", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("FUELCLOSED", req, request);
 
         assertEquals(423, resp.getStatusCode().value());
         assertTrue(((String) resp.getBody()).contains("30"));
@@ -673,7 +779,7 @@ class MatchControllerTest {
         req.setUsername("inf");
         req.setAction(FuelActionRequest.Action.FILL); // infiltrator tries to FILL (not sabotage)
 
-        ResponseEntity<?> resp = matchController.modifyFuel("FUELINFPROX", req);
+        ResponseEntity<?> resp = matchController.modifyFuel("FUELINFPROX", req, request);
 
         assertEquals(403, resp.getStatusCode().value()); // infiltrator cannot fill
     }
@@ -692,7 +798,7 @@ class MatchControllerTest {
         when(response.getCode()).thenReturn("NEW001");
         when(matchService.getMatchByCode("NEW001")).thenReturn(createdMatch);
 
-        ResponseEntity<?> resp = matchController.createMatch(req);
+        ResponseEntity<?> resp = matchController.createMatch(req, request);
 
         assertEquals(200, resp.getStatusCode().value());
         assertSame(response, resp.getBody());
@@ -713,7 +819,7 @@ class MatchControllerTest {
         ResponseEntity<?> resp = matchController.startMatch("INSUF", "host");
 
         assertEquals(400, resp.getStatusCode().value());
-        verify(roleService, never()).assignHumanRoles(any());
+        verify(matchStartService, never()).start(any());
     }
 
     @Test
@@ -734,7 +840,7 @@ class MatchControllerTest {
         req.setUsername("voter");
         req.setTargetId(100L);
 
-        ResponseEntity<?> resp = matchController.submitVote("ALLVOTED", req);
+        ResponseEntity<?> resp = matchController.submitVote("ALLVOTED", req, request);
 
         assertEquals(200, resp.getStatusCode().value());
         verify(match, times(1)).recordVote("voter", 100L);
@@ -1,14 +1,19 @@
 package com.arsw.shipwreckeds;
 
 import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
 import com.arsw.shipwreckeds.model.Player;
 import com.arsw.shipwreckeds.model.dto.CreateMatchResponse;
+import com.arsw.shipwreckeds.model.dto.HibernationStats;
+import com.arsw.shipwreckeds.service.AuthService;
 import com.arsw.shipwreckeds.service.MatchService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.lang.reflect.Field;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -182,4 +187,197 @@ class MatchServiceTest {
                 () -> matchService.joinMatch(code, p2));
         assertEquals("Ya hay un jugador con ese nombre en la partida.", ex.getMessage());
     }
+
+    @Test
+    void listOpenLobbies_tracksCreateJoinAndStart() {
+        Player host = mock(Player.class);
+        when(host.getUsername()).thenReturn("hostG");
+        String code = matchService.createMatch(host).getCode();
+
+        assertEquals(1, matchService.listOpenLobbies(0, 10).getTotal());
+        assertEquals(1, matchService.listOpenLobbies(0, 10).getLobbies().get(0).getPlayers());
+
+        Player joiner = mock(Player.class);
+        when(joiner.getUsername()).thenReturn("joinerG");
+        Match match = matchService.joinMatch(code, joiner);
+        assertEquals(2, matchService.listOpenLobbies(0, 10).getLobbies().get(0).getPlayers());
+
+        match.setStatus(MatchStatus.STARTED);
+        matchService.refreshLobby(match);
+        assertEquals(0, matchService.listOpenLobbies(0, 10).getTotal());
+    }
+
+    @Test
+    void refreshLobby_waitsForTheMatchLockSoItReadsTheLatestRoster() throws Exception {
+        Player host = new Player(1L, "hostR", "skin", null);
+        String code = matchService.createMatch(host).getCode();
+        Match match = matchService.getMatchByCode(code);
+
+        Thread refresher;
+        synchronized (match) {
+            refresher = new Thread(() -> matchService.refreshLobby(match));
+            refresher.start();
+            long deadline = System.currentTimeMillis() + 2000;
+            while (refresher.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(Thread.State.BLOCKED, refresher.getState());
+            // a join in progress under the lock
+            match.addPlayer(new Player(2L, "joinerR", "skin", null));
+        }
+        refresher.join(2000);
+
+        assertEquals(2, matchService.listOpenLobbies(0, 10).getLobbies().get(0).getPlayers());
+    }
+
+    @Test
+    void purgeExpired_removesMatchAndDirectoryEntry() throws Exception {
+        Player host = mock(Player.class);
+        when(host.getUsername()).thenReturn("hostH");
+        String code = matchService.createMatch(host).getCode();
+
+        Field matchesField = MatchService.class.getDeclaredField("matchesByCode");
+        matchesField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) matchesField.get(matchService);
+        Object storedMatch = map.get(code);
+        Field createdAtField = storedMatch.getClass().getDeclaredField("createdAtEpochSec");
+        createdAtField.setAccessible(true);
+        createdAtField.set(storedMatch, 0L);
+
+        assertEquals(1, matchService.purgeExpired());
+        assertFalse(map.containsKey(code));
+        assertEquals(0, matchService.listOpenLobbies(0, 10).getTotal());
+    }
+
+    @Test
+    void hibernateIdle_waitingLobby_rehydratesOnLookupWithSameRoster() {
+        String code = matchService.createMatch(new Player(1L, "hostI", "skin-a", null)).getCode();
+        matchService.joinMatch(code, new Player(2L, "guestI", null, null));
+        long version = matchService.getMatchByCode(code).getVersion();
+
+        assertEquals(1, matchService.hibernateIdle(0));
+        HibernationStats frozen = matchService.getHibernationStats();
+        assertEquals(1, frozen.getHibernatedLobbies());
+        assertTrue(frozen.getOffHeapBytes() > 0);
+        assertTrue(frozen.getEstimatedHeapBytesSaved() > 0);
+        // hibernated lobbies stay listed
+        assertEquals(1, matchService.listOpenLobbies(0, 10).getTotal());
+
+        Match thawed = matchService.getMatchByCode(code);
+        assertNotNull(thawed);
+        assertEquals(code, thawed.getCode());
+        assertEquals(version, thawed.getVersion());
+        assertEquals(MatchStatus.WAITING, thawed.getStatus());
+        assertEquals(2, thawed.getPlayers().size());
+        assertEquals("hostI", thawed.getPlayers().get(0).getUsername());
+        assertEquals("skin-a", thawed.getPlayers().get(0).getSkinId());
+        assertEquals(2L, thawed.getPlayers().get(1).getId());
+
+        HibernationStats after = matchService.getHibernationStats();
+        assertEquals(0, after.getHibernatedLobbies());
+        assertEquals(1, after.getHibernations());
+        assertEquals(1, after.getRehydrations());
+        assertEquals(0, after.getOffHeapBytes());
+    }
+
+    @Test
+    void hibernateIdle_rehydratedLobbyKeepsTheSessionsPlayers() {
+        AuthService authService = new AuthService();
+        MatchService registry = new MatchService(authService, 0, 1, 0, 600);
+        Player ana = authService.login("ana", "1234");
+        Player bruno = authService.login("bruno", "1234");
+        String code = registry.createMatch(ana).getCode();
+        registry.joinMatch(code, bruno);
+        authService.logout("bruno");
+
+        registry.hibernateIdle(0);
+        Match thawed = registry.getMatchByCode(code);
+
+        assertSame(ana, thawed.getPlayers().get(0));
+        // a player without a session is rebuilt from the snapshot
+        assertEquals("bruno", thawed.getPlayers().get(1).getUsername());
+        assertEquals(bruno.getId(), thawed.getPlayers().get(1).getId());
+        registry.shutdown();
+    }
+
+    @Test
+    void hibernateIdle_joinRehydratesAndAddsPlayer() {
+        String code = matchService.createMatch(new Player(1L, "hostJ", null, null)).getCode();
+        matchService.hibernateIdle(0);
+
+        Match joined = matchService.joinMatch(code, new Player(2L, "guestJ", null, null));
+
+        assertEquals(2, joined.getPlayers().size());
+        assertSame(joined, matchService.getMatchByCode(code));
+        assertEquals(1, matchService.getHibernationStats().getRehydrations());
+    }
+
+    @Test
+    void hibernateIdle_skipsStartedAndRecentlyActiveMatches() {
+        String started = matchService.createMatch(new Player(1L, "hostK", null, null)).getCode();
+        matchService.getMatchByCode(started).setStatus(MatchStatus.STARTED);
+        matchService.createMatch(new Player(2L, "hostL", null, null));
+
+        assertEquals(0, matchService.hibernateIdle(3600));
+        assertEquals(1, matchService.hibernateIdle(0));
+        assertEquals(1, matchService.getHibernationStats().getHibernatedLobbies());
+    }
+
+    @Test
+    void purgeExpired_hibernatedLobby_releasesOffHeapCopy() throws Exception {
+        String code = matchService.createMatch(new Player(1L, "hostM", null, null)).getCode();
+        matchService.hibernateIdle(0);
+
+        Field matchesField = MatchService.class.getDeclaredField("matchesByCode");
+        matchesField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) matchesField.get(matchService);
+        Object storedMatch = map.get(code);
+        Field createdAtField = storedMatch.getClass().getDeclaredField("createdAtEpochSec");
+        createdAtField.setAccessible(true);
+        createdAtField.set(storedMatch, 0L);
+
+        assertEquals(1, matchService.purgeExpired());
+        HibernationStats stats = matchService.getHibernationStats();
+        assertEquals(0, stats.getHibernatedLobbies());
+        assertEquals(0, stats.getOffHeapBytes());
+        assertEquals(0, stats.getEstimatedHeapBytesSaved());
+    }
+
+    @Test
+    void leaveMatch_removesPlayerAndDropsEmptyLobby() {
+        String code = matchService.createMatch(new Player(1L, "hostN", null, null)).getCode();
+        matchService.joinMatch(code, new Player(2L, "guestN", null, null));
+
+        Match after = matchService.leaveMatch(code, "guestN");
+        assertNotNull(after);
+        assertEquals(1, after.getPlayers().size());
+        assertNull(matchService.leaveMatch(code, "guestN"));
+
+        assertNull(matchService.leaveMatch(code, "hostN"));
+        assertNull(matchService.getMatchByCode(code));
+        assertEquals(0, matchService.listOpenLobbies(0, 10).getTotal());
+    }
+
+    @Test
+    void evictionListeners_seeExpiredAndEmptiedMatches() throws Exception {
+        List<String> evicted = new CopyOnWriteArrayList<>();
+        matchService.addEvictionListener(evicted::add);
+        String emptied = matchService.createMatch(new Player(1L, "hostO", null, null)).getCode();
+        String expired = matchService.createMatch(new Player(2L, "hostP", null, null)).getCode();
+
+        matchService.leaveMatch(emptied, "hostO");
+
+        Field matchesField = MatchService.class.getDeclaredField("matchesByCode");
+        matchesField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) matchesField.get(matchService);
+        Field createdAtField = map.get(expired).getClass().getDeclaredField("createdAtEpochSec");
+        createdAtField.setAccessible(true);
+        createdAtField.set(map.get(expired), 0L);
+        matchService.purgeExpired();
+
+        assertEquals(List.of(emptied, expired), evicted);
+    }
 }
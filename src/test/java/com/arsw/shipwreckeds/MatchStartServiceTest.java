@@ -0,0 +1,84 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.service.ActionRejectedException;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.GameEngine;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.MatchStartService;
+import com.arsw.shipwreckeds.service.NpcService;
+import com.arsw.shipwreckeds.service.RoleService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para MatchStartService.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class MatchStartServiceTest {
+
+    @Test
+    void start_setsUpRolesNpcsSpawnsBroadcastsAndStartsTicker() {
+        MatchService matchService = new MatchService();
+        AuthService authService = spy(new AuthService());
+        RoleService roleService = spy(new RoleService());
+        NpcService npcService = spy(new NpcService());
+        GameEngine gameEngine = mock(GameEngine.class);
+        WebSocketController ws = mock(WebSocketController.class);
+        MatchStartService starter = new MatchStartService(matchService, authService, roleService, npcService,
+                gameEngine, ws, IslandMap.defaultIsland());
+        Player host = new Player(1L, "host", "skin", null);
+        String code = matchService.createMatch(host).getCode();
+        for (long i = 2; i <= 5; i++) {
+            matchService.joinMatch(code, new Player(i, "p" + i, "skin", null));
+        }
+        Match match = matchService.getMatchByCode(code);
+        match.adjustFuel(30.0);
+
+        starter.start(match);
+
+        assertEquals(MatchStatus.STARTED, match.getStatus());
+        assertNotNull(match.getInfiltrator());
+        assertEquals(3, match.getNpcs().size());
+        assertTrue(match.getPlayers().stream().allMatch(p -> p.getPosition() != null));
+        assertTrue(match.getNpcs().stream().allMatch(n -> n.getPosition() != null));
+        assertEquals(0.0, match.getFuelPercentage());
+        verify(roleService).assignHumanRoles(match);
+        verify(npcService).generateNpcs(match);
+        verify(authService).bindMatch(match);
+        verify(ws).broadcastLobbyUpdate(match);
+        verify(gameEngine).publishGameState(eq(match), any());
+        verify(gameEngine).startMatchTicker(match);
+    }
+
+    @Test
+    void start_twice_rejectsTheSecondStartWithConflict() {
+        MatchService matchService = new MatchService();
+        RoleService roleService = spy(new RoleService());
+        GameEngine gameEngine = mock(GameEngine.class);
+        MatchStartService starter = new MatchStartService(matchService, new AuthService(), roleService,
+                new NpcService(), gameEngine, mock(WebSocketController.class), IslandMap.defaultIsland());
+        String code = matchService.createMatch(new Player(1L, "host", "skin", null)).getCode();
+        for (long i = 2; i <= 5; i++) {
+            matchService.joinMatch(code, new Player(i, "p" + i, "skin", null));
+        }
+        Match match = matchService.getMatchByCode(code);
+        starter.start(match);
+
+        ActionRejectedException e = assertThrows(ActionRejectedException.class, () -> starter.start(match));
+
+        assertEquals(409, e.getStatus());
+        verify(roleService, times(1)).assignHumanRoles(match);
+        verify(gameEngine, times(1)).startMatchTicker(match);
+    }
+}
@@ -0,0 +1,200 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.dto.MatchAssignment;
+import com.arsw.shipwreckeds.model.dto.MatchmakingStats;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.GameEngine;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.MatchStartService;
+import com.arsw.shipwreckeds.service.MatchmakingService;
+import com.arsw.shipwreckeds.service.NpcService;
+import com.arsw.shipwreckeds.service.RoleService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para MatchmakingService.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class MatchmakingServiceTest {
+
+    private MatchService matchService;
+    private AuthService authService;
+    private GameEngine gameEngine;
+    private WebSocketController webSocketController;
+    private MatchmakingService matchmakingService;
+
+    @BeforeEach
+    void setUp() {
+        matchService = new MatchService();
+        authService = new AuthService();
+        gameEngine = mock(GameEngine.class);
+        webSocketController = mock(WebSocketController.class);
+        matchmakingService = newMatchmaking(matchService);
+    }
+
+    private MatchmakingService newMatchmaking(MatchService registry) {
+        MatchStartService starter = new MatchStartService(registry, authService, new RoleService(), new NpcService(),
+                gameEngine, webSocketController, IslandMap.defaultIsland());
+        return new MatchmakingService(registry, authService, starter, webSocketController, 250);
+    }
+
+    @AfterEach
+    void tearDown() {
+        matchmakingService.shutdown();
+    }
+
+    private static Player player(long id) {
+        return new Player(id, "p" + id, "default-skin", null);
+    }
+
+    @Test
+    void planLobbySizes_distributesEvenlyWithinBounds() {
+        assertArrayEquals(new int[0], MatchmakingService.planLobbySizes(4));
+        assertArrayEquals(new int[] { 5 }, MatchmakingService.planLobbySizes(5));
+        assertArrayEquals(new int[] { 8 }, MatchmakingService.planLobbySizes(9));
+        assertArrayEquals(new int[] { 5, 5 }, MatchmakingService.planLobbySizes(10));
+        assertArrayEquals(new int[] { 7, 6 }, MatchmakingService.planLobbySizes(13));
+        assertArrayEquals(new int[] { 8, 8, 8 }, MatchmakingService.planLobbySizes(24));
+    }
+
+    @Test
+    void processQueue_notEnoughPlayers_keepsThemQueued() {
+        for (long i = 1; i <= 4; i++) {
+            matchmakingService.enqueue(player(i));
+        }
+
+        assertEquals(0, matchmakingService.processQueue());
+        assertTrue(matchmakingService.isQueued("p1"));
+        assertEquals(4, matchmakingService.getStats().getQueued());
+        verifyNoInteractions(gameEngine);
+    }
+
+    @Test
+    void processQueue_formsAndStartsLobbies() {
+        for (long i = 1; i <= 13; i++) {
+            matchmakingService.enqueue(player(i));
+        }
+
+        assertEquals(2, matchmakingService.processQueue());
+
+        ArgumentCaptor<Match> started = ArgumentCaptor.forClass(Match.class);
+        verify(gameEngine, times(2)).startMatchTicker(started.capture());
+        for (Match m : started.getAllValues()) {
+            assertEquals(MatchStatus.STARTED, m.getStatus());
+            assertNotNull(m.getInfiltrator());
+            assertTrue(m.getPlayers().stream().allMatch(p -> p.getPosition() != null));
+        }
+        verify(webSocketController, times(13)).broadcastMatchAssignment(anyString(), any(MatchAssignment.class));
+
+        MatchmakingStats stats = matchmakingService.getStats();
+        assertEquals(0, stats.getQueued());
+        assertEquals(13, stats.getMatched());
+        assertEquals(2, stats.getLobbiesFormed());
+        assertEquals(1.0, stats.getBatchEfficiency(), 1e-9);
+        assertFalse(matchmakingService.isQueued("p1"));
+    }
+
+    @Test
+    void processQueue_leftoverPlayersWaitForNextBatch() {
+        for (long i = 1; i <= 9; i++) {
+            matchmakingService.enqueue(player(i));
+        }
+
+        assertEquals(1, matchmakingService.processQueue());
+        // the newest player did not fit and keeps their ticket
+        assertTrue(matchmakingService.isQueued("p9"));
+        assertFalse(matchmakingService.isQueued("p1"));
+        assertEquals(1, matchmakingService.getStats().getQueued());
+    }
+
+    @Test
+    void enqueue_twice_throws() {
+        Player p = player(1);
+        matchmakingService.enqueue(p);
+        assertThrows(IllegalArgumentException.class, () -> matchmakingService.enqueue(p));
+    }
+
+    @Test
+    void cancel_removesTicketBeforeBatch() {
+        List<Player> players = List.of(player(1), player(2), player(3), player(4), player(5));
+        players.forEach(matchmakingService::enqueue);
+
+        assertTrue(matchmakingService.cancel("p3"));
+        assertFalse(matchmakingService.cancel("p3"));
+
+        assertEquals(0, matchmakingService.processQueue());
+        assertEquals(1, matchmakingService.getStats().getCancelled());
+        assertEquals(4, matchmakingService.getStats().getQueued());
+    }
+
+    @Test
+    void enqueue_playerInAWaitingLobby_throws() {
+        Player ana = authService.login("ana", "1234");
+        String code = matchService.createMatch(ana).getCode();
+        authService.enterLobby("ana", code);
+
+        assertThrows(IllegalArgumentException.class, () -> matchmakingService.enqueue(ana));
+        assertFalse(matchmakingService.isQueued("ana"));
+
+        // once the lobby is left the player may queue again
+        matchService.leaveMatch(code, "ana");
+        matchmakingService.enqueue(ana);
+        assertTrue(matchmakingService.isQueued("ana"));
+    }
+
+    @Test
+    void processQueue_recordsTheLobbyOnEachSession() {
+        List<String> names = List.of("ana", "bruno", "carla", "diego", "eva");
+        for (String name : names) {
+            matchmakingService.enqueue(authService.login(name, "1234"));
+        }
+
+        assertEquals(1, matchmakingService.processQueue());
+
+        ArgumentCaptor<MatchAssignment> assignment = ArgumentCaptor.forClass(MatchAssignment.class);
+        verify(webSocketController).broadcastMatchAssignment(eq("ana"), assignment.capture());
+        for (String name : names) {
+            assertEquals(assignment.getValue().getCode(), authService.getSession(name).getLobbyCode());
+        }
+        // players in the running match cannot be placed a second time
+        assertThrows(IllegalArgumentException.class, () -> matchmakingService.enqueue(authService.getPlayer("ana")));
+    }
+
+    @Test
+    void processQueue_failedJoin_dropsTheHalfFilledLobby() {
+        MatchService registry = spy(new MatchService());
+        matchmakingService.shutdown();
+        matchmakingService = newMatchmaking(registry);
+        doThrow(new IllegalArgumentException("La partida está llena."))
+                .when(registry).joinMatch(anyString(), argThat(p -> "p4".equals(p.getUsername())));
+        for (long i = 1; i <= 5; i++) {
+            matchmakingService.enqueue(player(i));
+        }
+
+        assertEquals(0, matchmakingService.processQueue());
+
+        assertEquals(0, registry.getHibernationStats().getRegisteredMatches());
+        assertEquals(0, registry.listOpenLobbies(0, 10).getTotal());
+        assertEquals(5, matchmakingService.getStats().getQueued());
+        assertTrue(matchmakingService.isQueued("p1"));
+        verifyNoInteractions(gameEngine);
+        registry.shutdown();
+    }
+}
@@ -0,0 +1,96 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.model.Npc;
+import com.arsw.shipwreckeds.model.Position;
+import com.arsw.shipwreckeds.service.NpcBehavior;
+import com.arsw.shipwreckeds.service.NpcBehaviors;
+import com.arsw.shipwreckeds.service.NpcBrain;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para NpcBrain.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class NpcBrainTest {
+
+    private static final NpcBehavior.World EMPTY_ISLAND = new NpcBehavior.World(100.0, 112.0, 0.0);
+
+    private static Npc npc(double movementSpeed) {
+        return new Npc(1L, "skin", new Position(0.0, 0.0), movementSpeed, false);
+    }
+
+    private static NpcBrain brainWith(String behaviors) {
+        return new NpcBrain(NpcBehaviors.parse(behaviors), 45.0, 4000, 64);
+    }
+
+    @Test
+    void parse_rejectsUnknownBehaviorAndDefaultsToAll() {
+        assertThrows(IllegalArgumentException.class, () -> NpcBehaviors.parse("wander,bailar"));
+        assertEquals(List.of("wander", "idle", "follow-crowd", "visit-boat"),
+                NpcBehaviors.parse(" ").stream().map(NpcBehavior::name).toList());
+    }
+
+    @Test
+    void idle_holdsInPlaceForTwoToSixSeconds() {
+        NpcBrain brain = brainWith(NpcBehaviors.IDLE);
+        NpcBehavior.Plan plan = new NpcBehavior.Plan();
+        for (int i = 0; i < 50; i++) {
+            brain.plan(npc(0.2), 10.0, -5.0, 0.6, EMPTY_ISLAND, plan);
+            assertEquals(10.0, plan.targetX());
+            assertEquals(-5.0, plan.targetY());
+            assertEquals(0.0, plan.speed());
+            assertTrue(plan.holdMs() >= 2000 && plan.holdMs() <= 6000);
+        }
+    }
+
+    @Test
+    void followCrowd_onlyWithViewersAndEndsNextToOne() {
+        NpcBehavior behavior = NpcBehaviors.parse(NpcBehaviors.FOLLOW_CROWD).get(0);
+        assertEquals(0.0, behavior.weight(npc(0.4), 0.0, 0.0, EMPTY_ISLAND));
+
+        // without viewers nothing applies: the NPC waits
+        NpcBrain brain = brainWith(NpcBehaviors.FOLLOW_CROWD);
+        NpcBehavior.Plan plan = new NpcBehavior.Plan();
+        brain.plan(npc(0.4), 3.0, 4.0, 1.2, EMPTY_ISLAND, plan);
+        assertEquals(0.0, plan.speed());
+        assertTrue(plan.holdMs() > 0);
+    }
+
+    @Test
+    void visitBoat_targetsTheShoreByTheBoatInsideTheIsland() {
+        NpcBrain brain = brainWith(NpcBehaviors.VISIT_BOAT);
+        NpcBehavior.Plan plan = new NpcBehavior.Plan();
+        for (int i = 0; i < 50; i++) {
+            brain.plan(npc(0.4), 0.0, 0.0, 1.2, EMPTY_ISLAND, plan);
+            assertTrue(plan.targetX() > 75.0, "x=" + plan.targetX());
+            assertTrue(Math.hypot(plan.targetX(), plan.targetY()) <= 90.0 + 1e-9);
+            assertEquals(1.2, plan.speed());
+        }
+    }
+
+    @Test
+    void idleWeight_growsForSlowerNpcs() {
+        NpcBehavior idle = NpcBehaviors.parse(NpcBehaviors.IDLE).get(0);
+        double slow = idle.weight(npc(0.15), 0.0, 0.0, EMPTY_ISLAND);
+        double quick = idle.weight(npc(0.8), 0.0, 0.0, EMPTY_ISLAND);
+        assertEquals(1.0, slow, 1e-12);
+        assertEquals(0.3, quick, 1e-12);
+    }
+
+    @Test
+    void isDue_nearAlwaysFarOnlyOnceTheIntervalElapsed() {
+        NpcBrain brain = brainWith(null);
+        assertTrue(brain.isDue(true, 0.0, 1.0));
+        assertFalse(brain.isDue(false, 2.0, 1.0));
+        assertTrue(brain.isDue(false, 3.0, 1.0));
+
+        NpcBrain everyTick = new NpcBrain(NpcBehaviors.parse(null), 45.0, 0, 64);
+        assertTrue(everyTick.isDue(false, 0.0, 1.0));
+    }
+}
@@ -0,0 +1,106 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.dto.NavStats;
+import com.arsw.shipwreckeds.service.NavGrid;
+import com.arsw.shipwreckeds.service.NpcNavigator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para NpcNavigator.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class NpcNavigatorTest {
+
+    // a wall across the middle of the island with gaps near the shore
+    private static IslandMap walled() {
+        IslandMap map = IslandMap.defaultIsland();
+        map.getObstacles().add(IslandMap.Obstacle.rect("muro", 0.0, 0.0, 4.0, 120.0));
+        return map;
+    }
+
+    private static void assertWalkableRoute(IslandMap map, double fromX, double fromY, double[] route) {
+        NavGrid grid = new NavGrid(map, NpcNavigator.CELL_SIZE, NpcNavigator.CLEARANCE);
+        double x = fromX;
+        double y = fromY;
+        for (int i = 0; i < route.length; i += 2) {
+            assertTrue(grid.lineOfSight(x, y, route[i], route[i + 1]),
+                    "tramo bloqueado hacia (" + route[i] + ", " + route[i + 1] + ")");
+            x = route[i];
+            y = route[i + 1];
+        }
+    }
+
+    @Test
+    void route_inTheOpenIsAStraightLineWithoutSearch() {
+        NpcNavigator navigator = new NpcNavigator();
+
+        double[] route = navigator.route(-10.0, 5.0, 30.0, -20.0);
+
+        assertArrayEquals(new double[] { 30.0, -20.0 }, route, 0.0);
+        NavStats stats = navigator.getStats();
+        assertEquals(1, stats.getDirect());
+        assertEquals(0, stats.getExpandedCells());
+    }
+
+    @Test
+    void route_goesAroundTheWallAndEndsAtTheGoal() {
+        IslandMap map = walled();
+        NpcNavigator navigator = new NpcNavigator(map, 2.0, 8.0, 64);
+
+        double[] route = navigator.route(-30.0, 0.0, 30.0, 0.0);
+
+        assertTrue(route.length >= 4, "se esperaba al menos un desvío");
+        assertEquals(30.0, route[route.length - 2], 1e-9);
+        assertEquals(0.0, route[route.length - 1], 1e-9);
+        assertWalkableRoute(map, -30.0, 0.0, route);
+    }
+
+    @Test
+    void route_nearbyStartsAndGoalsShareTheCachedPath() {
+        NpcNavigator navigator = new NpcNavigator(walled(), 2.0, 8.0, 64);
+
+        navigator.route(-30.0, 0.0, 30.0, 0.0);
+        long expanded = navigator.getStats().getExpandedCells();
+        double[] again = navigator.route(-29.0, 1.0, 31.0, -1.0);
+
+        NavStats stats = navigator.getStats();
+        assertEquals(1, stats.getCacheMisses());
+        assertEquals(1, stats.getCacheHits());
+        assertEquals(expanded, stats.getExpandedCells(), "la segunda ruta no debió buscar");
+        assertEquals(1, stats.getCachedPaths());
+        assertWalkableRoute(walled(), -29.0, 1.0, again);
+    }
+
+    @Test
+    void route_cacheMissRunsASingleSearch() {
+        NpcNavigator navigator = new NpcNavigator(walled(), 2.0, 8.0, 64);
+        NavGrid grid = new NavGrid(walled(), 2.0, NpcNavigator.CLEARANCE);
+        grid.findPath(grid.nearestWalkable(-30.0, 0.0), grid.nearestWalkable(30.0, 0.0));
+
+        navigator.route(-30.0, 0.0, 30.0, 0.0);
+
+        NavStats stats = navigator.getStats();
+        assertEquals(1, stats.getCacheMisses());
+        assertEquals(1, stats.getExactSearches());
+        assertEquals(grid.getExpanded(), stats.getExpandedCells());
+        assertEquals(1, stats.getCachedPaths());
+    }
+
+    @Test
+    void route_goalInsideAnObstacleIsMovedToTheClosestWalkableCell() {
+        IslandMap map = walled();
+        NpcNavigator navigator = new NpcNavigator(map, 2.0, 8.0, 64);
+
+        double[] route = navigator.route(-30.0, 10.0, 0.0, 10.0);
+
+        double gx = route[route.length - 2];
+        double gy = route[route.length - 1];
+        assertTrue(map.isWalkable(gx, gy, NpcNavigator.CLEARANCE - NpcNavigator.CELL_SIZE), gx + ", " + gy);
+        assertTrue(Math.abs(gx) <= 2.0 + NpcNavigator.CLEARANCE + NpcNavigator.CELL_SIZE);
+    }
+}
@@ -65,6 +65,41 @@ class NpcServiceTest {
         }
     }
 
+    @Test
+    void generateNpcs_drawsTheDisguiseIdAmongTheNpcIds() {
+        Match match = new Match(1L, "DISG01");
+        for (long id = 1; id <= 6; id++) {
+            match.getPlayers().add(new Player(id, "p" + id, null, null));
+        }
+        match.setInfiltrator(match.getPlayers().get(2));
+
+        npcService.generateNpcs(match);
+
+        Long disguiseId = match.getInfiltratorDisguiseId();
+        assertNotNull(disguiseId, "El infiltrado debe recibir un id de disfraz");
+        java.util.TreeSet<Long> ids = new java.util.TreeSet<>();
+        for (Npc npc : match.getNpcs()) {
+            ids.add(npc.getId());
+        }
+        assertEquals(4, ids.size());
+        assertTrue(ids.add(disguiseId), "El id del disfraz no debe coincidir con el de un NPC");
+        assertTrue(disguiseId >= 100000, "El id del disfraz debe estar en el rango de los NPC");
+        assertEquals(ids.first() + ids.size() - 1, ids.last(), "Los ids de NPC y disfraz deben ser consecutivos");
+    }
+
+    @Test
+    void generateNpcs_withoutInfiltrator_drawsNoDisguise() {
+        Match match = new Match(1L, "DISG02");
+        for (long id = 1; id <= 5; id++) {
+            match.getPlayers().add(new Player(id, "p" + id, null, null));
+        }
+
+        npcService.generateNpcs(match);
+
+        assertNull(match.getInfiltratorDisguiseId());
+        assertEquals(3, match.getNpcs().size());
+    }
+
     @Test
     void generateNpcs_nullMatch_doesNothing() {
         assertDoesNotThrow(() -> npcService.generateNpcs(null), "No debe lanzar excepción si el match es null");
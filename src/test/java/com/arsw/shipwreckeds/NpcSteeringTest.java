@@ -0,0 +1,104 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.service.NpcSteering;
+import com.arsw.shipwreckeds.service.NpcSwarm;
+import com.arsw.shipwreckeds.service.ScalarNpcSteering;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Pruebas unitarias para NpcSteering.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class NpcSteeringTest {
+
+    private static final double MAX_RADIUS = 98.0;
+
+    /**
+     * Mix of walking, arrived, inactive and edge-bound NPCs; the odd size leaves
+     * a scalar tail after the vector lanes.
+     */
+    private static NpcSwarm swarm(int n, long seed) {
+        Random random = new Random(seed);
+        NpcSwarm swarm = new NpcSwarm(4);
+        swarm.resize(n);
+        for (int i = 0; i < n; i++) {
+            double x = random.nextDouble(-60, 60);
+            double y = random.nextDouble(-60, 60);
+            double tx = random.nextDouble(-90, 90);
+            double ty = random.nextDouble(-90, 90);
+            switch (i % 7) {
+                case 0 -> { // arrived
+                    tx = x + 0.3;
+                    ty = y - 0.2;
+                }
+                case 1 -> { // next step would cross the edge
+                    x = 96.5;
+                    y = 0.0;
+                    tx = 150.0;
+                    ty = 0.0;
+                }
+                default -> {
+                }
+            }
+            swarm.set(i, x, y, tx, ty, random.nextDouble(0.45, 1.65), i % 11 != 0);
+        }
+        return swarm;
+    }
+
+    @Test
+    void scalarKernel_followsSteeringRules() {
+        NpcSwarm swarm = new NpcSwarm(3);
+        swarm.resize(3);
+        swarm.set(0, 0.0, 0.0, 10.0, 0.0, 1.5, true);
+        swarm.set(1, 5.0, 5.0, 5.5, 5.0, 1.5, true);
+        swarm.set(2, 0.0, 0.0, 10.0, 0.0, 1.5, false);
+
+        new ScalarNpcSteering().step(swarm, 1.0, MAX_RADIUS);
+
+        assertEquals(1.5, swarm.x(0), 1e-12);
+        assertFalse(swarm.needsTarget(0));
+        assertEquals(5.0, swarm.x(1));
+        assertTrue(swarm.needsTarget(1));
+        assertEquals(0.0, swarm.x(2));
+        assertFalse(swarm.needsTarget(2));
+    }
+
+    @Test
+    void vectorKernel_matchesScalarBitForBit() {
+        NpcSteering vector = NpcSteering.create("vector");
+        assumeTrue("vector".equals(vector.name()), "el kernel vectorial solo se compila con -Pvector");
+        NpcSteering scalar = NpcSteering.create("scalar");
+        NpcSwarm a = swarm(1003, 42);
+        NpcSwarm b = swarm(1003, 42);
+
+        for (int tick = 0; tick < 50; tick++) {
+            vector.step(a, 1.0, MAX_RADIUS);
+            scalar.step(b, 1.0, MAX_RADIUS);
+            for (int i = 0; i < a.size(); i++) {
+                assertEquals(b.x(i), a.x(i), 0.0);
+                assertEquals(b.y(i), a.y(i), 0.0);
+                assertEquals(b.needsTarget(i), a.needsTarget(i));
+            }
+        }
+    }
+
+    @Test
+    void resize_keepsExistingSlots() {
+        NpcSwarm swarm = new NpcSwarm(2);
+        swarm.resize(2);
+        swarm.set(1, 3.0, 4.0, 0.0, 0.0, 1.0, true);
+
+        swarm.resize(100);
+
+        assertEquals(100, swarm.size());
+        assertEquals(3.0, swarm.x(1));
+        assertEquals(4.0, swarm.y(1));
+    }
+}
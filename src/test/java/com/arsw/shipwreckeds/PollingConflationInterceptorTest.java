@@ -0,0 +1,137 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.PollingConflationInterceptor;
+import com.arsw.shipwreckeds.config.TransportMetrics;
+import com.arsw.shipwreckeds.util.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para PollingConflationInterceptor.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class PollingConflationInterceptorTest {
+
+    private TransportMetrics metrics;
+    private PollingConflationInterceptor interceptor;
+    private MessageChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new TransportMetrics();
+        interceptor = new PollingConflationInterceptor(metrics, 200);
+        channel = mock(MessageChannel.class);
+        metrics.opened("poll", TransportMetrics.SOCKJS_POLLING);
+        metrics.opened("ws", TransportMetrics.WEBSOCKET);
+    }
+
+    @AfterEach
+    void tearDown() {
+        interceptor.shutdown();
+    }
+
+    private static Message<byte[]> frame(String sessionId, String destination, String payload, boolean priority) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        if (priority)
+            accessor.setNativeHeader(Constants.WS_HEADER_PRIORITY, "high");
+        return MessageBuilder.createMessage(payload.getBytes(), accessor.getMessageHeaders());
+    }
+
+    @Test
+    void nonPollingSession_passesEverySnapshot() {
+        for (int i = 0; i < 5; i++) {
+            Message<byte[]> m = frame("ws", "/topic/game/ABC", "s" + i, false);
+            assertSame(m, interceptor.preSend(m, channel));
+        }
+        assertEquals(0, interceptor.getStats().getStateFrames());
+    }
+
+    @Test
+    void pollingSession_deliversOnlyNewestSnapshotPerWindow() {
+        Message<byte[]> first = frame("poll", "/topic/game/ABC", "s0", false);
+        assertSame(first, interceptor.preSend(first, channel));
+        assertNull(interceptor.preSend(frame("poll", "/topic/game/ABC", "s1", false), channel));
+        assertNull(interceptor.preSend(frame("poll", "/topic/game/ABC", "s2", false), channel));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<?>> flushed = ArgumentCaptor.forClass(Message.class);
+        verify(channel, timeout(2000)).send(flushed.capture());
+        assertEquals("s2", new String((byte[]) flushed.getValue().getPayload()));
+        // the flushed frame is not conflated a second time
+        assertSame(flushed.getValue(), interceptor.preSend(flushed.getValue(), channel));
+        assertEquals(3, interceptor.getStats().getStateFrames());
+        assertEquals(2, interceptor.getStats().getDelivered());
+        assertEquals(1, interceptor.getStats().getConflated());
+    }
+
+    @Test
+    void eventFrame_passesAndFlushesPendingSnapshotFirst() {
+        interceptor.preSend(frame("poll", "/topic/game/ABC", "s0", false), channel);
+        assertNull(interceptor.preSend(frame("poll", "/topic/game/ABC", "s1", false), channel));
+
+        Message<byte[]> vote = frame("poll", "/topic/game/ABC/vote/start", "vote", false);
+        Message<?> out = interceptor.preSend(vote, channel);
+
+        // the pending snapshot went out before the vote frame was released
+        verify(channel).send(any());
+        assertSame(vote, out);
+        // and the scheduled flush finds nothing left to send
+        verify(channel, after(400).times(1)).send(any());
+    }
+
+    @Test
+    void priorityState_isNeverHeldBack() {
+        interceptor.preSend(frame("poll", "/topic/game/ABC", "s0", false), channel);
+        Message<byte[]> last = frame("poll", "/topic/game/ABC", "final", true);
+
+        assertSame(last, interceptor.preSend(last, channel));
+    }
+
+    @Test
+    void closedSession_releasesItsSlots() {
+        interceptor.preSend(frame("poll", "/topic/game/ABC", "s0", false), channel);
+        assertEquals(1, interceptor.getStats().getSessions());
+
+        metrics.closed("poll");
+
+        assertEquals(0, interceptor.getStats().getSessions());
+    }
+
+    @Test
+    void pollingSession_conflatesItsOwnFoggedViews() {
+        Message<byte[]> first = userFrame("s0");
+        assertSame(first, interceptor.preSend(first, channel));
+        assertNull(interceptor.preSend(userFrame("s1"), channel));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<?>> flushed = ArgumentCaptor.forClass(Message.class);
+        verify(channel, timeout(2000)).send(flushed.capture());
+        assertEquals("s1", new String((byte[]) flushed.getValue().getPayload()));
+        assertEquals(1, interceptor.getStats().getSessions());
+    }
+
+    // a /user/queue/game frame as the broker hands it to the client channel
+    private static Message<byte[]> userFrame(String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("poll");
+        accessor.setDestination("/queue/game-userpoll");
+        accessor.setHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION,
+                Constants.WS_USER_PREFIX + Constants.WS_QUEUE_GAME);
+        return MessageBuilder.createMessage(payload.getBytes(), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,173 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.MatchmakingService;
+import com.arsw.shipwreckeds.service.PresenceService;
+import com.arsw.shipwreckeds.service.RateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para PresenceService.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class PresenceServiceTest {
+
+    private static final long GRACE_SECONDS = 30;
+    private static final long LOGIN_GRACE_SECONDS = 900;
+
+    private AuthService authService;
+    private MatchService matchService;
+    private MatchmakingService matchmakingService;
+    private WebSocketController webSocketController;
+    private RateLimiter rateLimiter;
+    private PresenceService presenceService;
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService();
+        matchService = new MatchService();
+        matchmakingService = mock(MatchmakingService.class);
+        webSocketController = mock(WebSocketController.class);
+        rateLimiter = mock(RateLimiter.class);
+        presenceService = new PresenceService(authService, matchService, matchmakingService, webSocketController,
+                rateLimiter, GRACE_SECONDS, LOGIN_GRACE_SECONDS);
+    }
+
+    private PlayerSession loginAndConnect(String username, String stompId) {
+        authService.login(username, "1234");
+        PlayerSession session = authService.getSession(username);
+        presenceService.connected(stompId, session);
+        return session;
+    }
+
+    private static long afterGrace() {
+        return System.currentTimeMillis() + GRACE_SECONDS * 1000 + 1;
+    }
+
+    @Test
+    void connectedSession_isNeverReaped() {
+        loginAndConnect("ana", "s1");
+
+        assertEquals(0, presenceService.reapExpired(afterGrace()));
+        assertNotNull(authService.getSession("ana"));
+        assertEquals(1, presenceService.getOpenConnections());
+    }
+
+    @Test
+    void disconnectedSession_isReapedAfterGraceAndLeavesLobby() {
+        Player host = authService.login("bruno", "1234");
+        String code = matchService.createMatch(host).getCode();
+        authService.enterLobby("bruno", code);
+        PlayerSession guest = loginAndConnect("carla", "s2");
+        matchService.joinMatch(code, guest.getPlayer());
+        authService.enterLobby("carla", code);
+        presenceService.connected("s1", authService.getSession("bruno"));
+
+        presenceService.disconnected("s2");
+        // still inside the window
+        assertEquals(0, presenceService.reapExpired(System.currentTimeMillis()));
+
+        assertEquals(1, presenceService.reapExpired(afterGrace()));
+        assertNull(authService.getSession("carla"));
+        assertNull(authService.authenticate(guest.getToken()));
+        Match lobby = matchService.getMatchByCode(code);
+        assertEquals(1, lobby.getPlayers().size());
+        verify(matchmakingService).cancel("carla");
+        verify(rateLimiter).forget("carla");
+        verify(webSocketController).broadcastLobbyUpdate(lobby);
+        assertEquals(1, presenceService.getReaped());
+    }
+
+    @Test
+    void repeatedDisconnectEvents_areIdempotent() {
+        PlayerSession session = loginAndConnect("diego", "s1");
+        presenceService.connected("s2", session);
+
+        presenceService.disconnected("s1");
+        presenceService.disconnected("s1");
+
+        assertTrue(session.isOnline());
+        assertEquals(0, presenceService.reapExpired(afterGrace()));
+    }
+
+    @Test
+    void disconnectInRunningMatch_marksAfkAndReconnectClearsIt() {
+        PlayerSession session = loginAndConnect("eva", "s1");
+        Match match = new Match(1L, "AFK001");
+        match.addPlayer(session.getPlayer());
+        match.setStatus(MatchStatus.STARTED);
+        authService.bindMatch(match);
+
+        presenceService.disconnected("s1");
+        assertTrue(session.getPlayer().isAfk());
+
+        presenceService.connected("s3", session);
+        assertFalse(session.getPlayer().isAfk());
+    }
+
+    @Test
+    void disconnectDuringMeeting_marksAfk() {
+        PlayerSession session = loginAndConnect("galo", "s1");
+        Match match = new Match(2L, "AFK002");
+        match.addPlayer(session.getPlayer());
+        match.setStatus(MatchStatus.IN_MEETING);
+        authService.bindMatch(match);
+
+        presenceService.disconnected("s1");
+        assertTrue(session.getPlayer().isAfk());
+
+        presenceService.connected("s2", session);
+        assertFalse(session.getPlayer().isAfk());
+    }
+
+    @Test
+    void reloginDuringGrace_resumesSameSession() {
+        PlayerSession session = loginAndConnect("fran", "s1");
+        String oldToken = session.getToken();
+        presenceService.disconnected("s1");
+
+        Player resumed = authService.login("fran", "1234");
+
+        assertSame(session.getPlayer(), resumed);
+        assertSame(session, authService.getSession("fran"));
+        assertNotEquals(oldToken, session.getToken());
+        assertNull(authService.authenticate(oldToken));
+        assertSame(session, authService.authenticate(session.getToken()));
+    }
+
+    @Test
+    void loginWithoutConnection_usesLoginGrace() {
+        authService.login("galo", "1234");
+
+        assertEquals(0, presenceService.reapExpired(afterGrace()));
+        assertEquals(1, presenceService.reapExpired(System.currentTimeMillis() + LOGIN_GRACE_SECONDS * 1000 + 1));
+        assertNull(authService.getSession("galo"));
+        verify(webSocketController, never()).broadcastLobbyUpdate(any());
+    }
+
+    @Test
+    void restActivity_keepsAnUnconnectedSessionAlive() {
+        authService.login("helen", "1234");
+        PlayerSession session = authService.getSession("helen");
+        long loginGraceEnd = System.currentTimeMillis() + LOGIN_GRACE_SECONDS * 1000 + 1;
+
+        // an authenticated REST call shortly before the login grace runs out
+        session.touch(loginGraceEnd - 1000);
+
+        assertEquals(0, presenceService.reapExpired(loginGraceEnd));
+        assertSame(session, authService.getSession("helen"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.RateLimitInterceptor;
+import com.arsw.shipwreckeds.service.RateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pruebas unitarias para RateLimitInterceptor.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class RateLimitInterceptorTest {
+
+    private RateLimiter rateLimiter;
+    private RateLimitInterceptor interceptor;
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter(100, 60);
+        interceptor = new RateLimitInterceptor(rateLimiter);
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String destination, Principal user, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void moveFlood_isDroppedAfterBurst() {
+        Principal ana = () -> "ana";
+        int passed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (interceptor.preSend(frame(SimpMessageType.MESSAGE, "/app/game/ABC/move", ana, "s1"), channel) != null)
+                passed++;
+        }
+        assertEquals(4, passed);
+        assertEquals(16L, rateLimiter.getStats().getRejectedByAction().get("MOVE"));
+    }
+
+    @Test
+    void otherMessages_useGenericBudget() {
+        Principal ana = () -> "ana";
+        for (int i = 0; i < 4; i++) {
+            interceptor.preSend(frame(SimpMessageType.MESSAGE, "/app/game/ABC/move", ana, "s1"), channel);
+        }
+        assertNotNull(interceptor.preSend(frame(SimpMessageType.MESSAGE, "/app/game/ABC/chat", ana, "s1"), channel));
+    }
+
+    @Test
+    void anonymousConnections_areKeyedBySessionId() {
+        for (int i = 0; i < 4; i++) {
+            interceptor.preSend(frame(SimpMessageType.MESSAGE, "/app/game/ABC/move", null, "s1"), channel);
+        }
+        assertNull(interceptor.preSend(frame(SimpMessageType.MESSAGE, "/app/game/ABC/move", null, "s1"), channel));
+        assertNotNull(interceptor.preSend(frame(SimpMessageType.MESSAGE, "/app/game/ABC/move", null, "s2"), channel));
+    }
+
+    @Test
+    void nonMessageFrames_areNotLimited() {
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(interceptor.preSend(frame(SimpMessageType.SUBSCRIBE, "/topic/game/ABC", null, "s1"), channel));
+        }
+        assertEquals(0, rateLimiter.size());
+    }
+}
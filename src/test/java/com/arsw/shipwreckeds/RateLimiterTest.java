@@ -0,0 +1,104 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.model.dto.RateLimitStats;
+import com.arsw.shipwreckeds.service.RateLimiter;
+import com.arsw.shipwreckeds.service.RateLimiter.Action;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para RateLimiter.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_allowsBurstThenRejects() {
+        RateLimiter limiter = new RateLimiter(100, 60);
+        long now = 0;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire("ana", Action.MOVE, now));
+        }
+        assertFalse(limiter.tryAcquire("ana", Action.MOVE, now));
+
+        RateLimitStats stats = limiter.getStats();
+        assertEquals(1, stats.getRejected());
+        assertEquals(1L, stats.getRejectedByAction().get("MOVE"));
+        assertEquals(0L, stats.getRejectedByAction().get("FUEL"));
+    }
+
+    @Test
+    void tryAcquire_refillsAtSustainedRate() {
+        RateLimiter limiter = new RateLimiter(100, 60);
+        long now = 0;
+        while (limiter.tryAcquire("bruno", Action.VOTE, now)) {
+            // drain the burst
+        }
+        // VOTE refills one token per second
+        assertFalse(limiter.tryAcquire("bruno", Action.VOTE, now + SECOND / 2));
+        assertTrue(limiter.tryAcquire("bruno", Action.VOTE, now + SECOND));
+        assertFalse(limiter.tryAcquire("bruno", Action.VOTE, now + SECOND));
+    }
+
+    @Test
+    void tryAcquire_longIdleNeverExceedsCapacity() {
+        RateLimiter limiter = new RateLimiter(100, 3600);
+        limiter.tryAcquire("carla", Action.ELIMINATE, 0);
+        long later = 1000 * SECOND;
+        assertTrue(limiter.tryAcquire("carla", Action.ELIMINATE, later));
+        assertTrue(limiter.tryAcquire("carla", Action.ELIMINATE, later));
+        assertFalse(limiter.tryAcquire("carla", Action.ELIMINATE, later));
+    }
+
+    @Test
+    void tryAcquire_actionsAndKeysHaveIndependentBudgets() {
+        RateLimiter limiter = new RateLimiter(100, 60);
+        while (limiter.tryAcquire("diego", Action.START_VOTE, 0)) {
+            // drain
+        }
+        assertTrue(limiter.tryAcquire("diego", Action.FUEL, 0));
+        assertTrue(limiter.tryAcquire("eva", Action.START_VOTE, 0));
+    }
+
+    @Test
+    void tryAcquire_fullTable_evictsIdleKeysOrRejects() {
+        RateLimiter limiter = new RateLimiter(2, 10);
+        assertTrue(limiter.tryAcquire("a", Action.JOIN, 0));
+        assertTrue(limiter.tryAcquire("b", Action.JOIN, 0));
+
+        // table full and nobody idle yet
+        assertFalse(limiter.tryAcquire("c", Action.JOIN, SECOND));
+        assertEquals(1, limiter.getStats().getOverflowRejected());
+
+        // once the first keys go idle they are evicted to make room
+        assertTrue(limiter.tryAcquire("c", Action.JOIN, 11 * SECOND));
+        assertEquals(1, limiter.size());
+        assertEquals(2, limiter.getStats().getEvictedKeys());
+    }
+
+    @Test
+    void forget_dropsKeyAndResetsItsBudget() {
+        RateLimiter limiter = new RateLimiter(100, 60);
+        while (limiter.tryAcquire("fran", Action.JOIN, 0)) {
+            // drain
+        }
+        limiter.forget("fran");
+        assertEquals(0, limiter.size());
+        assertTrue(limiter.tryAcquire("fran", Action.JOIN, 0));
+    }
+
+    @Test
+    void tryAcquire_nullKeySharesAnonymousBucket() {
+        RateLimiter limiter = new RateLimiter(100, 60);
+        assertTrue(limiter.tryAcquire(null, Action.START_VOTE, 0));
+        assertTrue(limiter.tryAcquire(null, Action.START_VOTE, 0));
+        assertFalse(limiter.tryAcquire(null, Action.START_VOTE, 0));
+    }
+}
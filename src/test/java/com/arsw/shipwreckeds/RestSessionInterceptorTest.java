@@ -0,0 +1,58 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.RestSessionInterceptor;
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para RestSessionInterceptor.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class RestSessionInterceptorTest {
+
+    private AuthService authService;
+    private RestSessionInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService();
+        interceptor = new RestSessionInterceptor(authService);
+    }
+
+    @Test
+    void validToken_attachesTheSessionAndRefreshesPresence() throws Exception {
+        authService.login("ana", "1234");
+        PlayerSession session = authService.getSession("ana");
+        long before = session.getLastSeenMs();
+        Thread.sleep(5);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/match/vote");
+        request.addHeader(Constants.HTTP_HEADER_SESSION_TOKEN, session.getToken());
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+
+        assertSame(session, RestSessionInterceptor.sessionOf(request));
+        assertTrue(session.getLastSeenMs() > before);
+    }
+
+    @Test
+    void missingOrUnknownToken_isAnonymous() throws Exception {
+        MockHttpServletRequest anonymous = new MockHttpServletRequest("GET", "/api/npcs");
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/api/npcs");
+        stale.addHeader(Constants.HTTP_HEADER_SESSION_TOKEN, "no-such-token");
+
+        assertTrue(interceptor.preHandle(anonymous, new MockHttpServletResponse(), new Object()));
+        assertTrue(interceptor.preHandle(stale, new MockHttpServletResponse(), new Object()));
+
+        assertNull(RestSessionInterceptor.sessionOf(anonymous));
+        assertNull(RestSessionInterceptor.sessionOf(stale));
+    }
+}
@@ -1,14 +1,27 @@
 package com.arsw.shipwreckeds;
 
+import com.arsw.shipwreckeds.config.GameTopicRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
 @SpringBootTest
 class ShipwreckedsBackendApplicationTests {
 
+    @Autowired
+    private SimpleBrokerMessageHandler simpleBroker;
+
     // Empty placeholder test class. Add tests as needed.
     @Test
     void contextLoads() {
         // This test will simply attempt to start the Spring context.
     }
+
+    @Test
+    void simpleBroker_usesGameTopicRegistry() {
+        assertInstanceOf(GameTopicRegistry.class, simpleBroker.getSubscriptionRegistry());
+    }
 }
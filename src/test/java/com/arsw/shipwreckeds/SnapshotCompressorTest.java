@@ -0,0 +1,120 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.model.dto.AvatarState;
+import com.arsw.shipwreckeds.model.dto.CompressionStats;
+import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.service.GameEngine;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.Adler32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para SnapshotCompressor.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class SnapshotCompressorTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static GameState snapshot() {
+        List<AvatarState> avatars = new ArrayList<>();
+        for (long i = 1; i <= 6; i++) {
+            avatars.add(new AvatarState(i, "human", "user" + i, i * 3.25, -i * 1.5, false, true, "user" + i, i * 10));
+        }
+        for (long i = 1; i <= 10; i++) {
+            avatars.add(new AvatarState(i, "npc", null, i * 2.0, i * 4.5, false, true, GameEngine.buildNpcAlias(i)));
+        }
+        return new GameState("QWE789", 1_731_000_000_123L, 245, new GameState.Island(0.0, 0.0, 100.0), avatars, 17.5,
+                "STARTED", new GameState.Boat(112.0, 0.0, 40.0), null, false, 12);
+    }
+
+    @Test
+    void encode_roundTripsThroughDictionary() throws Exception {
+        SnapshotCompressor compressor = new SnapshotCompressor(mapper, true, 0, 1, true);
+        byte[] json = compressor.toJson(snapshot());
+
+        SnapshotCompressor.Encoded encoded = compressor.encode(json);
+
+        assertTrue(encoded.isCompressed());
+        assertEquals("deflate", encoded.getContentEncoding());
+        byte[] restored = compressor.inflate(Base64.getDecoder().decode(encoded.getBody()));
+        assertArrayEquals(json, restored);
+    }
+
+    @Test
+    void dictionary_shrinksSnapshotsFurther() {
+        SnapshotCompressor withDict = new SnapshotCompressor(mapper, true, 0, 1, true);
+        SnapshotCompressor plain = new SnapshotCompressor(mapper, true, 0, 1, false);
+        byte[] json = withDict.toJson(snapshot());
+
+        int dictSize = withDict.deflate(json).length;
+        int plainSize = plain.deflate(json).length;
+
+        assertTrue(plainSize < json.length);
+        assertTrue(dictSize < plainSize, "dict=" + dictSize + " plain=" + plainSize);
+        assertNull(plain.getDictionary());
+    }
+
+    @Test
+    void encode_belowThreshold_sendsPlainJson() {
+        SnapshotCompressor compressor = new SnapshotCompressor(mapper, true, 4096, 1, true);
+        byte[] json = "{\"ackSeq\":4}".getBytes();
+
+        SnapshotCompressor.Encoded encoded = compressor.encode(json);
+
+        assertFalse(encoded.isCompressed());
+        assertEquals("{\"ackSeq\":4}", encoded.getBody());
+        CompressionStats stats = compressor.getStats();
+        assertEquals(1, stats.getFrames());
+        assertEquals(1, stats.getSkippedBelowThreshold());
+        assertEquals(0, stats.getCompressedFrames());
+    }
+
+    @Test
+    void dictionaryId_isAdler32OfPublishedDictionary() {
+        SnapshotCompressor compressor = new SnapshotCompressor(mapper, true, 512, 1, true);
+        Adler32 adler = new Adler32();
+        adler.update(compressor.getDictionary().getDictionary().getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Long.toHexString(adler.getValue()), compressor.getDictionary().getId());
+        assertEquals(512, compressor.getDictionary().getMinBytes());
+    }
+
+    @Test
+    void stats_reportRatioForCompressedFrames() {
+        SnapshotCompressor compressor = new SnapshotCompressor(mapper, true, 0, 6, true);
+        compressor.encode(compressor.toJson(snapshot()));
+
+        CompressionStats stats = compressor.getStats();
+        assertEquals(1, stats.getCompressedFrames());
+        assertTrue(stats.getRatio() > 0 && stats.getRatio() < 0.5, "ratio=" + stats.getRatio());
+        assertEquals(6, stats.getLevel());
+    }
+
+    @Test
+    void deflate_reusesPooledDeflatersAndShutdownEndsThem() throws Exception {
+        SnapshotCompressor compressor = new SnapshotCompressor(mapper, true, 0, 1, true);
+        byte[] json = compressor.toJson(snapshot());
+
+        compressor.deflate(json);
+        byte[] again = compressor.deflate(json);
+        assertEquals(1, compressor.getPooledDeflaters());
+
+        compressor.shutdown();
+        assertEquals(0, compressor.getPooledDeflaters());
+        byte[] afterShutdown = compressor.deflate(json);
+        assertEquals(0, compressor.getPooledDeflaters());
+        assertArrayEquals(again, afterShutdown);
+        assertArrayEquals(json, compressor.inflate(afterShutdown));
+    }
+}
@@ -0,0 +1,174 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.BinaryGameChannel;
+import com.arsw.shipwreckeds.config.GameTopicRegistry;
+import com.arsw.shipwreckeds.config.TransportMetrics;
+import com.arsw.shipwreckeds.controller.WebSocketController;
+import com.arsw.shipwreckeds.model.dto.SpectatorStats;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
+import com.arsw.shipwreckeds.service.SpectatorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para SpectatorService.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class SpectatorServiceTest {
+
+    private WebSocketController broadcaster;
+    private SpectatorService spectators;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = mock(WebSocketController.class);
+        // interval long enough that the test drives every tick itself
+        spectators = new SpectatorService(new ObjectMapper(), broadcaster, new MatchService(), 60_000, 60_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        spectators.shutdown();
+    }
+
+    private SpectatorStats awaitEvents(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (spectators.getStats().getEventsSent() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        return spectators.getStats();
+    }
+
+    @Test
+    void registersAsStateListener() {
+        verify(broadcaster).addStateListener(any());
+    }
+
+    @Test
+    void unwatchedMatch_isNotSerialized() {
+        spectators.offer("ABC123", Map.of("timerSeconds", 10));
+        spectators.tick();
+
+        assertEquals(0, spectators.getStats().getFramesSerialized());
+    }
+
+    @Test
+    void burstOfSnapshots_isSerializedOnceAndSharedByAllSpectators() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            spectators.subscribe("ABC123");
+        }
+        for (int t = 0; t < 20; t++) {
+            spectators.offer("ABC123", Map.of("timerSeconds", t));
+        }
+        spectators.tick();
+        // nothing new since the last tick
+        spectators.tick();
+
+        SpectatorStats stats = awaitEvents(3);
+        assertEquals(1, stats.getFramesSerialized());
+        assertEquals(3, stats.getEventsSent());
+        assertEquals(3, stats.getSpectators());
+        assertEquals(1, stats.getMatches());
+    }
+
+    @Test
+    void lateSpectator_getsLatestFrameRightAway() throws InterruptedException {
+        spectators.subscribe("ABC123");
+        spectators.offer("ABC123", Map.of("timerSeconds", 5));
+        spectators.tick();
+        awaitEvents(1);
+
+        spectators.subscribe("ABC123");
+
+        assertEquals(2, spectators.getStats().getEventsSent());
+    }
+
+    @Test
+    void closeMatch_endsItsStreams() {
+        spectators.subscribe("ABC123");
+        spectators.subscribe("ABC123");
+        assertEquals(2, spectators.spectators("ABC123"));
+
+        spectators.closeMatch("ABC123");
+
+        assertEquals(0, spectators.spectators("ABC123"));
+        assertEquals(0, spectators.getStats().getMatches());
+    }
+
+    @Test
+    void broadcasterListener_feedsTheSpectatorQueue() {
+        SnapshotCompressor compressor = new SnapshotCompressor();
+        WebSocketController real = new WebSocketController(mock(SimpMessagingTemplate.class), new GameTopicRegistry(),
+                compressor, new BinaryGameChannel(new AuthService(), compressor, new TransportMetrics(),
+                        new MatchService()), 0);
+        SpectatorService wired = new SpectatorService(new ObjectMapper(), real, new MatchService(), 60_000, 60_000, 1);
+        try {
+            wired.subscribe("XYZ789");
+            real.broadcastGameState("XYZ789", Map.of("timerSeconds", 1));
+            wired.tick();
+
+            assertEquals(1, wired.getStats().getFramesSerialized());
+        } finally {
+            wired.shutdown();
+            real.shutdown();
+        }
+    }
+
+    @Test
+    void slowSpectator_skipsTicksInsteadOfQueueingStaleFrames() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter slow = new SseEmitter(60_000L) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                writing.countDown();
+                try {
+                    release.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(builder);
+            }
+        };
+        spectators.subscribe("ABC123", slow);
+        spectators.offer("ABC123", Map.of("timerSeconds", 1));
+        spectators.tick();
+        assertTrue(writing.await(2, TimeUnit.SECONDS));
+
+        for (int t = 2; t <= 4; t++) {
+            spectators.offer("ABC123", Map.of("timerSeconds", t));
+            spectators.tick();
+        }
+        assertEquals(1, spectators.getStats().getFramesSerialized());
+        assertEquals(3, spectators.getStats().getSkippedTicks());
+
+        release.countDown();
+        awaitEvents(1);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (spectators.getStats().getFramesSerialized() < 2 && System.currentTimeMillis() < deadline) {
+            spectators.tick();
+            Thread.sleep(5);
+        }
+
+        SpectatorStats stats = awaitEvents(2);
+        assertEquals(2, stats.getFramesSerialized());
+        assertEquals(2, stats.getEventsSent());
+    }
+}
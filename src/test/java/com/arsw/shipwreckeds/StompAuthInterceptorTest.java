@@ -0,0 +1,82 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.StompAuthInterceptor;
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pruebas unitarias para StompAuthInterceptor.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class StompAuthInterceptorTest {
+
+    private AuthService authService;
+    private StompAuthInterceptor interceptor;
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService();
+        interceptor = new StompAuthInterceptor(authService);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String token) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        if (token != null) {
+            accessor.setNativeHeader(Constants.STOMP_HEADER_SESSION_TOKEN, token);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static StompHeaderAccessor headers(Message<?> message) {
+        return MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+    }
+
+    @Test
+    void connect_withValidToken_attachesSessionPrincipal() {
+        authService.login("ana", "1234");
+        PlayerSession session = authService.getSession("ana");
+
+        Message<?> out = interceptor.preSend(frame(StompCommand.CONNECT, session.getToken()), channel);
+
+        assertSame(session, headers(out).getUser());
+    }
+
+    @Test
+    void connect_withUnknownToken_isRejected() {
+        Message<byte[]> connect = frame(StompCommand.CONNECT, "desconocido");
+        assertThrows(MessagingException.class, () -> interceptor.preSend(connect, channel));
+    }
+
+    @Test
+    void connect_withoutToken_staysAnonymous() {
+        Message<?> out = interceptor.preSend(frame(StompCommand.CONNECT, null), channel);
+        assertNull(headers(out).getUser());
+    }
+
+    @Test
+    void send_frames_areNotReauthenticated() {
+        authService.login("bruno", "1234");
+        String token = authService.getSession("bruno").getToken();
+
+        Message<?> out = interceptor.preSend(frame(StompCommand.SEND, token), channel);
+
+        assertNull(headers(out).getUser());
+    }
+}
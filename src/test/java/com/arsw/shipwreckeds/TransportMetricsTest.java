@@ -0,0 +1,75 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.config.TransportMetrics;
+import com.arsw.shipwreckeds.config.TransportMetricsHandler;
+import com.arsw.shipwreckeds.model.dto.TransportStats;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.WebSocketServerSockJsSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para TransportMetrics.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class TransportMetricsTest {
+
+    private static TransportStats.Transport transport(TransportMetrics metrics, String name) {
+        return metrics.getStats().getTransports().stream().filter(t -> t.getName().equals(name)).findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void classify_distinguishesNativeAndSockJsTransports() {
+        assertEquals(TransportMetrics.WEBSOCKET, TransportMetrics.classify(mock(WebSocketSession.class)));
+        assertEquals(TransportMetrics.SOCKJS_POLLING, TransportMetrics.classify(mock(PollingSockJsSession.class)));
+        assertEquals(TransportMetrics.SOCKJS_WEBSOCKET,
+                TransportMetrics.classify(mock(WebSocketServerSockJsSession.class)));
+    }
+
+    @Test
+    void handler_countsInboundAndOutboundPerTransport() throws Exception {
+        TransportMetrics metrics = new TransportMetrics();
+        WebSocketHandler stomp = mock(WebSocketHandler.class);
+        TransportMetricsHandler handler = new TransportMetricsHandler(stomp, metrics);
+        WebSocketSession raw = mock(WebSocketSession.class);
+        when(raw.getId()).thenReturn("n1");
+
+        handler.afterConnectionEstablished(raw);
+        handler.handleMessage(raw, new TextMessage("SEND"));
+        handler.handleMessage(raw, new TextMessage("SEND"));
+        ArgumentCaptor<WebSocketSession> handedDown = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(stomp).afterConnectionEstablished(handedDown.capture());
+        handedDown.getValue().sendMessage(new TextMessage("MESSAGE1234"));
+
+        TransportStats.Transport ws = transport(metrics, TransportMetrics.WEBSOCKET);
+        assertEquals(1, ws.getOpen());
+        assertEquals(2, ws.getMessagesIn());
+        assertEquals(1, ws.getMessagesOut());
+        assertEquals(11, ws.getBytesOut());
+        verify(raw).sendMessage(any());
+        assertEquals(TransportMetrics.WEBSOCKET, metrics.transportOf("n1"));
+
+        handler.afterConnectionClosed(raw, CloseStatus.NORMAL);
+        assertEquals(0, transport(metrics, TransportMetrics.WEBSOCKET).getOpen());
+        assertNull(metrics.transportOf("n1"));
+    }
+
+    @Test
+    void stats_listEveryTransport() {
+        TransportStats stats = new TransportMetrics().getStats();
+
+        assertEquals(5, stats.getTransports().size());
+        assertTrue(stats.getRateWindowMs() > 0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.arsw.shipwreckeds;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.Position;
+import com.arsw.shipwreckeds.service.VisibilitySets;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para VisibilitySets.
+ *
+ * @author Daniel Ruge
+ * @version 2025-10-29
+ */
+class VisibilitySetsTest {
+
+    private static Player at(long id, double x, double y) {
+        Player p = new Player(id, "p" + id, null, null);
+        p.setPosition(new Position(x, y));
+        return p;
+    }
+
+    @Test
+    void update_playersSeeWithinTheRadiusAndNotBeyond() {
+        List<Player> players = List.of(at(1, 0.0, 0.0), at(2, 20.0, 0.0), at(3, 60.0, 0.0));
+        VisibilitySets sets = new VisibilitySets(IslandMap.defaultIsland(), 30.0, 4.0);
+
+        assertEquals(3, sets.update(players));
+
+        assertTrue(sets.isVisible(0, 0));
+        assertTrue(sets.isVisible(0, 1) && sets.isVisible(1, 0));
+        assertFalse(sets.isVisible(0, 2));
+        assertFalse(sets.isVisible(2, 0));
+    }
+
+    @Test
+    void update_opaqueObstaclesHidePlayersBehindThem() {
+        IslandMap map = IslandMap.defaultIsland();
+        IslandMap.Obstacle rock = IslandMap.Obstacle.circle("roca", 10.0, 0.0, 4.0);
+        rock.setBlocksSight(true);
+        map.getObstacles().add(rock);
+        map.getObstacles().add(IslandMap.Obstacle.rect("fogata", 0.0, 10.0, 6.0, 6.0));
+        List<Player> players = List.of(at(1, 0.0, 0.0), at(2, 20.0, 0.0), at(3, 0.0, 20.0));
+        VisibilitySets sets = new VisibilitySets(map, 30.0, 4.0);
+
+        sets.update(players);
+
+        assertFalse(sets.isVisible(0, 1), "la roca tapa la vista");
+        assertTrue(sets.isVisible(0, 2), "la fogata es baja y no tapa");
+    }
+
+    @Test
+    void update_onlyPairsOfPlayersThatChangedCellAreRecomputed() {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            players.add(at(i, i * 5.0 + 1.0, 1.0));
+        }
+        VisibilitySets sets = new VisibilitySets(IslandMap.defaultIsland(), 30.0, 4.0);
+        sets.update(players);
+        long afterFirst = sets.getPairChecks();
+
+        // moving within the same cell changes nothing
+        players.get(0).getPosition().setX(2.5);
+        assertEquals(0, sets.update(players));
+        assertEquals(afterFirst, sets.getPairChecks());
+
+        // crossing into another cell re-evaluates that player's pairs only
+        players.get(7).getPosition().setX(100.0 - 10.0);
+        assertEquals(1, sets.update(players));
+        assertEquals(afterFirst + 7, sets.getPairChecks());
+        assertFalse(sets.isVisible(0, 7));
+    }
+
+    @Test
+    void update_playersWithoutPositionAreSeenByNoOne() {
+        Player lost = new Player(2L, "perdido", null, null);
+        List<Player> players = List.of(at(1, 0.0, 0.0), lost);
+        VisibilitySets sets = new VisibilitySets(IslandMap.defaultIsland(), 30.0, 4.0);
+
+        sets.update(players);
+
+        assertFalse(sets.isVisible(0, 1));
+        assertTrue(sets.isVisible(1, 1));
+    }
+}
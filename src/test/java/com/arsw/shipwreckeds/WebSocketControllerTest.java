@@ -1,13 +1,35 @@
 package com.arsw.shipwreckeds;
 
+import com.arsw.shipwreckeds.config.BinaryGameChannel;
+import com.arsw.shipwreckeds.config.GameTopicRegistry;
+import com.arsw.shipwreckeds.config.TransportMetrics;
 import com.arsw.shipwreckeds.controller.WebSocketController;
 import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.dto.GameEvent;
+import com.arsw.shipwreckeds.model.dto.GameEventBatch;
+import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.model.dto.LobbyView;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 
@@ -24,12 +46,28 @@ class WebSocketControllerTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
-    @InjectMocks
     private WebSocketController webSocketController;
 
     @BeforeEach
     void setUp() {
-        // inyectado por @InjectMocks
+        // ventana de debounce 0: los envíos de lobby son inmediatos
+        webSocketController = controller(new SnapshotCompressor(), 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        webSocketController.shutdown();
+    }
+
+    private WebSocketController controller(SnapshotCompressor compressor, long lobbyDebounceMs) {
+        return controller(new GameTopicRegistry(), compressor, lobbyDebounceMs);
+    }
+
+    private WebSocketController controller(GameTopicRegistry registry, SnapshotCompressor compressor,
+            long lobbyDebounceMs) {
+        BinaryGameChannel binary = new BinaryGameChannel(new AuthService(), compressor, new TransportMetrics(),
+                new MatchService());
+        return new WebSocketController(messagingTemplate, registry, compressor, binary, lobbyDebounceMs);
     }
 
     @Test
@@ -49,14 +87,57 @@ class WebSocketControllerTest {
     }
 
     @Test
-    void broadcastLobbyUpdate_validMatch_sendsToCorrectDestination() {
-        Match match = mock(Match.class);
-        when(match.getCode()).thenReturn("ABC123");
+    void broadcastLobbyUpdate_validMatch_sendsLobbyViewToCorrectDestination() {
+        Match match = new Match(1L, "ABC123");
+        match.addPlayer(new Player(1L, "host", "default-skin", null));
 
         webSocketController.broadcastLobbyUpdate(match);
 
         String expectedDest = "/topic/lobby/ABC123";
-        verify(messagingTemplate, times(1)).convertAndSend(eq(expectedDest), same(match));
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq(expectedDest), payload.capture());
+        LobbyView view = (LobbyView) payload.getValue();
+        assertEquals("ABC123", view.getCode());
+        assertEquals("host", view.getHostName());
+        assertEquals(match.getVersion(), view.getVersion());
+        assertEquals(1, view.getPlayers().size());
+    }
+
+    @Test
+    void broadcastLobbyUpdate_burstOfJoins_isDebouncedIntoOneSend() throws Exception {
+        WebSocketController debounced = controller(new SnapshotCompressor(), 50);
+        try {
+            Match match = new Match(2L, "BURST1");
+            for (long i = 1; i <= 5; i++) {
+                match.addPlayer(new Player(i, "p" + i, "default-skin", null));
+                debounced.broadcastLobbyUpdate(match);
+            }
+
+            verify(messagingTemplate, timeout(1000).times(1)).convertAndSend(eq("/topic/lobby/BURST1"),
+                    any(LobbyView.class));
+            Thread.sleep(150);
+            ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+            verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/lobby/BURST1"), payload.capture());
+            assertEquals(5, ((LobbyView) payload.getValue()).getPlayers().size());
+        } finally {
+            debounced.shutdown();
+        }
+    }
+
+    @Test
+    void broadcastLobbyUpdate_statusChange_isSentImmediately() {
+        WebSocketController debounced = controller(new SnapshotCompressor(), 10_000);
+        try {
+            Match match = new Match(3L, "START1");
+            match.addPlayer(new Player(1L, "host", "default-skin", null));
+            match.setStatus(MatchStatus.STARTED);
+
+            debounced.broadcastLobbyUpdate(match);
+
+            verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/lobby/START1"), any(LobbyView.class));
+        } finally {
+            debounced.shutdown();
+        }
     }
 
     @Test
@@ -76,6 +157,197 @@ class WebSocketControllerTest {
         verify(messagingTemplate, times(1)).convertAndSend(eq(expectedDest), same(gameState));
     }
 
+    @Test
+    void broadcastEvents_withoutLegacySubscribers_sendsOneEnvelope() {
+        Object state = new Object();
+        Object result = new Object();
+
+        webSocketController.broadcastEvents("EV1", List.of(GameEvent.voteResult(result), GameEvent.gameState(state)));
+
+        ArgumentCaptor<GameEventBatch> batch = ArgumentCaptor.forClass(GameEventBatch.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/game/EV1/events"), batch.capture());
+        verifyNoMoreInteractions(messagingTemplate);
+        assertEquals("EV1", batch.getValue().getCode());
+        assertSame(result, batch.getValue().getEvents().get(0).getPayload());
+        assertSame(state, batch.getValue().getEvents().get(1).getPayload());
+    }
+
+    @Test
+    void broadcastEvents_legacySubscriber_stillGetsItsTopic() {
+        GameTopicRegistry registry = new GameTopicRegistry();
+        SimpMessageHeaderAccessor sub = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        sub.setSessionId("s1");
+        sub.setSubscriptionId("a");
+        sub.setDestination("/topic/game/EV2/elimination");
+        registry.registerSubscription(MessageBuilder.createMessage(new byte[0], sub.getMessageHeaders()));
+        WebSocketController wired = controller(registry, new SnapshotCompressor(), 0);
+        Object evt = new Object();
+
+        try {
+            wired.broadcastEvents("EV2", List.of(GameEvent.elimination(evt), GameEvent.gameState(new Object())));
+        } finally {
+            wired.shutdown();
+        }
+
+        InOrder order = inOrder(messagingTemplate);
+        order.verify(messagingTemplate).convertAndSend(eq("/topic/game/EV2/events"), any(GameEventBatch.class));
+        order.verify(messagingTemplate).convertAndSend(eq("/topic/game/EV2/elimination"), same(evt));
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/game/EV2"), any(Object.class));
+    }
+
+    @Test
+    void broadcastEvents_finalState_reachesEveryStateChannelWithPriority() {
+        GameTopicRegistry registry = new GameTopicRegistry();
+        SimpMessageHeaderAccessor sub = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        sub.setSessionId("mobile");
+        sub.setSubscriptionId("z");
+        sub.setDestination("/topic/game/EV3/compressed");
+        registry.registerSubscription(MessageBuilder.createMessage(new byte[0], sub.getMessageHeaders()));
+        SnapshotCompressor compressor = new SnapshotCompressor(new ObjectMapper(), true, 0, 1, true);
+        WebSocketController wired = controller(registry, compressor, 0);
+        List<Object> heard = new ArrayList<>();
+        wired.addStateListener((code, state) -> heard.add(state));
+        GameState finished = new GameState();
+        finished.setStatus("FINISHED");
+        Object result = new Object();
+
+        try {
+            wired.broadcastEvents("EV3", List.of(GameEvent.voteResult(result), GameEvent.gameState(finished)));
+        } finally {
+            wired.shutdown();
+        }
+
+        Map<String, Object> priority = Map.of("priority", "high");
+        verify(messagingTemplate).convertAndSend(eq("/topic/game/EV3/events"), any(GameEventBatch.class),
+                eq(priority));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/game/EV3/compressed"), any(Object.class),
+                headers.capture());
+        assertEquals("high", headers.getValue().get("priority"));
+        assertEquals(List.of(finished), heard);
+    }
+
+    @Test
+    void broadcastGameState_compressedSubscriber_getsDeflatedCopy() {
+        GameTopicRegistry registry = new GameTopicRegistry();
+        SimpMessageHeaderAccessor sub = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        sub.setSessionId("mobile");
+        sub.setSubscriptionId("z");
+        sub.setDestination("/topic/game/CZ1/compressed");
+        registry.registerSubscription(MessageBuilder.createMessage(new byte[0], sub.getMessageHeaders()));
+        SnapshotCompressor compressor = new SnapshotCompressor(new ObjectMapper(), true, 0, 1, true);
+        WebSocketController wired = controller(registry, compressor, 0);
+
+        try {
+            wired.broadcastGameState("CZ1", Map.of("timerSeconds", 42));
+            wired.broadcastGameState("CZ2", Map.of("timerSeconds", 41));
+        } finally {
+            wired.shutdown();
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/game/CZ1/compressed"), any(Object.class),
+                headers.capture());
+        assertEquals("deflate", headers.getValue().get("content-encoding"));
+        assertEquals(compressor.getDictionaryId(), headers.getValue().get("dict-id"));
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/game/CZ2/compressed"), any(Object.class),
+                anyMap());
+        assertEquals(1, compressor.getStats().getFrames());
+    }
+
+    @Test
+    void broadcastGameState_finalState_carriesPriorityHeader() {
+        GameState running = new GameState();
+        running.setStatus("STARTED");
+        GameState finished = new GameState();
+        finished.setStatus("FINISHED");
+
+        webSocketController.broadcastGameState("PR1", running);
+        webSocketController.broadcastGameState("PR1", finished);
+
+        verify(messagingTemplate).convertAndSend("/topic/game/PR1", running);
+        verify(messagingTemplate).convertAndSend(eq("/topic/game/PR1"), same(finished),
+                eq(Map.<String, Object>of("priority", "high")));
+    }
+
+    @Test
+    void broadcastNpcPaths_usesNpcTopic() {
+        Object update = new Object();
+
+        webSocketController.broadcastNpcPaths("NP1", update);
+        webSocketController.broadcastNpcPaths(null, update);
+
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/game/NP1/npcs", update);
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void sendMoveAck_sendsOnlyToMover() {
+        Object ack = new Object();
+
+        webSocketController.sendMoveAck("alice", ack);
+        webSocketController.sendMoveAck(null, ack);
+
+        verify(messagingTemplate, times(1)).convertAndSendToUser(eq("alice"), eq("/queue/move"), same(ack));
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void broadcastMatchAssignment_sendsOnlyToThePlacedPlayer() {
+        Object assignment = new Object();
+
+        webSocketController.broadcastMatchAssignment("alice", assignment);
+        webSocketController.broadcastMatchAssignment(null, assignment);
+
+        verify(messagingTemplate).convertAndSendToUser(eq("alice"), eq("/queue/matchmaking"), same(assignment));
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void sendGameState_compressedViewer_getsItsOwnDeflatedCopy() {
+        GameTopicRegistry registry = new GameTopicRegistry();
+        SimpMessageHeaderAccessor sub = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        sub.setSessionId("mobile");
+        sub.setSubscriptionId("q");
+        sub.setDestination("/queue/game/compressed-usermobile");
+        sub.setUser(() -> "ana");
+        registry.registerSubscription(MessageBuilder.createMessage(new byte[0], sub.getMessageHeaders()));
+        SnapshotCompressor compressor = new SnapshotCompressor(new ObjectMapper(), true, 0, 1, true);
+        WebSocketController wired = controller(registry, compressor, 0);
+        GameState view = new GameState();
+        view.setStatus("STARTED");
+
+        try {
+            wired.sendGameState("VW1", "ana", view);
+            wired.sendGameState("VW1", "bruno", view);
+        } finally {
+            wired.shutdown();
+        }
+
+        verify(messagingTemplate).convertAndSendToUser("ana", "/queue/game", view);
+        verify(messagingTemplate).convertAndSendToUser("bruno", "/queue/game", view);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("ana"), eq("/queue/game/compressed"), any(Object.class),
+                headers.capture());
+        assertEquals("deflate", headers.getValue().get("content-encoding"));
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void broadcastSpectatorState_onlyReachesStateListeners() {
+        List<Object> heard = new ArrayList<>();
+        webSocketController.addStateListener((code, state) -> heard.add(state));
+        Object state = new Object();
+
+        webSocketController.broadcastSpectatorState("SP1", state);
+
+        assertEquals(List.of(state), heard);
+        verifyNoInteractions(messagingTemplate);
+    }
+
     @Test
     void broadcastVoteStart_nullCode_noSend() {
         webSocketController.broadcastVoteStart(null, new Object());
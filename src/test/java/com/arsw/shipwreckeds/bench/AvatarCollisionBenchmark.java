@@ -0,0 +1,100 @@
+package com.arsw.shipwreckeds.bench;
+
+import com.arsw.shipwreckeds.service.AvatarCollisions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One avatar separation (two passes) over a crowd spread on the island.
+ * <p>
+ * {@code naivePairs} tests every pair; {@code spatialHash} runs
+ * {@link AvatarCollisions}. Both start from the same scattered positions on
+ * each invocation:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.filter=AvatarCollisionBenchmark
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class AvatarCollisionBenchmark {
+
+    private static final int PASSES = 2;
+
+    @Param({ "16", "64", "1000", "10000" })
+    public int avatars;
+
+    private double[] startX;
+    private double[] startY;
+    private double[] x;
+    private double[] y;
+    private AvatarCollisions collisions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(11);
+        startX = new double[avatars];
+        startY = new double[avatars];
+        // keep roughly the same crowding whatever the count
+        double half = Math.max(20.0, Math.sqrt(avatars) * 4.0);
+        for (int i = 0; i < avatars; i++) {
+            startX[i] = random.nextDouble(-half, half);
+            startY[i] = random.nextDouble(-half, half);
+        }
+        x = new double[avatars];
+        y = new double[avatars];
+        collisions = new AvatarCollisions();
+    }
+
+    @Benchmark
+    public double[] naivePairs() {
+        System.arraycopy(startX, 0, x, 0, avatars);
+        System.arraycopy(startY, 0, y, 0, avatars);
+        double min = 2 * AvatarCollisions.AVATAR_RADIUS;
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (int i = 0; i < avatars; i++) {
+                for (int j = i + 1; j < avatars; j++) {
+                    double dx = x[j] - x[i];
+                    double dy = y[j] - y[i];
+                    double d2 = dx * dx + dy * dy;
+                    if (d2 >= min * min || d2 == 0.0)
+                        continue;
+                    double d = Math.sqrt(d2);
+                    double push = (min - d) / 2 / d;
+                    x[i] -= dx * push;
+                    y[i] -= dy * push;
+                    x[j] += dx * push;
+                    y[j] += dy * push;
+                }
+            }
+        }
+        return x;
+    }
+
+    @Benchmark
+    public AvatarCollisions spatialHash() {
+        collisions.clear();
+        for (int i = 0; i < avatars; i++) {
+            collisions.add(startX[i], startY[i], 1.0);
+        }
+        collisions.resolve(PASSES);
+        return collisions;
+    }
+}
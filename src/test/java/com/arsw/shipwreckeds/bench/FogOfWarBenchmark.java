@@ -0,0 +1,96 @@
+package com.arsw.shipwreckeds.bench;
+
+import com.arsw.shipwreckeds.model.IslandMap;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.Position;
+import com.arsw.shipwreckeds.service.FogOfWar;
+import com.arsw.shipwreckeds.service.VisibilitySets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Visibility stage of one snapshot on the shipped island map.
+ * <p>
+ * Each invocation moves every player a little; a quarter of them cross into
+ * another cell. {@code fullRecompute} evaluates every pair from scratch, as an
+ * uncached stage would; {@code cachedUpdate} runs {@link VisibilitySets},
+ * which only re-evaluates the pairs of players that changed cell:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.filter=FogOfWarBenchmark
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class FogOfWarBenchmark {
+
+    @Param({ "8", "16", "64" })
+    public int players;
+
+    private IslandMap map;
+    private List<Player> roster;
+    private VisibilitySets cached;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = FogOfWarBenchmark.class.getResourceAsStream("/maps/island.json")) {
+            map = new ObjectMapper().readValue(in, IslandMap.class);
+        }
+        Random random = new Random(5);
+        roster = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            roster.add(new Player((long) i, "p" + i, null, map.randomSpawn(random, 0.7)));
+        }
+        cached = new VisibilitySets(map, FogOfWar.VIEW_RADIUS, FogOfWar.CELL_SIZE);
+        cached.update(roster);
+    }
+
+    @Benchmark
+    public VisibilitySets fullRecompute() {
+        walk();
+        VisibilitySets fresh = new VisibilitySets(map, FogOfWar.VIEW_RADIUS, FogOfWar.CELL_SIZE);
+        fresh.update(roster);
+        return fresh;
+    }
+
+    @Benchmark
+    public VisibilitySets cachedUpdate() {
+        walk();
+        cached.update(roster);
+        return cached;
+    }
+
+    private void walk() {
+        tick++;
+        double sign = (tick & 1) == 0 ? 1.0 : -1.0;
+        for (int i = 0; i < players; i++) {
+            Position pos = roster.get(i).getPosition();
+            // a quarter of the players cross a cell, the rest shuffle inside theirs
+            double step = (i + tick) % 4 == 0 ? FogOfWar.CELL_SIZE : 0.01;
+            pos.setX(pos.getX() + sign * step);
+        }
+    }
+}
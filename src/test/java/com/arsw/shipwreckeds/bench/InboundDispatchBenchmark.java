@@ -0,0 +1,156 @@
+package com.arsw.shipwreckeds.bench;
+
+import com.arsw.shipwreckeds.config.MatchAffinityExecutor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inbound STOMP dispatch of a burst of in-match frames, each of which takes
+ * its match lock for a short critical section.
+ * <p>
+ * {@code sharedPool} is the previous setup (generic fixed pool: frames of the
+ * same match race for its lock and park workers); {@code matchAffinity} routes
+ * them through {@link MatchAffinityExecutor}. The {@code contended} counter
+ * reports how many frames found their match lock already held:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.filter=InboundDispatchBenchmark
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class InboundDispatchBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int FRAMES_PER_MATCH = 64;
+
+    @Param({ "4", "32" })
+    public int matches;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Contention {
+        public long contended;
+    }
+
+    private ExecutorService sharedPool;
+    private MatchAffinityExecutor affinity;
+    private Message<?>[] frames;
+    private ReentrantLock[] locks;
+    private final AtomicLong contended = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sharedPool = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "bench-shared");
+            t.setDaemon(true);
+            return t;
+        });
+        affinity = new MatchAffinityExecutor(THREADS);
+        frames = new Message<?>[matches];
+        locks = new ReentrantLock[matches];
+        for (int m = 0; m < matches; m++) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination("/app/game/M" + m + "/vote");
+            accessor.setSessionId("s" + m);
+            frames[m] = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+            locks[m] = new ReentrantLock();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sharedPool.shutdownNow();
+        affinity.shutdown();
+    }
+
+    @Benchmark
+    public void sharedPool(Contention c) throws InterruptedException {
+        c.contended += burst(sharedPool);
+    }
+
+    @Benchmark
+    public void matchAffinity(Contention c) throws InterruptedException {
+        c.contended += burst(affinity);
+    }
+
+    private long burst(Executor executor) throws InterruptedException {
+        long before = contended.get();
+        CountDownLatch done = new CountDownLatch(matches * FRAMES_PER_MATCH);
+        for (int i = 0; i < FRAMES_PER_MATCH; i++) {
+            for (int m = 0; m < matches; m++) {
+                executor.execute(new Frame(frames[m], locks[m], done));
+            }
+        }
+        done.await();
+        return contended.get() - before;
+    }
+
+    private final class Frame implements MessageHandlingRunnable {
+        private final Message<?> message;
+        private final ReentrantLock lock;
+        private final CountDownLatch done;
+
+        Frame(Message<?> message, ReentrantLock lock, CountDownLatch done) {
+            this.message = message;
+            this.lock = lock;
+            this.done = done;
+        }
+
+        @Override
+        public Message<?> getMessage() {
+            return message;
+        }
+
+        @Override
+        public MessageHandler getMessageHandler() {
+            return m -> run();
+        }
+
+        @Override
+        public void run() {
+            if (!lock.tryLock()) {
+                contended.incrementAndGet();
+                lock.lock();
+            }
+            try {
+                // stands in for vote/fuel bookkeeping under the match monitor
+                Blackhole.consumeCPU(200);
+            } finally {
+                lock.unlock();
+            }
+            done.countDown();
+        }
+    }
+}
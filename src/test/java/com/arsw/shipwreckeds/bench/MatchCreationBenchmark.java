@@ -0,0 +1,128 @@
+package com.arsw.shipwreckeds.bench;
+
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.service.MatchCodeAllocator;
+import com.arsw.shipwreckeds.service.MatchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lobby creation throughput on one thread against all available cores.
+ * <p>
+ * {@code legacy*} reproduces the previous scheme (shared {@link SecureRandom}
+ * plus a containsKey retry loop) so the scaling difference is visible in the
+ * same run:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.filter=MatchCreationBenchmark
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class MatchCreationBenchmark {
+
+    private static final String ALPHANUM = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    @State(Scope.Benchmark)
+    public static class Allocators {
+        MatchCodeAllocator allocator;
+        SecureRandom random;
+        Map<String, Boolean> legacyCodes;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            allocator = new MatchCodeAllocator(0, 1, 42L);
+            random = new SecureRandom();
+            legacyCodes = new ConcurrentHashMap<>();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Registry {
+        MatchService matchService;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            matchService = new MatchService();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String allocateCode_1thread(Allocators s) {
+        return s.allocator.next();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String allocateCode_allThreads(Allocators s) {
+        return s.allocator.next();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String legacyCode_1thread(Allocators s) {
+        return legacyCode(s);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String legacyCode_allThreads(Allocators s) {
+        return legacyCode(s);
+    }
+
+    /**
+     * Full {@link MatchService#createMatch(Player)} path. Runs in batches so the
+     * registry is reset between iterations instead of growing without bound.
+     */
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 10, batchSize = 20_000)
+    @Warmup(iterations = 5, batchSize = 20_000)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void createMatch_1thread(Registry r, Blackhole bh) {
+        bh.consume(r.matchService.createMatch(new Player(1L, "host", "default-skin", null)));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 10, batchSize = 20_000)
+    @Warmup(iterations = 5, batchSize = 20_000)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void createMatch_allThreads(Registry r, Blackhole bh) {
+        bh.consume(r.matchService.createMatch(new Player(1L, "host", "default-skin", null)));
+    }
+
+    private static String legacyCode(Allocators s) {
+        String code;
+        do {
+            StringBuilder sb = new StringBuilder(6);
+            for (int i = 0; i < 6; i++) {
+                sb.append(ALPHANUM.charAt(s.random.nextInt(ALPHANUM.length())));
+            }
+            code = sb.toString();
+        } while (s.legacyCodes.putIfAbsent(code, Boolean.TRUE) != null);
+        return code;
+    }
+}
@@ -0,0 +1,94 @@
+package com.arsw.shipwreckeds.bench;
+
+import com.arsw.shipwreckeds.model.Match;
+import com.arsw.shipwreckeds.model.MatchStatus;
+import com.arsw.shipwreckeds.model.Player;
+import com.arsw.shipwreckeds.model.PlayerSession;
+import com.arsw.shipwreckeds.model.dto.MoveCommand;
+import com.arsw.shipwreckeds.service.AuthService;
+import com.arsw.shipwreckeds.service.MatchService;
+import com.arsw.shipwreckeds.util.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving "who is moving which avatar" for one movement message.
+ * <p>
+ * {@code legacy} reproduces the previous per-message work (match lookup by code,
+ * session lookup by the username in the payload, avatar scan and ownership
+ * string check); {@code principal} reads the slots bound to the connection's
+ * {@link PlayerSession}. Rate limiting, movement math and broadcasting are the
+ * same in both paths and are left out:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.filter=MovePathBenchmark
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class MovePathBenchmark {
+
+    private static final String[] NAMES = { "ana", "bruno", "carla", "diego", "eva", "fran", "galo", "helen" };
+
+    private MatchService matchService;
+    private String code;
+    private MoveCommand cmd;
+    private PlayerSession session;
+    private final AuthService authService = new AuthService();
+
+    @Setup
+    public void setUp() {
+        matchService = new MatchService();
+        Player host = authService.login(NAMES[0], "1234");
+        code = matchService.createMatch(host).getCode();
+        for (int i = 1; i < NAMES.length; i++) {
+            matchService.joinMatch(code, authService.login(NAMES[i], "1234"));
+        }
+        Match match = matchService.getMatchByCode(code);
+        match.setStatus(MatchStatus.STARTED);
+        authService.bindMatch(match);
+
+        // last player in the roster: worst case for the legacy scan
+        Player mover = match.getPlayers().get(NAMES.length - 1);
+        cmd = new MoveCommand(mover.getUsername(), mover.getId(), new MoveCommand.Direction(1.0, 0.0));
+        session = authService.getSession(mover.getUsername());
+    }
+
+    @Benchmark
+    public Player legacy() {
+        Match match = matchService.getMatchByCode(code);
+        if (match == null || match.getStatus() == null
+                || !match.getStatus().name().equals(Constants.MATCH_STATUS_STARTED))
+            return null;
+        if (authService.getPlayer(cmd.getUsername()) == null)
+            return null;
+        Player target = match.getPlayers().stream()
+                .filter(p -> p.getId().equals(cmd.getAvatarId()))
+                .findFirst().orElse(null);
+        if (target == null || !target.getUsername().equals(cmd.getUsername()))
+            return null;
+        return target;
+    }
+
+    @Benchmark
+    public Player principal() {
+        PlayerSession.Binding binding = session.getBinding();
+        if (binding == null || binding.getMatch().getStatus() != MatchStatus.STARTED)
+            return null;
+        return binding.getAvatar();
+    }
+}
@@ -0,0 +1,135 @@
+package com.arsw.shipwreckeds.bench;
+
+import com.arsw.shipwreckeds.model.Npc;
+import com.arsw.shipwreckeds.model.Position;
+import com.arsw.shipwreckeds.service.NpcSteering;
+import com.arsw.shipwreckeds.service.NpcSwarm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One NPC steering step for every NPC of a match.
+ * <p>
+ * {@code objectLoop} is the previous per-object loop (target map lookup,
+ * {@code Math.hypot}, {@link Position} setters); {@code scalarKernel} and
+ * {@code vectorKernel} run the {@link NpcSteering} kernels over a
+ * {@link NpcSwarm}. NPCs that need a new target bounce back to keep the
+ * workload steady. {@code vectorKernel} falls back to scalar unless the
+ * {@code vector} profile is active:
+ *
+ * <pre>
+ * mvn -Pbench,vector test-compile exec:exec -Dbench.filter=NpcSteeringBenchmark
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class NpcSteeringBenchmark {
+
+    private static final double ISLAND_RADIUS = 100.0;
+    private static final double DT = 0.05;
+
+    @Param({ "12", "1000", "10000" })
+    public int npcs;
+
+    private List<Npc> objects;
+    private Map<Long, Position> targets;
+    private NpcSwarm swarm;
+    private NpcSteering scalar;
+    private NpcSteering vector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        objects = new ArrayList<>(npcs);
+        targets = new HashMap<>();
+        swarm = new NpcSwarm(npcs);
+        swarm.resize(npcs);
+        for (int i = 0; i < npcs; i++) {
+            double x = random.nextDouble(-60, 60);
+            double y = random.nextDouble(-60, 60);
+            double tx = random.nextDouble(-85, 85);
+            double ty = random.nextDouble(-85, 85);
+            double speed = random.nextDouble(0.15, 0.55) * 3.0;
+            objects.add(new Npc((long) i, "skin", new Position(x, y), speed / 3.0, false));
+            targets.put((long) i, new Position(tx, ty));
+            swarm.set(i, x, y, tx, ty, speed, true);
+        }
+        scalar = NpcSteering.create("scalar");
+        vector = NpcSteering.create("vector");
+        System.out.printf("%n[steering] vector kernel: %s%n", vector.name());
+    }
+
+    @Benchmark
+    public List<Npc> objectLoop() {
+        for (Npc npc : objects) {
+            if (!npc.isActive())
+                continue;
+            Position position = npc.getPosition();
+            Position target = targets.get(npc.getId());
+            double dx = target.getX() - position.getX();
+            double dy = target.getY() - position.getY();
+            double distance = Math.hypot(dx, dy);
+            if (distance < 1.0) {
+                bounce(target);
+                continue;
+            }
+            double baseSpeed = Math.min(Math.max(0.15, npc.getMovementSpeed()), 0.55);
+            double step = Math.min(distance, baseSpeed * 3.0 * DT);
+            double nx = position.getX() + (dx / distance) * step;
+            double ny = position.getY() + (dy / distance) * step;
+            if (Math.hypot(nx, ny) >= ISLAND_RADIUS - 2.0) {
+                bounce(target);
+                continue;
+            }
+            position.setX(nx);
+            position.setY(ny);
+        }
+        return objects;
+    }
+
+    @Benchmark
+    public NpcSwarm scalarKernel() {
+        return steer(scalar);
+    }
+
+    @Benchmark
+    public NpcSwarm vectorKernel() {
+        return steer(vector);
+    }
+
+    private NpcSwarm steer(NpcSteering kernel) {
+        kernel.step(swarm, DT, ISLAND_RADIUS - 2.0);
+        for (int i = 0; i < npcs; i++) {
+            if (swarm.needsTarget(i)) {
+                swarm.set(i, swarm.x(i), swarm.y(i), -swarm.x(i), -swarm.y(i), 1.2, true);
+            }
+        }
+        return swarm;
+    }
+
+    private static void bounce(Position target) {
+        target.setX(-target.getX());
+        target.setY(-target.getY());
+    }
+}
@@ -0,0 +1,85 @@
+package com.arsw.shipwreckeds.bench;
+
+import com.arsw.shipwreckeds.model.dto.AvatarState;
+import com.arsw.shipwreckeds.model.dto.GameState;
+import com.arsw.shipwreckeds.service.GameEngine;
+import com.arsw.shipwreckeds.service.SnapshotCompressor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of compressing one full-match {@link GameState} (8 players, 12
+ * NPCs) for the compressed channel, against the bytes it produces.
+ * <p>
+ * {@code json} is the serialization every send already pays; {@code deflate}
+ * adds compression. The sizes of the snapshot before and after compression are
+ * printed once per trial:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.filter=SnapshotCompressionBenchmark
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class SnapshotCompressionBenchmark {
+
+    @Param({ "1", "6" })
+    public int level;
+
+    @Param({ "true", "false" })
+    public boolean dictionary;
+
+    private SnapshotCompressor compressor;
+    private GameState state;
+    private byte[] json;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        compressor = new SnapshotCompressor(new ObjectMapper(), true, 0, level, dictionary);
+        List<AvatarState> avatars = new ArrayList<>();
+        for (long i = 1; i <= 8; i++) {
+            avatars.add(new AvatarState(i, "human", "jugador" + i, i * 7.125, -i * 3.375, false, true,
+                    "jugador" + i, i * 31));
+        }
+        for (long i = 1; i <= 12; i++) {
+            avatars.add(new AvatarState(i, "npc", null, -i * 5.0625, i * 2.8125, false, true,
+                    GameEngine.buildNpcAlias(i)));
+        }
+        state = new GameState("K7Q2ZD", 1_731_000_000_000L, 287, new GameState.Island(0.0, 0.0, 100.0), avatars,
+                36.0, "STARTED", new GameState.Boat(112.0, 0.0, 40.0), null, true, 0);
+        json = compressor.toJson(state);
+        System.out.printf("%n[snapshot] level=%d dictionary=%s json=%d bytes deflated=%d bytes%n", level, dictionary,
+                json.length, compressor.deflate(json).length);
+    }
+
+    @Benchmark
+    public byte[] json() {
+        state.setTimestamp(state.getTimestamp() + (++tick));
+        return compressor.toJson(state);
+    }
+
+    @Benchmark
+    public byte[] deflate() {
+        return compressor.deflate(json);
+    }
+}